@@ -13,8 +13,6 @@
 {
     private static long[] KeccakRoundConstants = keccakInitializeRoundConstants();
 
-    private static int[] KeccakRhoOffsets = keccakInitializeRhoOffsets();
-
     private static long[] keccakInitializeRoundConstants()
     {
         long[] keccakRoundConstants = new long[24];
@@ -54,26 +52,6 @@ private static boolean LFSR86540(byte[] LFSR)
         return result;
     }
 
-    private static int[] keccakInitializeRhoOffsets()
-    {
-        int[] keccakRhoOffsets = new int[25];
-        int x, y, t, newX, newY;
-
-        keccakRhoOffsets[(((0) % 5) + 5 * ((0) % 5))] = 0;
-        x = 1;
-        y = 0;
-        for (t = 0; t < 24; t++)
-        {
-            keccakRhoOffsets[(((x) % 5) + 5 * ((y) % 5))] = ((t + 1) * (t + 2) / 2) % 64;
-            newX = (0 * x + 1 * y) % 5;
-            newY = (2 * x + 3 * y) % 5;
-            x = newX;
-            y = newY;
-        }
-
-        return keccakRhoOffsets;
-    }
-
     protected byte[] state = new byte[(1600 / 8)];
     protected byte[] dataQueue = new byte[(1536 / 8)];
     protected int rate;
@@ -225,8 +203,15 @@ private void initSponge(int rate, int capacity)
         this.squeezing = false;
         this.bitsAvailableForSqueezing = 0;
         this.fixedOutputLength = capacity / 2;
-        this.chunk = new byte[rate / 8];
-        this.oneByte = new byte[1];
+        // reset() comes through here, so only allocate when the rate changes
+        if (this.chunk == null || this.chunk.length != rate / 8)
+        {
+            this.chunk = new byte[rate / 8];
+        }
+        if (this.oneByte == null)
+        {
+            this.oneByte = new byte[1];
+        }
     }
 
     private void absorbQueue()
@@ -405,18 +390,14 @@ private void fromWordsToBytes(byte[] state, long[] stateAsWords)
         }
     }
 
+    private long[] longState = new long[1600 / 64];
+
     private void keccakPermutation(byte[] state)
     {
-        long[] longState = new long[state.length / 8];
-
         fromBytesToWords(longState, state);
 
-//        displayIntermediateValues.displayStateAsBytes(1, "Input of permutation", longState);
-
         keccakPermutationOnWords(longState);
 
-//        displayIntermediateValues.displayStateAsBytes(1, "State after permutation", longState);
-
         fromWordsToBytes(state, longState);
     }
 
@@ -432,102 +413,116 @@ private void keccakPermutationAfterXor(byte[] state, byte[] data, int dataLength
         keccakPermutation(state);
     }
 
-    private void keccakPermutationOnWords(long[] state)
-    {
-        int i;
-
-//        displayIntermediateValues.displayStateAs64bitWords(3, "Same, with lanes as 64-bit words", state);
-
-        for (i = 0; i < 24; i++)
-        {
-//            displayIntermediateValues.displayRoundNumber(3, i);
-
-            theta(state);
-//            displayIntermediateValues.displayStateAs64bitWords(3, "After theta", state);
-
-            rho(state);
-//            displayIntermediateValues.displayStateAs64bitWords(3, "After rho", state);
-
-            pi(state);
-//            displayIntermediateValues.displayStateAs64bitWords(3, "After pi", state);
-
-            chi(state);
-//            displayIntermediateValues.displayStateAs64bitWords(3, "After chi", state);
-
-            iota(state, i);
-//            displayIntermediateValues.displayStateAs64bitWords(3, "After iota", state);
-        }
-    }
-
-    long[] C = new long[5];
-
-    private void theta(long[] A)
-    {
-        for (int x = 0; x < 5; x++)
-        {
-            C[x] = 0;
-            for (int y = 0; y < 5; y++)
-            {
-                C[x] ^= A[x + 5 * y];
-            }
-        }
-        for (int x = 0; x < 5; x++)
-        {
-            long dX = ((((C[(x + 1) % 5]) << 1) ^ ((C[(x + 1) % 5]) >>> (64 - 1)))) ^ C[(x + 4) % 5];
-            for (int y = 0; y < 5; y++)
-            {
-                A[x + 5 * y] ^= dX;
-            }
-        }
-    }
-
-    private void rho(long[] A)
-    {
-        for (int x = 0; x < 5; x++)
-        {
-            for (int y = 0; y < 5; y++)
-            {
-                int index = x + 5 * y;
-                A[index] = ((KeccakRhoOffsets[index] != 0) ? (((A[index]) << KeccakRhoOffsets[index]) ^ ((A[index]) >>> (64 - KeccakRhoOffsets[index]))) : A[index]);
-            }
-        }
-    }
-
-    long[] tempA = new long[25];
-
-    private void pi(long[] A)
+    /*
+     * The 24 rounds of theta, rho, pi, chi and iota, with the lanes held in locals. Lane
+     * x + 5 * y of the state is aXY.
+     */
+    private static void keccakPermutationOnWords(long[] A)
     {
-        System.arraycopy(A, 0, tempA, 0, tempA.length);
-
-        for (int x = 0; x < 5; x++)
-        {
-            for (int y = 0; y < 5; y++)
-            {
-                A[y + 5 * ((2 * x + 3 * y) % 5)] = tempA[x + 5 * y];
-            }
-        }
-    }
+        long a00 = A[ 0], a10 = A[ 1], a20 = A[ 2], a30 = A[ 3], a40 = A[ 4];
+        long a01 = A[ 5], a11 = A[ 6], a21 = A[ 7], a31 = A[ 8], a41 = A[ 9];
+        long a02 = A[10], a12 = A[11], a22 = A[12], a32 = A[13], a42 = A[14];
+        long a03 = A[15], a13 = A[16], a23 = A[17], a33 = A[18], a43 = A[19];
+        long a04 = A[20], a14 = A[21], a24 = A[22], a34 = A[23], a44 = A[24];
 
-    long[] chiC = new long[5];
-
-    private void chi(long[] A)
-    {
-        for (int y = 0; y < 5; y++)
+        for (int i = 0; i < 24; i++)
         {
-            for (int x = 0; x < 5; x++)
-            {
-                chiC[x] = A[x + 5 * y] ^ ((~A[(((x + 1) % 5) + 5 * y)]) & A[(((x + 2) % 5) + 5 * y)]);
-            }
-            for (int x = 0; x < 5; x++)
-            {
-                A[x + 5 * y] = chiC[x];
-            }
+            // theta
+            long c0 = a00 ^ a01 ^ a02 ^ a03 ^ a04;
+            long c1 = a10 ^ a11 ^ a12 ^ a13 ^ a14;
+            long c2 = a20 ^ a21 ^ a22 ^ a23 ^ a24;
+            long c3 = a30 ^ a31 ^ a32 ^ a33 ^ a34;
+            long c4 = a40 ^ a41 ^ a42 ^ a43 ^ a44;
+
+            long d1 = (c1 << 1 | c1 >>> -1) ^ c4;
+            long d2 = (c2 << 1 | c2 >>> -1) ^ c0;
+            long d3 = (c3 << 1 | c3 >>> -1) ^ c1;
+            long d4 = (c4 << 1 | c4 >>> -1) ^ c2;
+            long d0 = (c0 << 1 | c0 >>> -1) ^ c3;
+
+            a00 ^= d1; a01 ^= d1; a02 ^= d1; a03 ^= d1; a04 ^= d1;
+            a10 ^= d2; a11 ^= d2; a12 ^= d2; a13 ^= d2; a14 ^= d2;
+            a20 ^= d3; a21 ^= d3; a22 ^= d3; a23 ^= d3; a24 ^= d3;
+            a30 ^= d4; a31 ^= d4; a32 ^= d4; a33 ^= d4; a34 ^= d4;
+            a40 ^= d0; a41 ^= d0; a42 ^= d0; a43 ^= d0; a44 ^= d0;
+
+            // rho and pi - lane (x, y) moves to (y, 2x + 3y)
+            c1  = a10 <<  1 | a10 >>> 63;
+            a10 = a11 << 44 | a11 >>> 20;
+            a11 = a41 << 20 | a41 >>> 44;
+            a41 = a24 << 61 | a24 >>>  3;
+            a24 = a42 << 39 | a42 >>> 25;
+            a42 = a04 << 18 | a04 >>> 46;
+            a04 = a20 << 62 | a20 >>>  2;
+            a20 = a22 << 43 | a22 >>> 21;
+            a22 = a32 << 25 | a32 >>> 39;
+            a32 = a43 <<  8 | a43 >>> 56;
+            a43 = a34 << 56 | a34 >>>  8;
+            a34 = a03 << 41 | a03 >>> 23;
+            a03 = a40 << 27 | a40 >>> 37;
+            a40 = a44 << 14 | a44 >>> 50;
+            a44 = a14 <<  2 | a14 >>> 62;
+            a14 = a31 << 55 | a31 >>>  9;
+            a31 = a13 << 45 | a13 >>> 19;
+            a13 = a01 << 36 | a01 >>> 28;
+            a01 = a30 << 28 | a30 >>> 36;
+            a30 = a33 << 21 | a33 >>> 43;
+            a33 = a23 << 15 | a23 >>> 49;
+            a23 = a12 << 10 | a12 >>> 54;
+            a12 = a21 <<  6 | a21 >>> 58;
+            a21 = a02 <<  3 | a02 >>> 61;
+            a02 = c1;
+
+            // chi
+            c0 = a00 ^ (~a10 & a20);
+            c1 = a10 ^ (~a20 & a30);
+            a20 ^= ~a30 & a40;
+            a30 ^= ~a40 & a00;
+            a40 ^= ~a00 & a10;
+            a00 = c0;
+            a10 = c1;
+
+            c0 = a01 ^ (~a11 & a21);
+            c1 = a11 ^ (~a21 & a31);
+            a21 ^= ~a31 & a41;
+            a31 ^= ~a41 & a01;
+            a41 ^= ~a01 & a11;
+            a01 = c0;
+            a11 = c1;
+
+            c0 = a02 ^ (~a12 & a22);
+            c1 = a12 ^ (~a22 & a32);
+            a22 ^= ~a32 & a42;
+            a32 ^= ~a42 & a02;
+            a42 ^= ~a02 & a12;
+            a02 = c0;
+            a12 = c1;
+
+            c0 = a03 ^ (~a13 & a23);
+            c1 = a13 ^ (~a23 & a33);
+            a23 ^= ~a33 & a43;
+            a33 ^= ~a43 & a03;
+            a43 ^= ~a03 & a13;
+            a03 = c0;
+            a13 = c1;
+
+            c0 = a04 ^ (~a14 & a24);
+            c1 = a14 ^ (~a24 & a34);
+            a24 ^= ~a34 & a44;
+            a34 ^= ~a44 & a04;
+            a44 ^= ~a04 & a14;
+            a04 = c0;
+            a14 = c1;
+
+            // iota
+            a00 ^= KeccakRoundConstants[i];
         }
-    }
 
-    private void iota(long[] A, int indexRound)
-    {
-        A[(((0) % 5) + 5 * ((0) % 5))] ^= KeccakRoundConstants[indexRound];
+        A[ 0] = a00; A[ 1] = a10; A[ 2] = a20; A[ 3] = a30; A[ 4] = a40;
+        A[ 5] = a01; A[ 6] = a11; A[ 7] = a21; A[ 8] = a31; A[ 9] = a41;
+        A[10] = a02; A[11] = a12; A[12] = a22; A[13] = a32; A[14] = a42;
+        A[15] = a03; A[16] = a13; A[17] = a23; A[18] = a33; A[19] = a43;
+        A[20] = a04; A[21] = a14; A[22] = a24; A[23] = a34; A[24] = a44;
     }
 
     private void KeccakAbsorb(byte[] byteState, byte[] data, int dataInBytes)
@@ -270,6 +270,47 @@ protected void processBlock()
         }
     }
 
+    /**
+     * Run the compression function over a single block of message, starting from the chaining value
+     * the digest has reached, writing the resulting chaining value to out. The digest is left as it
+     * was, so a digest which has absorbed a common prefix can be used to process many different
+     * blocks following it, without being copied for each one.
+     *
+     * @param block the 16 words of the message block.
+     * @param out an array of at least 8 words to take the resulting chaining value.
+     * @throws IllegalStateException if the digest is holding part of a block.
+     */
+    public void processBlock(int[] block, int[] out)
+    {
+        if (xOff != 0)
+        {
+            throw new IllegalStateException("digest not on a block boundary");
+        }
+
+        int h1 = H1, h2 = H2, h3 = H3, h4 = H4, h5 = H5, h6 = H6, h7 = H7, h8 = H8;
+
+        System.arraycopy(block, 0, X, 0, 16);
+        processBlock();
+
+        out[0] = H1;
+        out[1] = H2;
+        out[2] = H3;
+        out[3] = H4;
+        out[4] = H5;
+        out[5] = H6;
+        out[6] = H7;
+        out[7] = H8;
+
+        H1 = h1;
+        H2 = h2;
+        H3 = h3;
+        H4 = h4;
+        H5 = h5;
+        H6 = h6;
+        H7 = h7;
+        H8 = h8;
+    }
+
     /* SHA-256 functions */
     private int Ch(
         int    x,
@@ -117,4 +117,9 @@ protected void generateKeyStream(byte[] output)
         ChaChaEngine.chachaCore(rounds, engineState, x);
         Pack.intToLittleEndian(x, output, 0);
     }
+
+    protected void xorKeyStream(byte[] in, int inOff, byte[] out, int outOff)
+    {
+        ChaChaEngine.chachaXor(rounds, engineState, in, inOff, out, outOff);
+    }
 }
@@ -141,6 +141,100 @@ protected void generateKeyStream(byte[] output)
         Pack.intToLittleEndian(x, output, 0);
     }
 
+    protected void xorKeyStream(byte[] in, int inOff, byte[] out, int outOff)
+    {
+        chachaXor(rounds, engineState, in, inOff, out, outOff);
+    }
+
+    /**
+     * ChaCha function, with the resulting key stream block XORed directly with a 64 byte block of input.
+     * The whole computation is done in locals, so no intermediate key stream is stored.
+     *
+     * @param   rounds  the number of rounds.
+     * @param   input   the engine state.
+     * @param   in      the input data.
+     * @param   inOff   offset into the input data.
+     * @param   out     the output buffer.
+     * @param   outOff  offset into the output buffer.
+     */
+    static void chachaXor(int rounds, int[] input, byte[] in, int inOff, byte[] out, int outOff)
+    {
+        int x00 = input[ 0];
+        int x01 = input[ 1];
+        int x02 = input[ 2];
+        int x03 = input[ 3];
+        int x04 = input[ 4];
+        int x05 = input[ 5];
+        int x06 = input[ 6];
+        int x07 = input[ 7];
+        int x08 = input[ 8];
+        int x09 = input[ 9];
+        int x10 = input[10];
+        int x11 = input[11];
+        int x12 = input[12];
+        int x13 = input[13];
+        int x14 = input[14];
+        int x15 = input[15];
+
+        for (int i = rounds; i > 0; i -= 2)
+        {
+            x00 += x04; x12 = rotl(x12 ^ x00, 16);
+            x08 += x12; x04 = rotl(x04 ^ x08, 12);
+            x00 += x04; x12 = rotl(x12 ^ x00, 8);
+            x08 += x12; x04 = rotl(x04 ^ x08, 7);
+            x01 += x05; x13 = rotl(x13 ^ x01, 16);
+            x09 += x13; x05 = rotl(x05 ^ x09, 12);
+            x01 += x05; x13 = rotl(x13 ^ x01, 8);
+            x09 += x13; x05 = rotl(x05 ^ x09, 7);
+            x02 += x06; x14 = rotl(x14 ^ x02, 16);
+            x10 += x14; x06 = rotl(x06 ^ x10, 12);
+            x02 += x06; x14 = rotl(x14 ^ x02, 8);
+            x10 += x14; x06 = rotl(x06 ^ x10, 7);
+            x03 += x07; x15 = rotl(x15 ^ x03, 16);
+            x11 += x15; x07 = rotl(x07 ^ x11, 12);
+            x03 += x07; x15 = rotl(x15 ^ x03, 8);
+            x11 += x15; x07 = rotl(x07 ^ x11, 7);
+            x00 += x05; x15 = rotl(x15 ^ x00, 16);
+            x10 += x15; x05 = rotl(x05 ^ x10, 12);
+            x00 += x05; x15 = rotl(x15 ^ x00, 8);
+            x10 += x15; x05 = rotl(x05 ^ x10, 7);
+            x01 += x06; x12 = rotl(x12 ^ x01, 16);
+            x11 += x12; x06 = rotl(x06 ^ x11, 12);
+            x01 += x06; x12 = rotl(x12 ^ x01, 8);
+            x11 += x12; x06 = rotl(x06 ^ x11, 7);
+            x02 += x07; x13 = rotl(x13 ^ x02, 16);
+            x08 += x13; x07 = rotl(x07 ^ x08, 12);
+            x02 += x07; x13 = rotl(x13 ^ x02, 8);
+            x08 += x13; x07 = rotl(x07 ^ x08, 7);
+            x03 += x04; x14 = rotl(x14 ^ x03, 16);
+            x09 += x14; x04 = rotl(x04 ^ x09, 12);
+            x03 += x04; x14 = rotl(x14 ^ x03, 8);
+            x09 += x14; x04 = rotl(x04 ^ x09, 7);
+        }
+
+        xorWord(x00 + input[ 0], in, inOff     , out, outOff     );
+        xorWord(x01 + input[ 1], in, inOff +  4, out, outOff +  4);
+        xorWord(x02 + input[ 2], in, inOff +  8, out, outOff +  8);
+        xorWord(x03 + input[ 3], in, inOff + 12, out, outOff + 12);
+        xorWord(x04 + input[ 4], in, inOff + 16, out, outOff + 16);
+        xorWord(x05 + input[ 5], in, inOff + 20, out, outOff + 20);
+        xorWord(x06 + input[ 6], in, inOff + 24, out, outOff + 24);
+        xorWord(x07 + input[ 7], in, inOff + 28, out, outOff + 28);
+        xorWord(x08 + input[ 8], in, inOff + 32, out, outOff + 32);
+        xorWord(x09 + input[ 9], in, inOff + 36, out, outOff + 36);
+        xorWord(x10 + input[10], in, inOff + 40, out, outOff + 40);
+        xorWord(x11 + input[11], in, inOff + 44, out, outOff + 44);
+        xorWord(x12 + input[12], in, inOff + 48, out, outOff + 48);
+        xorWord(x13 + input[13], in, inOff + 52, out, outOff + 52);
+        xorWord(x14 + input[14], in, inOff + 56, out, outOff + 56);
+        xorWord(x15 + input[15], in, inOff + 60, out, outOff + 60);
+    }
+
+    private static void xorWord(int k, byte[] in, int inOff, byte[] out, int outOff)
+    {
+        Pack.intToLittleEndian(Pack.littleEndianToInt(in, inOff) ^ k, out, outOff);
+    }
+
     /**
      * ChaCha function
      *
@@ -9,7 +9,6 @@
 import org.bouncycastle.crypto.params.ParametersWithRandom;
 import org.bouncycastle.crypto.params.RSAKeyParameters;
 import org.bouncycastle.crypto.params.RSAPrivateCrtKeyParameters;
-import org.bouncycastle.util.BigIntegers;
 
 /**
  * this does your basic RSA algorithm with blinding
@@ -17,11 +16,10 @@
 public class RSABlindedEngine
     implements AsymmetricBlockCipher
 {
-    private static final BigInteger ONE = BigInteger.valueOf(1);
-
     private RSACoreEngine    core = new RSACoreEngine();
     private RSAKeyParameters key;
     private SecureRandom     random;
+    private RSABlindingCache blinding;
 
     /**
      * initialise the RSA engine.
@@ -103,13 +101,18 @@ public byte[] processBlock(
             if (e != null)   // can't do blinding without a public exponent
             {
                 BigInteger m = k.getModulus();
-                BigInteger r = BigIntegers.createRandomInRange(ONE, m.subtract(ONE), random);
+                if (blinding == null || !blinding.isFor(m, e))
+                {
+                    // kept when re-initialised with the same key, as JCA Signature and Cipher objects are for each use.
+                    blinding = new RSABlindingCache(m, e);
+                }
+
+                BigInteger[] pair = blinding.nextPair(random);
 
-                BigInteger blindedInput = r.modPow(e, m).multiply(input).mod(m);
+                BigInteger blindedInput = pair[0].multiply(input).mod(m);
                 BigInteger blindedResult = core.processBlock(blindedInput);
 
-                BigInteger rInv = r.modInverse(m);
-                result = blindedResult.multiply(rInv).mod(m);
+                result = blindedResult.multiply(pair[1]).mod(m);
                 // defence against Arjen Lenstra’s CRT attack
                 if (!input.equals(result.modPow(e, m)))
                 {
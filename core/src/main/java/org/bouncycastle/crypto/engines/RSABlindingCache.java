@@ -0,0 +1,71 @@
+package org.bouncycastle.crypto.engines;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+
+import org.bouncycastle.util.BigIntegers;
+
+/**
+ * Source of RSA blinding factors for one engine. A new random factor r is only generated every
+ * REFRESH_COUNT uses, in between the pair (r^e mod n, r^-1 mod n) is updated by squaring
+ * both values, which saves a modular exponentiation and an inversion per operation.
+ * <p>
+ * Like the engine owning it an instance is not thread safe, and each pair is only handed out once.
+ * </p>
+ */
+class RSABlindingCache
+{
+    private static final BigInteger ONE = BigInteger.valueOf(1);
+
+    private static final int REFRESH_COUNT = 32;
+
+    private final BigInteger modulus;
+    private final BigInteger exponent;
+
+    private BigInteger blind;
+    private BigInteger unblind;
+    private int        count = 0;
+
+    RSABlindingCache(BigInteger modulus, BigInteger exponent)
+    {
+        this.modulus = modulus;
+        this.exponent = exponent;
+    }
+
+    /**
+     * Return true if the factors are for a key with the passed in modulus and public exponent.
+     */
+    boolean isFor(BigInteger modulus, BigInteger exponent)
+    {
+        return this.modulus.equals(modulus) && this.exponent.equals(exponent);
+    }
+
+    /**
+     * Return the next blinding pair, { r^e mod n, r^-1 mod n }.
+     *
+     * @param random source of randomness for a new r, if one is due.
+     * @return a blinding pair not handed out before.
+     */
+    BigInteger[] nextPair(SecureRandom random)
+    {
+        if (count == 0)
+        {
+            BigInteger r = BigIntegers.createRandomInRange(ONE, modulus.subtract(ONE), random);
+
+            blind = r.modPow(exponent, modulus);
+            unblind = r.modInverse(modulus);
+        }
+        else
+        {
+            blind = blind.multiply(blind).mod(modulus);
+            unblind = unblind.multiply(unblind).mod(modulus);
+        }
+
+        if (++count == REFRESH_COUNT)
+        {
+            count = 0;
+        }
+
+        return new BigInteger[] { blind, unblind };
+    }
+}
@@ -269,7 +269,10 @@ public int processBytes(
             throw new MaxBytesExceededException("2^70 byte limit per IV would be exceeded; Change IV");
         }
 
-        for (int i = 0; i < len; i++)
+        int i = 0;
+
+        // use up any partial block first
+        while (index != 0 && i < len)
         {
             out[i + outOff] = (byte)(keyStream[index] ^ in[i + inOff]);
             index = (index + 1) & 63;
@@ -279,11 +282,81 @@ public int processBytes(
                 advanceCounter();
                 generateKeyStream(keyStream);
             }
+            i++;
+        }
+
+        int blocks = (len - i) >>> 6;
+        if (blocks > 0)
+        {
+            processBlocks(in, inOff + i, blocks, out, outOff + i);
+            i += blocks << 6;
+        }
+
+        for (; i < len; i++)
+        {
+            out[i + outOff] = (byte)(keyStream[index] ^ in[i + inOff]);
+            index = (index + 1) & 63;
         }
 
         return len;
     }
 
+    /**
+     * Process a number of whole 64 byte blocks, starting at a block boundary. On entry keyStream holds
+     * the key stream block for the current counter, on exit the counter has been advanced by blocks and
+     * keyStream holds the key stream block for the new counter value.
+     *
+     * @param in the input data.
+     * @param inOff offset into the input data.
+     * @param blocks the number of 64 byte blocks to process.
+     * @param out the output buffer.
+     * @param outOff offset into the output buffer.
+     */
+    private void processBlocks(byte[] in, int inOff, int blocks, byte[] out, int outOff)
+    {
+        // the key stream for the first block has already been generated.
+        xorBlock(keyStream, in, inOff, out, outOff);
+        advanceCounter();
+
+        for (int b = 1; b < blocks; b++)
+        {
+            inOff += 64;
+            outOff += 64;
+
+            xorKeyStream(in, inOff, out, outOff);
+            advanceCounter();
+        }
+
+        generateKeyStream(keyStream);
+    }
+
+    /**
+     * XOR a 64 byte block of input with the key stream block for the current counter. Engines whose
+     * core can produce the key stream and XOR it in one pass, without storing it, should override this.
+     *
+     * @param in the input data.
+     * @param inOff offset into the input data.
+     * @param out the output buffer.
+     * @param outOff offset into the output buffer.
+     */
+    protected void xorKeyStream(byte[] in, int inOff, byte[] out, int outOff)
+    {
+        generateKeyStream(keyStream);
+        xorBlock(keyStream, in, inOff, out, outOff);
+    }
+
+    /**
+     * XOR a 64 byte block of input with a block of key stream, a word at a time.
+     */
+    private static void xorBlock(byte[] keyStream, byte[] in, int inOff, byte[] out, int outOff)
+    {
+        for (int i = 0; i < 64; i += 4)
+        {
+            int w = Pack.littleEndianToInt(in, inOff + i) ^ Pack.littleEndianToInt(keyStream, i);
+            Pack.intToLittleEndian(w, out, outOff + i);
+        }
+    }
+
     public long skip(long numberOfBytes)
     {
         if (numberOfBytes >= 0)
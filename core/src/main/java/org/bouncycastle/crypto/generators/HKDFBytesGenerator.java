@@ -5,8 +5,10 @@
 import org.bouncycastle.crypto.DerivationParameters;
 import org.bouncycastle.crypto.Digest;
 import org.bouncycastle.crypto.macs.HMac;
+import org.bouncycastle.crypto.macs.PreparedHMacKey;
 import org.bouncycastle.crypto.params.HKDFParameters;
 import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.util.Arrays;
 
 /**
  * HMAC-based Extract-and-Expand Key Derivation Function (HKDF) implemented
@@ -14,6 +16,10 @@
  * Research &amp; P. Eronen, Nokia. It uses a HMac internally to compute de OKM
  * (output keying material) and is likely to have better security properties
  * than KDF's based on just a hash function.
+ * <p>
+ * The salt is usually fixed for an application, so the HMAC key prepared from the last salt used
+ * is kept, and reused by the extract step if the next salt is the same.
+ * </p>
  */
 public class HKDFBytesGenerator
     implements DerivationFunction
@@ -27,6 +33,9 @@
 
     private int generatedBytes;
 
+    private byte[] lastSalt;
+    private PreparedHMacKey saltKey;
+
     /**
      * Creates a HKDFBytesGenerator based on the given hash function.
      *
@@ -72,17 +81,19 @@ public void init(DerivationParameters param)
      */
     private KeyParameter extract(byte[] salt, byte[] ikm)
     {
-        hMacHash.init(new KeyParameter(ikm));
         if (salt == null)
         {
             // TODO check if hashLen is indeed same as HMAC size
-            hMacHash.init(new KeyParameter(new byte[hashLen]));
+            salt = new byte[hashLen];
         }
-        else
+
+        if (saltKey == null || !Arrays.areEqual(salt, lastSalt))
         {
-            hMacHash.init(new KeyParameter(salt));
+            saltKey = hMacHash.prepareKey(new KeyParameter(salt));
+            lastSalt = Arrays.clone(salt);
         }
 
+        hMacHash.init(saltKey);
         hMacHash.update(ikm, 0, ikm.length);
 
         byte[] prk = new byte[hashLen];
@@ -0,0 +1,223 @@
+package org.bouncycastle.crypto.generators;
+
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.ExtendedDigest;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.macs.HMac;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.Memoable;
+import org.bouncycastle.util.Pack;
+
+/**
+ * The PBKDF2 block function F of PKCS 5 V2.0 Scheme 2, using HMAC as the pseudo-random function.
+ * <p>
+ * Rather than going through {@link HMac} for every iteration, the digest states after processing the
+ * keyed inner and outer pads are taken once, when the password is set, and every iteration starts from
+ * copies of them. For SHA-256 the iterations are run a block at a time from these states using
+ * {@link SHA256Digest#processBlock(int[], int[])}, as the messages hashed are all the same length and
+ * padding them only has to be done once per block. Digests which are not {@link Memoable} are handled
+ * with {@link HMac}.
+ * </p><p>
+ * Once the password has been set, blocks may be computed concurrently if {@link #isConcurrent()}
+ * returns true.
+ * </p>
+ */
+final class PKCS5S2Engine
+{
+    private static final byte IPAD = (byte)0x36;
+    private static final byte OPAD = (byte)0x5C;
+
+    private final Digest digest;
+    private final int hLen;
+    private final boolean sha256;
+
+    private Memoable ipadState;
+    private Memoable opadState;
+    private HMac hMac;
+
+    PKCS5S2Engine(Digest digest)
+    {
+        this.digest = digest;
+        this.hLen = digest.getDigestSize();
+        this.sha256 = digest instanceof SHA256Digest;
+    }
+
+    int getHashLength()
+    {
+        return hLen;
+    }
+
+    /**
+     * Return true if different blocks may be computed at the same time.
+     */
+    boolean isConcurrent()
+    {
+        return hMac == null;
+    }
+
+    void init(byte[] password)
+    {
+        if (!(digest instanceof Memoable) || !(digest instanceof ExtendedDigest))
+        {
+            if (hMac == null)
+            {
+                hMac = new HMac(digest);
+            }
+            hMac.init(new KeyParameter(password));
+            return;
+        }
+
+        int blockLength = ((ExtendedDigest)digest).getByteLength();
+        byte[] pad = new byte[blockLength];
+
+        digest.reset();
+        if (password.length > blockLength)
+        {
+            digest.update(password, 0, password.length);
+            digest.doFinal(pad, 0);
+        }
+        else
+        {
+            System.arraycopy(password, 0, pad, 0, password.length);
+        }
+
+        xorPad(pad, IPAD);
+        digest.update(pad, 0, blockLength);
+        ipadState = ((Memoable)digest).copy();
+
+        xorPad(pad, (byte)(IPAD ^ OPAD));
+        digest.reset();
+        digest.update(pad, 0, blockLength);
+        opadState = ((Memoable)digest).copy();
+
+        digest.reset();
+        Arrays.fill(pad, (byte)0);
+    }
+
+    /**
+     * Compute block i of the derived key.
+     *
+     * @param S the salt, may be null.
+     * @param c the iteration count.
+     * @param i the (1 based) index of the block.
+     * @param out the array to write the block to.
+     * @param outOff the offset into out to start at.
+     */
+    void F(byte[] S, int c, int i, byte[] out, int outOff)
+    {
+        if (c == 0)
+        {
+            throw new IllegalArgumentException("iteration count must be at least 1.");
+        }
+
+        byte[] iBuf = Pack.intToBigEndian(i);
+
+        if (hMac != null)
+        {
+            byte[] state = new byte[hLen];
+
+            if (S != null)
+            {
+                hMac.update(S, 0, S.length);
+            }
+            hMac.update(iBuf, 0, iBuf.length);
+            hMac.doFinal(state, 0);
+
+            System.arraycopy(state, 0, out, outOff, hLen);
+
+            for (int count = 1; count < c; count++)
+            {
+                hMac.update(state, 0, hLen);
+                hMac.doFinal(state, 0);
+
+                xorBlock(state, out, outOff);
+            }
+            return;
+        }
+
+        Digest d = (Digest)ipadState.copy();
+        byte[] U = new byte[hLen];
+
+        // the first message is the only one which depends on the salt, so is done the usual way.
+        if (S != null)
+        {
+            d.update(S, 0, S.length);
+        }
+        d.update(iBuf, 0, iBuf.length);
+        d.doFinal(U, 0);
+        ((Memoable)d).reset(opadState);
+        d.update(U, 0, hLen);
+        d.doFinal(U, 0);
+
+        System.arraycopy(U, 0, out, outOff, hLen);
+
+        if (sha256)
+        {
+            iterateSHA256(U, c, out, outOff);
+            return;
+        }
+
+        for (int count = 1; count < c; count++)
+        {
+            ((Memoable)d).reset(ipadState);
+            d.update(U, 0, hLen);
+            d.doFinal(U, 0);
+            ((Memoable)d).reset(opadState);
+            d.update(U, 0, hLen);
+            d.doFinal(U, 0);
+
+            xorBlock(U, out, outOff);
+        }
+    }
+
+    private void iterateSHA256(byte[] U1, int c, byte[] out, int outOff)
+    {
+        // each F has its own copies, as processBlock() uses the digest's message schedule.
+        SHA256Digest inner = (SHA256Digest)ipadState.copy();
+        SHA256Digest outer = (SHA256Digest)opadState.copy();
+
+        int[] U = new int[8];
+        int[] T = new int[8];
+        int[] X = new int[16];
+
+        Pack.bigEndianToInt(U1, 0, U);
+        System.arraycopy(U, 0, T, 0, 8);
+
+        // both the inner and outer messages are 32 bytes following a block, the padding never changes.
+        X[8] = 0x80000000;
+        X[15] = (64 + 32) * 8;
+
+        for (int count = 1; count < c; count++)
+        {
+            System.arraycopy(U, 0, X, 0, 8);
+            // the inner hash replaces U as the start of the outer message.
+            inner.processBlock(X, X);
+
+            outer.processBlock(X, U);
+
+            for (int j = 0; j != 8; j++)
+            {
+                T[j] ^= U[j];
+            }
+        }
+
+        Pack.intToBigEndian(T, out, outOff);
+    }
+
+    private static void xorPad(byte[] pad, byte n)
+    {
+        for (int i = 0; i < pad.length; ++i)
+        {
+            pad[i] ^= n;
+        }
+    }
+
+    private static void xorBlock(byte[] block, byte[] out, int outOff)
+    {
+        for (int j = 0; j != block.length; j++)
+        {
+            out[outOff + j] ^= block[j];
+        }
+    }
+}
@@ -2,10 +2,8 @@
 
 import org.bouncycastle.crypto.CipherParameters;
 import org.bouncycastle.crypto.Digest;
-import org.bouncycastle.crypto.Mac;
 import org.bouncycastle.crypto.PBEParametersGenerator;
 import org.bouncycastle.crypto.digests.SHA1Digest;
-import org.bouncycastle.crypto.macs.HMac;
 import org.bouncycastle.crypto.params.KeyParameter;
 import org.bouncycastle.crypto.params.ParametersWithIV;
 import org.bouncycastle.util.Arrays;
@@ -21,8 +19,7 @@
 public class PKCS5S2ParametersGenerator
     extends PBEParametersGenerator
 {
-    private Mac hMac;
-    private byte[] state;
+    final PKCS5S2Engine engine;
 
     /**
      * construct a PKCS5 Scheme 2 Parameters generator.
@@ -34,67 +31,22 @@ public PKCS5S2ParametersGenerator()
 
     public PKCS5S2ParametersGenerator(Digest digest)
     {
-        hMac = new HMac(digest);
-        state = new byte[hMac.getMacSize()];
+        engine = new PKCS5S2Engine(digest);
     }
 
-    private void F(
-        byte[]  S,
-        int     c,
-        byte[]  iBuf,
-        byte[]  out,
-        int     outOff)
-    {
-        if (c == 0)
-        {
-            throw new IllegalArgumentException("iteration count must be at least 1.");
-        }
-
-        if (S != null)
-        {
-            hMac.update(S, 0, S.length);
-        }
-
-        hMac.update(iBuf, 0, iBuf.length);
-        hMac.doFinal(state, 0);
-
-        System.arraycopy(state, 0, out, outOff, state.length);
-
-        for (int count = 1; count < c; count++)
-        {
-            hMac.update(state, 0, state.length);
-            hMac.doFinal(state, 0);
-
-            for (int j = 0; j != state.length; j++)
-            {
-                out[outOff + j] ^= state[j];
-            }
-        }
-    }
-
-    private byte[] generateDerivedKey(
+    byte[] generateDerivedKey(
         int dkLen)
     {
-        int     hLen = hMac.getMacSize();
+        int     hLen = engine.getHashLength();
         int     l = (dkLen + hLen - 1) / hLen;
-        byte[]  iBuf = new byte[4];
         byte[]  outBytes = new byte[l * hLen];
         int     outPos = 0;
 
-        CipherParameters param = new KeyParameter(password);
-
-        hMac.init(param);
+        engine.init(password);
 
         for (int i = 1; i <= l; i++)
         {
-            // Increment the value in 'iBuf'
-            int pos = 3;
-            while (++iBuf[pos] == 0)
-            {
-                --pos;
-            }
-
-            F(salt, iterationCount, iBuf, outBytes, outPos);
+            engine.F(salt, iterationCount, i, outBytes, outPos);
             outPos += hLen;
         }
 
@@ -0,0 +1,118 @@
+package org.bouncycastle.crypto.generators;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.util.FutureTasks;
+
+/**
+ * A version of the PKCS 5 V2.0 Scheme 2 generator which computes the blocks of the derived key
+ * on a supplied executor. The output is identical to {@link PKCS5S2ParametersGenerator}.
+ * <p>
+ * Each block of the derived key takes the full iteration count to compute, so where more key
+ * material is requested than the digest produces, for example a key and an IV, or a 256 bit key
+ * using SHA-1, the time taken is reduced to that of a single block given enough threads. The
+ * calling thread also computes blocks, so derived keys of a single block are computed without
+ * using the executor.
+ * </p>
+ */
+public class ParallelPKCS5S2ParametersGenerator
+    extends PKCS5S2ParametersGenerator
+{
+    private final Executor executor;
+
+    /**
+     * Base constructor.
+     *
+     * @param digest the digest to use with HMAC as the pseudo-random function.
+     * @param executor the executor to compute the blocks of the derived key on.
+     */
+    public ParallelPKCS5S2ParametersGenerator(Digest digest, Executor executor)
+    {
+        super(digest);
+
+        if (executor == null)
+        {
+            throw new IllegalArgumentException("Executor must be provided.");
+        }
+
+        this.executor = executor;
+    }
+
+    byte[] generateDerivedKey(
+        int dkLen)
+    {
+        final int     hLen = engine.getHashLength();
+        final int     l = (dkLen + hLen - 1) / hLen;
+        final byte[]  outBytes = new byte[l * hLen];
+
+        engine.init(password);
+
+        if (l < 2 || !engine.isConcurrent())
+        {
+            for (int i = 1; i <= l; i++)
+            {
+                engine.F(salt, iterationCount, i, outBytes, (i - 1) * hLen);
+            }
+
+            return outBytes;
+        }
+
+        final byte[] S = salt;
+        final int c = iterationCount;
+        final AtomicInteger nextBlock = new AtomicInteger(1);
+
+        Runnable worker = new Runnable()
+        {
+            public void run()
+            {
+                int i;
+                while ((i = nextBlock.getAndIncrement()) <= l)
+                {
+                    engine.F(S, c, i, outBytes, (i - 1) * hLen);
+                }
+            }
+        };
+
+        // the calling thread also works on the blocks, so only l - 1 tasks are submitted.
+        FutureTask[] tasks = new FutureTask[l - 1];
+        for (int i = 0; i != tasks.length; i++)
+        {
+            tasks[i] = new FutureTask(worker, null);
+            try
+            {
+                executor.execute(tasks[i]);
+            }
+            catch (RejectedExecutionException e)
+            {
+                // the calling thread will pick up the remaining blocks.
+            }
+        }
+
+        worker.run();
+
+        for (int i = 0; i != tasks.length; i++)
+        {
+            waitFor(tasks[i]);
+        }
+
+        return outBytes;
+    }
+
+    private static void waitFor(FutureTask task)
+    {
+        try
+        {
+            // the blocks are written into the caller's buffer, so we must not return before they finish.
+            FutureTasks.runAndWait(task);
+        }
+        catch (ExecutionException e)
+        {
+            throw new IllegalStateException("PBKDF2 block computation failed: " + e.getCause(), e.getCause());
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package org.bouncycastle.crypto.generators;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.bouncycastle.util.FutureTasks;
+import org.bouncycastle.util.Pack;
+
+/**
+ * A version of the scrypt key derivation function which runs the p independent SMix lanes
+ * on a supplied executor. The output is identical to {@link SCrypt#generate(byte[], byte[], int, int, int, int)}.
+ * <p>
+ * Each lane in progress requires 128 * r * N bytes of working memory, the number of lanes
+ * run at the same time is limited so that this does not exceed the maxMemory passed in. A
+ * single lane is always allowed, even if its memory requirement is greater than maxMemory.
+ * </p>
+ */
+public class ParallelSCrypt
+{
+    /**
+     * Generate a key using the scrypt key derivation function, running the parallelisation
+     * lanes concurrently on the passed in executor.
+     *
+     * @param P the bytes of the pass phrase.
+     * @param S the salt to use for this invocation.
+     * @param N CPU/Memory cost parameter. Must be larger than 1, a power of 2 and less than
+     *            <code>2^(128 * r / 8)</code>.
+     * @param r the block size, must be >= 1.
+     * @param p Parallelization parameter. Must be a positive integer less than or equal to
+     *            <code>Integer.MAX_VALUE / (128 * r * 8)</code>.
+     * @param dkLen the length of the key to generate.
+     * @param executor the executor to run the SMix lanes on.
+     * @param maxMemory the upper bound, in bytes, on the working memory used by lanes in progress.
+     * @return the generated key.
+     */
+    public static byte[] generate(byte[] P, byte[] S, int N, int r, int p, int dkLen, Executor executor, long maxMemory)
+    {
+        SCrypt.checkParameters(P, S, N, r, p, dkLen);
+
+        if (executor == null)
+        {
+            throw new IllegalArgumentException("Executor must be provided.");
+        }
+
+        long laneMemory = 128L * r * N;
+        int  maxLanes = (int)Math.max(1, Math.min(p, maxMemory / laneMemory));
+
+        return MFcrypt(P, S, N, r, p, dkLen, executor, maxLanes);
+    }
+
+    private static byte[] MFcrypt(byte[] P, byte[] S, final int N, final int r, final int p, int dkLen, Executor executor, int maxLanes)
+    {
+        final int MFLenBytes = r * 128;
+        byte[] bytes = SCrypt.SingleIterationPBKDF2(P, S, p * MFLenBytes);
+
+        int[] B = null;
+
+        try
+        {
+            int BLen = bytes.length >>> 2;
+            B = new int[BLen];
+
+            Pack.littleEndianToInt(bytes, 0, B);
+
+            final int[] lanes = B;
+            final int MFLenWords = MFLenBytes >>> 2;
+            final AtomicInteger nextLane = new AtomicInteger(0);
+
+            Runnable worker = new Runnable()
+            {
+                public void run()
+                {
+                    int lane;
+                    while ((lane = nextLane.getAndIncrement()) < p)
+                    {
+                        SCrypt.SMix(lanes, lane * MFLenWords, N, r);
+                    }
+                }
+            };
+
+            // the calling thread also works on the lanes, so only maxLanes - 1 tasks are submitted.
+            FutureTask[] tasks = new FutureTask[maxLanes - 1];
+            for (int i = 0; i != tasks.length; i++)
+            {
+                tasks[i] = new FutureTask(worker, null);
+                try
+                {
+                    executor.execute(tasks[i]);
+                }
+                catch (RejectedExecutionException e)
+                {
+                    // the task will be run by the calling thread in waitFor().
+                }
+            }
+
+            worker.run();
+
+            for (int i = 0; i != tasks.length; i++)
+            {
+                waitFor(tasks[i]);
+            }
+
+            Pack.intToLittleEndian(B, bytes, 0);
+
+            return SCrypt.SingleIterationPBKDF2(P, bytes, dkLen);
+        }
+        finally
+        {
+            SCrypt.Clear(bytes);
+            SCrypt.Clear(B);
+        }
+    }
+
+    private static void waitFor(FutureTask task)
+    {
+        try
+        {
+            // the lanes share the caller's buffer, so we must not return before they finish.
+            FutureTasks.runAndWait(task);
+        }
+        catch (ExecutionException e)
+        {
+            throw new IllegalStateException("SMix lane failed: " + e.getCause(), e.getCause());
+        }
+    }
+}
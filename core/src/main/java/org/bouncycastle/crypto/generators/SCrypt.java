@@ -31,6 +31,13 @@
      * @return the generated key.
      */
     public static byte[] generate(byte[] P, byte[] S, int N, int r, int p, int dkLen)
+    {
+        checkParameters(P, S, N, r, p, dkLen);
+
+        return MFcrypt(P, S, N, r, p, dkLen);
+    }
+
+    static void checkParameters(byte[] P, byte[] S, int N, int r, int p, int dkLen)
     {
         if (P== null)
         {
@@ -63,7 +70,6 @@ public static byte[] generate(byte[] P, byte[] S, int N, int r, int p, int dkLen
         {
             throw new IllegalArgumentException("Generated key length dkLen must be >= 1.");
         }
-        return MFcrypt(P, S, N, r, p, dkLen);
     }
 
     private static byte[] MFcrypt(byte[] P, byte[] S, int N, int r, int p, int dkLen)
@@ -83,7 +89,6 @@ private static byte[] MFcrypt(byte[] P, byte[] S, int N, int r, int p, int dkLen
             int MFLenWords = MFLenBytes >>> 2;
             for (int BOff = 0; BOff < BLen; BOff += MFLenWords)
             {
-                // TODO These can be done in parallel threads
                 SMix(B, BOff, N, r);
             }
 
@@ -98,7 +103,7 @@ private static byte[] MFcrypt(byte[] P, byte[] S, int N, int r, int p, int dkLen
         }
     }
 
-    private static byte[] SingleIterationPBKDF2(byte[] P, byte[] S, int dkLen)
+    static byte[] SingleIterationPBKDF2(byte[] P, byte[] S, int dkLen)
     {
         PBEParametersGenerator pGen = new PKCS5S2ParametersGenerator(new SHA256Digest());
         pGen.init(P, S, 1);
@@ -106,7 +111,7 @@ private static byte[] SingleIterationPBKDF2(byte[] P, byte[] S, int dkLen)
         return key.getKey();
     }
 
-    private static void SMix(int[] B, int BOff, int N, int r)
+    static void SMix(int[] B, int BOff, int N, int r)
     {
         int BCount = r * 32;
 
@@ -172,7 +177,7 @@ private static void Xor(int[] a, int[] b, int bOff, int[] output)
         }
     }
 
-    private static void Clear(byte[] array)
+    static void Clear(byte[] array)
     {
         if (array != null)
         {
@@ -180,7 +185,7 @@ private static void Clear(byte[] array)
         }
     }
 
-    private static void Clear(int[] array)
+    static void Clear(int[] array)
     {
         if (array != null)
         {
@@ -7,6 +7,7 @@
 import org.bouncycastle.crypto.ExtendedDigest;
 import org.bouncycastle.crypto.Mac;
 import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.util.Arrays;
 import org.bouncycastle.util.Integers;
 import org.bouncycastle.util.Memoable;
 
@@ -106,9 +107,22 @@ public Digest getUnderlyingDigest()
         return digest;
     }
 
+    /**
+     * Initialise the mac with a key, either a {@link KeyParameter} or a {@link PreparedHMacKey}
+     * prepared for the same digest as this mac uses.
+     *
+     * @param params the key to use.
+     * @throws IllegalArgumentException if a prepared key is for a different digest.
+     */
     public void init(
         CipherParameters params)
     {
+        if (params instanceof PreparedHMacKey)
+        {
+            init((PreparedHMacKey)params);
+            return;
+        }
+
         digest.reset();
 
         byte[] key = ((KeyParameter)params).getKey();
@@ -151,6 +165,78 @@ public void init(
         }
     }
 
+    private void init(
+        PreparedHMacKey key)
+    {
+        if (!key.isFor(digest))
+        {
+            throw new IllegalArgumentException("prepared key is for a different digest");
+        }
+
+        if (key.getIPadState() == null)
+        {
+            init(key.getKey());
+            return;
+        }
+
+        // the saved states are only ever read from, so need not be copied.
+        ipadState = key.getIPadState();
+        opadState = key.getOPadState();
+
+        ((Memoable)digest).reset(ipadState);
+    }
+
+    /**
+     * Absorb a key into the inner and outer digests once, so the mac, or any other HMac using the same
+     * digest, can later be initialised with it without hashing the key again. The current state of this
+     * mac is not affected.
+     *
+     * @param params a KeyParameter for the key.
+     * @return the prepared key, to pass to {@link #init(CipherParameters)}.
+     */
+    public PreparedHMacKey prepareKey(
+        CipherParameters params)
+    {
+        KeyParameter keyParam = (KeyParameter)params;
+
+        if (!(digest instanceof Memoable))
+        {
+            return new PreparedHMacKey(digest, null, null, new KeyParameter(keyParam.getKey()));
+        }
+
+        Digest d = (Digest)((Memoable)digest).copy();
+        byte[] key = keyParam.getKey();
+        byte[] pad = new byte[blockLength];
+
+        d.reset();
+
+        if (key.length > blockLength)
+        {
+            d.update(key, 0, key.length);
+            d.doFinal(pad, 0);
+        }
+        else
+        {
+            System.arraycopy(key, 0, pad, 0, key.length);
+        }
+
+        xorPad(pad, blockLength, IPAD);
+        d.update(pad, 0, blockLength);
+
+        Memoable ipad = ((Memoable)d).copy();
+
+        xorPad(pad, blockLength, (byte)(IPAD ^ OPAD));
+        d.reset();
+        d.update(pad, 0, blockLength);
+
+        Memoable opad = ((Memoable)d).copy();
+
+        d.reset();
+        Arrays.fill(pad, (byte)0);
+
+        return new PreparedHMacKey(digest, ipad, opad, null);
+    }
+
     public int getMacSize()
     {
         return digestSize;
@@ -210,6 +296,12 @@ public int doFinal(
      */
     public void reset()
     {
+        if (ipadState != null)
+        {
+            ((Memoable)digest).reset(ipadState);
+            return;
+        }
+
         /*
          * reset the underlying digest.
          */
@@ -38,6 +38,10 @@
     /** Precomputed 5 * r[1..4] */
     private int s1, s2, s3, s4;
 
+    /** Precomputed r^2 mod p, and 5 * r^2[1..4], for processing two blocks at a time */
+    private int rr0, rr1, rr2, rr3, rr4;
+    private int ss1, ss2, ss3, ss4;
+
     /** Encrypted nonce */
     private int k0, k1, k2, k3;
 
@@ -139,6 +143,26 @@ private void setKey(final byte[] key, final byte[] nonce)
         s3 = r3 * 5;
         s4 = r4 * 5;
 
+        // Precompute r^2 mod p
+        long tp0 = mul32x32_64(r0,r0) + mul32x32_64(r1,s4) + mul32x32_64(r2,s3) + mul32x32_64(r3,s2) + mul32x32_64(r4,s1);
+        long tp1 = mul32x32_64(r0,r1) + mul32x32_64(r1,r0) + mul32x32_64(r2,s4) + mul32x32_64(r3,s3) + mul32x32_64(r4,s2);
+        long tp2 = mul32x32_64(r0,r2) + mul32x32_64(r1,r1) + mul32x32_64(r2,r0) + mul32x32_64(r3,s4) + mul32x32_64(r4,s3);
+        long tp3 = mul32x32_64(r0,r3) + mul32x32_64(r1,r2) + mul32x32_64(r2,r1) + mul32x32_64(r3,r0) + mul32x32_64(r4,s4);
+        long tp4 = mul32x32_64(r0,r4) + mul32x32_64(r1,r3) + mul32x32_64(r2,r2) + mul32x32_64(r3,r1) + mul32x32_64(r4,r0);
+
+        rr0 = (int)tp0 & 0x3ffffff; tp1 += (tp0 >>> 26);
+        rr1 = (int)tp1 & 0x3ffffff; tp2 += (tp1 >>> 26);
+        rr2 = (int)tp2 & 0x3ffffff; tp3 += (tp2 >>> 26);
+        rr3 = (int)tp3 & 0x3ffffff; tp4 += (tp3 >>> 26);
+        rr4 = (int)tp4 & 0x3ffffff;
+        rr0 += (int)(tp4 >>> 26) * 5;
+        rr1 += (rr0 >>> 26); rr0 &= 0x3ffffff;
+
+        ss1 = rr1 * 5;
+        ss2 = rr2 * 5;
+        ss3 = rr3 * 5;
+        ss4 = rr4 * 5;
+
         final byte[] kBytes;
         final int kOff;
 
@@ -184,63 +208,137 @@ public void update(final byte[] in, final int inOff, final int len)
         throws DataLengthException,
         IllegalStateException
     {
-        int copied = 0;
-        while (len > copied)
+        int pos = 0;
+
+        // top up any partially filled block first
+        if (currentBlockOffset > 0)
         {
-            if (currentBlockOffset == BLOCK_SIZE)
+            int toCopy = Math.min(len, BLOCK_SIZE - currentBlockOffset);
+            System.arraycopy(in, inOff, currentBlock, currentBlockOffset, toCopy);
+            pos += toCopy;
+            currentBlockOffset += toCopy;
+
+            if (currentBlockOffset < BLOCK_SIZE)
             {
-                processBlock();
-                currentBlockOffset = 0;
+                return;
             }
 
-            int toCopy = Math.min((len - copied), BLOCK_SIZE - currentBlockOffset);
-            System.arraycopy(in, copied + inOff, currentBlock, currentBlockOffset, toCopy);
-            copied += toCopy;
-            currentBlockOffset += toCopy;
+            processBlocks(currentBlock, 0, 1, 1 << 24);
+            currentBlockOffset = 0;
         }
 
-    }
+        // whole blocks are processed straight from the input
+        int blocks = (len - pos) >>> 4;
+        if (blocks > 0)
+        {
+            processBlocks(in, inOff + pos, blocks, 1 << 24);
+            pos += blocks << 4;
+        }
 
-    private void processBlock()
-    {
-        if (currentBlockOffset < BLOCK_SIZE)
+        if (pos < len)
         {
-            currentBlock[currentBlockOffset] = 1;
-            for (int i = currentBlockOffset + 1; i < BLOCK_SIZE; i++)
-            {
-                currentBlock[i] = 0;
-            }
+            currentBlockOffset = len - pos;
+            System.arraycopy(in, inOff + pos, currentBlock, 0, currentBlockOffset);
         }
+    }
+
+    /**
+     * Process a run of 16 byte blocks, two at a time where possible using h = (h + m1) * r^2 + m2 * r,
+     * which shares a carry propagation between the two blocks and lets the two products be computed
+     * independently.
+     *
+     * @param in the input data.
+     * @param inOff offset into the input data.
+     * @param blocks the number of blocks to process.
+     * @param hibit the bit appended above each block, 1 << 24 for full blocks, 0 for a padded final block.
+     */
+    private void processBlocks(final byte[] in, int inOff, int blocks, final int hibit)
+    {
+        int h0 = this.h0, h1 = this.h1, h2 = this.h2, h3 = this.h3, h4 = this.h4;
 
-        final long t0 = 0xffffffffL & Pack.littleEndianToInt(currentBlock, 0);
-        final long t1 = 0xffffffffL & Pack.littleEndianToInt(currentBlock, 4);
-        final long t2 = 0xffffffffL & Pack.littleEndianToInt(currentBlock, 8);
-        final long t3 = 0xffffffffL & Pack.littleEndianToInt(currentBlock, 12);
+        final int r0 = this.r0, r1 = this.r1, r2 = this.r2, r3 = this.r3, r4 = this.r4;
+        final int s1 = this.s1, s2 = this.s2, s3 = this.s3, s4 = this.s4;
 
-        h0 += t0 & 0x3ffffff;
-        h1 += (((t1 << 32) | t0) >>> 26) & 0x3ffffff;
-        h2 += (((t2 << 32) | t1) >>> 20) & 0x3ffffff;
-        h3 += (((t3 << 32) | t2) >>> 14) & 0x3ffffff;
-        h4 += (t3 >>> 8);
+        long tp0, tp1, tp2, tp3, tp4;
 
-        if (currentBlockOffset == BLOCK_SIZE)
+        while (blocks >= 2)
         {
-            h4 += (1 << 24);
+            long t0 = 0xffffffffL & Pack.littleEndianToInt(in, inOff);
+            long t1 = 0xffffffffL & Pack.littleEndianToInt(in, inOff + 4);
+            long t2 = 0xffffffffL & Pack.littleEndianToInt(in, inOff + 8);
+            long t3 = 0xffffffffL & Pack.littleEndianToInt(in, inOff + 12);
+
+            h0 += t0 & 0x3ffffff;
+            h1 += (((t1 << 32) | t0) >>> 26) & 0x3ffffff;
+            h2 += (((t2 << 32) | t1) >>> 20) & 0x3ffffff;
+            h3 += (((t3 << 32) | t2) >>> 14) & 0x3ffffff;
+            h4 += (t3 >>> 8) + hibit;
+
+            t0 = 0xffffffffL & Pack.littleEndianToInt(in, inOff + 16);
+            t1 = 0xffffffffL & Pack.littleEndianToInt(in, inOff + 20);
+            t2 = 0xffffffffL & Pack.littleEndianToInt(in, inOff + 24);
+            t3 = 0xffffffffL & Pack.littleEndianToInt(in, inOff + 28);
+
+            int m0 = (int)t0 & 0x3ffffff;
+            int m1 = (int)((((t1 << 32) | t0) >>> 26) & 0x3ffffff);
+            int m2 = (int)((((t2 << 32) | t1) >>> 20) & 0x3ffffff);
+            int m3 = (int)((((t3 << 32) | t2) >>> 14) & 0x3ffffff);
+            int m4 = (int)(t3 >>> 8) + hibit;
+
+            tp0 = mul32x32_64(h0,rr0) + mul32x32_64(h1,ss4) + mul32x32_64(h2,ss3) + mul32x32_64(h3,ss2) + mul32x32_64(h4,ss1)
+                + mul32x32_64(m0,r0) + mul32x32_64(m1,s4) + mul32x32_64(m2,s3) + mul32x32_64(m3,s2) + mul32x32_64(m4,s1);
+            tp1 = mul32x32_64(h0,rr1) + mul32x32_64(h1,rr0) + mul32x32_64(h2,ss4) + mul32x32_64(h3,ss3) + mul32x32_64(h4,ss2)
+                + mul32x32_64(m0,r1) + mul32x32_64(m1,r0) + mul32x32_64(m2,s4) + mul32x32_64(m3,s3) + mul32x32_64(m4,s2);
+            tp2 = mul32x32_64(h0,rr2) + mul32x32_64(h1,rr1) + mul32x32_64(h2,rr0) + mul32x32_64(h3,ss4) + mul32x32_64(h4,ss3)
+                + mul32x32_64(m0,r2) + mul32x32_64(m1,r1) + mul32x32_64(m2,r0) + mul32x32_64(m3,s4) + mul32x32_64(m4,s3);
+            tp3 = mul32x32_64(h0,rr3) + mul32x32_64(h1,rr2) + mul32x32_64(h2,rr1) + mul32x32_64(h3,rr0) + mul32x32_64(h4,ss4)
+                + mul32x32_64(m0,r3) + mul32x32_64(m1,r2) + mul32x32_64(m2,r1) + mul32x32_64(m3,r0) + mul32x32_64(m4,s4);
+            tp4 = mul32x32_64(h0,rr4) + mul32x32_64(h1,rr3) + mul32x32_64(h2,rr2) + mul32x32_64(h3,rr1) + mul32x32_64(h4,rr0)
+                + mul32x32_64(m0,r4) + mul32x32_64(m1,r3) + mul32x32_64(m2,r2) + mul32x32_64(m3,r1) + mul32x32_64(m4,r0);
+
+            // the sums of two products are larger, so the top carry is taken in a long
+            tp1 += (tp0 >>> 26);
+            h1 = (int)tp1 & 0x3ffffff; tp2 += (tp1 >>> 26);
+            h2 = (int)tp2 & 0x3ffffff; tp3 += (tp2 >>> 26);
+            h3 = (int)tp3 & 0x3ffffff; tp4 += (tp3 >>> 26);
+            h4 = (int)tp4 & 0x3ffffff;
+            tp0 = (tp0 & 0x3ffffff) + (tp4 >>> 26) * 5;
+            h0 = (int)tp0 & 0x3ffffff;
+            h1 += (int)(tp0 >>> 26);
+
+            inOff += 2 * BLOCK_SIZE;
+            blocks -= 2;
         }
 
-        long tp0 = mul32x32_64(h0,r0) + mul32x32_64(h1,s4) + mul32x32_64(h2,s3) + mul32x32_64(h3,s2) + mul32x32_64(h4,s1);
-        long tp1 = mul32x32_64(h0,r1) + mul32x32_64(h1,r0) + mul32x32_64(h2,s4) + mul32x32_64(h3,s3) + mul32x32_64(h4,s2);
-        long tp2 = mul32x32_64(h0,r2) + mul32x32_64(h1,r1) + mul32x32_64(h2,r0) + mul32x32_64(h3,s4) + mul32x32_64(h4,s3);
-        long tp3 = mul32x32_64(h0,r3) + mul32x32_64(h1,r2) + mul32x32_64(h2,r1) + mul32x32_64(h3,r0) + mul32x32_64(h4,s4);
-        long tp4 = mul32x32_64(h0,r4) + mul32x32_64(h1,r3) + mul32x32_64(h2,r2) + mul32x32_64(h3,r1) + mul32x32_64(h4,r0);
-
-        h0 = (int)tp0 & 0x3ffffff; tp1 += (tp0 >>> 26);
-        h1 = (int)tp1 & 0x3ffffff; tp2 += (tp1 >>> 26);
-        h2 = (int)tp2 & 0x3ffffff; tp3 += (tp2 >>> 26);
-        h3 = (int)tp3 & 0x3ffffff; tp4 += (tp3 >>> 26);
-        h4 = (int)tp4 & 0x3ffffff;
-        h0 += (int)(tp4 >>> 26) * 5;
-        h1 += (h0 >>> 26); h0 &= 0x3ffffff;
+        if (blocks > 0)
+        {
+            final long t0 = 0xffffffffL & Pack.littleEndianToInt(in, inOff);
+            final long t1 = 0xffffffffL & Pack.littleEndianToInt(in, inOff + 4);
+            final long t2 = 0xffffffffL & Pack.littleEndianToInt(in, inOff + 8);
+            final long t3 = 0xffffffffL & Pack.littleEndianToInt(in, inOff + 12);
+
+            h0 += t0 & 0x3ffffff;
+            h1 += (((t1 << 32) | t0) >>> 26) & 0x3ffffff;
+            h2 += (((t2 << 32) | t1) >>> 20) & 0x3ffffff;
+            h3 += (((t3 << 32) | t2) >>> 14) & 0x3ffffff;
+            h4 += (t3 >>> 8) + hibit;
+
+            tp0 = mul32x32_64(h0,r0) + mul32x32_64(h1,s4) + mul32x32_64(h2,s3) + mul32x32_64(h3,s2) + mul32x32_64(h4,s1);
+            tp1 = mul32x32_64(h0,r1) + mul32x32_64(h1,r0) + mul32x32_64(h2,s4) + mul32x32_64(h3,s3) + mul32x32_64(h4,s2);
+            tp2 = mul32x32_64(h0,r2) + mul32x32_64(h1,r1) + mul32x32_64(h2,r0) + mul32x32_64(h3,s4) + mul32x32_64(h4,s3);
+            tp3 = mul32x32_64(h0,r3) + mul32x32_64(h1,r2) + mul32x32_64(h2,r1) + mul32x32_64(h3,r0) + mul32x32_64(h4,s4);
+            tp4 = mul32x32_64(h0,r4) + mul32x32_64(h1,r3) + mul32x32_64(h2,r2) + mul32x32_64(h3,r1) + mul32x32_64(h4,r0);
+
+            h0 = (int)tp0 & 0x3ffffff; tp1 += (tp0 >>> 26);
+            h1 = (int)tp1 & 0x3ffffff; tp2 += (tp1 >>> 26);
+            h2 = (int)tp2 & 0x3ffffff; tp3 += (tp2 >>> 26);
+            h3 = (int)tp3 & 0x3ffffff; tp4 += (tp3 >>> 26);
+            h4 = (int)tp4 & 0x3ffffff;
+            h0 += (int)(tp4 >>> 26) * 5;
+            h1 += (h0 >>> 26); h0 &= 0x3ffffff;
+        }
+
+        this.h0 = h0; this.h1 = h1; this.h2 = h2; this.h3 = h3; this.h4 = h4;
     }
 
     public int doFinal(final byte[] out, final int outOff)
@@ -255,7 +353,13 @@ public int doFinal(final byte[] out, final int outOff)
         if (currentBlockOffset > 0)
         {
             // Process padded final block
-            processBlock();
+            currentBlock[currentBlockOffset] = 1;
+            for (int i = currentBlockOffset + 1; i < BLOCK_SIZE; i++)
+            {
+                currentBlock[i] = 0;
+            }
+
+            processBlocks(currentBlock, 0, 1, 0);
         }
 
         h1 += (h0 >>> 26); h0 &= 0x3ffffff;
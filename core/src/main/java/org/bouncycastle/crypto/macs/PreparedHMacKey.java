@@ -0,0 +1,66 @@
+package org.bouncycastle.crypto.macs;
+
+import org.bouncycastle.crypto.CipherParameters;
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.util.Memoable;
+
+/**
+ * An HMAC key which has already been absorbed into the inner and outer digests, as returned by
+ * {@link HMac#prepareKey(CipherParameters)}.
+ * <p>
+ * Passing one to {@link HMac#init(CipherParameters)} restores the saved digest states rather than
+ * hashing the padded key again, so where messages are MACed under a small set of keys, a prepared
+ * key can be kept for each and the cost of changing key is just that of copying a digest state.
+ * A prepared key is never changed by the HMacs it is used with, so it may be shared between HMacs
+ * in different threads. It can only be used with an HMac based on the same digest as the one which
+ * prepared it.
+ * </p>
+ */
+public final class PreparedHMacKey
+    implements CipherParameters
+{
+    private final Class digestClass;
+    private final String digestName;
+    private final Memoable ipadState;
+    private final Memoable opadState;
+    private final KeyParameter key;
+
+    PreparedHMacKey(Digest digest, Memoable ipadState, Memoable opadState, KeyParameter key)
+    {
+        this.digestClass = digest.getClass();
+        this.digestName = digest.getAlgorithmName();
+        this.ipadState = ipadState;
+        this.opadState = opadState;
+        this.key = key;
+    }
+
+    boolean isFor(Digest digest)
+    {
+        return digest.getClass() == digestClass && digest.getAlgorithmName().equals(digestName);
+    }
+
+    /**
+     * Return the digest state after the key XOR ipad, null if the digest is not {@link Memoable}.
+     */
+    Memoable getIPadState()
+    {
+        return ipadState;
+    }
+
+    /**
+     * Return the digest state after the key XOR opad, null if the digest is not {@link Memoable}.
+     */
+    Memoable getOPadState()
+    {
+        return opadState;
+    }
+
+    /**
+     * Return the key itself where the digest is not {@link Memoable}, null otherwise.
+     */
+    KeyParameter getKey()
+    {
+        return key;
+    }
+}
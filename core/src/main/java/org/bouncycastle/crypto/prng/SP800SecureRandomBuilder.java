@@ -128,7 +128,23 @@ public SP800SecureRandom buildHash(Digest digest, byte[] nonce, boolean predicti
      */
     public SP800SecureRandom buildCTR(BlockCipher cipher, int keySizeInBits, byte[] nonce, boolean predictionResistant)
     {
-        return new SP800SecureRandom(random, entropySourceProvider.get(entropyBitsRequired), new CTRDRBGProvider(cipher, keySizeInBits, nonce, personalizationString, securityStrength), predictionResistant);
+        return buildCTR(cipher, keySizeInBits, nonce, predictionResistant, 0);
+    }
+
+    /**
+     * Build a SecureRandom based on a SP 800-90A CTR DRBG which serves small requests from a buffer of
+     * pre-generated output. Buffering is only used by a DRBG which is not prediction resistant.
+     *
+     * @param cipher the block cipher to base the DRBG on.
+     * @param keySizeInBits key size in bits to be used with the block cipher.
+     * @param nonce nonce value to use in DRBG construction.
+     * @param predictionResistant  specify whether the underlying DRBG in the resulting SecureRandom should reseed on each request for bytes.
+     * @param bufferSize the size in bytes of the DRBG output buffer, 0 for no buffering.
+     * @return  a SecureRandom supported by a CTR DRBG.
+     */
+    public SP800SecureRandom buildCTR(BlockCipher cipher, int keySizeInBits, byte[] nonce, boolean predictionResistant, int bufferSize)
+    {
+        return new SP800SecureRandom(random, entropySourceProvider.get(entropyBitsRequired), new CTRDRBGProvider(cipher, keySizeInBits, nonce, personalizationString, securityStrength, bufferSize), predictionResistant);
     }
 
     /**
@@ -197,19 +213,21 @@ public SP80090DRBG get(EntropySource entropySource)
         private final byte[] nonce;
         private final byte[] personalizationString;
         private final int securityStrength;
+        private final int bufferSize;
 
-        public CTRDRBGProvider(BlockCipher blockCipher, int keySizeInBits, byte[] nonce, byte[] personalizationString, int securityStrength)
+        public CTRDRBGProvider(BlockCipher blockCipher, int keySizeInBits, byte[] nonce, byte[] personalizationString, int securityStrength, int bufferSize)
         {
             this.blockCipher = blockCipher;
             this.keySizeInBits = keySizeInBits;
             this.nonce = nonce;
             this.personalizationString = personalizationString;
             this.securityStrength = securityStrength;
+            this.bufferSize = bufferSize;
         }
 
         public SP80090DRBG get(EntropySource entropySource)
         {
-            return new CTRSP800DRBG(blockCipher, keySizeInBits, securityStrength, entropySource, personalizationString, nonce);
+            return new CTRSP800DRBG(blockCipher, keySizeInBits, securityStrength, entropySource, personalizationString, nonce, bufferSize);
         }
     }
 }
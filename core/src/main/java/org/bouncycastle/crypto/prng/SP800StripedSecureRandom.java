@@ -0,0 +1,164 @@
+package org.bouncycastle.crypto.prng;
+
+import java.security.SecureRandom;
+
+/**
+ * A SecureRandom which spreads requests from different threads over a set of independent
+ * SP 800-90A DRBG based SecureRandoms, so that threads only contend with others using the same
+ * stripe, rather than all synchronizing on a single DRBG.
+ * <p>
+ * A thread always uses the same stripe. Each stripe has its own DRBG, seeding and reseed counter,
+ * so the stripes should be built independently, ideally with distinct nonces and personalization strings.
+ * </p><p>
+ * Stripes can also be created on first use, by a subclass overriding {@link #createStripe(int)}, so that
+ * a stripe no thread is mapped to is never seeded.
+ * </p>
+ */
+public class SP800StripedSecureRandom
+    extends SecureRandom
+{
+    private static final long serialVersionUID = 1L;
+
+    private final SP800SecureRandom[] stripes;
+    private final Object[] locks;
+
+    /**
+     * Base constructor.
+     *
+     * @param stripes the independently built SecureRandoms to spread requests over.
+     */
+    public SP800StripedSecureRandom(SP800SecureRandom[] stripes)
+    {
+        if (stripes == null || stripes.length == 0)
+        {
+            throw new IllegalArgumentException("at least one stripe required");
+        }
+
+        for (int i = 0; i != stripes.length; i++)
+        {
+            if (stripes[i] == null)
+            {
+                throw new IllegalArgumentException("stripe " + i + " is null");
+            }
+        }
+
+        this.stripes = new SP800SecureRandom[stripes.length];
+        System.arraycopy(stripes, 0, this.stripes, 0, stripes.length);
+        this.locks = createLocks(stripes.length);
+    }
+
+    /**
+     * Constructor for a SecureRandom whose stripes are created with {@link #createStripe(int)} when a
+     * thread first needs them.
+     *
+     * @param stripeCount the number of stripes to spread requests over.
+     */
+    protected SP800StripedSecureRandom(int stripeCount)
+    {
+        if (stripeCount < 1)
+        {
+            throw new IllegalArgumentException("at least one stripe required");
+        }
+
+        this.stripes = new SP800SecureRandom[stripeCount];
+        this.locks = createLocks(stripeCount);
+    }
+
+    /**
+     * Create the stripe with the passed in index, called at most once for each index. Stripes created this
+     * way do not receive seed material passed to setSeed() before their creation, but are seeded in full
+     * from their own entropy source as they are built.
+     *
+     * @param index the index of the stripe.
+     * @return a new, independently built, SecureRandom.
+     */
+    protected SP800SecureRandom createStripe(int index)
+    {
+        throw new IllegalStateException("stripe " + index + " not provided");
+    }
+
+    public void setSeed(byte[] seed)
+    {
+        if (stripes != null)
+        {
+            for (int i = 0; i != stripes.length; i++)
+            {
+                SP800SecureRandom stripe;
+
+                synchronized (locks[i])
+                {
+                    stripe = stripes[i];
+                }
+
+                if (stripe != null)
+                {
+                    stripe.setSeed(seed);
+                }
+            }
+        }
+    }
+
+    public void setSeed(long seed)
+    {
+        // this will happen when SecureRandom() is created
+        if (stripes != null)
+        {
+            for (int i = 0; i != stripes.length; i++)
+            {
+                SP800SecureRandom stripe;
+
+                synchronized (locks[i])
+                {
+                    stripe = stripes[i];
+                }
+
+                if (stripe != null)
+                {
+                    stripe.setSeed(seed);
+                }
+            }
+        }
+    }
+
+    public void nextBytes(byte[] bytes)
+    {
+        getStripe().nextBytes(bytes);
+    }
+
+    public byte[] generateSeed(int numBytes)
+    {
+        return getStripe().generateSeed(numBytes);
+    }
+
+    private SP800SecureRandom getStripe()
+    {
+        int hash = System.identityHashCode(Thread.currentThread());
+        int index = (hash & 0x7fffffff) % stripes.length;
+
+        // only threads mapped to the same stripe share the lock, as they share the stripe's DRBG anyway.
+        synchronized (locks[index])
+        {
+            SP800SecureRandom stripe = stripes[index];
+
+            if (stripe == null)
+            {
+                stripe = createStripe(index);
+                stripes[index] = stripe;
+            }
+
+            return stripe;
+        }
+    }
+
+    private static Object[] createLocks(int count)
+    {
+        Object[] locks = new Object[count];
+
+        for (int i = 0; i != count; i++)
+        {
+            locks[i] = new Object();
+        }
+
+        return locks;
+    }
+}
@@ -29,6 +29,10 @@
     private long                  _reseedCounter = 0;
     private boolean               _isTDEA = false;
 
+    // output buffering, if enabled
+    private byte[]                _buffer;
+    private int                   _bufferPos;
+
     /**
      * Construct a SP800-90A CTR DRBG.
      * <p>
@@ -42,6 +46,30 @@
      * @param nonce nonce to further distinguish this DRBG (may be null).
      */
     public CTRSP800DRBG(BlockCipher engine, int keySizeInBits, int securityStrength, EntropySource entropySource, byte[] personalizationString, byte[] nonce)
+    {
+        this(engine, keySizeInBits, securityStrength, entropySource, personalizationString, nonce, 0);
+    }
+
+    /**
+     * Construct a SP800-90A CTR DRBG which buffers its output.
+     * <p>
+     * Requests without additional input or prediction resistance are served from an internal buffer,
+     * which is refilled by a single generate request of bufferSize bytes when exhausted, so the
+     * update function is run once per refill rather than once per request. Reseeding discards any
+     * buffered output.
+     * </p><p>
+     * <b>Note:</b> output is only protected by backtracking resistance once it is generated, unused
+     * buffered output remains part of the DRBG's state until it is handed out.
+     * </p>
+     * @param engine underlying block cipher to use to support DRBG
+     * @param keySizeInBits size of the key to use with the block cipher.
+     * @param securityStrength security strength required (in bits)
+     * @param entropySource source of entropy to use for seeding/reseeding.
+     * @param personalizationString personalization string to distinguish this DRBG (may be null).
+     * @param nonce nonce to further distinguish this DRBG (may be null).
+     * @param bufferSize size of the output buffer in bytes, 0 for no buffering.
+     */
+    public CTRSP800DRBG(BlockCipher engine, int keySizeInBits, int securityStrength, EntropySource entropySource, byte[] personalizationString, byte[] nonce, int bufferSize)
     {
         _entropySource = entropySource;
         _engine = engine;     
@@ -66,6 +94,18 @@ public CTRSP800DRBG(BlockCipher engine, int keySizeInBits, int securityStrength,
             throw new IllegalArgumentException("Not enough entropy for security strength required");
         }
 
+        int maxRequestBytes = (_isTDEA ? TDEA_MAX_BITS_REQUEST : AES_MAX_BITS_REQUEST) / 8;
+        if (bufferSize < 0 || bufferSize > maxRequestBytes)
+        {
+            throw new IllegalArgumentException("Buffer size must be between 0 and " + maxRequestBytes + " bytes");
+        }
+
+        if (bufferSize > 0)
+        {
+            _buffer = new byte[bufferSize];
+            _bufferPos = bufferSize;
+        }
+
         byte[] entropy = getEntropy();  // Get_entropy_input
 
         CTR_DRBG_Instantiate_algorithm(entropy, nonce, personalizationString);
@@ -124,6 +164,17 @@ private void CTR_DRBG_Reseed_algorithm(byte[] additionalInput)
         CTR_DRBG_Update(seedMaterial, _Key, _V);
 
         _reseedCounter = 1;
+
+        discardBuffer();
+    }
+
+    private void discardBuffer()
+    {
+        if (_buffer != null)
+        {
+            Arrays.fill(_buffer, (byte)0);
+            _bufferPos = _buffer.length;
+        }
     }
 
     private void XOR(byte[] out, byte[] a, byte[] b, int bOff)
@@ -341,6 +392,44 @@ public int getBlockSize()
      * @return number of bits generated, -1 if a reseed required.
      */
     public int generate(byte[] output, byte[] additionalInput, boolean predictionResistant)
+    {
+        if (_buffer != null && additionalInput == null && !predictionResistant && output.length <= _buffer.length)
+        {
+            return generateBuffered(output);
+        }
+
+        return CTR_DRBG_Generate_algorithm(output, additionalInput, predictionResistant);
+    }
+
+    private int generateBuffered(byte[] output)
+    {
+        int outOff = 0;
+
+        while (outOff < output.length)
+        {
+            if (_bufferPos == _buffer.length)
+            {
+                if (CTR_DRBG_Generate_algorithm(_buffer, null, false) < 0)
+                {
+                    return -1;
+                }
+                _bufferPos = 0;
+            }
+
+            int len = Math.min(_buffer.length - _bufferPos, output.length - outOff);
+
+            System.arraycopy(_buffer, _bufferPos, output, outOff, len);
+            // output handed out is no longer part of our state.
+            Arrays.fill(_buffer, _bufferPos, _bufferPos + len, (byte)0);
+
+            _bufferPos += len;
+            outOff += len;
+        }
+
+        return output.length * 8;
+    }
+
+    private int CTR_DRBG_Generate_algorithm(byte[] output, byte[] additionalInput, boolean predictionResistant)
     {
         if (_isTDEA)
         {
@@ -1,6 +1,8 @@
 package org.bouncycastle.crypto.prng.drbg;
 
+import org.bouncycastle.crypto.CipherParameters;
 import org.bouncycastle.crypto.Mac;
+import org.bouncycastle.crypto.macs.HMac;
 import org.bouncycastle.crypto.params.KeyParameter;
 import org.bouncycastle.crypto.prng.EntropySource;
 import org.bouncycastle.util.Arrays;
@@ -19,6 +21,7 @@
     private long   _reseedCounter;
     private EntropySource _entropySource;
     private Mac _hMac;
+    private CipherParameters _key;
     private int _securityStrength;
 
     /**
@@ -83,7 +86,17 @@ private void hmac_DRBG_Update_Func(byte[] seedMaterial, byte vValue)
 
         _hMac.doFinal(_K, 0);
 
-        _hMac.init(new KeyParameter(_K));
+        // the last K set is also the key for the next generate, so only absorb it into the HMAC once.
+        if (_hMac instanceof HMac)
+        {
+            _key = ((HMac)_hMac).prepareKey(new KeyParameter(_K));
+        }
+        else
+        {
+            _key = new KeyParameter(_K);
+        }
+
+        _hMac.init(_key);
         _hMac.update(_V, 0, _V.length);
 
         _hMac.doFinal(_V, 0);
@@ -139,7 +152,7 @@ public int generate(byte[] output, byte[] additionalInput, boolean predictionRes
 
         int m = output.length / _V.length;
 
-        _hMac.init(new KeyParameter(_K));
+        _hMac.init(_key);
 
         for (int i = 0; i < m; i++)
         {
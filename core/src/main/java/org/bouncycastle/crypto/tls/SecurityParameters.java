@@ -1,5 +1,6 @@
 package org.bouncycastle.crypto.tls;
 
+import org.bouncycastle.crypto.macs.PreparedHMacKey;
 import org.bouncycastle.util.Arrays;
 
 public class SecurityParameters
@@ -22,6 +23,10 @@
     boolean encryptThenMAC = false;
     boolean extendedMasterSecret = false;
 
+    // the PRF keys prepared from the master secret, and the master secret they were prepared from
+    byte[] prfKeysSecret = null;
+    PreparedHMacKey[] prfKeys = null;
+
     void clear()
     {
         if (this.masterSecret != null)
@@ -29,6 +34,9 @@ void clear()
             Arrays.fill(this.masterSecret, (byte)0);
             this.masterSecret = null;
         }
+
+        this.prfKeysSecret = null;
+        this.prfKeys = null;
     }
 
     /**
@@ -19,6 +19,7 @@
 import org.bouncycastle.asn1.x509.KeyUsage;
 import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
 import org.bouncycastle.asn1.x509.X509ObjectIdentifiers;
+import org.bouncycastle.crypto.CipherParameters;
 import org.bouncycastle.crypto.Digest;
 import org.bouncycastle.crypto.digests.MD5Digest;
 import org.bouncycastle.crypto.digests.SHA1Digest;
@@ -27,6 +28,7 @@
 import org.bouncycastle.crypto.digests.SHA384Digest;
 import org.bouncycastle.crypto.digests.SHA512Digest;
 import org.bouncycastle.crypto.macs.HMac;
+import org.bouncycastle.crypto.macs.PreparedHMacKey;
 import org.bouncycastle.crypto.params.AsymmetricKeyParameter;
 import org.bouncycastle.crypto.params.DSAPublicKeyParameters;
 import org.bouncycastle.crypto.params.ECPublicKeyParameters;
@@ -953,7 +955,13 @@ public static byte[] PRF(TlsContext context, byte[] secret, String asciiLabel, b
         byte[] label = Strings.toByteArray(asciiLabel);
         byte[] labelSeed = concat(label, seed);
 
-        int prfAlgorithm = context.getSecurityParameters().getPrfAlgorithm();
+        SecurityParameters securityParameters = context.getSecurityParameters();
+        int prfAlgorithm = securityParameters.getPrfAlgorithm();
+
+        if (secret != null && secret == securityParameters.masterSecret)
+        {
+            return PRF_masterSecret(securityParameters, prfAlgorithm, labelSeed, size);
+        }
 
         if (prfAlgorithm == PRFAlgorithm.tls_prf_legacy)
         {
@@ -966,6 +974,55 @@ public static byte[] PRF(TlsContext context, byte[] secret, String asciiLabel, b
         return buf;
     }
 
+    /*
+     * The master secret is the PRF secret for the key block, both finished messages and any exported
+     * keying material, so the HMAC keys derived from it are prepared once and kept with it.
+     */
+    private static byte[] PRF_masterSecret(SecurityParameters securityParameters, int prfAlgorithm, byte[] labelSeed,
+        int size)
+    {
+        byte[] secret = securityParameters.masterSecret;
+        PreparedHMacKey[] keys = securityParameters.prfKeys;
+
+        if (keys == null || securityParameters.prfKeysSecret != secret)
+        {
+            if (prfAlgorithm == PRFAlgorithm.tls_prf_legacy)
+            {
+                int s_half = (secret.length + 1) / 2;
+
+                keys = new PreparedHMacKey[]{
+                    new HMac(createHash(HashAlgorithm.md5)).prepareKey(new KeyParameter(secret, 0, s_half)),
+                    new HMac(createHash(HashAlgorithm.sha1)).prepareKey(
+                        new KeyParameter(secret, secret.length - s_half, s_half)) };
+            }
+            else
+            {
+                keys = new PreparedHMacKey[]{
+                    new HMac(createPRFHash(prfAlgorithm)).prepareKey(new KeyParameter(secret)) };
+            }
+
+            securityParameters.prfKeys = keys;
+            securityParameters.prfKeysSecret = secret;
+        }
+
+        if (prfAlgorithm == PRFAlgorithm.tls_prf_legacy)
+        {
+            byte[] b1 = new byte[size];
+            byte[] b2 = new byte[size];
+            hmac_hash(createHash(HashAlgorithm.md5), keys[0], labelSeed, b1);
+            hmac_hash(createHash(HashAlgorithm.sha1), keys[1], labelSeed, b2);
+            for (int i = 0; i < size; i++)
+            {
+                b1[i] ^= b2[i];
+            }
+            return b1;
+        }
+
+        byte[] buf = new byte[size];
+        hmac_hash(createPRFHash(prfAlgorithm), keys[0], labelSeed, buf);
+        return buf;
+    }
+
     public static byte[] PRF_legacy(byte[] secret, String asciiLabel, byte[] seed, int size)
     {
         byte[] label = Strings.toByteArray(asciiLabel);
@@ -1002,9 +1059,14 @@ static byte[] concat(byte[] a, byte[] b)
     }
 
     static void hmac_hash(Digest digest, byte[] secret, byte[] seed, byte[] out)
+    {
+        hmac_hash(digest, new KeyParameter(secret), seed, out);
+    }
+
+    static void hmac_hash(Digest digest, CipherParameters secret, byte[] seed, byte[] out)
     {
         HMac mac = new HMac(digest);
-        mac.init(new KeyParameter(secret));
+        mac.init(secret);
         byte[] a = seed;
         int size = digest.getDigestSize();
         int iterations = (out.length + size - 1) / size;
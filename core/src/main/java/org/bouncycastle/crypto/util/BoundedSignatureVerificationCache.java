@@ -0,0 +1,116 @@
+package org.bouncycastle.crypto.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.util.Arrays;
+
+/**
+ * A SignatureVerificationCache holding up to a fixed number of entries, discarding the least
+ * recently used entry when full. Entries are keyed on the SHA-256 hashes of the signed object
+ * and the public key encodings, so the encodings themselves are not retained.
+ */
+public class BoundedSignatureVerificationCache
+    implements SignatureVerificationCache
+{
+    private static final Object PRESENT = Boolean.TRUE;
+
+    private final Map entries;
+
+    /**
+     * Base constructor.
+     *
+     * @param maxEntries the maximum number of verified signatures to remember.
+     */
+    public BoundedSignatureVerificationCache(final int maxEntries)
+    {
+        if (maxEntries < 1)
+        {
+            throw new IllegalArgumentException("maxEntries must be at least 1");
+        }
+
+        this.entries = new LinkedHashMap(16, 0.75f, true)
+        {
+            protected boolean removeEldestEntry(Map.Entry eldest)
+            {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public boolean isVerified(byte[] signedEncoding, byte[] publicKeyEncoding)
+    {
+        Key key = new Key(signedEncoding, publicKeyEncoding);
+
+        synchronized (entries)
+        {
+            return entries.get(key) != null;
+        }
+    }
+
+    public void addVerified(byte[] signedEncoding, byte[] publicKeyEncoding)
+    {
+        Key key = new Key(signedEncoding, publicKeyEncoding);
+
+        synchronized (entries)
+        {
+            entries.put(key, PRESENT);
+        }
+    }
+
+    /**
+     * Return the number of verified signatures currently recorded.
+     *
+     * @return the number of entries in the cache.
+     */
+    public int size()
+    {
+        synchronized (entries)
+        {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Remove all entries from the cache.
+     */
+    public void clear()
+    {
+        synchronized (entries)
+        {
+            entries.clear();
+        }
+    }
+
+    private static class Key
+    {
+        private final byte[] hash;
+        private final int    hashCode;
+
+        Key(byte[] signedEncoding, byte[] publicKeyEncoding)
+        {
+            Digest digest = new SHA256Digest();
+
+            this.hash = new byte[digest.getDigestSize() * 2];
+
+            digest.update(signedEncoding, 0, signedEncoding.length);
+            digest.doFinal(hash, 0);
+            digest.update(publicKeyEncoding, 0, publicKeyEncoding.length);
+            digest.doFinal(hash, digest.getDigestSize());
+
+            this.hashCode = Arrays.hashCode(hash);
+        }
+
+        public int hashCode()
+        {
+            return hashCode;
+        }
+
+        public boolean equals(Object o)
+        {
+            return o instanceof Key && Arrays.areEqual(hash, ((Key)o).hash);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package org.bouncycastle.crypto.util;
+
+/**
+ * A record of signatures on encoded objects, such as certificates, which have already been
+ * successfully verified against a given public key. Implementations must be safe for use by
+ * several threads at once.
+ */
+public interface SignatureVerificationCache
+{
+    /**
+     * Return true if the signature on the passed in encoding has been recorded as verified by the public key.
+     *
+     * @param signedEncoding the encoding of the signed object, including its signature.
+     * @param publicKeyEncoding the encoding of the public key (a SubjectPublicKeyInfo).
+     * @return true if the signature is known to be valid, false otherwise.
+     */
+    boolean isVerified(byte[] signedEncoding, byte[] publicKeyEncoding);
+
+    /**
+     * Record that the signature on the passed in encoding has been verified by the public key.
+     *
+     * @param signedEncoding the encoding of the signed object, including its signature.
+     * @param publicKeyEncoding the encoding of the public key (a SubjectPublicKeyInfo).
+     */
+    void addVerified(byte[] signedEncoding, byte[] publicKeyEncoding);
+}
@@ -0,0 +1,219 @@
+package org.bouncycastle.pqc.crypto.gmss;
+
+import java.security.SecureRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.bouncycastle.crypto.CipherParameters;
+import org.bouncycastle.crypto.params.ParametersWithRandom;
+import org.bouncycastle.pqc.crypto.MessageSigner;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.FutureTasks;
+
+/**
+ * GMSS signer which keeps track of the private key itself, advancing it for the next signature on a
+ * supplied executor.
+ * <p>
+ * With {@link GMSSSigner} the caller moves to the next key with {@link GMSSPrivateKeyParameters#nextKey()}
+ * after each signature. This is where the work for the authentication paths and the distributed treehash,
+ * root and root signature computations for the upcoming trees is done, and when a subtree is exhausted the
+ * remaining steps for the next tree are all carried out at once, making the cost of some steps many times
+ * that of the others. Here, as soon as a key has been handed to the signer, the key following it is
+ * computed in the background, so it is normally ready by the time the next signature is requested and the
+ * cost of each signature is essentially that of the one-time signature.
+ * </p><p>
+ * The key for the next signature is always one that has not been used, and its encoding, as returned by
+ * {@link #getEncodedPrivateKey()}, is available as soon as a signature has been generated. Storing it before
+ * releasing the signature guarantees no key is ever used twice, even if the signer is lost. Signing with
+ * the restored key produces exactly the same signatures as the original would have.
+ * </p>
+ */
+public class GMSSPrecomputingSigner
+    implements MessageSigner
+{
+    private final GMSSSigner signer;
+    private final Executor executor;
+
+    private SecureRandom random;
+
+    // the key for the next signature, its encoding, and the computation of the key after it
+    private GMSSPrivateKeyParameters key;
+    private byte[] encodedKey;
+    private FutureTask pending;
+
+    /**
+     * Base constructor.
+     *
+     * @param digestProvider provider for the digest the keys were generated with.
+     * @param executor the executor to compute upcoming keys on.
+     */
+    public GMSSPrecomputingSigner(GMSSDigestProvider digestProvider, Executor executor)
+    {
+        if (executor == null)
+        {
+            throw new IllegalArgumentException("executor must be provided");
+        }
+
+        this.signer = new GMSSSigner(digestProvider);
+        this.executor = executor;
+    }
+
+    /**
+     * Initialise the signer. For signing the parameters are the first private key to sign with, which must
+     * not have been used, optionally wrapped in a ParametersWithRandom.
+     *
+     * @param forSigning true for signing, false for verification.
+     * @param param the private key for signing, the public key for verification.
+     */
+    public void init(boolean forSigning, CipherParameters param)
+    {
+        if (pending != null)
+        {
+            // the result is not needed, but the computation changes the state of the key it started from,
+            // which may be passed in again, so it must not be left running.
+            try
+            {
+                getResult(pending);
+            }
+            catch (IllegalStateException e)
+            {
+                // ignore, the key will not be used.
+            }
+            pending = null;
+        }
+        key = null;
+        encodedKey = null;
+
+        if (forSigning)
+        {
+            if (param instanceof ParametersWithRandom)
+            {
+                ParametersWithRandom rParam = (ParametersWithRandom)param;
+
+                this.random = rParam.getRandom();
+                param = rParam.getParameters();
+            }
+            else
+            {
+                this.random = new SecureRandom();
+            }
+
+            GMSSPrivateKeyParameters privKey = (GMSSPrivateKeyParameters)param;
+
+            if (privKey.isUsed())
+            {
+                throw new IllegalStateException("Private key already used");
+            }
+
+            this.key = privKey;
+            this.encodedKey = privKey.getEncoded();
+            this.pending = startNextKey(privKey);
+        }
+        else
+        {
+            signer.init(false, param);
+        }
+    }
+
+    /**
+     * Sign a message with the current key and move on to the next one.
+     *
+     * @param message the message to sign.
+     * @return the signature.
+     */
+    public byte[] generateSignature(byte[] message)
+    {
+        if (key == null)
+        {
+            throw new IllegalStateException("signer not initialised for signing");
+        }
+
+        // takes what it needs from the key, and marks it as used.
+        signer.init(true, new ParametersWithRandom(key, random));
+
+        // there is always a next key if the signer accepted this one.
+        NextKey next = getResult(pending);
+
+        key = next.key;
+        encodedKey = next.encoding;
+        pending = startNextKey(key);
+
+        return signer.generateSignature(message);
+    }
+
+    public boolean verifySignature(byte[] message, byte[] signature)
+    {
+        return signer.verifySignature(message, signature);
+    }
+
+    /**
+     * Return the encoding of the private key the next signature will be generated with.
+     *
+     * @return the encoded key, null if the signer has not been initialised for signing.
+     * @see GMSSPrivateKeyParameters#GMSSPrivateKeyParameters(byte[], GMSSParameters, GMSSDigestProvider)
+     */
+    public byte[] getEncodedPrivateKey()
+    {
+        return Arrays.clone(encodedKey);
+    }
+
+    private FutureTask startNextKey(final GMSSPrivateKeyParameters privKey)
+    {
+        // once the keys have run out there is nothing more to compute.
+        if (privKey.getIndex(0) >= privKey.getNumLeafs(0))
+        {
+            return null;
+        }
+
+        FutureTask task = new FutureTask(new Callable()
+        {
+            public Object call()
+            {
+                // the key is left as it is apart from the parts shared with the new one, which the signer
+                // does not use - so it can still be given to the signer while this runs.
+                GMSSPrivateKeyParameters nextKey = privKey.nextKey();
+
+                return new NextKey(nextKey, nextKey.getEncoded());
+            }
+        });
+
+        try
+        {
+            executor.execute(task);
+        }
+        catch (RejectedExecutionException e)
+        {
+            // the task will be run by the signing thread when the key is needed.
+        }
+
+        return task;
+    }
+
+    private static NextKey getResult(FutureTask task)
+    {
+        try
+        {
+            // the signature cannot be released without the next key, so keep waiting through interrupts.
+            return (NextKey)FutureTasks.runAndWait(task);
+        }
+        catch (ExecutionException e)
+        {
+            throw new IllegalStateException("computation of next key failed: " + e.getCause(), e.getCause());
+        }
+    }
+
+    private static class NextKey
+    {
+        final GMSSPrivateKeyParameters key;
+        final byte[] encoding;
+
+        NextKey(GMSSPrivateKeyParameters key, byte[] encoding)
+        {
+            this.key = key;
+            this.encoding = encoding;
+        }
+    }
+}
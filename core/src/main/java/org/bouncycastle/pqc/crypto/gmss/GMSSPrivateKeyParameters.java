@@ -1,5 +1,12 @@
 package org.bouncycastle.pqc.crypto.gmss;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Vector;
 
 import org.bouncycastle.crypto.Digest;
@@ -365,6 +372,125 @@ public GMSSPrivateKeyParameters(int[] index, byte[][] currentSeeds,
         }
     }
 
+    /**
+     * Reconstructs a private key from its encoding, including the state of all
+     * distributed computations.
+     *
+     * @param encoding         an encoded private key
+     * @param gmssParameterset the GMSS Parameterset the key was generated with
+     * @param digestProvider   provider for the digest the key was generated with
+     * @throws IOException if the encoding is invalid or does not match the parameters
+     * @see #getEncoded()
+     */
+    public GMSSPrivateKeyParameters(byte[] encoding, GMSSParameters gmssParameterset,
+                                    GMSSDigestProvider digestProvider)
+        throws IOException
+    {
+        this(new ByteArrayInputStream(encoding), gmssParameterset, digestProvider);
+    }
+
+    /**
+     * Reads an encoded private key from an input stream.
+     *
+     * @param is               an input stream
+     * @param gmssParameterset the GMSS Parameterset the key was generated with
+     * @param digestProvider   provider for the digest the key was generated with
+     * @throws IOException if the encoding is invalid or does not match the parameters
+     * @see #writeTo(OutputStream)
+     */
+    public GMSSPrivateKeyParameters(InputStream is, GMSSParameters gmssParameterset,
+                                    GMSSDigestProvider digestProvider)
+        throws IOException
+    {
+        super(true, gmssParameterset);
+
+        this.messDigestTrees = digestProvider.get();
+        this.mdLength = messDigestTrees.getDigestSize();
+        this.gmssPS = gmssParameterset;
+        this.otsIndex = gmssParameterset.getWinternitzParameter();
+        this.K = gmssParameterset.getK();
+        this.heightOfTrees = gmssParameterset.getHeightOfTrees();
+        this.numLayer = gmssPS.getNumOfLayers();
+        this.digestProvider = digestProvider;
+        this.gmssRandom = new GMSSRandom(messDigestTrees);
+
+        numLeafs = new int[numLayer];
+        for (int i = 0; i < numLayer; i++)
+        {
+            numLeafs[i] = 1 << heightOfTrees[i];
+        }
+
+        DataInputStream in = new DataInputStream(is);
+
+        if (in.readInt() != numLayer)
+        {
+            throw new IOException("encoding does not match parameters");
+        }
+        for (int i = 0; i < numLayer; i++)
+        {
+            if (in.readInt() != heightOfTrees[i] || in.readInt() != otsIndex[i] || in.readInt() != K[i])
+            {
+                throw new IOException("encoding does not match parameters");
+            }
+        }
+
+        // vectors and treehash instances are shared, so each is read once and then referred to.
+        Vector objects = new Vector();
+
+        this.used = in.readBoolean();
+        this.index = readInts(in);
+        this.currentSeeds = readBytes2(in);
+        this.nextNextSeeds = readBytes2(in);
+        this.currentAuthPaths = readBytes3(in);
+        this.nextAuthPaths = readBytes3(in);
+        this.keep = readBytes3(in);
+        this.currentStack = readVectors(in, objects);
+        this.nextStack = readVectors(in, objects);
+        this.currentTreehash = readTreehashs2(in, objects);
+        this.nextTreehash = readTreehashs2(in, objects);
+        this.currentRetain = readVectors2(in, objects);
+        this.nextRetain = readVectors2(in, objects);
+        this.nextNextLeaf = readLeafs(in);
+        this.upperLeaf = readLeafs(in);
+        this.upperTreehashLeaf = readLeafs(in);
+        this.minTreehash = readInts(in);
+        this.nextRoot = readBytes2(in);
+
+        this.nextNextRoot = new GMSSRootCalc[readCount(in)];
+        for (int i = 0; i < nextNextRoot.length; i++)
+        {
+            byte[][] statByte = readBytes2(in);
+            int[] statInt = readInts(in);
+            Treehash[] treehash = readTreehashs(in, objects);
+            Vector[] retain = readVectors(in, objects);
+
+            if (statByte == null || statInt == null || statInt.length < 8
+                || statInt.length != 8 + statInt[0] + statInt[7] || statByte.length != 1 + statInt[0] + statInt[7])
+            {
+                throw new IOException("malformed private key encoding");
+            }
+
+            this.nextNextRoot[i] = new GMSSRootCalc(digestProvider, statByte, statInt, treehash, retain);
+        }
+
+        this.currentRootSig = readBytes2(in);
+
+        this.nextRootSig = new GMSSRootSig[readCount(in)];
+        for (int i = 0; i < nextRootSig.length; i++)
+        {
+            byte[][] statByte = readBytes2(in);
+            int[] statInt = readInts(in);
+
+            if (statByte == null || statByte.length != 5 || statByte[4] == null || statByte[4].length != 16
+                || statInt == null || statInt.length != 9)
+            {
+                throw new IOException("malformed private key encoding");
+            }
+
+            this.nextRootSig[i] = new GMSSRootSig(digestProvider.get(), statByte, statInt);
+        }
+    }
+
     // we assume this only gets called from nextKey so used is never copied.
     private GMSSPrivateKeyParameters(GMSSPrivateKeyParameters original)
     {
@@ -389,7 +515,7 @@ private GMSSPrivateKeyParameters(GMSSPrivateKeyParameters original)
         this.gmssPS = original.gmssPS;
         this.nextRoot = Arrays.clone(original.nextRoot);
         this.nextNextRoot = original.nextNextRoot;
-        this.currentRootSig = original.currentRootSig;
+        this.currentRootSig = Arrays.clone(original.currentRootSig);
         this.nextRootSig = original.nextRootSig;
         this.digestProvider = original.digestProvider;
         this.heightOfTrees = original.heightOfTrees;
@@ -421,6 +547,97 @@ public GMSSPrivateKeyParameters nextKey()
         return nKey;
     }
 
+    /**
+     * Returns an encoding of this key, including the state of all distributed
+     * computations, from which it can be reconstructed to continue signing.
+     * <p>
+     * Each key may only be used for a single signature, so the key to
+     * persist after signing is the one returned by {@link #nextKey()}, and it
+     * should be stored before the signature is released. Note the encoding
+     * also records whether the key has been used.
+     * </p>
+     *
+     * @return the encoded key
+     * @see #GMSSPrivateKeyParameters(byte[], GMSSParameters, GMSSDigestProvider)
+     */
+    public byte[] getEncoded()
+    {
+        ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+
+        try
+        {
+            writeTo(bOut);
+        }
+        catch (IOException e)
+        {
+            throw new IllegalStateException("unable to encode private key: " + e.getMessage());
+        }
+
+        return bOut.toByteArray();
+    }
+
+    /**
+     * Writes the encoding of this key to an output stream.
+     *
+     * @param os an output stream
+     * @throws IOException
+     * @see #GMSSPrivateKeyParameters(InputStream, GMSSParameters, GMSSDigestProvider)
+     */
+    public void writeTo(OutputStream os)
+        throws IOException
+    {
+        DataOutputStream out = new DataOutputStream(os);
+
+        out.writeInt(numLayer);
+        for (int i = 0; i < numLayer; i++)
+        {
+            out.writeInt(heightOfTrees[i]);
+            out.writeInt(otsIndex[i]);
+            out.writeInt(K[i]);
+        }
+
+        Vector objects = new Vector();
+
+        out.writeBoolean(used);
+        writeInts(out, index);
+        writeBytes(out, currentSeeds);
+        writeBytes(out, nextNextSeeds);
+        writeBytes(out, currentAuthPaths);
+        writeBytes(out, nextAuthPaths);
+        writeBytes(out, keep);
+        writeVectors(out, currentStack, objects);
+        writeVectors(out, nextStack, objects);
+        writeTreehashs(out, currentTreehash, objects);
+        writeTreehashs(out, nextTreehash, objects);
+        writeVectors(out, currentRetain, objects);
+        writeVectors(out, nextRetain, objects);
+        writeLeafs(out, nextNextLeaf);
+        writeLeafs(out, upperLeaf);
+        writeLeafs(out, upperTreehashLeaf);
+        writeInts(out, minTreehash);
+        writeBytes(out, nextRoot);
+
+        out.writeInt(nextNextRoot.length);
+        for (int i = 0; i < nextNextRoot.length; i++)
+        {
+            writeBytes(out, nextNextRoot[i].getStatByte());
+            writeInts(out, nextNextRoot[i].getStatInt());
+            writeTreehashs(out, nextNextRoot[i].getTreehash(), objects);
+            writeVectors(out, nextNextRoot[i].getRetain(), objects);
+        }
+
+        writeBytes(out, currentRootSig);
+
+        out.writeInt(nextRootSig.length);
+        for (int i = 0; i < nextRootSig.length; i++)
+        {
+            writeBytes(out, nextRootSig[i].getStatByte());
+            writeInts(out, nextRootSig[i].getStatInt());
+        }
+
+        out.flush();
+    }
+
     /**
      * This method updates the GMSS private key for the next signature
      *
@@ -1038,4 +1255,436 @@ public int getNumLeafs(int i)
     {
         return numLeafs[i];
     }
+
+    private static void writeInts(DataOutputStream out, int[] data)
+        throws IOException
+    {
+        if (data == null)
+        {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(data.length);
+        for (int i = 0; i < data.length; i++)
+        {
+            out.writeInt(data[i]);
+        }
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] data)
+        throws IOException
+    {
+        if (data == null)
+        {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(data.length);
+        out.write(data);
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[][] data)
+        throws IOException
+    {
+        if (data == null)
+        {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(data.length);
+        for (int i = 0; i < data.length; i++)
+        {
+            writeBytes(out, data[i]);
+        }
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[][][] data)
+        throws IOException
+    {
+        if (data == null)
+        {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(data.length);
+        for (int i = 0; i < data.length; i++)
+        {
+            writeBytes(out, data[i]);
+        }
+    }
+
+    /**
+     * Write a reference to a shared object, the index of the object in
+     * objects if it has already been written, or objects.size() if it is
+     * written following the reference.
+     *
+     * @return true if the object still needs to be written, false otherwise.
+     */
+    private static boolean writeReference(DataOutputStream out, Object o, Vector objects)
+        throws IOException
+    {
+        for (int i = 0; i < objects.size(); i++)
+        {
+            // identity, not equals(), as two distinct stacks may well have the same contents
+            if (objects.elementAt(i) == o)
+            {
+                out.writeInt(i);
+                return false;
+            }
+        }
+
+        out.writeInt(objects.size());
+        objects.addElement(o);
+
+        return true;
+    }
+
+    private static void writeVector(DataOutputStream out, Vector v, Vector objects)
+        throws IOException
+    {
+        if (writeReference(out, v, objects))
+        {
+            out.writeInt(v.size());
+            for (int i = 0; i < v.size(); i++)
+            {
+                writeBytes(out, (byte[])v.elementAt(i));
+            }
+        }
+    }
+
+    private static void writeVectors(DataOutputStream out, Vector[] data, Vector objects)
+        throws IOException
+    {
+        if (data == null)
+        {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(data.length);
+        for (int i = 0; i < data.length; i++)
+        {
+            writeVector(out, data[i], objects);
+        }
+    }
+
+    private static void writeVectors(DataOutputStream out, Vector[][] data, Vector objects)
+        throws IOException
+    {
+        if (data == null)
+        {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(data.length);
+        for (int i = 0; i < data.length; i++)
+        {
+            writeVectors(out, data[i], objects);
+        }
+    }
+
+    private static void writeTreehashs(DataOutputStream out, Treehash[] data, Vector objects)
+        throws IOException
+    {
+        if (data == null)
+        {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(data.length);
+        for (int i = 0; i < data.length; i++)
+        {
+            if (writeReference(out, data[i], objects))
+            {
+                byte[][] statByte = data[i].getStatByte();
+
+                // the tail nodes are on the shared stack, so only the first three are needed.
+                writeBytes(out, statByte[0]);
+                writeBytes(out, statByte[1]);
+                writeBytes(out, statByte[2]);
+                writeInts(out, data[i].getStatInt());
+                writeVector(out, data[i].getTailStack(), objects);
+            }
+        }
+    }
+
+    private static void writeTreehashs(DataOutputStream out, Treehash[][] data, Vector objects)
+        throws IOException
+    {
+        if (data == null)
+        {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(data.length);
+        for (int i = 0; i < data.length; i++)
+        {
+            writeTreehashs(out, data[i], objects);
+        }
+    }
+
+    private static void writeLeafs(DataOutputStream out, GMSSLeaf[] data)
+        throws IOException
+    {
+        out.writeInt(data.length);
+        for (int i = 0; i < data.length; i++)
+        {
+            writeBytes(out, data[i].getStatByte());
+            writeInts(out, data[i].getStatInt());
+        }
+    }
+
+    /**
+     * Read the length of an array, -1 if the array was null.
+     */
+    private static int readLength(DataInputStream in)
+        throws IOException
+    {
+        int length = in.readInt();
+
+        if (length < -1)
+        {
+            throw new IOException("malformed private key encoding");
+        }
+
+        return length;
+    }
+
+    private static int readCount(DataInputStream in)
+        throws IOException
+    {
+        int count = readLength(in);
+
+        if (count < 0)
+        {
+            throw new IOException("malformed private key encoding");
+        }
+
+        return count;
+    }
+
+    private static int[] readInts(DataInputStream in)
+        throws IOException
+    {
+        int length = readLength(in);
+        if (length < 0)
+        {
+            return null;
+        }
+
+        int[] data = new int[length];
+        for (int i = 0; i < length; i++)
+        {
+            data[i] = in.readInt();
+        }
+        return data;
+    }
+
+    private static byte[] readBytes(DataInputStream in)
+        throws IOException
+    {
+        int length = readLength(in);
+        if (length < 0)
+        {
+            return null;
+        }
+
+        byte[] data = new byte[length];
+        in.readFully(data);
+        return data;
+    }
+
+    private static byte[][] readBytes2(DataInputStream in)
+        throws IOException
+    {
+        int length = readLength(in);
+        if (length < 0)
+        {
+            return null;
+        }
+
+        byte[][] data = new byte[length][];
+        for (int i = 0; i < length; i++)
+        {
+            data[i] = readBytes(in);
+        }
+        return data;
+    }
+
+    private static byte[][][] readBytes3(DataInputStream in)
+        throws IOException
+    {
+        int length = readLength(in);
+        if (length < 0)
+        {
+            return null;
+        }
+
+        byte[][][] data = new byte[length][][];
+        for (int i = 0; i < length; i++)
+        {
+            data[i] = readBytes2(in);
+        }
+        return data;
+    }
+
+    /**
+     * Read a reference written by writeReference().
+     *
+     * @return the object referred to, or null if it follows the reference.
+     */
+    private static Object readReference(DataInputStream in, Vector objects)
+        throws IOException
+    {
+        int ref = in.readInt();
+
+        if (ref == objects.size())
+        {
+            return null;
+        }
+        if (ref < 0 || ref > objects.size())
+        {
+            throw new IOException("malformed private key encoding");
+        }
+
+        return objects.elementAt(ref);
+    }
+
+    private static Vector readVector(DataInputStream in, Vector objects)
+        throws IOException
+    {
+        Object o = readReference(in, objects);
+        if (o != null)
+        {
+            if (!(o instanceof Vector))
+            {
+                throw new IOException("malformed private key encoding");
+            }
+            return (Vector)o;
+        }
+
+        Vector v = new Vector();
+        objects.addElement(v);
+
+        int size = readCount(in);
+        for (int i = 0; i < size; i++)
+        {
+            v.addElement(readBytes(in));
+        }
+        return v;
+    }
+
+    private static Vector[] readVectors(DataInputStream in, Vector objects)
+        throws IOException
+    {
+        int length = readLength(in);
+        if (length < 0)
+        {
+            return null;
+        }
+
+        Vector[] data = new Vector[length];
+        for (int i = 0; i < length; i++)
+        {
+            data[i] = readVector(in, objects);
+        }
+        return data;
+    }
+
+    private static Vector[][] readVectors2(DataInputStream in, Vector objects)
+        throws IOException
+    {
+        int length = readLength(in);
+        if (length < 0)
+        {
+            return null;
+        }
+
+        Vector[][] data = new Vector[length][];
+        for (int i = 0; i < length; i++)
+        {
+            data[i] = readVectors(in, objects);
+        }
+        return data;
+    }
+
+    private Treehash[] readTreehashs(DataInputStream in, Vector objects)
+        throws IOException
+    {
+        int length = readLength(in);
+        if (length < 0)
+        {
+            return null;
+        }
+
+        Treehash[] data = new Treehash[length];
+        for (int i = 0; i < length; i++)
+        {
+            Object o = readReference(in, objects);
+            if (o != null)
+            {
+                if (!(o instanceof Treehash))
+                {
+                    throw new IOException("malformed private key encoding");
+                }
+                data[i] = (Treehash)o;
+                continue;
+            }
+
+            // reserve the treehash's place before its tail stack is read.
+            int ref = objects.size();
+            objects.addElement(this);
+
+            byte[][] statByte = new byte[3][];
+            statByte[0] = readBytes(in);
+            statByte[1] = readBytes(in);
+            statByte[2] = readBytes(in);
+            int[] statInt = readInts(in);
+            Vector tailStack = readVector(in, objects);
+
+            if (statInt == null || statInt.length < 6 || statInt.length != 6 + statInt[1])
+            {
+                throw new IOException("malformed private key encoding");
+            }
+
+            data[i] = new Treehash(digestProvider.get(), statByte, statInt, tailStack);
+            objects.setElementAt(data[i], ref);
+        }
+        return data;
+    }
+
+    private Treehash[][] readTreehashs2(DataInputStream in, Vector objects)
+        throws IOException
+    {
+        int length = readLength(in);
+        if (length < 0)
+        {
+            return null;
+        }
+
+        Treehash[][] data = new Treehash[length][];
+        for (int i = 0; i < length; i++)
+        {
+            data[i] = readTreehashs(in, objects);
+        }
+        return data;
+    }
+
+    private GMSSLeaf[] readLeafs(DataInputStream in)
+        throws IOException
+    {
+        GMSSLeaf[] data = new GMSSLeaf[readCount(in)];
+        for (int i = 0; i < data.length; i++)
+        {
+            byte[][] statByte = readBytes2(in);
+            int[] statInt = readInts(in);
+
+            if (statByte == null || statByte.length != 4 || statInt == null || statInt.length != 4)
+            {
+                throw new IOException("malformed private key encoding");
+            }
+
+            data[i] = new GMSSLeaf(digestProvider.get(), statByte, statInt);
+        }
+        return data;
+    }
 }
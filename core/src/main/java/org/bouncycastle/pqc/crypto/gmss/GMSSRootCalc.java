@@ -105,13 +105,13 @@
     /**
      * This constructor regenerates a prior treehash object
      *
-     * @param digest     an array of strings, containing the digest of the used hash
-     *                 function and PRNG and the digest of the corresponding
-     *                 provider
+     * @param digestProvider provider for the digest used to construct the tree
      * @param statByte status bytes
      * @param statInt  status ints
+     * @param treeH    the treehash instances of the tree, null if not initialized
+     * @param ret      the retain stacks of the tree
      */
-    public GMSSRootCalc(Digest digest, byte[][] statByte, int[] statInt,
+    public GMSSRootCalc(GMSSDigestProvider digestProvider, byte[][] statByte, int[] statInt,
                         Treehash[] treeH, Vector[] ret)
     {
         this.messDigestTree = digestProvider.get();
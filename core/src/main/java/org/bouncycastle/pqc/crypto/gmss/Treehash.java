@@ -87,6 +87,20 @@
      * @param statInt  status ints
      */
     public Treehash(Digest name, byte[][] statByte, int[] statInt)
+    {
+        this(name, statByte, statInt, tailStackOf(statByte, statInt[1]));
+    }
+
+    /**
+     * This constructor regenerates a prior treehash object whose tail nodes
+     * are stored on a stack shared with other treehash instances
+     *
+     * @param name      the digest used by the tree
+     * @param statByte  status bytes, only the first three are used
+     * @param statInt   status ints
+     * @param tailStack the (shared) stack the tail nodes are stored on
+     */
+    Treehash(Digest name, byte[][] statByte, int[] statInt, Vector tailStack)
     {
         this.messDigestTree = name;
 
@@ -131,11 +145,17 @@ public Treehash(Digest name, byte[][] statByte, int[] statInt)
         this.seedActive = statByte[1];
         this.seedNext = statByte[2];
 
-        this.tailStack = new Vector();
+        this.tailStack = tailStack;
+    }
+
+    private static Vector tailStackOf(byte[][] statByte, int tailLength)
+    {
+        Vector tailStack = new Vector();
         for (int i = 0; i < tailLength; i++)
         {
-            this.tailStack.addElement(statByte[3 + i]);
+            tailStack.addElement(statByte[3 + i]);
         }
+        return tailStack;
     }
 
     /**
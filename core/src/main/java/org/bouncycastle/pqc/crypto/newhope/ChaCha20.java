@@ -6,9 +6,8 @@
 
 class ChaCha20
 {
-    static void process(byte[] key, byte[] nonce, byte[] buf, int off, int len)
+    static void process(ChaChaEngine e, byte[] key, byte[] nonce, byte[] buf, int off, int len)
     {
-        ChaChaEngine e = new ChaChaEngine(20);
         e.init(true, new ParametersWithIV(new KeyParameter(key), nonce));
         e.processBytes(buf, off, len, buf, off);
     }
@@ -1,5 +1,6 @@
 package org.bouncycastle.pqc.crypto.newhope;
 
+import org.bouncycastle.crypto.engines.ChaChaEngine;
 import org.bouncycastle.util.Arrays;
 
 class ErrorCorrection
@@ -53,14 +54,14 @@ static int g(int x)
         return abs(t - x);
     }
 
-    static void helpRec(short[] c, short[] v, byte[] seed, byte nonce)
+    static void helpRec(short[] c, short[] v, byte[] seed, byte nonce, ChaChaEngine cipher)
     {
         byte[] iv = new byte[8];
 //        iv[7] = nonce;
         iv[0] = nonce;
 
         byte[] rand = new byte[32];
-        ChaCha20.process(seed, iv, rand, 0, rand.length);
+        ChaCha20.process(cipher, seed, iv, rand, 0, rand.length);
 
 //      int32_t v0[4], v1[4], v_tmp[4], k;
         int[] vs = new int[8], vTmp = new int[4];
@@ -17,7 +17,7 @@ public byte[] calculateAgreement(CipherParameters otherPublicKey)
 
         byte[] sharedValue = new byte[NewHope.AGREEMENT_SIZE];
 
-        NewHope.sharedA(sharedValue, privKey.secData, pubKey.pubData);
+        NewHopeEngines.get().sharedA(sharedValue, privKey.secData, pubKey.pubData);
 
         return sharedValue;
     }
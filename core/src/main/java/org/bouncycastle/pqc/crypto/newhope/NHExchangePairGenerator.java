@@ -23,7 +23,7 @@ public ExchangePair GenerateExchange(AsymmetricKeyParameter senderPublicKey)
         byte[] sharedValue = new byte[NewHope.AGREEMENT_SIZE];
         byte[] publicKeyValue = new byte[NewHope.SENDB_BYTES];
 
-        NewHope.sharedB(random, sharedValue, publicKeyValue, pubKey.pubData);
+        NewHopeEngines.get().sharedB(random, sharedValue, publicKeyValue, pubKey.pubData);
 
         return new ExchangePair(new NHPublicKeyParameters(publicKeyValue), sharedValue);
     }
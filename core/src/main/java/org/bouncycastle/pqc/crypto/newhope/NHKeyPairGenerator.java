@@ -21,7 +21,7 @@ public AsymmetricCipherKeyPair generateKeyPair()
         byte[] pubData = new byte[NewHope.SENDA_BYTES];
         short[] secData = new short[NewHope.POLY_SIZE];
 
-        NewHope.keygen(random, pubData, secData);
+        NewHopeEngines.get().keygen(random, pubData, secData);
 
         return new AsymmetricCipherKeyPair(new NHPublicKeyParameters(pubData), new NHPrivateKeyParameters(secData));
     }
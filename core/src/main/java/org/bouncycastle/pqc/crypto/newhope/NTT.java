@@ -65,6 +65,12 @@ static void bitReverse(short[] poly)
 
     /*
      * GS_bo_to_no; omegas need to be in Montgomery domain
+     *
+     * The butterflies of each level are visited block by block, rather than by offset within the
+     * block, so memory is walked in order and each twiddle factor is loaded once. Coefficients are
+     * only reduced on odd levels - a sum of two Montgomery outputs still fits in 16 bits, a sum of
+     * four would not, and neither would the product of the twiddle and a larger difference fit the
+     * 18 bit Montgomery reduction.
      */
     static void core(short[] a, short[] omega)
     {
@@ -73,12 +79,12 @@ static void core(short[] a, short[] omega)
         {
             // Even level
             distance = 1 << i;
-            for (int start = 0; start < distance; ++start)
+            for (int block = 0, jTwiddle = 0; block < Params.N; block += 2 * distance)
             {
-                int jTwiddle = 0;
-                for (int j = start; j < Params.N - 1; j += 2 * distance)
+                int w = omega[jTwiddle++];
+                for (int j = block; j < block + distance; ++j)
                 {
-                    int u = a[j] & 0xFFFF, v = a[j + distance] & 0xFFFF, w = omega[jTwiddle++];
+                    int u = a[j] & 0xFFFF, v = a[j + distance] & 0xFFFF;
                     a[j] = (short)(u + v); // Omit reduction (be lazy)
                     a[j + distance] = Reduce.montgomery(w * (u + (3 * Params.Q) - v));
                 }
@@ -86,12 +92,12 @@ static void core(short[] a, short[] omega)
 
             // Odd level
             distance <<= 1;
-            for (int start = 0; start < distance; ++start)
+            for (int block = 0, jTwiddle = 0; block < Params.N; block += 2 * distance)
             {
-                int jTwiddle = 0;
-                for (int j = start; j < Params.N - 1; j += 2 * distance)
+                int w = omega[jTwiddle++];
+                for (int j = block; j < block + distance; ++j)
                 {
-                    int u = a[j] & 0xFFFF, v = a[j + distance] & 0xFFFF, w = omega[jTwiddle++];
+                    int u = a[j] & 0xFFFF, v = a[j + distance] & 0xFFFF;
                     a[j] = Reduce.barrett((short)(u + v));
                     a[j + distance] = Reduce.montgomery(w * (u + (3 * Params.Q) - v));
                 }
@@ -3,9 +3,17 @@
 import java.security.SecureRandom;
 
 import org.bouncycastle.crypto.digests.SHA3Digest;
+import org.bouncycastle.crypto.digests.SHAKEDigest;
+import org.bouncycastle.crypto.engines.ChaChaEngine;
+import org.bouncycastle.util.Arrays;
 
 /**
  * This implementation is based heavily on the C reference implementation from https://cryptojedi.org/crypto/index.shtml.
+ * <p>
+ * An instance holds the polynomials, buffers, cipher and digests an exchange works on, so it must only
+ * be used by one thread at a time. The public classes use the engine belonging to the calling thread,
+ * see {@link NewHopeEngines}, leaving them safe to share between threads.
+ * </p>
  */
 class NewHope
 {
@@ -16,69 +24,72 @@
     public static final int SENDA_BYTES = Params.POLY_BYTES + Params.SEED_BYTES;
     public static final int SENDB_BYTES = Params.POLY_BYTES + Params.REC_BYTES;
 
-    public static void keygen(SecureRandom rand, byte[] send, short[] sk)
+    // polynomial workspaces, reused by each exchange
+    private final short[] a = new short[Params.N];
+    private final short[] pk = new short[Params.N];
+    private final short[] s = new short[Params.N];
+    private final short[] e = new short[Params.N];
+    private final short[] b = new short[Params.N];
+    private final short[] v = new short[Params.N];
+    private final short[] c = new short[Params.N];
+
+    private final byte[] seed = new byte[Params.SEED_BYTES];
+    private final byte[] noiseSeed = new byte[32];
+    private final byte[] noiseBuf = new byte[4 * Params.N];
+    private final byte[] xofBuf = new byte[Poly.SHAKE128_RATE];
+
+    private final ChaChaEngine cipher = new ChaChaEngine(20);
+    private final SHAKEDigest xof = new SHAKEDigest(128);
+    private final SHA3Digest sha3 = new SHA3Digest(256);
+
+    public void keygen(SecureRandom rand, byte[] send, short[] sk)
     {
-        byte[] seed = new byte[Params.SEED_BYTES];
         rand.nextBytes(seed);
 
-        short[] a = new short[Params.N];
         generateA(a, seed);
 
-        byte[] noiseSeed = new byte[32];
         rand.nextBytes(noiseSeed);
 
-        Poly.getNoise(sk, noiseSeed, (byte)0);
+        Poly.getNoise(sk, noiseSeed, (byte)0, cipher, noiseBuf);
         Poly.toNTT(sk);
 
-        short[] e = new short[Params.N];
-        Poly.getNoise(e, noiseSeed, (byte)1);
+        Poly.getNoise(e, noiseSeed, (byte)1, cipher, noiseBuf);
         Poly.toNTT(e);
 
-        short[] r = new short[Params.N];
-        Poly.pointWise(a, sk, r);
+        Poly.pointWise(a, sk, b);
+        Poly.add(b, e, b);
 
-        short[] pk = new short[Params.N];
-        Poly.add(r, e, pk);
+        encodeA(send, b, seed);
 
-        encodeA(send, pk, seed);
+        clear();
     }
 
-    public static void sharedB(SecureRandom rand, byte[] sharedKey, byte[] send, byte[] received)
+    public void sharedB(SecureRandom rand, byte[] sharedKey, byte[] send, byte[] received)
     {
-        short[] pkA = new short[Params.N];
-        byte[] seed = new byte[Params.SEED_BYTES];
-        decodeA(pkA, seed, received);
+        decodeA(pk, seed, received);
 
-        short[] a = new short[Params.N];
         generateA(a, seed);
 
-        byte[] noiseSeed = new byte[32];
         rand.nextBytes(noiseSeed);
 
-        short[] sp = new short[Params.N];
-        Poly.getNoise(sp, noiseSeed, (byte)0);
-        Poly.toNTT(sp);
+        Poly.getNoise(s, noiseSeed, (byte)0, cipher, noiseBuf);
+        Poly.toNTT(s);
 
-        short[] ep = new short[Params.N];
-        Poly.getNoise(ep, noiseSeed, (byte)1);
-        Poly.toNTT(ep);
+        Poly.getNoise(e, noiseSeed, (byte)1, cipher, noiseBuf);
+        Poly.toNTT(e);
 
-        short[] bp = new short[Params.N];
-        Poly.pointWise(a, sp, bp);
-        Poly.add(bp, ep, bp);
+        Poly.pointWise(a, s, b);
+        Poly.add(b, e, b);
 
-        short[] v = new short[Params.N];
-        Poly.pointWise(pkA, sp, v);
+        Poly.pointWise(pk, s, v);
         Poly.fromNTT(v);
 
-        short[] epp = new short[Params.N];
-        Poly.getNoise(epp, noiseSeed, (byte)2);
-        Poly.add(v, epp, v);
+        Poly.getNoise(e, noiseSeed, (byte)2, cipher, noiseBuf);
+        Poly.add(v, e, v);
 
-        short[] c = new short[Params.N];
-        ErrorCorrection.helpRec(c, v, noiseSeed, (byte)3);
+        ErrorCorrection.helpRec(c, v, noiseSeed, (byte)3, cipher);
 
-        encodeB(send, bp, c);
+        encodeB(send, b, c);
 
         ErrorCorrection.rec(sharedKey, v, c);
 
@@ -86,16 +97,15 @@ public static void sharedB(SecureRandom rand, byte[] sharedKey, byte[] send, byt
         {
             sha3(sharedKey);
         }
+
+        clear();
     }
 
-    public static void sharedA(byte[] sharedKey, short[] sk, byte[] received)
+    public void sharedA(byte[] sharedKey, short[] sk, byte[] received)
     {
-        short[] bp = new short[Params.N];
-        short[] c = new short[Params.N];
-        decodeB(bp, c, received);
+        decodeB(b, c, received);
 
-        short[] v = new short[Params.N];
-        Poly.pointWise(sk, bp, v);
+        Poly.pointWise(sk, b, v);
         Poly.fromNTT(v);
 
         ErrorCorrection.rec(sharedKey, v, c);
@@ -104,6 +114,20 @@ public static void sharedA(byte[] sharedKey, short[] sk, byte[] received)
         {
             sha3(sharedKey);
         }
+
+        clear();
+    }
+
+    /**
+     * Wipe the workspaces which held secret values.
+     */
+    private void clear()
+    {
+        Arrays.fill(s, (short)0);
+        Arrays.fill(e, (short)0);
+        Arrays.fill(v, (short)0);
+        Arrays.fill(noiseSeed, (byte)0);
+        Arrays.fill(noiseBuf, (byte)0);
     }
 
     static void decodeA(short[] pk, byte[] seed, byte[] r)
@@ -144,15 +168,14 @@ static void encodeB(byte[] r, short[] b, short[] c)
         }
     }
 
-    static void generateA(short[] a, byte[] seed)
+    private void generateA(short[] a, byte[] seed)
     {
-        Poly.uniform(a, seed);
+        Poly.uniform(a, seed, xof, xofBuf);
     }
     
-    static void sha3(byte[] sharedKey)
+    private void sha3(byte[] sharedKey)
     {
-        SHA3Digest d = new SHA3Digest(256);
-        d.update(sharedKey, 0, 32);
-        d.doFinal(sharedKey, 0);
+        sha3.update(sharedKey, 0, 32);
+        sha3.doFinal(sharedKey, 0);
     }
 }
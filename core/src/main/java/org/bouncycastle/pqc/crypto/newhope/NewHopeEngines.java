@@ -0,0 +1,21 @@
+package org.bouncycastle.pqc.crypto.newhope;
+
+/**
+ * Hands out a NewHope engine for the calling thread. Each thread gets its own, so the engine's
+ * workspaces are reused from one operation to the next without ever being shared between threads.
+ */
+class NewHopeEngines
+{
+    private static final ThreadLocal engines = new ThreadLocal()
+    {
+        protected Object initialValue()
+        {
+            return new NewHope();
+        }
+    };
+
+    static NewHope get()
+    {
+        return (NewHope)engines.get();
+    }
+}
@@ -1,10 +1,14 @@
 package org.bouncycastle.pqc.crypto.newhope;
 
 import org.bouncycastle.crypto.digests.SHAKEDigest;
+import org.bouncycastle.crypto.engines.ChaChaEngine;
+import org.bouncycastle.util.Arrays;
 import org.bouncycastle.util.Pack;
 
 class Poly
 {
+    static final int SHAKE128_RATE = 168;
+
     static void add(short[] x, short[] y, short[] z)
     {
         for (int i = 0; i < Params.N; ++i)
@@ -36,13 +40,16 @@ static void fromNTT(short[] r)
         NTT.mulCoefficients(r, Precomp.PSIS_INV_MONTGOMERY);
     }
 
-    static void getNoise(short[] r, byte[] seed, byte nonce)
+    /**
+     * Sample a noise polynomial, using the passed in cipher and 4 * N byte buffer as workspace.
+     */
+    static void getNoise(short[] r, byte[] seed, byte nonce, ChaChaEngine cipher, byte[] buf)
     {
         byte[] iv = new byte[8];
         iv[0] = nonce;
 
-        byte[] buf = new byte[4 * Params.N];
-        ChaCha20.process(seed, iv, buf, 0, buf.length);
+        Arrays.fill(buf, (byte)0);
+        ChaCha20.process(cipher, seed, iv, buf, 0, buf.length);
 
         for (int i = 0; i < Params.N; ++i)
         {
@@ -99,20 +106,22 @@ static void toNTT(short[] r)
         NTT.core(r, Precomp.OMEGAS_MONTGOMERY);
     }
 
-    static void uniform(short[] a, byte[] seed)
+    /**
+     * Generate a uniform polynomial, squeezing the passed in XOF a block at a time into buf.
+     */
+    static void uniform(short[] a, byte[] seed, SHAKEDigest xof, byte[] buf)
     {
-        SHAKEDigest xof = new SHAKEDigest(128);
+        xof.reset();
         xof.update(seed, 0, seed.length);
 
         int pos = 0;
         for (;;)
         {
-            byte[] output = new byte[256];
-            xof.doOutput(output, 0, output.length);
+            xof.doOutput(buf, 0, buf.length);
 
-            for (int i = 0; i < output.length; i += 2)
+            for (int i = 0; i < buf.length; i += 2)
             {
-                int val = (output[i] & 0xFF) | ((output[i + 1] & 0xFF) << 8);
+                int val = (buf[i] & 0xFF) | ((buf[i + 1] & 0xFF) << 8);
                 val &= 0x3FFF;
                 if (val < Params.Q)
                 {
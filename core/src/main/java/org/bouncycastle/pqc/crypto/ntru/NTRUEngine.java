@@ -436,7 +436,7 @@ private byte[] decrypt(byte[] data, NTRUEncryptionPrivateKeyParameters privKey)
         byte[] sData = buildSData(oid, cm, cl, cb, hTrunc);
 
         Polynomial cr = generateBlindingPoly(sData, cm);
-        IntegerPolynomial cRPrime = cr.mult(pub);
+        IntegerPolynomial cRPrime = cr.mult(pub, q);
         cRPrime.modPositive(q);
         if (!cRPrime.equals(cR))
         {
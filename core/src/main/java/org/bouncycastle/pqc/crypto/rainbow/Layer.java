@@ -149,15 +149,17 @@ public short[][] plugInVinegars(short[] x)
         {
             for (int i = 0; i < vi; i++)
             {
+                // row = sum over j of beta * xj (plug in)
+                short[] beta = coeff_beta[k][i];
+                short row = 0;
                 for (int j = 0; j < vi; j++)
                 {
-                    // tmp = beta * xi (plug in)
-                    tmpMult = GF2Field.multElem(coeff_beta[k][i][j], x[i]);
-                    // tmp = tmp * xj
-                    tmpMult = GF2Field.multElem(tmpMult, x[j]);
-                    // accumulate into the array for the free coefficients.
-                    sum[k] = GF2Field.addElem(sum[k], tmpMult);
+                    row = GF2Field.addElem(row, GF2Field.multElem(beta[j], x[j]));
                 }
+                // tmp = row * xi
+                tmpMult = GF2Field.multElem(row, x[i]);
+                // accumulate into the array for the free coefficients.
+                sum[k] = GF2Field.addElem(sum[k], tmpMult);
             }
         }
 
@@ -243,27 +243,35 @@ private short[] verifySignatureIntern(short[] signature)
         short[] rslt = new short[coeff_quadratic.length];// n - v1
         int n = coeff_singular[0].length;
         int offset = 0; // array position
-        short tmp = 0; // for scalar
+
+        // the quadratic monomials are the same for every polynomial, so compute them once
+        short[] monomials = new short[n * (n + 1) / 2];
+        for (int x = 0; x < n; x++)
+        {
+            for (int y = x; y < n; y++)
+            {
+                monomials[offset++] = GF2Field.multElem(signature[x], signature[y]);
+            }
+        }
 
         for (int p = 0; p < coeff_quadratic.length; p++)
         { // no of polynomials
-            offset = 0;
+            short[] quadratic = coeff_quadratic[p];
+            short[] singular = coeff_singular[p];
+            short tmp = coeff_scalar[p]; // add scalar
+
+            // calculate quadratic terms
+            for (int i = 0; i < monomials.length; i++)
+            {
+                tmp = GF2Field.addElem(tmp, GF2Field.multElem(quadratic[i], monomials[i]));
+            }
+            // calculate singular terms
             for (int x = 0; x < n; x++)
             {
-                // calculate quadratic terms
-                for (int y = x; y < n; y++)
-                {
-                    tmp = GF2Field.multElem(coeff_quadratic[p][offset],
-                        GF2Field.multElem(signature[x], signature[y]));
-                    rslt[p] = GF2Field.addElem(rslt[p], tmp);
-                    offset++;
-                }
-                // calculate singular terms
-                tmp = GF2Field.multElem(coeff_singular[p][x], signature[x]);
-                rslt[p] = GF2Field.addElem(rslt[p], tmp);
+                tmp = GF2Field.addElem(tmp, GF2Field.multElem(singular[x], signature[x]));
             }
-            // add scalar
-            rslt[p] = GF2Field.addElem(rslt[p], coeff_scalar[p]);
+
+            rslt[p] = tmp;
         }
 
         return rslt;
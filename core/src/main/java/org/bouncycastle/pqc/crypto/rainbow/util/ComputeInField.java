@@ -12,7 +12,7 @@
 public class ComputeInField
 {
 
-    private short[][] A; // used by solveEquation and inverse
+    private short[][] A; // used by solveEquation and inverse, reused while the size is unchanged
     short[] x;
 
     /**
@@ -51,16 +51,17 @@ public short[] solveEquation(short[][] B, short[] b)
             // b is stored as the last column.
             // B contains one column more than rows.
             // In this column we store a free coefficient that should be later subtracted from b
-            A = new short[B.length][B.length + 1];
+            A = allocate(B.length, B.length + 1);
             // stores the solution of the LES
             x = new short[B.length];
 
             /** copy B into the global matrix A **/
             for (int i = 0; i < B.length; i++)
             { // rows
-                for (int j = 0; j < B[0].length; j++)
-                { // cols
-                    A[i][j] = B[i][j];
+                System.arraycopy(B[i], 0, A[i], 0, B[0].length);
+                for (int j = B[0].length; j <= B.length; j++)
+                {
+                    A[i][j] = 0;
                 }
             }
 
@@ -103,7 +104,7 @@ public short[][] inverse(short[][] coef)
             /** Initialization: **/
             short factor;
             short[][] inverse;
-            A = new short[coef.length][2 * coef.length];
+            A = allocate(coef.length, 2 * coef.length);
             if (coef.length != coef[0].length)
             {
                 throw new RuntimeException(
@@ -162,6 +163,23 @@ public short[][] inverse(short[][] coef)
         }
     }
 
+    /**
+     * Return the global matrix A if it has the given size, or a new matrix otherwise.
+     * The contents of a reused matrix are overwritten by the caller.
+     *
+     * @param rows    the number of rows
+     * @param columns the number of columns
+     * @return a matrix of the given size
+     */
+    private short[][] allocate(int rows, int columns)
+    {
+        if (A != null && A.length == rows && A[0].length == columns)
+        {
+            return A;
+        }
+        return new short[rows][columns];
+    }
+
     /**
      * Elimination under the diagonal.
      * This function changes a matrix so that it contains only zeros under the
@@ -200,26 +218,31 @@ private void computeZerosUnder(boolean usedForInverse)
         //elimination operations to modify A so that that it contains only 0s under the diagonal
         for (int k = 0; k < A.length - 1; k++)
         { // the fixed row
+            short[] rowK = A[k];
+            short factor2 = GF2Field.invElem(rowK[k]);
+
+            //The element which multiplicative inverse is needed, is 0
+            //in this case is the input matrix not invertible
+            if (factor2 == 0)
+            {
+                throw new RuntimeException("Matrix not invertible! We have to choose another one!");
+            }
+
             for (int i = k + 1; i < A.length; i++)
             { // rows
-                short factor1 = A[i][k];
-                short factor2 = GF2Field.invElem(A[k][k]);
-
-                //The element which multiplicative inverse is needed, is 0
-                //in this case is the input matrix not invertible
-                if (factor2 == 0)
+                short[] rowI = A[i];
+                // factor = A[i,k] / A[k,k]
+                short factor = GF2Field.multElem(rowI[k], factor2);
+                if (factor == 0)
                 {
-                    throw new RuntimeException("Matrix not invertible! We have to choose another one!");
+                    continue;
                 }
 
                 for (int j = k; j < length; j++)
                 {// columns
-                    // tmp=A[k,j] / A[k,k]
-                    tmp = GF2Field.multElem(A[k][j], factor2);
-                    // tmp = A[i,k] * A[k,j] / A[k,k]
-                    tmp = GF2Field.multElem(factor1, tmp);
                     // A[i,j]=A[i,j]-A[i,k]/A[k,k]*A[k,j];
-                    A[i][j] = GF2Field.addElem(A[i][j], tmp);
+                    tmp = GF2Field.multElem(factor, rowK[j]);
+                    rowI[j] = GF2Field.addElem(rowI[j], tmp);
                 }
             }
         }
@@ -241,22 +264,28 @@ private void computeZerosAbove()
         short tmp = 0;
         for (int k = A.length - 1; k > 0; k--)
         { // the fixed row
+            short[] rowK = A[k];
+            short factor2 = GF2Field.invElem(rowK[k]);
+            if (factor2 == 0)
+            {
+                throw new RuntimeException("The matrix is not invertible");
+            }
+
             for (int i = k - 1; i >= 0; i--)
             { // rows
-                short factor1 = A[i][k];
-                short factor2 = GF2Field.invElem(A[k][k]);
-                if (factor2 == 0)
+                short[] rowI = A[i];
+                // factor = A[i,k] / A[k,k]
+                short factor = GF2Field.multElem(rowI[k], factor2);
+                if (factor == 0)
                 {
-                    throw new RuntimeException("The matrix is not invertible");
+                    continue;
                 }
+
                 for (int j = k; j < 2 * A.length; j++)
                 { // columns
-                    // tmp = A[k,j] / A[k,k]
-                    tmp = GF2Field.multElem(A[k][j], factor2);
-                    // tmp = A[i,k] * A[k,j] / A[k,k]
-                    tmp = GF2Field.multElem(factor1, tmp);
                     // A[i,j] = A[i,j] - A[i,k] / A[k,k] * A[k,j];
-                    A[i][j] = GF2Field.addElem(A[i][j], tmp);
+                    tmp = GF2Field.multElem(factor, rowK[j]);
+                    rowI[j] = GF2Field.addElem(rowI[j], tmp);
                 }
             }
         }
@@ -328,7 +357,7 @@ public short[][] multiplyMatrix(short[][] M1, short[][] M2)
             throw new RuntimeException("Multiplication is not possible!");
         }
         short tmp = 0;
-        A = new short[M1.length][M2[0].length];
+        short[][] rslt = new short[M1.length][M2[0].length];
         for (int i = 0; i < M1.length; i++)
         {
             for (int j = 0; j < M2.length; j++)
@@ -336,11 +365,11 @@ public short[][] multiplyMatrix(short[][] M1, short[][] M2)
                 for (int k = 0; k < M2[0].length; k++)
                 {
                     tmp = GF2Field.multElem(M1[i][j], M2[j][k]);
-                    A[i][k] = GF2Field.addElem(A[i][k], tmp);
+                    rslt[i][k] = GF2Field.addElem(rslt[i][k], tmp);
                 }
             }
         }
-        return A;
+        return rslt;
     }
 
     /**
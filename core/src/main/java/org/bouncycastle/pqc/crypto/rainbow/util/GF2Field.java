@@ -8,7 +8,8 @@
  * 1+x^2+x^3+x^6+x^8 ( 1 0100 1101 = 0x14d )
  * <p>
  * This class makes use of lookup tables(exps and logs) for implementing the
- * operations in order to increase the efficiency of Rainbow.
+ * operations in order to increase the efficiency of Rainbow. Multiplication uses
+ * a full table of all products built from them, so it needs a single lookup.
  */
 public class GF2Field
 {
@@ -62,6 +63,22 @@
         180, 11, 127, 81, 21, 67, 145, 16, 113, 187, 238, 191, 133, 200,
         161};
 
+    /*
+      * the product of x and y is found at index (x << 8) | y of this table
+      */
+    private static final byte mults[] = new byte[256 * 256];
+
+    static
+    {
+        for (int x = 1; x < 256; x++)
+        {
+            for (int y = 1; y < 256; y++)
+            {
+                mults[(x << 8) | y] = (byte)exps[(logs[x] + logs[y]) % 255];
+            }
+        }
+    }
+
     /**
      * This function calculates the sum of two elements as an operation in GF2^8
      *
@@ -101,14 +118,7 @@ public static short invElem(short x)
      */
     public static short multElem(short x, short y)
     {
-        if (x == 0 || y == 0)
-        {
-            return 0;
-        }
-        else
-        {
-            return (exps[(logs[x] + logs[y]) % 255]);
-        }
+        return (short)(mults[(x << 8) | y] & MASK);
     }
 
     /**
@@ -13,6 +13,10 @@
     private final Digest dig512;
     private final Permute perm = new Permute();
 
+    // scratch space - an instance is only ever used by one thread at a time
+    private final byte[] x = new byte[64];
+    private final byte[] buf = new byte[2 * SPHINCS256Config.HASH_BYTES];
+
     // for key pair generation where message hash not required
     HashFunctions(Digest dig256)
     {
@@ -41,7 +45,6 @@ Digest getMessageHash()
 
     int hash_2n_n(byte[] out, int outOff, byte[] in, int inOff)
     {
-        byte[] x = new byte[64];
         int i;
         for (i = 0; i < 32; i++)
         {
@@ -64,7 +67,6 @@ int hash_2n_n(byte[] out, int outOff, byte[] in, int inOff)
 
     int hash_2n_n_mask(byte[] out, int outOff, byte[] in, int inOff, byte[] mask, int maskOff)
     {
-        byte[] buf = new byte[2 * SPHINCS256Config.HASH_BYTES];
         int i;
         for (i = 0; i < 2 * SPHINCS256Config.HASH_BYTES; i++)
         {
@@ -78,8 +80,6 @@ int hash_2n_n_mask(byte[] out, int outOff, byte[] in, int inOff, byte[] mask, in
 
     int hash_n_n(byte[] out, int outOff, byte[] in, int inOff)
     {
-
-        byte[] x = new byte[64];
         int i;
 
         for (i = 0; i < 32; i++)
@@ -98,7 +98,6 @@ int hash_n_n(byte[] out, int outOff, byte[] in, int inOff)
 
     int hash_n_n_mask(byte[] out, int outOff, byte[] in, int inOff,  byte[] mask, int maskOff)
     {
-        byte[] buf = new byte[SPHINCS256Config.HASH_BYTES];
         int i;
         for (i = 0; i < SPHINCS256Config.HASH_BYTES; i++)
         {
@@ -15,39 +15,62 @@ static void expand_seed(byte[] outseeds, byte[] inseed)
         Seed.prg(outseeds, 0, HORST_T * HORST_SKBYTES, inseed, 0);
     }
 
-    static int horst_sign(HashFunctions hs,
-                          byte[] sig, int sigOff, byte[] pk,
-                   byte[] seed,
-                   byte[] masks,
-                   byte[] m_hash)
+    static void expand_seed(byte[] outseeds, byte[] inseed, int firstLeaf, int count)
     {
-        byte[] sk = new byte[ HORST_T * HORST_SKBYTES];
-        int idx;
-        int i, j, k;
-        int sigpos = sigOff;
-
-        byte[] tree = new byte[(2 * HORST_T - 1) * SPHINCS256Config.HASH_BYTES]; /* replace by something more memory-efficient? */
+        Seed.prg(outseeds, firstLeaf * HORST_SKBYTES, count * HORST_SKBYTES, inseed, 0, (long)firstLeaf * HORST_SKBYTES);
+    }
 
-        expand_seed(sk, seed);
+    /**
+     * Generate the pk leaves firstLeaf to firstLeaf + count - 1 from the secret key.
+     */
+    static void gen_leaves(HashFunctions hs, byte[] tree, byte[] sk, int firstLeaf, int count)
+    {
+        for (int i = firstLeaf; i < firstLeaf + count; i++)
+        {
+            hs.hash_n_n(tree, (HORST_T - 1 + i) * SPHINCS256Config.HASH_BYTES, sk, i * HORST_SKBYTES);
+        }
+    }
 
-        // Build the whole tree and save it
+    /**
+     * Generate count nodes of the tree, starting at firstNode, from their children on level.
+     */
+    static void gen_nodes(HashFunctions hs, byte[] tree, byte[] masks, int level, int firstNode, int count)
+    {
+        int offset_in = (1 << (HORST_LOGT - level)) - 1;
+        int offset_out = (1 << (HORST_LOGT - level - 1)) - 1;
 
-        // Generate pk leaves
-        for (i = 0; i < HORST_T; i++)
+        for (int j = firstNode; j < firstNode + count; j++)
         {
-            hs.hash_n_n(tree, (HORST_T - 1 + i) * SPHINCS256Config.HASH_BYTES, sk, i * HORST_SKBYTES);
+            hs.hash_2n_n_mask(tree, (offset_out + j) * SPHINCS256Config.HASH_BYTES, tree, (offset_in + 2 * j) * SPHINCS256Config.HASH_BYTES, masks, 2 * level * SPHINCS256Config.HASH_BYTES);
         }
+    }
+
+    /**
+     * Build the whole tree for the secret key expanded from seed.
+     */
+    static void gen_tree(HashFunctions hs, byte[] tree, byte[] sk, byte[] seed, byte[] masks)
+    {
+        expand_seed(sk, seed);
 
-        long offset_in, offset_out;
-        for (i = 0; i < HORST_LOGT; i++)
+        gen_leaves(hs, tree, sk, 0, HORST_T);
+
+        for (int i = 0; i < HORST_LOGT; i++)
         {
-            offset_in = (1 << (HORST_LOGT - i)) - 1;
-            offset_out = (1 << (HORST_LOGT - i - 1)) - 1;
-            for (j = 0; j < (1 << (HORST_LOGT - i - 1)); j++)
-            {
-                hs.hash_2n_n_mask(tree, (int)((offset_out + j) * SPHINCS256Config.HASH_BYTES), tree, (int)((offset_in + 2 * j) * SPHINCS256Config.HASH_BYTES), masks, 2 * i * SPHINCS256Config.HASH_BYTES);
-            }
+            gen_nodes(hs, tree, masks, i, 0, 1 << (HORST_LOGT - i - 1));
         }
+    }
+
+    /**
+     * Produce the signature from an already built tree.
+     */
+    static int horst_sign(byte[] sig, int sigOff, byte[] pk,
+                   byte[] sk,
+                   byte[] tree,
+                   byte[] m_hash)
+    {
+        int idx;
+        int i, j, k;
+        int sigpos = sigOff;
 
         // First write 64 hashes from level 10 to the signature
         for (j = 63 * SPHINCS256Config.HASH_BYTES; j < 127 * SPHINCS256Config.HASH_BYTES; j++)
@@ -6,6 +6,7 @@
 {
     private static final int CHACHA_ROUNDS = 12;
 
+    private final int[] x = new int[16];
 
     protected static int rotl(int x, int y)
     {
@@ -101,7 +102,6 @@ void chacha_permute(byte[] out, byte[] in)
     {
         int i;
 
-        int[] x = new int[16];
         for (i = 0; i < 16; i++)
         {
             x[i] = Pack.littleEndianToInt(in, 4 * i);
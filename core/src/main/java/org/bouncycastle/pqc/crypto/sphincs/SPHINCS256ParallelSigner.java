@@ -0,0 +1,138 @@
+package org.bouncycastle.pqc.crypto.sphincs;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.util.FutureTasks;
+
+/**
+ * SPHINCS-256 signer which builds the trees needed for a signature concurrently on a supplied executor.
+ * <p>
+ * Once the leaf index for a signature is known, the subtree on each of the hypertree layers and the HORST
+ * tree can all be built independently. Signing splits this work into one job per layer and a number of
+ * slices of the HORST tree, and hands the jobs out to up to maxThreads workers, one of which is the calling
+ * thread. Each worker has its own hash state and scratch space, which it reuses for every job it runs. The
+ * digests passed to the constructor are only used by the calling thread, and the signatures produced are
+ * identical to those from {@link SPHINCS256Signer}.
+ * </p>
+ */
+public class SPHINCS256ParallelSigner
+    extends SPHINCS256Signer
+{
+    // the HORST tree is built as 2^HORST_SLICE_LOG slices, the nodes above them by the calling thread.
+    private static final int HORST_SLICE_LOG = 4;
+    private static final int HORST_SLICE_LEAVES = Horst.HORST_T >>> HORST_SLICE_LOG;
+    private static final int HORST_SLICE_HEIGHT = Horst.HORST_LOGT - HORST_SLICE_LOG;
+
+    private final Executor executor;
+    private final int maxThreads;
+
+    /**
+     * Base constructor.
+     *
+     * @param nDigest  the "n-digest" must produce 32 bytes of output - used for tree construction.
+     * @param twoNDigest the "2n-digest" must produce 64 bytes of output - used for initial message/key/seed hashing.
+     * @param executor the executor to build the trees on.
+     * @param maxThreads the maximum number of threads, including the calling one, to use for a signature.
+     */
+    public SPHINCS256ParallelSigner(Digest nDigest, Digest twoNDigest, Executor executor, int maxThreads)
+    {
+        super(nDigest, twoNDigest);
+
+        if (executor == null)
+        {
+            throw new IllegalArgumentException("executor must be provided");
+        }
+        if (maxThreads < 1)
+        {
+            throw new IllegalArgumentException("maxThreads must be at least 1");
+        }
+
+        this.executor = executor;
+        this.maxThreads = maxThreads;
+    }
+
+    void buildTrees(HashFunctions hs, final byte[] horstTree, final byte[] horstSk, final byte[] horstSeed, final byte[][] subtrees, final byte[][] subtreeSeeds, final byte[] masks)
+    {
+        final int jobs = subtrees.length + (1 << HORST_SLICE_LOG);
+        final AtomicInteger nextJob = new AtomicInteger(0);
+
+        Runnable worker = new Runnable()
+        {
+            public void run()
+            {
+                // the tree hashes only use the permutation, so no digest is needed here
+                HashFunctions whs = new HashFunctions(null);
+                byte[] pk = new byte[Wots.WOTS_L * SPHINCS256Config.HASH_BYTES];
+
+                int job;
+                while ((job = nextJob.getAndIncrement()) < jobs)
+                {
+                    if (job < subtrees.length)
+                    {
+                        Tree.gen_subtree_wots(whs, subtrees[job], subtreeSeeds[job], masks, pk);
+                    }
+                    else
+                    {
+                        int firstLeaf = (job - subtrees.length) * HORST_SLICE_LEAVES;
+
+                        Horst.expand_seed(horstSk, horstSeed, firstLeaf, HORST_SLICE_LEAVES);
+                        Horst.gen_leaves(whs, horstTree, horstSk, firstLeaf, HORST_SLICE_LEAVES);
+
+                        for (int level = 0; level < HORST_SLICE_HEIGHT; level++)
+                        {
+                            Horst.gen_nodes(whs, horstTree, masks, level, firstLeaf >>> (level + 1), HORST_SLICE_LEAVES >>> (level + 1));
+                        }
+                    }
+                }
+            }
+        };
+
+        // the calling thread also works on the jobs, so only maxThreads - 1 tasks are submitted.
+        FutureTask[] tasks = new FutureTask[Math.min(maxThreads, jobs) - 1];
+        for (int i = 0; i != tasks.length; i++)
+        {
+            FutureTask task = new FutureTask(worker, null);
+
+            try
+            {
+                executor.execute(task);
+                tasks[i] = task;
+            }
+            catch (RejectedExecutionException e)
+            {
+                // the remaining jobs will be picked up by the workers already running.
+                break;
+            }
+        }
+
+        worker.run();
+
+        for (int i = 0; i != tasks.length && tasks[i] != null; i++)
+        {
+            waitFor(tasks[i]);
+        }
+
+        for (int level = HORST_SLICE_HEIGHT; level < Horst.HORST_LOGT; level++)
+        {
+            Horst.gen_nodes(hs, horstTree, masks, level, 0, 1 << (Horst.HORST_LOGT - level - 1));
+        }
+    }
+
+    private static void waitFor(FutureTask task)
+    {
+        try
+        {
+            // the workers share the caller's buffers, so we must not return before they finish.
+            FutureTasks.runAndWait(task);
+        }
+        catch (ExecutionException e)
+        {
+            throw new IllegalStateException("tree construction failed: " + e.getCause(), e.getCause());
+        }
+    }
+}
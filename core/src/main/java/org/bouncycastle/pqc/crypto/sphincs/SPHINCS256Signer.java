@@ -116,51 +116,9 @@ static void validate_authpath(HashFunctions hs, byte[] root, byte[] leaf, int le
     }
 
 
-    static void compute_authpath_wots(HashFunctions hs, byte[] root, byte[] authpath, int authOff, Tree.leafaddr a, byte[] sk, byte[] masks, int height)
+    static void compute_authpath_wots(byte[] root, byte[] authpath, int authOff, int idx, byte[] tree, int height)
     {
-        int i, idx, j;
-        Tree.leafaddr ta = new Tree.leafaddr(a);
-
-        byte[] tree = new byte[2 * (1 << SPHINCS256Config.SUBTREE_HEIGHT) * SPHINCS256Config.HASH_BYTES];
-        byte[] seed = new byte[(1 << SPHINCS256Config.SUBTREE_HEIGHT) * SPHINCS256Config.SEED_BYTES];
-        byte[] pk = new byte[(1 << SPHINCS256Config.SUBTREE_HEIGHT) * Wots.WOTS_L * SPHINCS256Config.HASH_BYTES];
-
-        // level 0
-        for (ta.subleaf = 0; ta.subleaf < (1 << SPHINCS256Config.SUBTREE_HEIGHT); ta.subleaf++)
-        {
-            Seed.get_seed(hs, seed, (int)(ta.subleaf * SPHINCS256Config.SEED_BYTES), sk, ta);
-        }
-
-        Wots w = new Wots();
-
-        for (ta.subleaf = 0; ta.subleaf < (1 << SPHINCS256Config.SUBTREE_HEIGHT); ta.subleaf++)
-        {
-            w.wots_pkgen(hs, pk, (int)(ta.subleaf * Wots.WOTS_L * SPHINCS256Config.HASH_BYTES), seed, (int)(ta.subleaf * SPHINCS256Config.SEED_BYTES), masks, 0);
-        }
-
-        for (ta.subleaf = 0; ta.subleaf < (1 << SPHINCS256Config.SUBTREE_HEIGHT); ta.subleaf++)
-        {
-            Tree.l_tree(hs, tree, (int)((1 << SPHINCS256Config.SUBTREE_HEIGHT) * SPHINCS256Config.HASH_BYTES + ta.subleaf * SPHINCS256Config.HASH_BYTES),
-                pk, (int)(ta.subleaf * Wots.WOTS_L * SPHINCS256Config.HASH_BYTES), masks, 0);
-        }
-
-        int level = 0;
-
-        // tree
-        for (i = (1 << SPHINCS256Config.SUBTREE_HEIGHT); i > 0; i >>>= 1)
-        {
-            for (j = 0; j < i; j += 2)
-            {
-                hs.hash_2n_n_mask(tree, (i >>> 1) * SPHINCS256Config.HASH_BYTES + (j >>> 1) * SPHINCS256Config.HASH_BYTES,
-                    tree, i * SPHINCS256Config.HASH_BYTES + j * SPHINCS256Config.HASH_BYTES,
-                    masks, 2 * (Wots.WOTS_LOG_L + level) * SPHINCS256Config.HASH_BYTES);
-            }
-
-            level++;
-        }
-
-
-        idx = (int)a.subleaf;
+        int i;
 
         // copy authpath
         for (i = 0; i < height; i++)
@@ -172,6 +130,22 @@ static void compute_authpath_wots(HashFunctions hs, byte[] root, byte[] authpath
         System.arraycopy(tree, SPHINCS256Config.HASH_BYTES, root, 0,  SPHINCS256Config.HASH_BYTES);
     }
 
+    /**
+     * Build the HORST tree and the subtree on each layer of the hypertree that a signature passes
+     * through. None of the trees depend on each other, or on the message hash, once the seeds are known.
+     */
+    void buildTrees(HashFunctions hs, byte[] horstTree, byte[] horstSk, byte[] horstSeed, byte[][] subtrees, byte[][] subtreeSeeds, byte[] masks)
+    {
+        Horst.gen_tree(hs, horstTree, horstSk, horstSeed, masks);
+
+        byte[] pk = new byte[Wots.WOTS_L * SPHINCS256Config.HASH_BYTES];
+
+        for (int i = 0; i != subtrees.length; i++)
+        {
+            Tree.gen_subtree_wots(hs, subtrees[i], subtreeSeeds[i], masks, pk);
+        }
+    }
+
     byte[] crypto_sign(HashFunctions hs, byte[] m, byte[] sk)
     {
         byte[] sm = new byte[SPHINCS256Config.CRYPTO_BYTES];
@@ -220,38 +194,58 @@ byte[] crypto_sign(HashFunctions hs, byte[] m, byte[] sk)
             leafidx = rnd[0] & 0xfffffffffffffffL;
 
             System.arraycopy(bRnd, 16, R, 0, SPHINCS256Config.MESSAGE_HASH_SEED_BYTES);
+        }
 
-            // prepare msg_hash
-            scratch = SPHINCS256Config.CRYPTO_BYTES - SPHINCS256Config.MESSAGE_HASH_SEED_BYTES - SPHINCS256Config.CRYPTO_PUBLICKEYBYTES;
+        System.arraycopy(tsk, SPHINCS256Config.SEED_BYTES, masks, 0, Horst.N_MASKS * SPHINCS256Config.HASH_BYTES);
+
+        // the addresses of all the trees the signature passes through are fixed by leafidx
+        Tree.leafaddr a = new Tree.leafaddr();
+
+        a.level = SPHINCS256Config.N_LEVELS; // Use unique value $d$ for HORST address.
+        a.subleaf = (int)(leafidx & ((1 << SPHINCS256Config.SUBTREE_HEIGHT) - 1));
+        a.subtree = leafidx >>> SPHINCS256Config.SUBTREE_HEIGHT;
+
+        Seed.get_seed(hs, seed, 0, tsk, a);
+
+        byte[][] subtreeSeeds = new byte[SPHINCS256Config.N_LEVELS][(1 << SPHINCS256Config.SUBTREE_HEIGHT) * SPHINCS256Config.SEED_BYTES];
+        byte[][] subtrees = new byte[SPHINCS256Config.N_LEVELS][2 * (1 << SPHINCS256Config.SUBTREE_HEIGHT) * SPHINCS256Config.HASH_BYTES];
+
+        for (i = 0; i < SPHINCS256Config.N_LEVELS; i++)
+        {
+            a.level = i;
+            a.subtree = leafidx >>> ((i + 1) * SPHINCS256Config.SUBTREE_HEIGHT);
+
+            for (a.subleaf = 0; a.subleaf < (1 << SPHINCS256Config.SUBTREE_HEIGHT); a.subleaf++)
+            {
+                Seed.get_seed(hs, subtreeSeeds[i], (int)(a.subleaf * SPHINCS256Config.SEED_BYTES), tsk, a);
+            }
+        }
+
+        byte[] horstSk = new byte[Horst.HORST_T * Horst.HORST_SKBYTES];
+        byte[] horstTree = new byte[(2 * Horst.HORST_T - 1) * SPHINCS256Config.HASH_BYTES];
+
+        buildTrees(hs, horstTree, horstSk, seed, subtrees, subtreeSeeds, masks);
+
+        // prepare msg_hash
+        {
+            int scratch = SPHINCS256Config.CRYPTO_BYTES - SPHINCS256Config.MESSAGE_HASH_SEED_BYTES - SPHINCS256Config.CRYPTO_PUBLICKEYBYTES;
 
             // cpy R
             System.arraycopy(R, 0, sm, scratch, SPHINCS256Config.MESSAGE_HASH_SEED_BYTES);
 
-            // construct and cpy pk
-            Tree.leafaddr b = new Tree.leafaddr();
-            b.level = SPHINCS256Config.N_LEVELS - 1;
-            b.subtree = 0;
-            b.subleaf = 0;
-
+            // construct and cpy pk - the top layer always uses subtree 0, so its root is the public key root
             pk = scratch + SPHINCS256Config.MESSAGE_HASH_SEED_BYTES;
 
             System.arraycopy(tsk, SPHINCS256Config.SEED_BYTES, sm, pk, Horst.N_MASKS * SPHINCS256Config.HASH_BYTES);
+            System.arraycopy(subtrees[SPHINCS256Config.N_LEVELS - 1], SPHINCS256Config.HASH_BYTES, sm, pk + (Horst.N_MASKS * SPHINCS256Config.HASH_BYTES), SPHINCS256Config.HASH_BYTES);
 
-            Tree.treehash(hs, sm, pk + (Horst.N_MASKS * SPHINCS256Config.HASH_BYTES), SPHINCS256Config.SUBTREE_HEIGHT, tsk, b, sm, pk);
-
-            d = hs.getMessageHash();
+            Digest d = hs.getMessageHash();
 
             d.update(sm, scratch, SPHINCS256Config.MESSAGE_HASH_SEED_BYTES + SPHINCS256Config.CRYPTO_PUBLICKEYBYTES);
             d.update(m, 0, m.length);
             d.doFinal(m_h, 0);
         }
 
-        Tree.leafaddr a = new Tree.leafaddr();
-
-        a.level = SPHINCS256Config.N_LEVELS; // Use unique value $d$ for HORST address.
-        a.subleaf = (int)(leafidx & ((1 << SPHINCS256Config.SUBTREE_HEIGHT) - 1));
-        a.subtree = leafidx >>> SPHINCS256Config.SUBTREE_HEIGHT;
-
         for (i = 0; i < SPHINCS256Config.MESSAGE_HASH_SEED_BYTES; i++)
         {
             sm[i] = R[i];
@@ -259,7 +253,6 @@ byte[] crypto_sign(HashFunctions hs, byte[] m, byte[] sk)
 
         int smOff = SPHINCS256Config.MESSAGE_HASH_SEED_BYTES;
 
-        System.arraycopy(tsk, SPHINCS256Config.SEED_BYTES, masks, 0, Horst.N_MASKS * SPHINCS256Config.HASH_BYTES);
         for (i = 0; i < (SPHINCS256Config.TOTALTREE_HEIGHT + 7) / 8; i++)
         {
             sm[smOff + i] = (byte)((leafidx >>> 8 * i) & 0xff);
@@ -267,10 +260,7 @@ byte[] crypto_sign(HashFunctions hs, byte[] m, byte[] sk)
 
         smOff += (SPHINCS256Config.TOTALTREE_HEIGHT + 7) / 8;
 
-        Seed.get_seed(hs, seed, 0, tsk, a);
-        Horst ht = new Horst();
-
-        int horst_sigbytes = ht.horst_sign(hs, sm, smOff, root, seed, masks, m_h);
+        int horst_sigbytes = Horst.horst_sign(sm, smOff, root, horstSk, horstTree, m_h);
 
         smOff += horst_sigbytes;
 
@@ -278,21 +268,22 @@ byte[] crypto_sign(HashFunctions hs, byte[] m, byte[] sk)
 
         for (i = 0; i < SPHINCS256Config.N_LEVELS; i++)
         {
-            a.level = i;
+            int subleaf = (int)((leafidx >>> (i * SPHINCS256Config.SUBTREE_HEIGHT)) & ((1 << SPHINCS256Config.SUBTREE_HEIGHT) - 1));
 
-            Seed.get_seed(hs, seed, 0, tsk, a); //XXX: Don't use the same address as for horst_sign here!
+            System.arraycopy(subtreeSeeds[i], subleaf * SPHINCS256Config.SEED_BYTES, seed, 0, SPHINCS256Config.SEED_BYTES); //XXX: Don't use the same address as for horst_sign here!
 
             w.wots_sign(hs, sm, smOff, root, seed, masks);
 
             smOff += Wots.WOTS_SIGBYTES;
 
-            compute_authpath_wots(hs, root, sm, smOff, a, tsk, masks, SPHINCS256Config.SUBTREE_HEIGHT);
+            compute_authpath_wots(root, sm, smOff, subleaf, subtrees[i], SPHINCS256Config.SUBTREE_HEIGHT);
             smOff += SPHINCS256Config.SUBTREE_HEIGHT * SPHINCS256Config.HASH_BYTES;
 
-            a.subleaf = (int)(a.subtree & ((1 << SPHINCS256Config.SUBTREE_HEIGHT) - 1));
-            a.subtree >>>= SPHINCS256Config.SUBTREE_HEIGHT;
+            zerobytes(subtreeSeeds[i], 0, subtreeSeeds[i].length);
         }
 
+        zerobytes(horstSk, 0, horstSk.length);
+        zerobytes(seed, 0, SPHINCS256Config.SEED_BYTES);
         zerobytes(tsk, 0, SPHINCS256Config.CRYPTO_SECRETKEYBYTES);
 
         return sm;
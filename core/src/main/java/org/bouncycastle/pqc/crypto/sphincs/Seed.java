@@ -1,6 +1,6 @@
 package org.bouncycastle.pqc.crypto.sphincs;
 
-import org.bouncycastle.crypto.StreamCipher;
+import org.bouncycastle.crypto.SkippingStreamCipher;
 import org.bouncycastle.crypto.engines.ChaChaEngine;
 import org.bouncycastle.crypto.params.KeyParameter;
 import org.bouncycastle.crypto.params.ParametersWithIV;
@@ -35,13 +35,26 @@ static void get_seed(HashFunctions hs, byte[] seed, int seedOff, byte[] sk, Tree
 
 
     static void prg(byte[] r, int rOff, long rlen, byte[] key, int keyOff)
+    {
+        prg(r, rOff, rlen, key, keyOff, 0);
+    }
+
+    /**
+     * Produce rlen bytes of the output of the generator for key, starting position bytes into it.
+     */
+    static void prg(byte[] r, int rOff, long rlen, byte[] key, int keyOff, long position)
     {
         byte[]  nonce = new byte[8];
 
-        StreamCipher cipher = new ChaChaEngine(12);
+        SkippingStreamCipher cipher = new ChaChaEngine(12);
 
         cipher.init(true, new ParametersWithIV(new KeyParameter(key, keyOff, 32), nonce));
 
+        if (position != 0)
+        {
+            cipher.seekTo(position);
+        }
+
         cipher.processBytes(r, rOff, (int)rlen, r, rOff);
 
         //crypto_stream_chacha12(r, rlen, nonce, key);
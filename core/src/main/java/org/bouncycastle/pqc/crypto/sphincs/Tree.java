@@ -77,6 +77,39 @@ static void treehash(HashFunctions hs, byte[] node, int nodeOff, int height, byt
         }
     }
 
+    /**
+     * Build a complete subtree from the WOTS seeds of its leaves. The tree is stored with the root
+     * at offset HASH_BYTES and the leaves in the second half, pk is scratch space for a WOTS public key.
+     */
+    static void gen_subtree_wots(HashFunctions hs, byte[] tree, byte[] seeds, byte[] masks, byte[] pk)
+    {
+        int i, j;
+        Wots w = new Wots();
+
+        // level 0
+        for (i = 0; i < (1 << SPHINCS256Config.SUBTREE_HEIGHT); i++)
+        {
+            w.wots_pkgen(hs, pk, 0, seeds, i * SPHINCS256Config.SEED_BYTES, masks, 0);
+
+            l_tree(hs, tree, ((1 << SPHINCS256Config.SUBTREE_HEIGHT) + i) * SPHINCS256Config.HASH_BYTES, pk, 0, masks, 0);
+        }
+
+        int level = 0;
+
+        // tree
+        for (i = (1 << SPHINCS256Config.SUBTREE_HEIGHT); i > 1; i >>>= 1)
+        {
+            for (j = 0; j < i; j += 2)
+            {
+                hs.hash_2n_n_mask(tree, (i >>> 1) * SPHINCS256Config.HASH_BYTES + (j >>> 1) * SPHINCS256Config.HASH_BYTES,
+                    tree, i * SPHINCS256Config.HASH_BYTES + j * SPHINCS256Config.HASH_BYTES,
+                    masks, 2 * (Wots.WOTS_LOG_L + level) * SPHINCS256Config.HASH_BYTES);
+            }
+
+            level++;
+        }
+    }
+
     static void gen_leaf_wots(HashFunctions hs, byte[] leaf, int leafOff, byte[] masks, int masksOff, byte[] sk, leafaddr a)
     {
         byte[] seed = new byte[SPHINCS256Config.SEED_BYTES];
@@ -0,0 +1,214 @@
+package org.bouncycastle.pqc.math.linearalgebra;
+
+/**
+ * Matrix multiplication and inversion over GF(2) for {@link GF2Matrix}, working on rows of
+ * 64 bit words.
+ * <p>
+ * Both operations use the "Method of Four Russians": the rows involved are taken eight at a
+ * time, a table of all 256 sums of the eight rows is built, and each row of the result is then
+ * updated with a single table lookup per eight bits, rather than with up to eight separate row
+ * additions.
+ * </p>
+ */
+final class GF2LongMatrix
+{
+    /**
+     * number of rows combined in a table
+     */
+    private static final int K = 8;
+
+    private GF2LongMatrix()
+    {
+    }
+
+    /**
+     * Compute the product of two matrices.
+     *
+     * @param a          the rows of the left matrix
+     * @param aColumns   the number of columns of the left matrix (and rows of the right one)
+     * @param b          the rows of the right matrix
+     * @param bColumns   the number of columns of the right matrix
+     * @return the rows of <tt>a*b</tt>, in the int form used by {@link GF2Matrix}
+     */
+    static int[][] multiply(int[][] a, int aColumns, int[][] b, int bColumns)
+    {
+        int words = (bColumns + 63) >>> 6;
+
+        long[][] bRows = new long[aColumns][words];
+        for (int i = 0; i < aColumns; i++)
+        {
+            toLongs(b[i], bRows[i], 0);
+        }
+
+        long[][] result = new long[a.length][words];
+        long[][] table = new long[1 << K][words];
+
+        // K divides 32, so the bits for a block of rows of b never cross a word of a
+        for (int col = 0; col < aColumns; col += K)
+        {
+            int k = Math.min(K, aColumns - col);
+            int q = col >>> 5;
+            int s = col & 0x1f;
+            int mask = (1 << k) - 1;
+
+            buildTable(table, bRows, col, k, 0, words);
+
+            for (int i = 0; i < a.length; i++)
+            {
+                int index = (a[i][q] >>> s) & mask;
+                if (index != 0)
+                {
+                    addToRow(table[index], result[i], 0, words);
+                }
+            }
+        }
+
+        return toIntRows(result, 0, (bColumns + 31) >>> 5);
+    }
+
+    /**
+     * Compute the inverse of a square matrix by Gauss-Jordan elimination on <tt>(a | Id)</tt>.
+     *
+     * @param a the rows of the matrix
+     * @param n the number of rows (and columns)
+     * @return the rows of the inverse, in the int form used by {@link GF2Matrix}
+     * @throws ArithmeticException if the matrix is not invertible.
+     */
+    static int[][] invert(int[][] a, int n)
+    {
+        int words = (n + 63) >>> 6;
+        int width = 2 * words;
+
+        long[][] rows = new long[n][width];
+        for (int i = 0; i < n; i++)
+        {
+            toLongs(a[i], rows[i], 0);
+            rows[i][words + (i >>> 6)] = 1L << (i & 0x3f);
+        }
+
+        long[][] table = new long[1 << K][width];
+
+        for (int col = 0; col < n; col += K)
+        {
+            int k = Math.min(K, n - col);
+            int q = col >>> 6;
+            int s = col & 0x3f;
+
+            // move the pivots for the next k columns into rows col..col+k-1, reduced so that
+            // these columns of the pivot rows form a unit matrix
+            for (int p = 0; p < k; p++)
+            {
+                long bit = 1L << (s + p);
+                int j = col + p;
+                for (;;)
+                {
+                    if (j == n)
+                    {
+                        throw new ArithmeticException("Matrix is not invertible.");
+                    }
+
+                    long[] row = rows[j];
+                    for (int e = 0; e < p; e++)
+                    {
+                        if ((row[q] & (1L << (s + e))) != 0)
+                        {
+                            addToRow(rows[col + e], row, q, width);
+                        }
+                    }
+
+                    if ((row[q] & bit) != 0)
+                    {
+                        break;
+                    }
+                    j++;
+                }
+
+                long[] pivot = rows[j];
+                rows[j] = rows[col + p];
+                rows[col + p] = pivot;
+
+                for (int e = 0; e < p; e++)
+                {
+                    if ((rows[col + e][q] & bit) != 0)
+                    {
+                        addToRow(pivot, rows[col + e], q, width);
+                    }
+                }
+            }
+
+            // columns before col are already reduced, so the rows only differ from word q on
+            buildTable(table, rows, col, k, q, width);
+
+            long mask = (1L << k) - 1;
+            for (int i = 0; i < n; i++)
+            {
+                if (i == col)
+                {
+                    i += k - 1;
+                    continue;
+                }
+
+                int index = (int)((rows[i][q] >>> s) & mask);
+                if (index != 0)
+                {
+                    addToRow(table[index], rows[i], q, width);
+                }
+            }
+        }
+
+        return toIntRows(rows, words, (n + 31) >>> 5);
+    }
+
+    /**
+     * Fill table[g] with the sum of the rows first+i for which bit i of g is set, for all g
+     * below 2<sup>k</sup>. Only words from..to-1 are written, table[0] is always zero.
+     */
+    private static void buildTable(long[][] table, long[][] rows, int first, int k, int from, int to)
+    {
+        for (int i = 0; i < k; i++)
+        {
+            long[] row = rows[first + i];
+            int high = 1 << i;
+            for (int g = 0; g < high; g++)
+            {
+                long[] src = table[g];
+                long[] dst = table[high + g];
+                for (int w = from; w < to; w++)
+                {
+                    dst[w] = src[w] ^ row[w];
+                }
+            }
+        }
+    }
+
+    private static void addToRow(long[] fromRow, long[] toRow, int from, int to)
+    {
+        for (int w = from; w < to; w++)
+        {
+            toRow[w] ^= fromRow[w];
+        }
+    }
+
+    private static void toLongs(int[] row, long[] longs, int off)
+    {
+        for (int i = 0; i < row.length; i++)
+        {
+            longs[off + (i >>> 1)] |= (row[i] & 0xffffffffL) << ((i & 1) << 5);
+        }
+    }
+
+    private static int[][] toIntRows(long[][] rows, int off, int length)
+    {
+        int[][] result = new int[rows.length][length];
+        for (int i = 0; i < rows.length; i++)
+        {
+            long[] row = rows[i];
+            int[] intRow = result[i];
+            for (int j = 0; j < length; j++)
+            {
+                intRow[j] = (int)(row[off + (j >>> 1)] >>> ((j & 1) << 5));
+            }
+        }
+        return result;
+    }
+}
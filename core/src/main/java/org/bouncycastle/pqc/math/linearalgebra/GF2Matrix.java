@@ -369,47 +369,7 @@ public static GF2Matrix[] createRandomRegularMatrixAndItsInverse(int n,
         // Second part: create inverse matrix
         // ------------------------------------
 
-        // inverse to lm
-        GF2Matrix invLm = new GF2Matrix(n, Matrix.MATRIX_TYPE_UNIT);
-        for (int i = 0; i < n; i++)
-        {
-            int rest = i & 0x1f;
-            int q = i >>> 5;
-            int r = 1 << rest;
-            for (int j = i + 1; j < n; j++)
-            {
-                int b = (lm.matrix[j][q]) & r;
-                if (b != 0)
-                {
-                    for (int k = 0; k <= q; k++)
-                    {
-                        invLm.matrix[j][k] ^= invLm.matrix[i][k];
-                    }
-                }
-            }
-        }
-        // inverse to um
-        GF2Matrix invUm = new GF2Matrix(n, Matrix.MATRIX_TYPE_UNIT);
-        for (int i = n - 1; i >= 0; i--)
-        {
-            int rest = i & 0x1f;
-            int q = i >>> 5;
-            int r = 1 << rest;
-            for (int j = i - 1; j >= 0; j--)
-            {
-                int b = (um.matrix[j][q]) & r;
-                if (b != 0)
-                {
-                    for (int k = q; k < length; k++)
-                    {
-                        invUm.matrix[j][k] ^= invUm.matrix[i][k];
-                    }
-                }
-            }
-        }
-
-        // inverse matrix
-        result[1] = (GF2Matrix)invUm.rightMultiply(invLm.rightMultiply(p));
+        result[1] = new GF2Matrix(n, GF2LongMatrix.invert(matrix, n));
 
         return result;
     }
@@ -734,67 +694,7 @@ public Matrix computeInverse()
             throw new ArithmeticException("Matrix is not invertible.");
         }
 
-        // clone this matrix
-        int[][] tmpMatrix = new int[numRows][length];
-        for (int i = numRows - 1; i >= 0; i--)
-        {
-            tmpMatrix[i] = IntUtils.clone(matrix[i]);
-        }
-
-        // initialize inverse matrix as unit matrix
-        int[][] invMatrix = new int[numRows][length];
-        for (int i = numRows - 1; i >= 0; i--)
-        {
-            int q = i >> 5;
-            int r = i & 0x1f;
-            invMatrix[i][q] = 1 << r;
-        }
-
-        // simultaneously compute Gaussian reduction of tmpMatrix and unit
-        // matrix
-        for (int i = 0; i < numRows; i++)
-        {
-            // i = q * 32 + (i mod 32)
-            int q = i >> 5;
-            int bitMask = 1 << (i & 0x1f);
-            // if diagonal element is zero
-            if ((tmpMatrix[i][q] & bitMask) == 0)
-            {
-                boolean foundNonZero = false;
-                // find a non-zero element in the same column
-                for (int j = i + 1; j < numRows; j++)
-                {
-                    if ((tmpMatrix[j][q] & bitMask) != 0)
-                    {
-                        // found it, swap rows ...
-                        foundNonZero = true;
-                        swapRows(tmpMatrix, i, j);
-                        swapRows(invMatrix, i, j);
-                        // ... and quit searching
-                        j = numRows;
-                        continue;
-                    }
-                }
-                // if no non-zero element was found ...
-                if (!foundNonZero)
-                {
-                    // ... the matrix is not invertible
-                    throw new ArithmeticException("Matrix is not invertible.");
-                }
-            }
-
-            // normalize all but i-th row
-            for (int j = numRows - 1; j >= 0; j--)
-            {
-                if ((j != i) && ((tmpMatrix[j][q] & bitMask) != 0))
-                {
-                    addToRow(tmpMatrix[i], tmpMatrix[j], q);
-                    addToRow(invMatrix[i], invMatrix[j], 0);
-                }
-            }
-        }
-
-        return new GF2Matrix(numColumns, invMatrix);
+        return new GF2Matrix(numColumns, GF2LongMatrix.invert(matrix, numRows));
     }
 
     /**
@@ -981,54 +881,8 @@ public Matrix rightMultiply(Matrix mat)
         }
 
         GF2Matrix a = (GF2Matrix)mat;
-        GF2Matrix result = new GF2Matrix(numRows, mat.numColumns);
-
-        int d;
-        int rest = numColumns & 0x1f;
-        if (rest == 0)
-        {
-            d = length;
-        }
-        else
-        {
-            d = length - 1;
-        }
-        for (int i = 0; i < numRows; i++)
-        {
-            int count = 0;
-            for (int j = 0; j < d; j++)
-            {
-                int e = matrix[i][j];
-                for (int h = 0; h < 32; h++)
-                {
-                    int b = e & (1 << h);
-                    if (b != 0)
-                    {
-                        for (int g = 0; g < a.length; g++)
-                        {
-                            result.matrix[i][g] ^= a.matrix[count][g];
-                        }
-                    }
-                    count++;
-                }
-            }
-            int e = matrix[i][length - 1];
-            for (int h = 0; h < rest; h++)
-            {
-                int b = e & (1 << h);
-                if (b != 0)
-                {
-                    for (int g = 0; g < a.length; g++)
-                    {
-                        result.matrix[i][g] ^= a.matrix[count][g];
-                    }
-                }
-                count++;
-            }
-
-        }
 
-        return result;
+        return new GF2Matrix(a.numColumns, GF2LongMatrix.multiply(matrix, numColumns, a.matrix, a.numColumns));
     }
 
     /**
@@ -1094,11 +948,7 @@ public Vector rightMultiply(Vector vec)
                 help ^= matrix[i][j] & v[j];
             }
             // compute single word scalar product
-            int bitValue = 0;
-            for (int j = 0; j < 32; j++)
-            {
-                bitValue ^= (help >>> j) & 1;
-            }
+            int bitValue = parity(help);
             // set result bit
             if (bitValue == 1)
             {
@@ -1172,12 +1022,7 @@ public Vector rightMultiplyRightCompactForm(Vector vec)
             }
 
             // compute single word scalar product
-            int bitValue = 0;
-            for (int j = 0; j < 32; j++)
-            {
-                bitValue ^= help & 1;
-                help >>>= 1;
-            }
+            int bitValue = parity(help);
 
             // set result bit
             if (bitValue == 1)
@@ -1292,32 +1137,19 @@ public String toString()
     }
 
     /**
-     * Swap two rows of the given matrix.
+     * Compute the sum of the bits of a word over GF(2).
      *
-     * @param matrix the matrix
-     * @param first  the index of the first row
-     * @param second the index of the second row
+     * @param word the word
+     * @return the parity of <tt>word</tt>
      */
-    private static void swapRows(int[][] matrix, int first, int second)
+    private static int parity(int word)
     {
-        int[] tmp = matrix[first];
-        matrix[first] = matrix[second];
-        matrix[second] = tmp;
-    }
-
-    /**
-     * Partially add one row to another.
-     *
-     * @param fromRow    the addend
-     * @param toRow      the row to add to
-     * @param startIndex the array index to start from
-     */
-    private static void addToRow(int[] fromRow, int[] toRow, int startIndex)
-    {
-        for (int i = toRow.length - 1; i >= startIndex; i--)
-        {
-            toRow[i] = fromRow[i] ^ toRow[i];
-        }
+        word ^= word >>> 16;
+        word ^= word >>> 8;
+        word ^= word >>> 4;
+        word ^= word >>> 2;
+        word ^= word >>> 1;
+        return word & 1;
     }
 
 }
@@ -92,9 +92,7 @@ public IntegerPolynomial mult(IntegerPolynomial poly2, int modulus)
         // even on 32-bit systems, LongPolynomial5 multiplies faster than IntegerPolynomial
         if (modulus == 2048)
         {
-            IntegerPolynomial poly2Pos = (IntegerPolynomial)poly2.clone();
-            poly2Pos.modPositive(2048);
-            LongPolynomial5 poly5 = new LongPolynomial5(poly2Pos);
+            LongPolynomial5 poly5 = new LongPolynomial5(poly2);
             return poly5.mult(this).toIntegerPolynomial();
         }
         else
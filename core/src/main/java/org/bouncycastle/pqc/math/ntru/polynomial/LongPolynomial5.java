@@ -6,6 +6,8 @@
  * A polynomial class that combines five coefficients into one <code>long</code> value for
  * faster multiplication by a ternary polynomial.<br>
  * Coefficients can be between 0 and 2047 and are stored in bits 0..11, 12..23, ..., 48..59 of a <code>long</code> number.
+ * Products can be multiplied by further ternary polynomials and added together without converting them
+ * back, which is how {@link ProductFormPolynomial} multiplies modulo 2048.
  */
 public class LongPolynomial5
 {
@@ -15,7 +17,7 @@
     /**
      * Constructs a <code>LongPolynomial5</code> from a <code>IntegerPolynomial</code>. The two polynomials are independent of each other.
      *
-     * @param p the original polynomial. Coefficients must be between 0 and 2047.
+     * @param p the original polynomial. Coefficients are reduced modulo 2048.
      */
     public LongPolynomial5(IntegerPolynomial p)
     {
@@ -26,7 +28,7 @@ public LongPolynomial5(IntegerPolynomial p)
         int shift = 0;
         for (int i = 0; i < numCoeffs; i++)
         {
-            coeffs[cIdx] |= ((long)p.coeffs[i]) << shift;
+            coeffs[cIdx] |= ((long)(p.coeffs[i] & 2047)) << shift;
             shift += 12;
             if (shift >= 60)
             {
@@ -55,10 +57,10 @@ public LongPolynomial5 mult(TernaryPolynomial poly2)
         {
             int pIdx = ones[idx];
             int cIdx = pIdx / 5;
-            int m = pIdx - cIdx * 5;   // m = pIdx % 5
+            long[] prodM = prod[pIdx - cIdx * 5];   // pIdx % 5
             for (int i = 0; i < coeffs.length; i++)
             {
-                prod[m][cIdx] = (prod[m][cIdx] + coeffs[i]) & 0x7FF7FF7FF7FF7FFL;
+                prodM[cIdx] = (prodM[cIdx] + coeffs[i]) & 0x7FF7FF7FF7FF7FFL;
                 cIdx++;
             }
         }
@@ -69,10 +71,10 @@ public LongPolynomial5 mult(TernaryPolynomial poly2)
         {
             int pIdx = negOnes[idx];
             int cIdx = pIdx / 5;
-            int m = pIdx - cIdx * 5;   // m = pIdx % 5
+            long[] prodM = prod[pIdx - cIdx * 5];   // pIdx % 5
             for (int i = 0; i < coeffs.length; i++)
             {
-                prod[m][cIdx] = (0x800800800800800L + prod[m][cIdx] - coeffs[i]) & 0x7FF7FF7FF7FF7FFL;
+                prodM[cIdx] = (0x800800800800800L + prodM[cIdx] - coeffs[i]) & 0x7FF7FF7FF7FF7FFL;
                 cIdx++;
             }
         }
@@ -105,7 +107,7 @@ public LongPolynomial5 mult(TernaryPolynomial poly2)
             int newIdx;
             if (cIdx == coeffs.length - 1)
             {
-                iCoeff = numCoeffs == 5 ? 0 : cCoeffs[cIdx] >> shift;
+                iCoeff = shift == 0 ? 0 : cCoeffs[cIdx] >> shift;
                 newIdx = 0;
             }
             else
@@ -126,7 +128,30 @@ public LongPolynomial5 mult(TernaryPolynomial poly2)
             }
         }
 
-        return new LongPolynomial5(cCoeffs, numCoeffs);
+        // drop the coefficients which have been moved, so the result can be multiplied again
+        long[] result = Arrays.copyOf(cCoeffs, coeffs.length);
+        if (shift != 0)
+        {
+            result[coeffs.length - 1] &= (1L << shift) - 1;
+        }
+
+        return new LongPolynomial5(result, numCoeffs);
+    }
+
+    /**
+     * Adds another polynomial with the same number of coefficients, taking the values mod 2048.
+     */
+    public void add(LongPolynomial5 b)
+    {
+        if (b.numCoeffs != numCoeffs)
+        {
+            throw new IllegalArgumentException("Number of coefficients must be the same");
+        }
+
+        for (int i = 0; i < coeffs.length; i++)
+        {
+            coeffs[i] = (coeffs[i] + b.coeffs[i]) & 0x7FF7FF7FF7FF7FFL;
+        }
     }
 
     public IntegerPolynomial toIntegerPolynomial()
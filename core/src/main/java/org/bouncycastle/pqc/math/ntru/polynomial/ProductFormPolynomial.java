@@ -85,9 +85,20 @@ public IntegerPolynomial toIntegerPolynomial()
 
     public IntegerPolynomial mult(IntegerPolynomial poly2, int modulus)
     {
-        IntegerPolynomial c = mult(poly2);
-        c.mod(modulus);
-        return c;
+        // the intermediate products stay packed, only the final result is unpacked
+        if (modulus == 2048)
+        {
+            LongPolynomial5 b = new LongPolynomial5(poly2);
+            LongPolynomial5 c = b.mult(f1).mult(f2);
+            c.add(b.mult(f3));
+            return c.toIntegerPolynomial();
+        }
+        else
+        {
+            IntegerPolynomial c = mult(poly2);
+            c.mod(modulus);
+            return c;
+        }
     }
 
     public int hashCode()
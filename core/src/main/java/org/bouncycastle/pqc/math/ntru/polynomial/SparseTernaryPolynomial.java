@@ -167,9 +167,18 @@ public IntegerPolynomial mult(IntegerPolynomial poly2)
 
     public IntegerPolynomial mult(IntegerPolynomial poly2, int modulus)
     {
-        IntegerPolynomial c = mult(poly2);
-        c.mod(modulus);
-        return c;
+        // LongPolynomial5 adds five coefficients at a time, against one at a time above
+        if (modulus == 2048)
+        {
+            LongPolynomial5 poly5 = new LongPolynomial5(poly2);
+            return poly5.mult(this).toIntegerPolynomial();
+        }
+        else
+        {
+            IntegerPolynomial c = mult(poly2);
+            c.mod(modulus);
+            return c;
+        }
     }
 
     public BigIntPolynomial mult(BigIntPolynomial poly2)
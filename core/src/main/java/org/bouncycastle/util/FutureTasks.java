@@ -0,0 +1,71 @@
+package org.bouncycastle.util;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Utility methods for collecting the results of tasks handed to an Executor.
+ * <p>
+ * Both methods first run the task in the calling thread if the executor has not started it, so a
+ * saturated executor, or one the caller is itself running on, cannot deadlock the caller.
+ * </p>
+ */
+public class FutureTasks
+{
+    /**
+     * Run the task if it has not been started and return its result, waiting for it if another thread is
+     * running it.
+     *
+     * @param task the task to complete.
+     * @return the result of the task.
+     * @throws InterruptedException if the calling thread is interrupted while waiting.
+     * @throws ExecutionException if the task threw an exception.
+     */
+    public static Object runAndGet(FutureTask task)
+        throws InterruptedException, ExecutionException
+    {
+        // no-op if the executor has already run, or is running, the task.
+        task.run();
+
+        return task.get();
+    }
+
+    /**
+     * Run the task if it has not been started and return its result, waiting for it if another thread is
+     * running it. The wait cannot be interrupted, for callers whose task shares their buffers and so must not
+     * return before it finishes - the thread's interrupt status is restored on return.
+     *
+     * @param task the task to complete.
+     * @return the result of the task.
+     * @throws ExecutionException if the task threw an exception.
+     */
+    public static Object runAndWait(FutureTask task)
+        throws ExecutionException
+    {
+        boolean interrupted = false;
+
+        try
+        {
+            task.run();
+
+            for (;;)
+            {
+                try
+                {
+                    return task.get();
+                }
+                catch (InterruptedException e)
+                {
+                    interrupted = true;
+                }
+            }
+        }
+        finally
+        {
+            if (interrupted)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
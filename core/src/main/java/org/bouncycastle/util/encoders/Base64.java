@@ -49,19 +49,11 @@ public static byte[] encode(
         int    off,
         int    length)
     {
-        int len = (length + 2) / 3 * 4;
-        ByteArrayOutputStream bOut = new ByteArrayOutputStream(len);
+        byte[] encoded = new byte[encoder.getEncodedLength(length)];
 
-        try
-        {
-            encoder.encode(data, off, length, bOut);
-        }
-        catch (Exception e)
-        {
-            throw new EncoderException("exception encoding base64 string: " + e.getMessage(), e);
-        }
-        
-        return bOut.toByteArray();
+        encoder.encode(data, off, length, encoded, 0);
+
+        return encoded;
     }
 
     /**
@@ -100,19 +92,19 @@ public static int encode(
     public static byte[] decode(
         byte[]    data)
     {
-        int len = data.length / 4 * 3;
-        ByteArrayOutputStream bOut = new ByteArrayOutputStream(len);
-        
+        byte[] decoded = new byte[encoder.getMaxDecodedLength(data.length)];
+        int    len;
+
         try
         {
-            encoder.decode(data, 0, data.length, bOut);
+            len = encoder.decode(data, 0, data.length, decoded, 0);
         }
         catch (Exception e)
         {
             throw new DecoderException("unable to decode base64 data: " + e.getMessage(), e);
         }
-        
-        return bOut.toByteArray();
+
+        return trim(decoded, len);
     }
     
     /**
@@ -151,4 +143,18 @@ public static int decode(
     {
         return encoder.decode(data, out);
     }
+
+    private static byte[] trim(byte[] data, int len)
+    {
+        if (len == data.length)
+        {
+            return data;
+        }
+
+        byte[] tmp = new byte[len];
+
+        System.arraycopy(data, 0, tmp, 0, len);
+
+        return tmp;
+    }
 }
@@ -26,6 +26,8 @@
     };
 
     protected byte    padding = (byte)'=';
+
+    private static final int BUF_SIZE = 1536;
     
     /*
      * set up the decoding table.
@@ -51,69 +53,103 @@ public Base64Encoder()
     }
     
     /**
-     * encode the input data producing a base 64 output stream.
+     * encode the input data producing base 64 encoded data in the passed in output buffer,
+     * which must have at least getEncodedLength(inLen) bytes available from outOff.
      *
      * @return the number of bytes produced.
      */
     public int encode(
-        byte[]                data,
-        int                    off,
-        int                    length,
-        OutputStream    out) 
-        throws IOException
+        byte[] inBuf,
+        int    inOff,
+        int    inLen,
+        byte[] outBuf,
+        int    outOff)
     {
-        int modulus = length % 3;
-        int dataLength = (length - modulus);
-        int a1, a2, a3;
-        
-        for (int i = off; i < off + dataLength; i += 3)
+        int inPos = inOff;
+        int inEnd = inOff + inLen - 2;
+        int outPos = outOff;
+
+        while (inPos < inEnd)
         {
-            a1 = data[i] & 0xff;
-            a2 = data[i + 1] & 0xff;
-            a3 = data[i + 2] & 0xff;
-
-            out.write(encodingTable[(a1 >>> 2) & 0x3f]);
-            out.write(encodingTable[((a1 << 4) | (a2 >>> 4)) & 0x3f]);
-            out.write(encodingTable[((a2 << 2) | (a3 >>> 6)) & 0x3f]);
-            out.write(encodingTable[a3 & 0x3f]);
+            int a = ((inBuf[inPos] & 0xff) << 16) | ((inBuf[inPos + 1] & 0xff) << 8) | (inBuf[inPos + 2] & 0xff);
+
+            outBuf[outPos    ] = encodingTable[(a >>> 18) & 0x3f];
+            outBuf[outPos + 1] = encodingTable[(a >>> 12) & 0x3f];
+            outBuf[outPos + 2] = encodingTable[(a >>> 6) & 0x3f];
+            outBuf[outPos + 3] = encodingTable[a & 0x3f];
+
+            inPos += 3;
+            outPos += 4;
         }
 
         /*
          * process the tail end.
          */
-        int    b1, b2, b3;
-        int    d1, d2;
-
-        switch (modulus)
+        switch (inLen - (inPos - inOff))
         {
-        case 0:        /* nothing left to do */
-            break;
         case 1:
-            d1 = data[off + dataLength] & 0xff;
-            b1 = (d1 >>> 2) & 0x3f;
-            b2 = (d1 << 4) & 0x3f;
-
-            out.write(encodingTable[b1]);
-            out.write(encodingTable[b2]);
-            out.write(padding);
-            out.write(padding);
+        {
+            int a = (inBuf[inPos] & 0xff) << 16;
+
+            outBuf[outPos++] = encodingTable[(a >>> 18) & 0x3f];
+            outBuf[outPos++] = encodingTable[(a >>> 12) & 0x3f];
+            outBuf[outPos++] = padding;
+            outBuf[outPos++] = padding;
             break;
+        }
         case 2:
-            d1 = data[off + dataLength] & 0xff;
-            d2 = data[off + dataLength + 1] & 0xff;
-
-            b1 = (d1 >>> 2) & 0x3f;
-            b2 = ((d1 << 4) | (d2 >>> 4)) & 0x3f;
-            b3 = (d2 << 2) & 0x3f;
+        {
+            int a = ((inBuf[inPos] & 0xff) << 16) | ((inBuf[inPos + 1] & 0xff) << 8);
 
-            out.write(encodingTable[b1]);
-            out.write(encodingTable[b2]);
-            out.write(encodingTable[b3]);
-            out.write(padding);
+            outBuf[outPos++] = encodingTable[(a >>> 18) & 0x3f];
+            outBuf[outPos++] = encodingTable[(a >>> 12) & 0x3f];
+            outBuf[outPos++] = encodingTable[(a >>> 6) & 0x3f];
+            outBuf[outPos++] = padding;
             break;
         }
+        }
+
+        return outPos - outOff;
+    }
+
+    public int getEncodedLength(int inputLength)
+    {
+        return (inputLength + 2) / 3 * 4;
+    }
+
+    public int getMaxDecodedLength(int inputLength)
+    {
+        return inputLength / 4 * 3;
+    }
+
+    /**
+     * encode the input data producing a base 64 output stream.
+     *
+     * @return the number of bytes produced.
+     */
+    public int encode(
+        byte[]                data,
+        int                    off,
+        int                    length,
+        OutputStream    out) 
+        throws IOException
+    {
+        byte[] outBuf = new byte[Math.min(BUF_SIZE, getEncodedLength(length))];
+        int    inLen = outBuf.length / 4 * 3;
+
+        int remaining = length;
+        while (remaining > 0)
+        {
+            int chunk = Math.min(inLen, remaining);
+            int outLen = encode(data, off, chunk, outBuf, 0);
+
+            out.write(outBuf, 0, outLen);
+
+            off += chunk;
+            remaining -= chunk;
+        }
 
-        return (dataLength / 3) * 4 + ((modulus == 0) ? 0 : 4);
+        return getEncodedLength(length);
     }
 
     private boolean ignore(
@@ -121,7 +157,77 @@ private boolean ignore(
     {
         return (c == '\n' || c =='\r' || c == '\t' || c == ' ');
     }
-    
+
+    /**
+     * decode the base 64 encoded byte data into the passed in output buffer, which must have
+     * at least getMaxDecodedLength(length) bytes available from outOff. Whitespace characters
+     * will be ignored.
+     *
+     * @return the number of bytes produced.
+     */
+    public int decode(
+        byte[]          data,
+        int             off,
+        int             length,
+        byte[]          outBuf,
+        int             outOff)
+        throws IOException
+    {
+        int     end = off + length;
+
+        while (end > off)
+        {
+            if (!ignore((char)data[end - 1]))
+            {
+                break;
+            }
+
+            end--;
+        }
+
+        int  i = off;
+        int  finish = end - 4;
+        int  outPos = outOff;
+
+        i = nextI(data, i, finish);
+
+        while (i < finish)
+        {
+            byte b1 = decodingTable[data[i++]];
+
+            i = nextI(data, i, finish);
+
+            byte b2 = decodingTable[data[i++]];
+
+            i = nextI(data, i, finish);
+
+            byte b3 = decodingTable[data[i++]];
+
+            i = nextI(data, i, finish);
+
+            byte b4 = decodingTable[data[i++]];
+
+            if ((b1 | b2 | b3 | b4) < 0)
+            {
+                throw new IOException("invalid characters encountered in base64 data");
+            }
+
+            int a = (b1 << 18) | (b2 << 12) | (b3 << 6) | b4;
+
+            outBuf[outPos    ] = (byte)(a >>> 16);
+            outBuf[outPos + 1] = (byte)(a >>> 8);
+            outBuf[outPos + 2] = (byte)a;
+
+            outPos += 3;
+
+            i = nextI(data, i, finish);
+        }
+
+        outPos += decodeLastBlock(outBuf, outPos, (char)data[end - 4], (char)data[end - 3], (char)data[end - 2], (char)data[end - 1]);
+
+        return outPos - outOff;
+    }
+
     /**
      * decode the base 64 encoded byte data writing it to the given output stream,
      * whitespace characters will be ignored.
@@ -135,59 +241,78 @@ public int decode(
         OutputStream    out)
         throws IOException
     {
-        byte    b1, b2, b3, b4;
+        byte[]  outBuf = new byte[Math.min(BUF_SIZE, getMaxDecodedLength(length) + 3) / 3 * 3];
+        int     bufOff = 0;
         int     outLen = 0;
-        
+
         int     end = off + length;
-        
+
         while (end > off)
         {
             if (!ignore((char)data[end - 1]))
             {
                 break;
             }
-            
+
             end--;
         }
-        
+
         int  i = off;
         int  finish = end - 4;
-        
+
         i = nextI(data, i, finish);
 
         while (i < finish)
         {
-            b1 = decodingTable[data[i++]];
-            
+            byte b1 = decodingTable[data[i++]];
+
             i = nextI(data, i, finish);
-            
-            b2 = decodingTable[data[i++]];
-            
+
+            byte b2 = decodingTable[data[i++]];
+
             i = nextI(data, i, finish);
-            
-            b3 = decodingTable[data[i++]];
-            
+
+            byte b3 = decodingTable[data[i++]];
+
             i = nextI(data, i, finish);
-            
-            b4 = decodingTable[data[i++]];
+
+            byte b4 = decodingTable[data[i++]];
 
             if ((b1 | b2 | b3 | b4) < 0)
             {
                 throw new IOException("invalid characters encountered in base64 data");
             }
-            
-            out.write((b1 << 2) | (b2 >> 4));
-            out.write((b2 << 4) | (b3 >> 2));
-            out.write((b3 << 6) | b4);
-            
-            outLen += 3;
-            
+
+            if (bufOff == outBuf.length)
+            {
+                out.write(outBuf, 0, bufOff);
+                outLen += bufOff;
+                bufOff = 0;
+            }
+
+            int a = (b1 << 18) | (b2 << 12) | (b3 << 6) | b4;
+
+            outBuf[bufOff    ] = (byte)(a >>> 16);
+            outBuf[bufOff + 1] = (byte)(a >>> 8);
+            outBuf[bufOff + 2] = (byte)a;
+
+            bufOff += 3;
+
             i = nextI(data, i, finish);
         }
 
-        outLen += decodeLastBlock(out, (char)data[end - 4], (char)data[end - 3], (char)data[end - 2], (char)data[end - 1]);
-        
-        return outLen;
+        if (bufOff == outBuf.length)
+        {
+            out.write(outBuf, 0, bufOff);
+            outLen += bufOff;
+            bufOff = 0;
+        }
+
+        bufOff += decodeLastBlock(outBuf, bufOff, (char)data[end - 4], (char)data[end - 3], (char)data[end - 2], (char)data[end - 1]);
+
+        out.write(outBuf, 0, bufOff);
+
+        return outLen + bufOff;
     }
 
     private int nextI(byte[] data, int i, int finish)
@@ -210,9 +335,10 @@ public int decode(
         OutputStream    out)
         throws IOException
     {
-        byte    b1, b2, b3, b4;
+        byte[]  outBuf = new byte[Math.min(BUF_SIZE, getMaxDecodedLength(data.length()) + 3) / 3 * 3];
+        int     bufOff = 0;
         int     length = 0;
-        
+
         int     end = data.length();
         
         while (end > 0)
@@ -232,40 +358,58 @@ public int decode(
         
         while (i < finish)
         {
-            b1 = decodingTable[data.charAt(i++)];
+            byte b1 = decodingTable[data.charAt(i++)];
             
             i = nextI(data, i, finish);
             
-            b2 = decodingTable[data.charAt(i++)];
+            byte b2 = decodingTable[data.charAt(i++)];
             
             i = nextI(data, i, finish);
             
-            b3 = decodingTable[data.charAt(i++)];
+            byte b3 = decodingTable[data.charAt(i++)];
             
             i = nextI(data, i, finish);
             
-            b4 = decodingTable[data.charAt(i++)];
+            byte b4 = decodingTable[data.charAt(i++)];
 
             if ((b1 | b2 | b3 | b4) < 0)
             {
                 throw new IOException("invalid characters encountered in base64 data");
             }
-               
-            out.write((b1 << 2) | (b2 >> 4));
-            out.write((b2 << 4) | (b3 >> 2));
-            out.write((b3 << 6) | b4);
-            
-            length += 3;
-            
+
+            if (bufOff == outBuf.length)
+            {
+                out.write(outBuf, 0, bufOff);
+                length += bufOff;
+                bufOff = 0;
+            }
+
+            int a = (b1 << 18) | (b2 << 12) | (b3 << 6) | b4;
+
+            outBuf[bufOff    ] = (byte)(a >>> 16);
+            outBuf[bufOff + 1] = (byte)(a >>> 8);
+            outBuf[bufOff + 2] = (byte)a;
+
+            bufOff += 3;
+
             i = nextI(data, i, finish);
         }
 
-        length += decodeLastBlock(out, data.charAt(end - 4), data.charAt(end - 3), data.charAt(end - 2), data.charAt(end - 1));
+        if (bufOff == outBuf.length)
+        {
+            out.write(outBuf, 0, bufOff);
+            length += bufOff;
+            bufOff = 0;
+        }
+
+        bufOff += decodeLastBlock(outBuf, bufOff, data.charAt(end - 4), data.charAt(end - 3), data.charAt(end - 2), data.charAt(end - 1));
+
+        out.write(outBuf, 0, bufOff);
 
-        return length;
+        return length + bufOff;
     }
 
-    private int decodeLastBlock(OutputStream out, char c1, char c2, char c3, char c4) 
+    private int decodeLastBlock(byte[] outBuf, int outOff, char c1, char c2, char c3, char c4)
         throws IOException
     {
         byte    b1, b2, b3, b4;
@@ -280,7 +424,7 @@ private int decodeLastBlock(OutputStream out, char c1, char c2, char c3, char c4
                 throw new IOException("invalid characters encountered at end of base64 data");
             }
 
-            out.write((b1 << 2) | (b2 >> 4));
+            outBuf[outOff] = (byte)((b1 << 2) | (b2 >> 4));
             
             return 1;
         }
@@ -295,8 +439,8 @@ else if (c4 == padding)
                 throw new IOException("invalid characters encountered at end of base64 data");
             }
             
-            out.write((b1 << 2) | (b2 >> 4));
-            out.write((b2 << 4) | (b3 >> 2));
+            outBuf[outOff] = (byte)((b1 << 2) | (b2 >> 4));
+            outBuf[outOff + 1] = (byte)((b2 << 4) | (b3 >> 2));
             
             return 2;
         }
@@ -312,9 +456,9 @@ else if (c4 == padding)
                 throw new IOException("invalid characters encountered at end of base64 data");
             }
             
-            out.write((b1 << 2) | (b2 >> 4));
-            out.write((b2 << 4) | (b3 >> 2));
-            out.write((b3 << 6) | b4);
+            outBuf[outOff] = (byte)((b1 << 2) | (b2 >> 4));
+            outBuf[outOff + 1] = (byte)((b2 << 4) | (b3 >> 2));
+            outBuf[outOff + 2] = (byte)((b3 << 6) | b4);
             
             return 3;
         } 
@@ -49,18 +49,11 @@ public static byte[] encode(
         int       off,
         int       length)
     {
-        ByteArrayOutputStream    bOut = new ByteArrayOutputStream();
-        
-        try
-        {
-            encoder.encode(data, off, length, bOut);
-        }
-        catch (Exception e)
-        {
-            throw new EncoderException("exception encoding Hex string: " + e.getMessage(), e);
-        }
-        
-        return bOut.toByteArray();
+        byte[] encoded = new byte[encoder.getEncodedLength(length)];
+
+        encoder.encode(data, off, length, encoded, 0);
+
+        return encoded;
     }
 
     /**
@@ -99,18 +92,19 @@ public static int encode(
     public static byte[] decode(
         byte[]    data)
     {
-        ByteArrayOutputStream    bOut = new ByteArrayOutputStream();
-        
+        byte[] decoded = new byte[encoder.getMaxDecodedLength(data.length)];
+        int    len;
+
         try
         {
-            encoder.decode(data, 0, data.length, bOut);
+            len = encoder.decode(data, 0, data.length, decoded, 0);
         }
         catch (Exception e)
         {
             throw new DecoderException("exception decoding Hex data: " + e.getMessage(), e);
         }
-        
-        return bOut.toByteArray();
+
+        return trim(decoded, len);
     }
     
     /**
@@ -148,4 +142,18 @@ public static int decode(
     {
         return encoder.decode(data, out);
     }
+
+    private static byte[] trim(byte[] data, int len)
+    {
+        if (len == data.length)
+        {
+            return data;
+        }
+
+        byte[] tmp = new byte[len];
+
+        System.arraycopy(data, 0, tmp, 0, len);
+
+        return tmp;
+    }
 }
@@ -15,6 +15,8 @@
         (byte)'8', (byte)'9', (byte)'a', (byte)'b', (byte)'c', (byte)'d', (byte)'e', (byte)'f'
     };
 
+    private static final int BUF_SIZE = 1536;
+
     /*
      * set up the decoding table.
      */
@@ -45,6 +47,44 @@ public HexEncoder()
         initialiseDecodingTable();
     }
     
+    /**
+     * encode the input data producing Hex encoded data in the passed in output buffer,
+     * which must have at least getEncodedLength(inLen) bytes available from outOff.
+     *
+     * @return the number of bytes produced.
+     */
+    public int encode(
+        byte[] inBuf,
+        int    inOff,
+        int    inLen,
+        byte[] outBuf,
+        int    outOff)
+    {
+        int inPos = inOff;
+        int inEnd = inOff + inLen;
+        int outPos = outOff;
+
+        while (inPos < inEnd)
+        {
+            int v = inBuf[inPos++] & 0xff;
+
+            outBuf[outPos++] = encodingTable[v >>> 4];
+            outBuf[outPos++] = encodingTable[v & 0xf];
+        }
+
+        return outPos - outOff;
+    }
+
+    public int getEncodedLength(int inputLength)
+    {
+        return inputLength * 2;
+    }
+
+    public int getMaxDecodedLength(int inputLength)
+    {
+        return inputLength / 2;
+    }
+
     /**
      * encode the input data producing a Hex output stream.
      *
@@ -57,12 +97,19 @@ public int encode(
         OutputStream    out) 
         throws IOException
     {        
-        for (int i = off; i < (off + length); i++)
+        byte[] outBuf = new byte[Math.min(BUF_SIZE, getEncodedLength(length))];
+        int    inLen = outBuf.length / 2;
+
+        int remaining = length;
+        while (remaining > 0)
         {
-            int    v = data[i] & 0xff;
+            int chunk = Math.min(inLen, remaining);
+            int outLen = encode(data, off, chunk, outBuf, 0);
 
-            out.write(encodingTable[(v >>> 4)]);
-            out.write(encodingTable[v & 0xf]);
+            out.write(outBuf, 0, outLen);
+
+            off += chunk;
+            remaining -= chunk;
         }
 
         return length * 2;
@@ -74,6 +121,64 @@ private static boolean ignore(
         return c == '\n' || c =='\r' || c == '\t' || c == ' ';
     }
 
+    /**
+     * decode the Hex encoded byte data into the passed in output buffer, which must have
+     * at least getMaxDecodedLength(length) bytes available from outOff. Whitespace characters
+     * will be ignored.
+     *
+     * @return the number of bytes produced.
+     */
+    public int decode(
+        byte[]          data,
+        int             off,
+        int             length,
+        byte[]          outBuf,
+        int             outOff)
+        throws IOException
+    {
+        byte    b1, b2;
+        int     outPos = outOff;
+
+        int     end = off + length;
+
+        while (end > off)
+        {
+            if (!ignore((char)data[end - 1]))
+            {
+                break;
+            }
+
+            end--;
+        }
+
+        int i = off;
+        while (i < end)
+        {
+            while (i < end && ignore((char)data[i]))
+            {
+                i++;
+            }
+
+            b1 = decodingTable[data[i++]];
+
+            while (i < end && ignore((char)data[i]))
+            {
+                i++;
+            }
+
+            b2 = decodingTable[data[i++]];
+
+            if ((b1 | b2) < 0)
+            {
+                throw new IOException("invalid characters encountered in Hex data");
+            }
+
+            outBuf[outPos++] = (byte)((b1 << 4) | b2);
+        }
+
+        return outPos - outOff;
+    }
+
     /**
      * decode the Hex encoded byte data writing it to the given output stream,
      * whitespace characters will be ignored.
@@ -88,6 +193,8 @@ public int decode(
         throws IOException
     {
         byte    b1, b2;
+        byte[]  outBuf = new byte[Math.min(BUF_SIZE, getMaxDecodedLength(length) + 1)];
+        int     bufOff = 0;
         int     outLen = 0;
         
         int     end = off + length;
@@ -124,12 +231,19 @@ public int decode(
                 throw new IOException("invalid characters encountered in Hex data");
             }
 
-            out.write((b1 << 4) | b2);
-            
-            outLen++;
+            if (bufOff == outBuf.length)
+            {
+                out.write(outBuf, 0, bufOff);
+                outLen += bufOff;
+                bufOff = 0;
+            }
+
+            outBuf[bufOff++] = (byte)((b1 << 4) | b2);
         }
 
-        return outLen;
+        out.write(outBuf, 0, bufOff);
+
+        return outLen + bufOff;
     }
     
     /**
@@ -144,6 +258,8 @@ public int decode(
         throws IOException
     {
         byte    b1, b2;
+        byte[]  outBuf = new byte[Math.min(BUF_SIZE, getMaxDecodedLength(data.length()) + 1)];
+        int     bufOff = 0;
         int     length = 0;
         
         int     end = data.length();
@@ -180,11 +296,18 @@ public int decode(
                 throw new IOException("invalid characters encountered in Hex string");
             }
 
-            out.write((b1 << 4) | b2);
-            
-            length++;
+            if (bufOff == outBuf.length)
+            {
+                out.write(outBuf, 0, bufOff);
+                length += bufOff;
+                bufOff = 0;
+            }
+
+            outBuf[bufOff++] = (byte)((b1 << 4) | b2);
         }
 
-        return length;
+        out.write(outBuf, 0, bufOff);
+
+        return length + bufOff;
     }
 }
@@ -28,18 +28,11 @@
     public static byte[] encode(
         byte[]    data)
     {
-        ByteArrayOutputStream    bOut = new ByteArrayOutputStream();
-        
-        try
-        {
-            encoder.encode(data, 0, data.length, bOut);
-        }
-        catch (Exception e)
-        {
-            throw new EncoderException("exception encoding URL safe base64 data: " + e.getMessage(), e);
-        }
-        
-        return bOut.toByteArray();
+        byte[] encoded = new byte[encoder.getEncodedLength(data.length)];
+
+        encoder.encode(data, 0, data.length, encoded, 0);
+
+        return encoded;
     }
 
     /**
@@ -63,18 +56,28 @@ public static int encode(
     public static byte[] decode(
         byte[]    data)
     {
-        ByteArrayOutputStream    bOut = new ByteArrayOutputStream();
-        
+        byte[] decoded = new byte[encoder.getMaxDecodedLength(data.length)];
+        int    len;
+
         try
         {
-            encoder.decode(data, 0, data.length, bOut);
+            len = encoder.decode(data, 0, data.length, decoded, 0);
         }
         catch (Exception e)
         {
             throw new DecoderException("exception decoding URL safe base64 string: " + e.getMessage(), e);
         }
-        
-        return bOut.toByteArray();
+
+        if (len == decoded.length)
+        {
+            return decoded;
+        }
+
+        byte[] tmp = new byte[len];
+
+        System.arraycopy(decoded, 0, tmp, 0, len);
+
+        return tmp;
     }
     
     /**
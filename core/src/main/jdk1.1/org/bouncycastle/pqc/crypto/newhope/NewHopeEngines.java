@@ -0,0 +1,13 @@
+package org.bouncycastle.pqc.crypto.newhope;
+
+/**
+ * Hands out a NewHope engine for the calling thread - there is no ThreadLocal here, so each
+ * operation is given an engine of its own.
+ */
+class NewHopeEngines
+{
+    static NewHope get()
+    {
+        return new NewHope();
+    }
+}
@@ -296,6 +296,18 @@ public static void fill(
         }
     }
 
+    public static void fill(
+        byte[] array,
+        int start,
+        int finish,
+        byte value)
+    {
+        for (int i = start; i < finish; i++)
+        {
+            array[i] = value;
+        }
+    }
+
     public static void fill(
         char[] array,
         char value)
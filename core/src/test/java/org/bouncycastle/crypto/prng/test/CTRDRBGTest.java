@@ -366,6 +366,42 @@ public void performTest()
 
         drbg.generate(output, tv.additionalInput(0), tv.predictionResistance());
 
+        // buffered output test - small requests are served from a single larger request
+        byte[] nonce = Hex.decode("202122232425262728292A2B2C2D2E2F");
+
+        SP80090DRBG plain = new CTRSP800DRBG(new AESEngine(), 256, 256, new Bit384EntropyProvider().get(384), null, nonce);
+        SP80090DRBG buffered = new CTRSP800DRBG(new AESEngine(), 256, 256, new Bit384EntropyProvider().get(384), null, nonce, 160);
+
+        byte[] expected = new byte[160];
+        byte[] produced = new byte[160];
+
+        plain.generate(expected, null, false);
+
+        for (int off = 0; off < produced.length; off += 16)
+        {
+            byte[] block = new byte[16];
+
+            buffered.generate(block, null, false);
+
+            System.arraycopy(block, 0, produced, off, block.length);
+        }
+
+        if (!areEqual(expected, produced))
+        {
+            fail("buffered output failed, expected " + new String(Hex.encode(expected)) + " got " + new String(Hex.encode(produced)));
+        }
+
+        // the next request refills, so follows the second request of the unbuffered DRBG
+        plain.generate(expected, null, false);
+
+        byte[] block = new byte[40];
+        buffered.generate(block, null, false);
+
+        if (!areEqual(Arrays.copyOfRange(expected, 0, 40), block))
+        {
+            fail("buffered refill failed");
+        }
+
         // Exception tests
         SP80090DRBG d;
         try
@@ -7,7 +7,9 @@
 import org.bouncycastle.crypto.engines.DESedeEngine;
 import org.bouncycastle.crypto.macs.HMac;
 import org.bouncycastle.crypto.prng.BasicEntropySourceProvider;
+import org.bouncycastle.crypto.prng.SP800SecureRandom;
 import org.bouncycastle.crypto.prng.SP800SecureRandomBuilder;
+import org.bouncycastle.crypto.prng.SP800StripedSecureRandom;
 import org.bouncycastle.util.Arrays;
 import org.bouncycastle.util.encoders.Hex;
 import org.bouncycastle.util.test.SimpleTest;
@@ -233,6 +235,133 @@ private void testGenerateSeed()
         }
     }
 
+    private void testStripedRandom()
+        throws Exception
+    {
+        DRBGTestVector tv = new DRBGTestVector(
+                            new SHA1Digest(),
+                            new SHA1EntropyProvider().get(440),
+                            false,
+                            "2021222324",
+                            80,
+                            new String[]
+                                {
+                                    "AB438BD3B01A0AF85CFEE29F7D7B71621C4908B909124D430E7B406FB1086EA994C582E0D656D989",
+                                    "29D9098F987E7005314A0F51B3DD2B8122F4AED706735DE6AD5DDBF223177C1E5F3AEBC52FAB90B9"
+                                })
+                            .setPersonalizationString("404142434445464748494A4B4C4D4E4F505152535455565758595A5B5C5D5E5F606162636465666768696A6B6C6D6E6F70717273747576");
+
+        // a thread always uses the same stripe
+        final SecureRandom random = buildStripedHash(tv, 3);
+
+        byte[] produced = new byte[tv.expectedValue(0).length];
+
+        random.nextBytes(produced);
+
+        if (!Arrays.areEqual(tv.expectedValue(0), produced))
+        {
+            fail("SP800 striped SecureRandom produced incorrect result (1)");
+        }
+
+        random.nextBytes(produced);
+
+        if (!Arrays.areEqual(tv.expectedValue(1), produced))
+        {
+            fail("SP800 striped SecureRandom produced incorrect result (2)");
+        }
+
+        // a second thread either shares our stripe, or starts a fresh one
+        final byte[] other = new byte[produced.length];
+        Thread t = new Thread()
+        {
+            public void run()
+            {
+                random.nextBytes(other);
+            }
+        };
+
+        t.start();
+        t.join();
+
+        if (stripeOf(t, 3) == stripeOf(Thread.currentThread(), 3))
+        {
+            if (Arrays.areEqual(tv.expectedValue(0), other) || Arrays.areEqual(tv.expectedValue(1), other))
+            {
+                fail("SP800 striped SecureRandom repeated output");
+            }
+        }
+        else if (!Arrays.areEqual(tv.expectedValue(0), other))
+        {
+            fail("SP800 striped SecureRandom produced incorrect result (3)");
+        }
+    }
+
+    private void testLazyStripedRandom()
+        throws Exception
+    {
+        final int[] created = new int[4];
+
+        SecureRandom random = new SP800StripedSecureRandom(created.length)
+        {
+            protected SP800SecureRandom createStripe(int index)
+            {
+                created[index]++;
+
+                return new SP800SecureRandomBuilder(new SHA1EntropyProvider())
+                    .setSecurityStrength(128)
+                    .buildHash(new SHA1Digest(), Hex.decode("2021222324"), false);
+            }
+        };
+
+        random.setSeed(Hex.decode("0102030405"));
+
+        for (int i = 0; i != created.length; i++)
+        {
+            if (created[i] != 0)
+            {
+                fail("SP800 striped SecureRandom created stripe before use");
+            }
+        }
+
+        byte[] produced = new byte[20];
+
+        random.nextBytes(produced);
+        random.nextBytes(produced);
+
+        int index = stripeOf(Thread.currentThread(), created.length);
+
+        for (int i = 0; i != created.length; i++)
+        {
+            if (created[i] != ((i == index) ? 1 : 0))
+            {
+                fail("SP800 striped SecureRandom created wrong stripes");
+            }
+        }
+    }
+
+    private static int stripeOf(Thread thread, int count)
+    {
+        return (System.identityHashCode(thread) & 0x7fffffff) % count;
+    }
+
+    private SecureRandom buildStripedHash(DRBGTestVector tv, int count)
+    {
+        SP800SecureRandom[] stripes = new SP800SecureRandom[count];
+
+        for (int i = 0; i != count; i++)
+        {
+            SP800SecureRandomBuilder rBuild = new SP800SecureRandomBuilder(new SHA1EntropyProvider());
+
+            rBuild.setPersonalizationString(tv.personalizationString());
+            rBuild.setSecurityStrength(tv.securityStrength());
+            rBuild.setEntropyBitsRequired(tv.entropySource().getEntropy().length * 8);
+
+            stripes[i] = rBuild.buildHash(new SHA1Digest(), tv.nonce(), tv.predictionResistance());
+        }
+
+        return new SP800StripedSecureRandom(stripes);
+    }
+
     public void performTest()
         throws Exception
     {
@@ -240,6 +369,8 @@ public void performTest()
         testHMACRandom();
         testCTRRandom();
         testGenerateSeed();
+        testStripedRandom();
+        testLazyStripedRandom();
     }
 
     public static void main(String[] args)
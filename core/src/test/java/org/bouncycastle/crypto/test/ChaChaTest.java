@@ -4,7 +4,9 @@
 
 import org.bouncycastle.crypto.CipherParameters;
 import org.bouncycastle.crypto.StreamCipher;
+import org.bouncycastle.crypto.engines.ChaCha7539Engine;
 import org.bouncycastle.crypto.engines.ChaChaEngine;
+import org.bouncycastle.crypto.engines.Salsa20Engine;
 import org.bouncycastle.crypto.params.KeyParameter;
 import org.bouncycastle.crypto.params.ParametersWithIV;
 import org.bouncycastle.util.encoders.Hex;
@@ -159,6 +161,10 @@ public void performTest()
                   set6v1_0, set6v1_65472, set6v1_65536);
         reinitBug();
         skipTest();
+        bulkTest(new ChaChaEngine(), new ChaChaEngine(), Hex.decode("0D74DB42A91077DE"));
+        bulkTest(new ChaChaEngine(12), new ChaChaEngine(12), Hex.decode("0D74DB42A91077DE"));
+        bulkTest(new ChaCha7539Engine(), new ChaCha7539Engine(), Hex.decode("000000000000004a00000000"));
+        bulkTest(new Salsa20Engine(), new Salsa20Engine(), Hex.decode("0D74DB42A91077DE"));
     }
 
     private void chachaTest1(int rounds, CipherParameters params, String v0, String v192, String v256, String v448)
@@ -281,6 +287,70 @@ private boolean areEqual(byte[] a, int aOff, byte[] b, int bOff)
         return true;
     }
 
+    /*
+     * check multi-block processing against byte at a time processing for a variety of
+     * lengths and alignments.
+     */
+    private void bulkTest(StreamCipher bulk, StreamCipher single, byte[] iv)
+    {
+        SecureRandom rand = new SecureRandom();
+        byte[]       plain = new byte[1500];
+        byte[]       expected = new byte[plain.length];
+        byte[]       cipher = new byte[plain.length + 7];
+
+        rand.nextBytes(plain);
+
+        CipherParameters params = new ParametersWithIV(new KeyParameter(Hex.decode("0053A6F94C9FF24598EB3E91E4378ADD3083D6297CCF2275C81B6EC11467BA0D")), iv);
+
+        single.init(true, params);
+        for (int i = 0; i != plain.length; i++)
+        {
+            expected[i] = single.returnByte(plain[i]);
+        }
+
+        int[] chunks = { 1, 63, 64, 65, 127, 128, 200, 512 };
+        for (int c = 0; c != chunks.length; c++)
+        {
+            bulk.init(true, params);
+
+            for (int pos = 0; pos < plain.length; pos += chunks[c])
+            {
+                int len = Math.min(chunks[c], plain.length - pos);
+
+                bulk.processBytes(plain, pos, len, cipher, pos + 7);
+            }
+
+            if (!areEqual(expected, 0, cipher, 7, plain.length))
+            {
+                fail(bulk.getAlgorithmName() + " multi-block processing failed for chunk size " + chunks[c]);
+            }
+        }
+
+        // in place processing
+        bulk.init(true, params);
+        System.arraycopy(plain, 0, cipher, 0, plain.length);
+        bulk.processBytes(cipher, 0, 3, cipher, 0);
+        bulk.processBytes(cipher, 3, plain.length - 3, cipher, 3);
+
+        if (!areEqual(expected, 0, cipher, 0, plain.length))
+        {
+            fail(bulk.getAlgorithmName() + " in place multi-block processing failed");
+        }
+    }
+
+    private boolean areEqual(byte[] a, int aOff, byte[] b, int bOff, int len)
+    {
+        for (int i = 0; i != len; i++)
+        {
+            if (a[aOff + i] != b[bOff + i])
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     private void skipTest()
     {
         SecureRandom rand = new SecureRandom();
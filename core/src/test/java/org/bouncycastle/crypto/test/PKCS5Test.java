@@ -13,7 +13,12 @@
 import org.bouncycastle.asn1.pkcs.RC2CBCParameter;
 import org.bouncycastle.crypto.BufferedBlockCipher;
 import org.bouncycastle.crypto.CipherParameters;
+import org.bouncycastle.crypto.Digest;
 import org.bouncycastle.crypto.PBEParametersGenerator;
+import org.bouncycastle.crypto.digests.SHA1Digest;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.digests.SHA512Digest;
+import org.bouncycastle.crypto.digests.ShortenedDigest;
 import org.bouncycastle.crypto.engines.DESEngine;
 import org.bouncycastle.crypto.engines.DESedeEngine;
 import org.bouncycastle.crypto.engines.RC2Engine;
@@ -22,6 +27,7 @@
 import org.bouncycastle.crypto.paddings.PaddedBufferedBlockCipher;
 import org.bouncycastle.crypto.params.KeyParameter;
 import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.bouncycastle.util.Strings;
 import org.bouncycastle.util.encoders.Base64;
 import org.bouncycastle.util.encoders.Hex;
 import org.bouncycastle.util.test.SimpleTest;
@@ -255,6 +261,41 @@ public void performTest()
         {
             fail("192 (60000) test failed");
         }
+
+        //
+        // RFC 6070 and RFC 7914 tests, and other digests
+        //
+        pbkdf2Test(new SHA1Digest(), "passwordPASSWORDpassword", "saltSALTsaltSALTsaltSALTsaltSALTsalt", 4096,
+            "3d2eec4fe41c849b80c8d83662c0e44a8b291a964cf2f07038");
+        pbkdf2Test(new SHA256Digest(), "passwd", "salt", 1,
+            "55ac046e56e3089fec1691c22544b605f94185216dde0465e68b9d57c20dacbc49ca9cccf179b645991664b39d77ef317c71b845b1e30bd509112041d3a19783");
+        pbkdf2Test(new SHA256Digest(), "Password", "NaCl", 80000,
+            "4ddcd8f60b98be21830cee5ef22701f9641a4418d04c0414aeff08876b34ab56a1d425a1225833549adb841b51c9b3176a272bdebba1d078478f62b397f33c8d");
+        pbkdf2Test(new SHA256Digest(), "pppppppppppppppppppppppppppppppppppppppppppppppppppppppppppppppppppppppppppppppppppppppppppppppppppp", "salt", 1000,
+            "bc3c380bc1b4894e735f9d8b225e3404d32fd14479124e912eb2ba5e2462fb228b7183b0d91c28f3");
+        pbkdf2Test(new SHA512Digest(), "password", "salt", 2,
+            "e1d9c16aa681708a45f5c7c4e215ceb66e011a2e9f0040713f18aefdb866d53cf76cab2868a39b9f7840edce4fef5a82be67335c77a6068e04112754f27ccf4e");
+
+        // a digest which is not Memoable
+        pbkdf2Test(new ShortenedDigest(new SHA256Digest(), 32), "Password", "NaCl", 80000,
+            "4ddcd8f60b98be21830cee5ef22701f9641a4418d04c0414aeff08876b34ab56a1d425a1225833549adb841b51c9b3176a272bdebba1d078478f62b397f33c8d");
+    }
+
+    private void pbkdf2Test(Digest digest, String password, String salt, int iterationCount, String expected)
+    {
+        byte[] dk = Hex.decode(expected);
+        PBEParametersGenerator generator = new PKCS5S2ParametersGenerator(digest);
+
+        generator.init(Strings.toByteArray(password), Strings.toByteArray(salt), iterationCount);
+
+        // the generator is reused, so ask for the key twice
+        for (int i = 0; i != 2; i++)
+        {
+            if (!areEqual(((KeyParameter)generator.generateDerivedParameters(dk.length * 8)).getKey(), dk))
+            {
+                fail("PBKDF2 test failed for " + digest.getAlgorithmName() + " with " + iterationCount + " iterations");
+            }
+        }
     }
 
     public static void main(
@@ -0,0 +1,105 @@
+package org.bouncycastle.crypto.test;
+
+import java.security.SecureRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.PBEParametersGenerator;
+import org.bouncycastle.crypto.digests.SHA1Digest;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.digests.SHA512Digest;
+import org.bouncycastle.crypto.digests.ShortenedDigest;
+import org.bouncycastle.crypto.generators.PKCS5S2ParametersGenerator;
+import org.bouncycastle.crypto.generators.ParallelPKCS5S2ParametersGenerator;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.bouncycastle.util.Strings;
+import org.bouncycastle.util.encoders.Hex;
+import org.bouncycastle.util.test.SimpleTest;
+
+/**
+ * Test for ParallelPKCS5S2ParametersGenerator, which must give the same output as the
+ * single threaded PKCS5S2ParametersGenerator.
+ */
+public class ParallelPKCS5S2Test
+    extends SimpleTest
+{
+    public String getName()
+    {
+        return "ParallelPKCS5S2";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+
+        try
+        {
+            // RFC 7914, 64 bytes is two SHA-256 blocks
+            PBEParametersGenerator generator = new ParallelPKCS5S2ParametersGenerator(new SHA256Digest(), executor);
+
+            generator.init(Strings.toByteArray("Password"), Strings.toByteArray("NaCl"), 80000);
+            if (!areEqual(((KeyParameter)generator.generateDerivedParameters(512)).getKey(),
+                Hex.decode("4ddcd8f60b98be21830cee5ef22701f9641a4418d04c0414aeff08876b34ab56a1d425a1225833549adb841b51c9b3176a272bdebba1d078478f62b397f33c8d")))
+            {
+                fail("RFC 7914 test failed");
+            }
+
+            SecureRandom random = new SecureRandom();
+
+            compareTest(new SHA1Digest(), new SHA1Digest(), executor, random);
+            compareTest(new SHA256Digest(), new SHA256Digest(), executor, random);
+            compareTest(new SHA512Digest(), new SHA512Digest(), executor, random);
+            compareTest(new ShortenedDigest(new SHA256Digest(), 20), new ShortenedDigest(new SHA256Digest(), 20), executor, random);
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        // an executor which will not take the tasks leaves the work to the calling thread
+        ExecutorService stopped = Executors.newSingleThreadExecutor();
+        stopped.shutdown();
+
+        compareTest(new SHA256Digest(), new SHA256Digest(), stopped, new SecureRandom());
+    }
+
+    private void compareTest(Digest digest, Digest parallelDigest, ExecutorService executor, SecureRandom random)
+    {
+        PBEParametersGenerator generator = new PKCS5S2ParametersGenerator(digest);
+        PBEParametersGenerator parallel = new ParallelPKCS5S2ParametersGenerator(parallelDigest, executor);
+
+        for (int i = 0; i != 10; i++)
+        {
+            byte[] password = new byte[random.nextInt(200)];
+            byte[] salt = new byte[random.nextInt(40)];
+            int iterationCount = 1 + random.nextInt(1000);
+
+            random.nextBytes(password);
+            random.nextBytes(salt);
+
+            generator.init(password, salt, iterationCount);
+            parallel.init(password, salt, iterationCount);
+
+            int keySize = 8 * (1 + random.nextInt(100));
+            int ivSize = 8 * random.nextInt(32);
+
+            ParametersWithIV expected = (ParametersWithIV)generator.generateDerivedParameters(keySize, ivSize);
+            ParametersWithIV result = (ParametersWithIV)parallel.generateDerivedParameters(keySize, ivSize);
+
+            if (!areEqual(((KeyParameter)expected.getParameters()).getKey(), ((KeyParameter)result.getParameters()).getKey())
+                || !areEqual(expected.getIV(), result.getIV()))
+            {
+                fail("parallel result does not match for " + digest.getAlgorithmName() + " on test " + i);
+            }
+        }
+    }
+
+    public static void main(
+        String[]    args)
+    {
+        runTest(new ParallelPKCS5S2Test());
+    }
+}
@@ -0,0 +1,85 @@
+package org.bouncycastle.crypto.test;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.bouncycastle.crypto.generators.ParallelSCrypt;
+
+/*
+ * Runs the scrypt test vectors through ParallelSCrypt, with executors which run the lanes, reject them,
+ * or never get round to them.
+ */
+public class ParallelSCryptTest extends SCryptTest
+{
+    private ExecutorService executor;
+    private ExecutorService rejecting;
+    private Executor idle;
+
+    public String getName()
+    {
+        return "ParallelSCrypt";
+    }
+
+    public void performTest() throws Exception
+    {
+        executor = Executors.newFixedThreadPool(4);
+        rejecting = Executors.newSingleThreadExecutor();
+        idle = new Executor()
+        {
+            public void execute(Runnable command)
+            {
+                // accepts the task, but never runs it.
+            }
+        };
+
+        rejecting.shutdown();
+
+        try
+        {
+            testVectors();
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    protected void checkVector(int count, byte[] P, byte[] S, int N, int r, int p, int dkLen, byte[] expected)
+    {
+        byte[] result = ParallelSCrypt.generate(P, S, N, r, p, dkLen, executor, Long.MAX_VALUE);
+
+        if (!areEqual(expected, result))
+        {
+            fail("Parallel result does not match expected value in test case " + count);
+        }
+
+        // memory bound allows two lanes at a time
+        result = ParallelSCrypt.generate(P, S, N, r, p, dkLen, executor, 2L * 128 * r * N);
+
+        if (!areEqual(expected, result))
+        {
+            fail("Memory bounded parallel result does not match expected value in test case " + count);
+        }
+
+        // the calling thread must pick up lanes the executor rejects, or never gets round to.
+        result = ParallelSCrypt.generate(P, S, N, r, p, dkLen, rejecting, Long.MAX_VALUE);
+
+        if (!areEqual(expected, result))
+        {
+            fail("Rejected parallel result does not match expected value in test case " + count);
+        }
+
+        result = ParallelSCrypt.generate(P, S, N, r, p, dkLen, idle, Long.MAX_VALUE);
+
+        if (!areEqual(expected, result))
+        {
+            fail("Idle executor parallel result does not match expected value in test case " + count);
+        }
+    }
+
+    public static void main(String[] args)
+    {
+        runTest(new ParallelSCryptTest());
+    }
+}
@@ -116,6 +116,7 @@ public void performTest()
         }
         testSequential();
         testReset();
+        testChunked();
         rfc7539Test();
     }
 
@@ -274,6 +275,43 @@ private void testReset()
         }
     }
 
+    private void testChunked()
+    {
+        CipherKeyGenerator gen = new Poly1305KeyGenerator();
+        gen.init(new KeyGenerationParameters(new SecureRandom(), 256));
+        byte[] k = gen.generateKey();
+
+        byte[] m = new byte[MAXLEN];
+        new SecureRandom().nextBytes(m);
+
+        byte[] check = new byte[16];
+        byte[] out = new byte[16];
+
+        Mac poly = new Poly1305();
+        poly.init(new KeyParameter(k));
+
+        // byte at a time as the baseline, then every chunk size through the block handling
+        for (int i = 0; i != m.length; i++)
+        {
+            poly.update(m[i]);
+        }
+        poly.doFinal(check, 0);
+
+        for (int chunk = 1; chunk <= 3 * 16 + 1; chunk++)
+        {
+            for (int off = 0; off < m.length; off += chunk)
+            {
+                poly.update(m, off, Math.min(chunk, m.length - off));
+            }
+            poly.doFinal(out, 0);
+
+            if (!Arrays.areEqual(check, out))
+            {
+                fail("Mac mismatch with chunk size " + chunk, new String(Hex.encode(check)), new String(Hex.encode(out)));
+            }
+        }
+    }
+
     private void testInit()
     {
         CipherKeyGenerator gen = new Poly1305KeyGenerator();
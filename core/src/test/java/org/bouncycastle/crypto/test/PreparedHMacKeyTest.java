@@ -0,0 +1,219 @@
+package org.bouncycastle.crypto.test;
+
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.ExtendedDigest;
+import org.bouncycastle.crypto.digests.SHA1Digest;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.digests.SHA512tDigest;
+import org.bouncycastle.crypto.macs.HMac;
+import org.bouncycastle.crypto.macs.PreparedHMacKey;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.util.Strings;
+import org.bouncycastle.util.encoders.Hex;
+import org.bouncycastle.util.test.SimpleTest;
+
+/**
+ * Tests for HMac initialised with prepared keys.
+ */
+public class PreparedHMacKeyTest
+    extends SimpleTest
+{
+    public String getName()
+    {
+        return "PreparedHMacKey";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        vectorTest(new HMac(new SHA256Digest()));
+        vectorTest(new HMac(new NonMemoableDigest()));
+        interleavedTest();
+        stateTest();
+        mismatchTest();
+    }
+
+    private void vectorTest(HMac hmac)
+    {
+        String[] keys = SHA256HMacTest.keys;
+        PreparedHMacKey[] prepared = new PreparedHMacKey[keys.length];
+
+        for (int i = 0; i != keys.length; i++)
+        {
+            prepared[i] = hmac.prepareKey(new KeyParameter(Hex.decode(keys[i])));
+        }
+
+        // go round the keys more than once, to make sure using a prepared key does not change it.
+        for (int round = 0; round != 2; round++)
+        {
+            for (int i = 0; i != keys.length; i++)
+            {
+                hmac.init(prepared[i]);
+
+                isTrue(hmac.getAlgorithmName() + " vector " + i + " failed",
+                    areEqual(Hex.decode(SHA256HMacTest.digests[i]), mac(hmac, message(i))));
+            }
+        }
+
+        // reset returns to the prepared key.
+        hmac.init(prepared[1]);
+        hmac.update(message(0), 0, message(0).length);
+        hmac.reset();
+
+        isTrue(hmac.getAlgorithmName() + " reset failed",
+            areEqual(Hex.decode(SHA256HMacTest.digests[1]), mac(hmac, message(1))));
+    }
+
+    private void interleavedTest()
+    {
+        byte[] key = Hex.decode(SHA256HMacTest.keys[5]);
+        PreparedHMacKey prepared = new HMac(new SHA256Digest()).prepareKey(new KeyParameter(key));
+
+        HMac hmac1 = new HMac(new SHA256Digest());
+        HMac hmac2 = new HMac(new SHA256Digest());
+        HMac reference = new HMac(new SHA256Digest());
+
+        hmac1.init(prepared);
+        hmac2.init(prepared);
+        reference.init(new KeyParameter(key));
+
+        for (int i = 0; i != 10; i++)
+        {
+            byte[] msg = new byte[i * 13];
+
+            for (int j = 0; j != msg.length; j++)
+            {
+                msg[j] = (byte)(i + j);
+            }
+
+            hmac1.update(msg, 0, msg.length / 2);
+            hmac2.update(msg, 0, msg.length);
+            hmac1.update(msg, msg.length / 2, msg.length - msg.length / 2);
+
+            byte[] expected = mac(reference, msg);
+
+            isTrue("shared key mac 1 failed on " + i, areEqual(expected, mac(hmac1, new byte[0])));
+            isTrue("shared key mac 2 failed on " + i, areEqual(expected, mac(hmac2, new byte[0])));
+        }
+    }
+
+    private void stateTest()
+    {
+        HMac hmac = new HMac(new SHA256Digest());
+
+        hmac.init(new KeyParameter(Hex.decode(SHA256HMacTest.keys[0])));
+        hmac.update(message(0), 0, 4);
+
+        // preparing a key part way through a message must not affect the message.
+        PreparedHMacKey prepared = hmac.prepareKey(new KeyParameter(Hex.decode(SHA256HMacTest.keys[1])));
+
+        hmac.update(message(0), 4, message(0).length - 4);
+
+        byte[] out = new byte[hmac.getMacSize()];
+        hmac.doFinal(out, 0);
+
+        isTrue("prepareKey changed mac state", areEqual(Hex.decode(SHA256HMacTest.digests[0]), out));
+
+        hmac.init(prepared);
+
+        isTrue("prepared key after use failed",
+            areEqual(Hex.decode(SHA256HMacTest.digests[1]), mac(hmac, message(1))));
+    }
+
+    private void mismatchTest()
+    {
+        PreparedHMacKey prepared = new HMac(new SHA256Digest()).prepareKey(new KeyParameter(new byte[16]));
+
+        checkMismatch(new HMac(new SHA1Digest()), prepared);
+        checkMismatch(new HMac(new NonMemoableDigest()), prepared);
+
+        prepared = new HMac(new SHA512tDigest(256)).prepareKey(new KeyParameter(new byte[16]));
+
+        checkMismatch(new HMac(new SHA512tDigest(224)), prepared);
+    }
+
+    private void checkMismatch(HMac hmac, PreparedHMacKey prepared)
+    {
+        try
+        {
+            hmac.init(prepared);
+            fail("no exception for " + hmac.getAlgorithmName());
+        }
+        catch (IllegalArgumentException e)
+        {
+            isTrue("wrong message", "prepared key is for a different digest".equals(e.getMessage()));
+        }
+    }
+
+    private static byte[] message(int i)
+    {
+        String msg = SHA256HMacTest.messages[i];
+
+        if (msg.startsWith("0x"))
+        {
+            return Hex.decode(msg.substring(2));
+        }
+
+        return Strings.toByteArray(msg);
+    }
+
+    private static byte[] mac(HMac hmac, byte[] msg)
+    {
+        byte[] out = new byte[hmac.getMacSize()];
+
+        hmac.update(msg, 0, msg.length);
+        hmac.doFinal(out, 0);
+
+        return out;
+    }
+
+    /**
+     * SHA-256 without access to its state, so HMac has to fall back to hashing the key.
+     */
+    private static class NonMemoableDigest
+        implements ExtendedDigest
+    {
+        private final Digest digest = new SHA256Digest();
+
+        public String getAlgorithmName()
+        {
+            return digest.getAlgorithmName();
+        }
+
+        public int getDigestSize()
+        {
+            return digest.getDigestSize();
+        }
+
+        public int getByteLength()
+        {
+            return 64;
+        }
+
+        public void update(byte in)
+        {
+            digest.update(in);
+        }
+
+        public void update(byte[] in, int inOff, int len)
+        {
+            digest.update(in, inOff, len);
+        }
+
+        public int doFinal(byte[] out, int outOff)
+        {
+            return digest.doFinal(out, outOff);
+        }
+
+        public void reset()
+        {
+            digest.reset();
+        }
+    }
+
+    public static void main(
+        String[] args)
+    {
+        runTest(new PreparedHMacKeyTest());
+    }
+}
@@ -192,6 +192,44 @@ private void testOAEP(RSAKeyParameters pubParameters, RSAKeyParameters privParam
         }
     }
 
+    private void testBlindingRefresh(RSAKeyParameters pubParameters, RSAKeyParameters privParameters)
+    {
+        //
+        // enough operations, over two engines sharing the key, to run through several blinding refreshes.
+        //
+        AsymmetricBlockCipher pubEng = new RSABlindedEngine();
+        AsymmetricBlockCipher privEng1 = new RSABlindedEngine();
+        AsymmetricBlockCipher privEng2 = new RSABlindedEngine();
+
+        pubEng.init(true, pubParameters);
+        privEng1.init(false, privParameters);
+        privEng2.init(false, privParameters);
+
+        SecureRandom random = new SecureRandom();
+
+        for (int i = 0; i != 100; i++)
+        {
+            byte[] data = new byte[pubEng.getInputBlockSize()];
+
+            random.nextBytes(data);
+
+            try
+            {
+                byte[] enc = pubEng.processBlock(data, 0, data.length);
+                byte[] dec = ((i & 1) == 0 ? privEng1 : privEng2).processBlock(enc, 0, enc.length);
+
+                if (!new BigInteger(1, data).equals(new BigInteger(1, dec)))
+                {
+                    fail("failed blinding refresh test");
+                }
+            }
+            catch (Exception e)
+            {
+                fail("failed - exception " + e.toString(), e);
+            }
+        }
+    }
+
     public void performTest()
     {
         RSAKeyParameters    pubParameters = new RSAKeyParameters(false, mod, pubExp);
@@ -411,6 +449,7 @@ public void performTest()
         }
 
         testOAEP(pubParameters, privParameters);
+        testBlindingRefresh(pubParameters, privParameters);
         testStrictPKCS1Length(pubParameters, privParameters);
         testDudPKCS1Block(pubParameters, privParameters);
         testMissingDataPKCS1Block(pubParameters, privParameters);
@@ -84,6 +84,7 @@
         new SHA512HMacTest(),
         new RIPEMD128HMacTest(),
         new RIPEMD160HMacTest(),
+        new PreparedHMacKeyTest(),
         new OAEPTest(),
         new PSSTest(),
         new CTSTest(),
@@ -122,6 +123,8 @@
         //new NaccacheSternTest(),
         new SRP6Test(),
         new SCryptTest(),
+        new ParallelSCryptTest(),
+        new ParallelPKCS5S2Test(),
         new ResetTest(),
         new NullTest(),
         new DSTU4145Test(),
@@ -108,18 +108,23 @@ public void testVectors()
             // This skips very expensive test case(s), remove check to re-enable
             if (N <= 16384)
             {
-                byte[] result = SCrypt.generate(P, S, N, r, p, dkLen);
-
-                if (!areEqual(expected, result))
-                {
-                    fail("Result does not match expected value in test case " + count);
-                }
+                checkVector(count, P, S, N, r, p, dkLen, expected);
             }
         }
 
         br.close();
     }
 
+    protected void checkVector(int count, byte[] P, byte[] S, int N, int r, int p, int dkLen, byte[] expected)
+    {
+        byte[] result = SCrypt.generate(P, S, N, r, p, dkLen);
+
+        if (!areEqual(expected, result))
+        {
+            fail("Result does not match expected value in test case " + count);
+        }
+    }
+
     private static boolean isEndData(String line)
     {
         return line == null || line.startsWith("scrypt");
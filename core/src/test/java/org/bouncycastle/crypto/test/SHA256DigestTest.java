@@ -2,6 +2,7 @@
 
 import org.bouncycastle.crypto.Digest;
 import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.util.Pack;
 
 /**
  * standard vector test for SHA-256 from FIPS Draft 180-2.
@@ -40,6 +41,58 @@ public void performTest()
         super.performTest();
 
         millionATest(million_a_digest);
+
+        processBlockTest();
+    }
+
+    private void processBlockTest()
+    {
+        SHA256Digest prefix = new SHA256Digest();
+        byte[] msg = new byte[64 + 32];
+
+        for (int i = 0; i != msg.length; i++)
+        {
+            msg[i] = (byte)i;
+        }
+
+        prefix.update(msg, 0, 64);
+
+        // the final block - the last 32 bytes of msg, followed by the padding.
+        int[] block = new int[16];
+        for (int i = 0; i != 8; i++)
+        {
+            block[i] = Pack.bigEndianToInt(msg, 64 + i * 4);
+        }
+        block[8] = 0x80000000;
+        block[15] = msg.length * 8;
+
+        int[] out = new int[8];
+        prefix.processBlock(block, out);
+
+        byte[] expected = new byte[32];
+        SHA256Digest full = new SHA256Digest();
+        full.update(msg, 0, msg.length);
+        full.doFinal(expected, 0);
+
+        isTrue("processBlock result wrong", areEqual(expected, Pack.intToBigEndian(out)));
+
+        // the prefix digest must be unchanged.
+        prefix.update(msg, 64, 32);
+        byte[] result = new byte[32];
+        prefix.doFinal(result, 0);
+
+        isTrue("processBlock changed digest", areEqual(expected, result));
+
+        prefix.update(msg, 0, 4);
+        try
+        {
+            prefix.processBlock(block, out);
+            fail("no exception part way through a block");
+        }
+        catch (IllegalStateException e)
+        {
+            // expected
+        }
     }
 
     protected Digest cloneDigest(Digest digest)
@@ -0,0 +1,109 @@
+package org.bouncycastle.pqc.crypto.test;
+
+import java.security.SecureRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.digests.SHA224Digest;
+import org.bouncycastle.pqc.crypto.gmss.GMSSDigestProvider;
+import org.bouncycastle.pqc.crypto.gmss.GMSSKeyGenerationParameters;
+import org.bouncycastle.pqc.crypto.gmss.GMSSKeyPairGenerator;
+import org.bouncycastle.pqc.crypto.gmss.GMSSParameters;
+import org.bouncycastle.pqc.crypto.gmss.GMSSPrecomputingSigner;
+import org.bouncycastle.pqc.crypto.gmss.GMSSPrivateKeyParameters;
+import org.bouncycastle.pqc.crypto.gmss.GMSSSigner;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.test.SimpleTest;
+
+/**
+ * Checks GMSSPrecomputingSigner gives the same signatures and key encodings as GMSSSigner.
+ */
+public class GMSSPrecomputingSignerTest
+    extends SimpleTest
+{
+    public String getName()
+    {
+        return "GMSSPrecomputing";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        GMSSDigestProvider digProvider = new GMSSDigestProvider()
+        {
+            public Digest get()
+            {
+                return new SHA224Digest();
+            }
+        };
+
+        // small enough to run across the subtree boundaries on every layer
+        GMSSParameters params = new GMSSParameters(3,
+            new int[]{4, 4, 4}, new int[]{3, 3, 2}, new int[]{2, 2, 2});
+
+        GMSSKeyPairGenerator gmssKeyGen = new GMSSKeyPairGenerator(digProvider);
+
+        gmssKeyGen.init(new GMSSKeyGenerationParameters(new SecureRandom(), params));
+
+        AsymmetricCipherKeyPair pair = gmssKeyGen.generateKeyPair();
+
+        GMSSPrivateKeyParameters privKey = (GMSSPrivateKeyParameters)pair.getPrivate();
+        byte[] encodedKey = privKey.getEncoded();
+
+        GMSSSigner signer = new GMSSSigner(digProvider);
+        GMSSSigner verifier = new GMSSSigner(digProvider);
+        verifier.init(false, pair.getPublic());
+
+        ExecutorService executor = Executors.newFixedThreadPool(1);
+
+        try
+        {
+            GMSSPrecomputingSigner preSigner = new GMSSPrecomputingSigner(digProvider, executor);
+
+            preSigner.init(true, new GMSSPrivateKeyParameters(encodedKey, params, digProvider));
+
+            isTrue("initial encoding mismatch", Arrays.areEqual(encodedKey, preSigner.getEncodedPrivateKey()));
+
+            byte[] message = new byte[20];
+            for (int i = 0; i != 300; i++)
+            {
+                message[0] = (byte)i;
+
+                signer.init(true, privKey);
+                byte[] sig = signer.generateSignature(message);
+
+                isTrue("precomputed sig mismatch at " + i, Arrays.areEqual(sig, preSigner.generateSignature(message)));
+
+                isTrue("verification fails at " + i, verifier.verifySignature(message, sig));
+
+                privKey = privKey.nextKey();
+                encodedKey = privKey.getEncoded();
+
+                isTrue("next key encoding mismatch at " + i, Arrays.areEqual(encodedKey, preSigner.getEncodedPrivateKey()));
+            }
+
+            signer.init(true, privKey);
+            try
+            {
+                preSigner.init(true, privKey);
+                fail("used key accepted");
+            }
+            catch (IllegalStateException e)
+            {
+                // expected
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    public static void main(
+        String[] args)
+    {
+        runTest(new GMSSPrecomputingSignerTest());
+    }
+}
@@ -1,5 +1,6 @@
 package org.bouncycastle.pqc.crypto.test;
 
+import java.io.IOException;
 import java.math.BigInteger;
 import java.security.SecureRandom;
 
@@ -15,6 +16,7 @@
 import org.bouncycastle.pqc.crypto.gmss.GMSSParameters;
 import org.bouncycastle.pqc.crypto.gmss.GMSSPrivateKeyParameters;
 import org.bouncycastle.pqc.crypto.gmss.GMSSSigner;
+import org.bouncycastle.util.Arrays;
 import org.bouncycastle.util.BigIntegers;
 import org.bouncycastle.util.encoders.Hex;
 import org.bouncycastle.util.test.FixedSecureRandom;
@@ -79,6 +81,84 @@ public Digest get()
         {
             fail("private key not marked as used");
         }
+
+        doStateTest(digProvider);
+    }
+
+    private void doStateTest(GMSSDigestProvider digProvider)
+        throws Exception
+    {
+        // small enough to run across the subtree boundaries on every layer
+        GMSSParameters params = new GMSSParameters(3,
+            new int[]{4, 4, 4}, new int[]{3, 3, 2}, new int[]{2, 2, 2});
+
+        GMSSKeyPairGenerator gmssKeyGen = new GMSSKeyPairGenerator(digProvider);
+
+        gmssKeyGen.init(new GMSSKeyGenerationParameters(new SecureRandom(), params));
+
+        AsymmetricCipherKeyPair pair = gmssKeyGen.generateKeyPair();
+
+        GMSSPrivateKeyParameters privKey = (GMSSPrivateKeyParameters)pair.getPrivate();
+        byte[] encodedKey = privKey.getEncoded();
+
+        GMSSSigner signer = new GMSSSigner(digProvider);
+        GMSSSigner verifier = new GMSSSigner(digProvider);
+        verifier.init(false, pair.getPublic());
+
+        byte[] message = new byte[20];
+        for (int i = 0; i != 300; i++)
+        {
+            message[0] = (byte)i;
+
+            // the signature from the restored key must match the one from the original
+            GMSSPrivateKeyParameters restored = new GMSSPrivateKeyParameters(encodedKey, params, digProvider);
+
+            isTrue("re-encoding mismatch at " + i, Arrays.areEqual(encodedKey, restored.getEncoded()));
+
+            signer.init(true, privKey);
+            byte[] sig = signer.generateSignature(message);
+
+            signer.init(true, restored);
+            isTrue("restored sig mismatch at " + i, Arrays.areEqual(sig, signer.generateSignature(message)));
+
+            isTrue("verification fails at " + i, verifier.verifySignature(message, sig));
+
+            privKey = privKey.nextKey();
+            encodedKey = privKey.getEncoded();
+        }
+
+        // a used key is restored as one
+        signer.init(true, privKey);
+        try
+        {
+            signer.init(true, new GMSSPrivateKeyParameters(privKey.getEncoded(), params, digProvider));
+            fail("used key accepted");
+        }
+        catch (IllegalStateException e)
+        {
+            // expected
+        }
+
+        try
+        {
+            new GMSSPrivateKeyParameters(Arrays.copyOf(encodedKey, encodedKey.length / 2), params, digProvider);
+            fail("truncated encoding accepted");
+        }
+        catch (IOException e)
+        {
+            // expected
+        }
+
+        try
+        {
+            new GMSSPrivateKeyParameters(encodedKey, new GMSSParameters(3,
+                new int[]{4, 4, 4}, new int[]{3, 3, 3}, new int[]{2, 2, 2}), digProvider);
+            fail("encoding accepted with wrong parameters");
+        }
+        catch (IOException e)
+        {
+            // expected
+        }
     }
 
     public static void main(
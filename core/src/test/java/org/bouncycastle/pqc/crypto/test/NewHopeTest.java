@@ -113,6 +113,85 @@ private void testKeyExchange() throws Exception
         }
     }
     
+    private void testReusedInstances()
+    {
+        SecureRandom random = new SecureRandom();
+
+        NHKeyPairGenerator kpGen = new NHKeyPairGenerator();
+
+        kpGen.init(new KeyGenerationParameters(random, 2048));
+
+        NHExchangePairGenerator exchGen = new NHExchangePairGenerator(random);
+
+        NHAgreement agreement = new NHAgreement();
+
+        for (int i = 0; i < 10; ++i)
+        {
+            AsymmetricCipherKeyPair aliceKp = kpGen.generateKeyPair();
+
+            ExchangePair bobExchPair = exchGen.GenerateExchange(aliceKp.getPublic());
+
+            agreement.init(aliceKp.getPrivate());
+
+            byte[] aliceSharedKey = agreement.calculateAgreement(bobExchPair.getPublicKey());
+
+            isTrue("reused value mismatch", Arrays.areEqual(aliceSharedKey, bobExchPair.getSharedValue()));
+        }
+    }
+
+    private void testSharedInstances()
+        throws Exception
+    {
+        SecureRandom random = new SecureRandom();
+
+        final NHKeyPairGenerator kpGen = new NHKeyPairGenerator();
+
+        kpGen.init(new KeyGenerationParameters(random, 2048));
+
+        final NHExchangePairGenerator exchGen = new NHExchangePairGenerator(random);
+        final String[] failure = new String[1];
+
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t != threads.length; t++)
+        {
+            threads[t] = new Thread()
+            {
+                public void run()
+                {
+                    NHAgreement agreement = new NHAgreement();
+
+                    for (int i = 0; i < 20; ++i)
+                    {
+                        AsymmetricCipherKeyPair aliceKp = kpGen.generateKeyPair();
+
+                        ExchangePair bobExchPair = exchGen.GenerateExchange(aliceKp.getPublic());
+
+                        agreement.init(aliceKp.getPrivate());
+
+                        if (!Arrays.areEqual(agreement.calculateAgreement(bobExchPair.getPublicKey()), bobExchPair.getSharedValue()))
+                        {
+                            synchronized (failure)
+                            {
+                                failure[0] = "shared value mismatch";
+                            }
+                        }
+                    }
+                }
+            };
+            threads[t].start();
+        }
+
+        for (int t = 0; t != threads.length; t++)
+        {
+            threads[t].join();
+        }
+
+        synchronized (failure)
+        {
+            isTrue("shared instances: " + failure[0], failure[0] == null);
+        }
+    }
+
     private void testInterop()
     {
         /*
@@ -150,6 +229,8 @@ public void performTest()
         throws Exception
     {
         testKeyExchange();
+        testReusedInstances();
+        testSharedInstances();
         testInterop();
     }
 
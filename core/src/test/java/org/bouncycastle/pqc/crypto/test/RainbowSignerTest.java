@@ -57,6 +57,32 @@ public void performTest()
         {
             fail("verification fails");
         }
+
+        // signers reuse their working buffers, so check repeated use
+        RainbowSigner signer = new RainbowSigner();
+        RainbowSigner verifier = new RainbowSigner();
+        SecureRandom random = new SecureRandom();
+
+        signer.init(true, new ParametersWithRandom(pair.getPrivate(), random));
+        verifier.init(false, pair.getPublic());
+
+        for (int i = 0; i != 20; i++)
+        {
+            byte[] msg = new byte[20];
+            random.nextBytes(msg);
+
+            byte[] s = signer.generateSignature(msg);
+            if (!verifier.verifySignature(msg, s))
+            {
+                fail("verification fails on repeat " + i);
+            }
+
+            s[i] ^= 1;
+            if (verifier.verifySignature(msg, s))
+            {
+                fail("modified signature verifies on repeat " + i);
+            }
+        }
     }
 
     public static void main(
@@ -7,12 +7,14 @@
 {
     public static Test[]    tests = {
         new GMSSSignerTest(),
+        new GMSSPrecomputingSignerTest(),
         new McElieceFujisakiCipherTest(),
         new McElieceKobaraImaiCipherTest(),
         new McElieceCipherTest(),
         new McEliecePointchevalCipherTest(),
         new RainbowSignerTest() ,
         new Sphincs256Test(),
+        new Sphincs256ParallelTest(),
         new NewHopeTest()
     };
 
@@ -0,0 +1,84 @@
+package org.bouncycastle.pqc.crypto.test;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
+import org.bouncycastle.crypto.digests.SHA512Digest;
+import org.bouncycastle.crypto.digests.SHA512tDigest;
+import org.bouncycastle.pqc.crypto.MessageSigner;
+import org.bouncycastle.pqc.crypto.sphincs.SPHINCS256KeyGenerationParameters;
+import org.bouncycastle.pqc.crypto.sphincs.SPHINCS256KeyPairGenerator;
+import org.bouncycastle.pqc.crypto.sphincs.SPHINCS256ParallelSigner;
+
+/**
+ * Checks SPHINCS256ParallelSigner against the SHA-2 test vector used in Sphincs256Test.
+ */
+public class Sphincs256ParallelTest
+    extends Sphincs256Test
+{
+    public String getName()
+    {
+        return "Sphincs256Parallel";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        SPHINCS256KeyPairGenerator generator = new SPHINCS256KeyPairGenerator();
+
+        generator.init(new SPHINCS256KeyGenerationParameters(new RiggedRandom(), new SHA512tDigest(256)));
+
+        AsymmetricCipherKeyPair kp = generator.generateKeyPair();
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+
+        try
+        {
+            MessageSigner sphincsSigner = new SPHINCS256ParallelSigner(new SHA512tDigest(256), new SHA512Digest(), executor, 4);
+
+            sphincsSigner.init(true, kp.getPrivate());
+
+            byte[] sig = sphincsSigner.generateSignature(msg);
+
+            isTrue("parallel sig mismatch", areEqual(expSha2Sig, sig));
+
+            sphincsSigner.init(false, kp.getPublic());
+
+            isTrue("parallel sig verify failed", sphincsSigner.verifySignature(msg, sig));
+
+            // a single thread should give the same result
+            sphincsSigner = new SPHINCS256ParallelSigner(new SHA512tDigest(256), new SHA512Digest(), executor, 1);
+
+            sphincsSigner.init(true, kp.getPrivate());
+
+            isTrue("single thread sig mismatch", areEqual(expSha2Sig, sphincsSigner.generateSignature(msg)));
+
+            // the calling thread must pick up any task the executor never gets round to.
+            Executor idle = new Executor()
+            {
+                public void execute(Runnable command)
+                {
+                    // accepts the task, but never runs it.
+                }
+            };
+
+            sphincsSigner = new SPHINCS256ParallelSigner(new SHA512tDigest(256), new SHA512Digest(), idle, 4);
+
+            sphincsSigner.init(true, kp.getPrivate());
+
+            isTrue("idle executor sig mismatch", areEqual(expSha2Sig, sphincsSigner.generateSignature(msg)));
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    public static void main(
+        String[] args)
+    {
+        runTest(new Sphincs256ParallelTest());
+    }
+}
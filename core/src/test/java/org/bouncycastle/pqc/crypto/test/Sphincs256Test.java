@@ -1659,7 +1659,7 @@ private void doSHA3RandomTest()
         isTrue("sha3 r wrong verify failed", !sphincsSigner.verifySignature(msg, expBlakeSig));
     }
 
-    private static class RiggedRandom
+    static class RiggedRandom
         extends SecureRandom
     {
         public void nextBytes(byte[] bytes)
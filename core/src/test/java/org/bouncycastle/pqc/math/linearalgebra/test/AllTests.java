@@ -0,0 +1,23 @@
+package org.bouncycastle.pqc.math.linearalgebra.test;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class AllTests
+    extends TestCase
+{
+    public static void main (String[] args)
+    {
+        junit.textui.TestRunner.run(suite());
+    }
+
+    public static Test suite()
+    {
+        TestSuite suite = new TestSuite("Linear Algebra Tests");
+
+        suite.addTestSuite(GF2MatrixTest.class);
+
+        return suite;
+    }
+}
@@ -0,0 +1,290 @@
+package org.bouncycastle.pqc.math.linearalgebra.test;
+
+import java.security.SecureRandom;
+
+import junit.framework.TestCase;
+import org.bouncycastle.pqc.math.linearalgebra.GF2Matrix;
+
+/**
+ * Checks the word based products and inverses of GF2Matrix against straightforward bit by bit
+ * versions, at sizes either side of the 32 and 64 bit word boundaries.
+ */
+public class GF2MatrixTest
+    extends TestCase
+{
+    private static final int[] SIZES = { 1, 2, 7, 8, 9, 31, 32, 33, 63, 64, 65, 100, 130 };
+
+    private final SecureRandom random = new SecureRandom();
+
+    public void testSquareMultiply()
+    {
+        for (int i = 0; i != SIZES.length; i++)
+        {
+            int n = SIZES[i];
+
+            checkMultiply(randomMatrix(n, n), randomMatrix(n, n));
+        }
+    }
+
+    public void testNonSquareMultiply()
+    {
+        int[][] shapes = {
+            { 1, 64, 1 }, { 1, 1, 65 }, { 65, 1, 1 }, { 31, 33, 63 }, { 33, 31, 65 },
+            { 63, 65, 31 }, { 100, 7, 130 }, { 7, 130, 100 }, { 130, 100, 9 }
+        };
+
+        for (int i = 0; i != shapes.length; i++)
+        {
+            int[] shape = shapes[i];
+
+            checkMultiply(randomMatrix(shape[0], shape[1]), randomMatrix(shape[1], shape[2]));
+        }
+    }
+
+    public void testMultiplyLengthMismatch()
+    {
+        try
+        {
+            randomMatrix(3, 4).rightMultiply(randomMatrix(5, 3));
+            fail("length mismatch not detected");
+        }
+        catch (ArithmeticException e)
+        {
+            // expected
+        }
+    }
+
+    public void testInverse()
+    {
+        for (int i = 0; i != SIZES.length; i++)
+        {
+            int n = SIZES[i];
+
+            // random matrices are regular about 30% of the time, so this covers both cases
+            for (int count = 0; count != 8; count++)
+            {
+                checkInverse(randomMatrix(n, n));
+            }
+
+            GF2Matrix[] regular = GF2Matrix.createRandomRegularMatrixAndItsInverse(n, random);
+
+            checkInverse(regular[0]);
+            assertEquals(regular[1], regular[0].computeInverse());
+        }
+    }
+
+    public void testSingularInverse()
+    {
+        for (int i = 0; i != SIZES.length; i++)
+        {
+            int n = SIZES[i];
+
+            // zero matrix
+            checkSingular(new GF2Matrix(n, GF2Matrix.MATRIX_TYPE_ZERO));
+
+            if (n < 2)
+            {
+                continue;
+            }
+
+            boolean[][] bits = randomBits(n, n);
+
+            // last row the sum of two others
+            int a = random.nextInt(n - 1);
+            int b = random.nextInt(n - 1);
+            for (int j = 0; j != n; j++)
+            {
+                bits[n - 1][j] = bits[a][j] ^ bits[b][j];
+            }
+            checkSingular(toMatrix(bits, n));
+
+            // a column of zeroes in the middle
+            bits = randomBits(n, n);
+            for (int j = 0; j != n; j++)
+            {
+                bits[j][n / 2] = false;
+            }
+            checkSingular(toMatrix(bits, n));
+        }
+    }
+
+    public void testNonSquareInverse()
+    {
+        try
+        {
+            randomMatrix(33, 65).computeInverse();
+            fail("non-square matrix inverted");
+        }
+        catch (ArithmeticException e)
+        {
+            // expected
+        }
+    }
+
+    private void checkMultiply(GF2Matrix a, GF2Matrix b)
+    {
+        boolean[][] expected = multiply(toBits(a), toBits(b), b.getNumColumns());
+
+        GF2Matrix result = (GF2Matrix)a.rightMultiply(b);
+
+        assertEquals(a.getNumRows(), result.getNumRows());
+        assertEquals(b.getNumColumns(), result.getNumColumns());
+        assertEquals(toMatrix(expected, b.getNumColumns()), result);
+    }
+
+    private void checkInverse(GF2Matrix a)
+    {
+        int n = a.getNumRows();
+        boolean[][] expected = invert(toBits(a), n);
+
+        if (expected == null)
+        {
+            checkSingular(a);
+            return;
+        }
+
+        GF2Matrix inverse = (GF2Matrix)a.computeInverse();
+
+        assertEquals(toMatrix(expected, n), inverse);
+        assertEquals(new GF2Matrix(n, GF2Matrix.MATRIX_TYPE_UNIT), a.rightMultiply(inverse));
+    }
+
+    private void checkSingular(GF2Matrix a)
+    {
+        assertNull(invert(toBits(a), a.getNumRows()));
+
+        try
+        {
+            a.computeInverse();
+            fail("singular " + a.getNumRows() + "x" + a.getNumColumns() + " matrix inverted");
+        }
+        catch (ArithmeticException e)
+        {
+            // expected
+        }
+    }
+
+    private GF2Matrix randomMatrix(int rows, int columns)
+    {
+        return toMatrix(randomBits(rows, columns), columns);
+    }
+
+    private boolean[][] randomBits(int rows, int columns)
+    {
+        boolean[][] bits = new boolean[rows][columns];
+
+        for (int i = 0; i != rows; i++)
+        {
+            for (int j = 0; j != columns; j++)
+            {
+                bits[i][j] = random.nextBoolean();
+            }
+        }
+
+        return bits;
+    }
+
+    private static boolean[][] multiply(boolean[][] a, boolean[][] b, int columns)
+    {
+        boolean[][] c = new boolean[a.length][columns];
+
+        for (int i = 0; i != a.length; i++)
+        {
+            for (int j = 0; j != columns; j++)
+            {
+                boolean sum = false;
+                for (int k = 0; k != b.length; k++)
+                {
+                    sum ^= a[i][k] & b[k][j];
+                }
+                c[i][j] = sum;
+            }
+        }
+
+        return c;
+    }
+
+    /**
+     * Gauss-Jordan elimination one bit at a time, returning null for a singular matrix.
+     */
+    private static boolean[][] invert(boolean[][] a, int n)
+    {
+        boolean[][] m = new boolean[n][2 * n];
+
+        for (int i = 0; i != n; i++)
+        {
+            System.arraycopy(a[i], 0, m[i], 0, n);
+            m[i][n + i] = true;
+        }
+
+        for (int col = 0; col != n; col++)
+        {
+            int pivot = col;
+            while (pivot != n && !m[pivot][col])
+            {
+                pivot++;
+            }
+            if (pivot == n)
+            {
+                return null;
+            }
+
+            boolean[] tmp = m[col];
+            m[col] = m[pivot];
+            m[pivot] = tmp;
+
+            for (int i = 0; i != n; i++)
+            {
+                if (i != col && m[i][col])
+                {
+                    for (int j = 0; j != 2 * n; j++)
+                    {
+                        m[i][j] ^= m[col][j];
+                    }
+                }
+            }
+        }
+
+        boolean[][] inverse = new boolean[n][n];
+        for (int i = 0; i != n; i++)
+        {
+            System.arraycopy(m[i], n, inverse[i], 0, n);
+        }
+
+        return inverse;
+    }
+
+    private static boolean[][] toBits(GF2Matrix a)
+    {
+        int[][] words = a.getIntArray();
+        boolean[][] bits = new boolean[a.getNumRows()][a.getNumColumns()];
+
+        for (int i = 0; i != bits.length; i++)
+        {
+            for (int j = 0; j != bits[i].length; j++)
+            {
+                bits[i][j] = ((words[i][j >>> 5] >>> (j & 0x1f)) & 1) != 0;
+            }
+        }
+
+        return bits;
+    }
+
+    private static GF2Matrix toMatrix(boolean[][] bits, int columns)
+    {
+        int[][] words = new int[bits.length][(columns + 31) >>> 5];
+
+        for (int i = 0; i != bits.length; i++)
+        {
+            for (int j = 0; j != columns; j++)
+            {
+                if (bits[i][j])
+                {
+                    words[i][j >>> 5] |= 1 << (j & 0x1f);
+                }
+            }
+        }
+
+        return new GF2Matrix(columns, words);
+    }
+}
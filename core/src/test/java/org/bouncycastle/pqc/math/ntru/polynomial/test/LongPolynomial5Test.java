@@ -21,6 +21,7 @@ public void testMult()
         testMult(new int[]{2, 0, 3, 1, 1, 5}, new int[]{1, -1, 1, 1, 0, 1});
         testMult(new int[]{2, 0, 3, 1, 1, 5, 1, 4}, new int[]{1, 0, 1, 1, -1, 1, 0, -1});
         testMult(new int[]{1368, 2047, 672, 871, 1662, 1352, 1099, 1608}, new int[]{1, 0, 1, 1, -1, 1, 0, -1});
+        testMult(new int[]{1368, 2047, 672, 871, 1662, 1352, 1099, 1608, 3, 17}, new int[]{1, 0, 1, 1, -1, 1, 0, -1, 0, -1});
 
         // test random polynomials
         SecureRandom rng = new SecureRandom();
@@ -32,6 +33,28 @@ public void testMult()
         }
     }
 
+    public void testMultAndAdd()
+    {
+        SecureRandom rng = new SecureRandom();
+        for (int i = 0; i < 10; i++)
+        {
+            int N = rng.nextInt(2000) + 1;
+            IntegerPolynomial i1 = PolynomialGenerator.generateRandom(N, 2048);
+            DenseTernaryPolynomial t1 = DenseTernaryPolynomial.generateRandom(N, rng);
+            DenseTernaryPolynomial t2 = DenseTernaryPolynomial.generateRandom(N, rng);
+
+            // products are multiplied again and added without converting back
+            LongPolynomial5 a = new LongPolynomial5(i1);
+            LongPolynomial5 c = a.mult(t1).mult(t2);
+            c.add(a);
+
+            IntegerPolynomial expected = i1.mult(t1).mult(t2);
+            expected.add(i1);
+            expected.modPositive(2048);
+            assertEqualsMod(expected.coeffs, c.toIntegerPolynomial().coeffs, 2048);
+        }
+    }
+
     private void testMult(int[] coeffs1, int[] coeffs2)
     {
         IntegerPolynomial i1 = new IntegerPolynomial(coeffs1);
@@ -44,4 +44,15 @@ public void testMult()
         IntegerPolynomial p4 = p1.toIntegerPolynomial().mult(p2);
         assertEquals(p3, p4);
     }
+
+    public void testMultMod()
+    {
+        ProductFormPolynomial p1 = ProductFormPolynomial.generateRandom(N, df1, df2, df3, df3 - 1, new SecureRandom());
+        IntegerPolynomial p2 = PolynomialGenerator.generateRandom(N, q);
+        IntegerPolynomial p3 = p1.mult(p2);
+        p3.modPositive(q);
+        IntegerPolynomial p4 = p1.mult(p2, q);
+        p4.modPositive(q);
+        assertEquals(p3, p4);
+    }
 }
\ No newline at end of file
@@ -33,6 +33,29 @@ public void testMult()
         assertEquals(new BigIntPolynomial(prod1), prod3);
     }
 
+    /**
+     * tests mult(IntegerPolynomial, int) against mult(IntegerPolynomial)
+     */
+    public void testMultMod()
+    {
+        SecureRandom random = new SecureRandom();
+        SparseTernaryPolynomial p1 = SparseTernaryPolynomial.generateRandom(1087, 120, 120, random);
+        IntegerPolynomial p2 = PolynomialGenerator.generateRandom(1087, 2048);
+        p2.coeffs[0] = -5;
+
+        IntegerPolynomial prod1 = p1.mult(p2);
+        prod1.modPositive(2048);
+        IntegerPolynomial prod2 = p1.mult(p2, 2048);
+        prod2.modPositive(2048);
+        assertEquals(prod1, prod2);
+
+        prod1 = p1.mult(p2);
+        prod1.modPositive(32);
+        prod2 = p1.mult(p2, 32);
+        prod2.modPositive(32);
+        assertEquals(prod1, prod2);
+    }
+
     public void testFromToBinary()
         throws IOException
     {
@@ -46,6 +46,8 @@ private void checkArrayOfSize(int size)
         checkSimpleDecode(original, encoded);
         checkStringDecode(original, encoded);
         checkOutputStreamDecode(original, encoded);
+        checkArrayEncode(original, encoded);
+        checkArrayDecode(original, encoded);
         
         int    offset = r.nextInt(20);
         byte[] offsetEncoded = new byte[offset + encoded.length];
@@ -61,6 +63,7 @@ private void checkArrayOfSize(int size)
         checkSimpleDecode(original, encodedWithSpace);
         checkStringDecode(original, encodedWithSpace);
         checkOutputStreamDecode(original, encodedWithSpace);
+        checkArrayDecode(original, encodedWithSpace);
     }
 
     public void testEncode()
@@ -116,6 +119,34 @@ private void checkSimpleDecode(byte[] original, byte[] encoded)
         assertTrue(Arrays.equals(original, bOut.toByteArray()));
     }
     
+    private void checkArrayEncode(byte[] original, byte[] encoded)
+    {
+        int    offset = r.nextInt(20);
+        byte[] buf = new byte[offset + enc.getEncodedLength(original.length)];
+
+        assertEquals(encoded.length, buf.length - offset);
+        assertEquals(encoded.length, enc.encode(original, 0, original.length, buf, offset));
+
+        byte[] arrayEncoded = new byte[encoded.length];
+        System.arraycopy(buf, offset, arrayEncoded, 0, arrayEncoded.length);
+
+        assertTrue(Arrays.equals(encoded, arrayEncoded));
+    }
+
+    private void checkArrayDecode(byte[] original, byte[] encoded)
+        throws IOException
+    {
+        int    offset = r.nextInt(20);
+        byte[] buf = new byte[offset + enc.getMaxDecodedLength(encoded.length)];
+
+        assertEquals(original.length, enc.decode(encoded, 0, encoded.length, buf, offset));
+
+        byte[] decoded = new byte[original.length];
+        System.arraycopy(buf, offset, decoded, 0, decoded.length);
+
+        assertTrue(Arrays.equals(original, decoded));
+    }
+
     private void checkOffsetEncode(byte[] original, byte[] offsetOriginal, int off, int length) 
         throws IOException
     {
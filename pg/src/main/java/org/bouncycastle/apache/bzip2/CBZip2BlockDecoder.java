@@ -0,0 +1,506 @@
+package org.bouncycastle.apache.bzip2;
+
+import java.io.IOException;
+
+/**
+ * Decoder for a single BZip2 block held in memory, as used by {@link CBZip2ParallelInputStream}.
+ * <p>
+ * A block is decoded as far as the inverse Burrows-Wheeler transform, leaving the initial run
+ * length encoding in place so the result takes no more than the block size in memory. The block
+ * CRC is checked against the fully expanded data as part of decoding.
+ * </p>
+ */
+class CBZip2BlockDecoder
+    implements BZip2Constants
+{
+    static final long BLOCK_MAGIC = 0x314159265359L;
+    static final long END_OF_STREAM_MAGIC = 0x177245385090L;
+
+    private static final int MAX_LEN = 20;
+
+    private final byte[] data;
+    private final int limit;
+    private final long dataStartBit;
+    private final int blockSize100k;
+
+    private long bitPos;
+    private boolean overrun;
+
+    private final int[][] lookup = new int[N_GROUPS][1 << CBZip2InputStream.LOOKUP_BITS];
+    private final int[][] limits = new int[N_GROUPS][MAX_ALPHA_SIZE];
+    private final int[][] bases = new int[N_GROUPS][MAX_ALPHA_SIZE];
+    private final int[][] perms = new int[N_GROUPS][MAX_ALPHA_SIZE];
+    private final int[] minLens = new int[N_GROUPS];
+
+    /**
+     * Block decoded as far as the initial run length encoding.
+     */
+    static class Block
+    {
+        final byte[] data;
+        final int length;
+        final int blockCRC;
+        final long endBit;  // bit offset in the compressed stream of the end of the block
+
+        Block(byte[] data, int length, int blockCRC, long endBit)
+        {
+            this.data = data;
+            this.length = length;
+            this.blockCRC = blockCRC;
+            this.endBit = endBit;
+        }
+    }
+
+    /**
+     * Base constructor.
+     *
+     * @param data the buffer holding the compressed data.
+     * @param limit the number of valid bytes in data.
+     * @param dataStartBit the bit offset in the compressed stream of the start of data.
+     * @param blockSize100k the block size of the stream, in units of 100k.
+     */
+    CBZip2BlockDecoder(byte[] data, int limit, long dataStartBit, int blockSize100k)
+    {
+        this.data = data;
+        this.limit = limit;
+        this.dataStartBit = dataStartBit;
+        this.blockSize100k = blockSize100k;
+    }
+
+    /**
+     * Decode the block whose header starts at startBit.
+     *
+     * @param startBit the bit offset in the compressed stream of the block header.
+     * @return the decoded block, or null if the block runs past the end of the data available.
+     * @throws IOException if the data at startBit is not a valid block.
+     */
+    Block decode(long startBit)
+        throws IOException
+    {
+        bitPos = startBit - dataStartBit;
+        overrun = false;
+
+        try
+        {
+            Block block = decodeBlock();
+
+            return overrun ? null : block;
+        }
+        catch (IOException e)
+        {
+            if (overrun)
+            {
+                return null;
+            }
+            throw e;
+        }
+        catch (RuntimeException e)
+        {
+            if (overrun)
+            {
+                return null;
+            }
+            throw new IOException("corrupted BZIP2 block: " + e);
+        }
+    }
+
+    /**
+     * Return the value of the 48 bits starting at bitOffset in data, or -1 if fewer than 48 bits
+     * are available.
+     */
+    static long peek48(byte[] data, int limit, long bitOffset)
+    {
+        return peekBits(data, limit, bitOffset, 48);
+    }
+
+    /**
+     * Return the value of the n (at most 56) bits starting at bitOffset in data, or -1 if fewer
+     * than n bits are available.
+     */
+    static long peekBits(byte[] data, int limit, long bitOffset, int n)
+    {
+        int byteOff = (int)(bitOffset >>> 3);
+        int bitOff = (int)(bitOffset & 7);
+        int bytes = (bitOff + n + 7) / 8;
+
+        if (byteOff + bytes > limit)
+        {
+            return -1;
+        }
+
+        long v = 0;
+        for (int i = 0; i != bytes; i++)
+        {
+            v = (v << 8) | (data[byteOff + i] & 0xff);
+        }
+
+        return (v >>> (bytes * 8 - bitOff - n)) & ((1L << n) - 1);
+    }
+
+    private int getBits(int n)
+    {
+        int v = 0;
+
+        while (n > 0)
+        {
+            int byteOff = (int)(bitPos >>> 3);
+            int bitOff = (int)(bitPos & 7);
+            int b;
+
+            if (byteOff < limit)
+            {
+                b = data[byteOff] & 0xff;
+            }
+            else
+            {
+                overrun = true;
+                b = 0;
+            }
+
+            int take = Math.min(n, 8 - bitOff);
+
+            v = (v << take) | ((b >>> (8 - bitOff - take)) & ((1 << take) - 1));
+            bitPos += take;
+            n -= take;
+        }
+
+        return v;
+    }
+
+    private int peekLookupBits()
+    {
+        int byteOff = (int)(bitPos >>> 3);
+
+        if (byteOff + 3 > limit)
+        {
+            // slow path near the end of the data
+            long save = bitPos;
+            int v = getBits(CBZip2InputStream.LOOKUP_BITS);
+            bitPos = save;
+            return v;
+        }
+
+        int v = ((data[byteOff] & 0xff) << 16) | ((data[byteOff + 1] & 0xff) << 8) | (data[byteOff + 2] & 0xff);
+
+        return (v >>> (24 - CBZip2InputStream.LOOKUP_BITS - (int)(bitPos & 7))) & ((1 << CBZip2InputStream.LOOKUP_BITS) - 1);
+    }
+
+    private int getSymbol(int t)
+    {
+        int entry = lookup[t][peekLookupBits()];
+
+        if (entry != 0)
+        {
+            bitPos += entry & 0x1f;
+            return entry >> 5;
+        }
+
+        int zn = Math.max(minLens[t], CBZip2InputStream.LOOKUP_BITS + 1);
+        int zvec = getBits(zn);
+        int[] limit = limits[t];
+
+        while (zvec > limit[zn])
+        {
+            if (++zn > MAX_LEN)
+            {
+                throw new IllegalStateException("bad Huffman code");
+            }
+            zvec = (zvec << 1) | getBits(1);
+        }
+
+        return perms[t][zvec - bases[t][zn]];
+    }
+
+    private Block decodeBlock()
+        throws IOException
+    {
+        if (((long)getBits(24) << 24 | getBits(24)) != BLOCK_MAGIC)
+        {
+            throw new IOException("bad BZIP2 block header");
+        }
+
+        int storedCRC = (getBits(16) << 16) | getBits(16);
+        boolean randomised = getBits(1) == 1;
+        int origPtr = getBits(24);
+
+        // mapping table
+        char[] seqToUnseq = new char[256];
+        int nInUse = 0;
+        int inUse16 = getBits(16);
+        for (int i = 0; i != 16; i++)
+        {
+            if ((inUse16 & (0x8000 >>> i)) != 0)
+            {
+                int inUse = getBits(16);
+                for (int j = 0; j != 16; j++)
+                {
+                    if ((inUse & (0x8000 >>> j)) != 0)
+                    {
+                        seqToUnseq[nInUse++] = (char)(i * 16 + j);
+                    }
+                }
+            }
+        }
+
+        if (nInUse == 0)
+        {
+            throw new IOException("bad BZIP2 block: no symbols in use");
+        }
+
+        int alphaSize = nInUse + 2;
+
+        // selectors
+        int nGroups = getBits(3);
+        int nSelectors = getBits(15);
+        if (nGroups < 2 || nGroups > N_GROUPS || nSelectors < 1 || nSelectors > MAX_SELECTORS)
+        {
+            throw new IOException("bad BZIP2 block: invalid selectors");
+        }
+
+        byte[] pos = new byte[N_GROUPS];
+        for (int i = 0; i != nGroups; i++)
+        {
+            pos[i] = (byte)i;
+        }
+
+        byte[] selectors = new byte[nSelectors];
+        for (int i = 0; i != nSelectors; i++)
+        {
+            int j = 0;
+            while (getBits(1) == 1)
+            {
+                if (++j >= nGroups)
+                {
+                    throw new IOException("bad BZIP2 block: invalid selector");
+                }
+            }
+
+            byte tmp = pos[j];
+            while (j > 0)
+            {
+                pos[j] = pos[j - 1];
+                j--;
+            }
+            pos[0] = tmp;
+            selectors[i] = tmp;
+        }
+
+        // coding tables
+        char[] len = new char[MAX_ALPHA_SIZE];
+        for (int t = 0; t != nGroups; t++)
+        {
+            int curr = getBits(5);
+            int minLen = 32;
+            int maxLen = 0;
+
+            for (int i = 0; i != alphaSize; i++)
+            {
+                while (getBits(1) == 1)
+                {
+                    curr += (getBits(1) == 0) ? 1 : -1;
+                }
+                if (curr < 1 || curr > MAX_LEN)
+                {
+                    throw new IOException("bad BZIP2 block: invalid code length");
+                }
+
+                len[i] = (char)curr;
+                minLen = Math.min(minLen, curr);
+                maxLen = Math.max(maxLen, curr);
+            }
+
+            CBZip2InputStream.hbCreateDecodeTables(limits[t], bases[t], perms[t], len, minLen, maxLen, alphaSize);
+            CBZip2InputStream.hbCreateLookupTable(lookup[t], len, minLen, maxLen, alphaSize);
+            minLens[t] = minLen;
+        }
+
+        // Huffman, run length and move to front decoding
+        int limitLast = baseBlockSize * blockSize100k;
+        byte[] ll8 = new byte[limitLast];
+        int[] unzftab = new int[256];
+        byte[] yy = new byte[256];
+        for (int i = 0; i != 256; i++)
+        {
+            yy[i] = (byte)i;
+        }
+
+        int eob = nInUse + 1;
+        int groupNo = 0;
+        int groupPos = G_SIZE;
+        int last = -1;
+        int runLength = 0;
+        int runBit = 1;
+
+        for (;;)
+        {
+            if (groupPos == 0)
+            {
+                if (++groupNo >= nSelectors)
+                {
+                    throw new IOException("bad BZIP2 block: selectors exhausted");
+                }
+                groupPos = G_SIZE;
+            }
+            groupPos--;
+
+            int nextSym = getSymbol(selectors[groupNo]);
+
+            if (overrun)
+            {
+                return null;
+            }
+
+            if (nextSym <= RUNB)
+            {
+                runLength += (nextSym + 1) * runBit;
+                runBit <<= 1;
+                if (runLength > limitLast)
+                {
+                    throw new IOException("bad BZIP2 block: block overrun");
+                }
+                continue;
+            }
+
+            if (runLength > 0)
+            {
+                if (last + runLength >= limitLast)
+                {
+                    throw new IOException("bad BZIP2 block: block overrun");
+                }
+
+                byte ch = (byte)seqToUnseq[yy[0] & 0xff];
+                unzftab[ch & 0xff] += runLength;
+                while (runLength > 0)
+                {
+                    ll8[++last] = ch;
+                    runLength--;
+                }
+                runBit = 1;
+            }
+
+            if (nextSym == eob)
+            {
+                break;
+            }
+
+            if (++last >= limitLast)
+            {
+                throw new IOException("bad BZIP2 block: block overrun");
+            }
+
+            int j = nextSym - 1;
+            byte tmp = yy[j];
+            byte ch = (byte)seqToUnseq[tmp & 0xff];
+
+            unzftab[ch & 0xff]++;
+            ll8[last] = ch;
+
+            if (j < 16)
+            {
+                for (; j > 0; j--)
+                {
+                    yy[j] = yy[j - 1];
+                }
+            }
+            else
+            {
+                System.arraycopy(yy, 0, yy, 1, j);
+            }
+            yy[0] = tmp;
+        }
+
+        if (origPtr < 0 || origPtr > last)
+        {
+            throw new IOException("bad BZIP2 block: invalid origin pointer");
+        }
+
+        // inverse Burrows-Wheeler transform, each tt entry holding the next position and a character
+        int[] cftab = new int[257];
+        for (int i = 1; i <= 256; i++)
+        {
+            cftab[i] = cftab[i - 1] + unzftab[i - 1];
+        }
+
+        int[] tt = new int[last + 1];
+        for (int i = 0; i <= last; i++)
+        {
+            tt[i] = ll8[i] & 0xff;
+        }
+        for (int i = 0; i <= last; i++)
+        {
+            tt[cftab[tt[i] & 0xff]++] |= (i << 8);
+        }
+
+        byte[] out = ll8;
+        int tPos = tt[origPtr] >>> 8;
+        int rNToGo = 0;
+        int rTPos = 0;
+
+        for (int i = 0; i <= last; i++)
+        {
+            tPos = tt[tPos];
+            int ch = tPos & 0xff;
+            tPos >>>= 8;
+
+            if (randomised)
+            {
+                if (rNToGo == 0)
+                {
+                    rNToGo = rNums[rTPos];
+                    if (++rTPos == 512)
+                    {
+                        rTPos = 0;
+                    }
+                }
+                rNToGo--;
+                ch ^= (rNToGo == 1) ? 1 : 0;
+            }
+
+            out[i] = (byte)ch;
+        }
+
+        int blockCRC = computeCRC(out, last + 1);
+        if (blockCRC != storedCRC)
+        {
+            throw new IOException("BZIP2 block CRC failure");
+        }
+
+        return new Block(out, last + 1, blockCRC, dataStartBit + bitPos);
+    }
+
+    /**
+     * Calculate the CRC of the block once the initial run length encoding is undone.
+     */
+    private static int computeCRC(byte[] block, int length)
+    {
+        CRC crc = new CRC();
+        int prev = -1;
+        int count = 0;
+
+        for (int i = 0; i < length;)
+        {
+            int ch = block[i++] & 0xff;
+
+            crc.updateCRC(ch);
+
+            if (ch != prev)
+            {
+                prev = ch;
+                count = 1;
+            }
+            else if (++count == 4)
+            {
+                if (i < length)
+                {
+                    for (int run = block[i++] & 0xff; run > 0; run--)
+                    {
+                        crc.updateCRC(ch);
+                    }
+                }
+                count = 0;
+            }
+        }
+
+        return crc.getFinalCRC();
+    }
+}
@@ -34,6 +34,13 @@
  *
  * <b>NB:</b> note this class has been modified to read the leading BZ from the
  * start of the BZIP2 stream to make it compatible with other PGP programs.
+ * <p>
+ * The compressed data is read ahead in blocks only if the underlying stream
+ * supports mark and reset, so that the stream can be left just past the end
+ * of the BZip2 data. Other streams are read a byte at a time, so for speed
+ * wrap them in a BufferedInputStream, and read any data following the BZip2
+ * data from that.
+ * </p>
  */
 public class CBZip2InputStream extends InputStream implements BZip2Constants {
     private static void cadvise() {
@@ -106,12 +113,23 @@ private void makeMaps() {
     */
     private int[] unzftab = new int[256];
 
+    /*
+      Huffman codes of up to LOOKUP_BITS bits are decoded with a single
+      table lookup on the next LOOKUP_BITS bits of input, an entry holds
+      (symbol << 5) | code length, or 0 if the code is longer.
+    */
+    static final int LOOKUP_BITS = 10;
+    private int[][] lookup = new int[N_GROUPS][1 << LOOKUP_BITS];
+
     private int[][] limit = new int[N_GROUPS][MAX_ALPHA_SIZE];
     private int[][] base = new int[N_GROUPS][MAX_ALPHA_SIZE];
     private int[][] perm = new int[N_GROUPS][MAX_ALPHA_SIZE];
     private int[] minLens = new int[N_GROUPS];
 
     private InputStream bsStream;
+    private byte[] bsBuf;
+    private int bsBufOff;
+    private int bsBufLen;
 
     private boolean streamEnd = false;
 
@@ -273,6 +291,7 @@ private static void crcError() {
     private void bsFinishedWithStream() {
         try {
             if (this.bsStream != null) {
+                bsReturnReadAhead();
                 if (this.bsStream != System.in) {
                     this.bsStream.close();
                     this.bsStream = null;
@@ -287,29 +306,98 @@ private void bsSetStream(InputStream f) {
         bsStream = f;
         bsLive = 0;
         bsBuff = 0;
+
+        /*
+          the input is only read ahead if the stream can be reset to the
+          end of the BZip2 data once it has been decoded, otherwise it is
+          read a byte at a time so nothing following the data is consumed.
+        */
+        bsBuf = new byte[f.markSupported() ? 4096 : 1];
+        bsBufOff = 0;
+        bsBufLen = 0;
+    }
+
+    /*
+      leave the stream just past the last byte of the BZip2 data, by going
+      back to the start of the buffer and reading the part that was used.
+    */
+    private void bsReturnReadAhead() throws IOException {
+        if (bsBufOff < bsBufLen) {
+            bsStream.reset();
+            int n = bsBufOff;
+            while (n > 0) {
+                int len = bsStream.read(bsBuf, 0, n);
+                if (len < 0) {
+                    break;
+                }
+                n -= len;
+            }
+        }
+        bsBufOff = 0;
+        bsBufLen = 0;
     }
 
     private int bsR(int n) {
         int v;
         while (bsLive < n) {
-            int zzi;
-            char thech = 0;
+            bsBuff = (bsBuff << 8) | bsGetByte();
+            bsLive += 8;
+        }
+
+        v = (bsBuff >> (bsLive - n)) & ((1 << n) - 1);
+        bsLive -= n;
+        return v;
+    }
+
+    /*
+      the input is read a buffer at a time, marking the stream first so
+      bsReturnReadAhead() can give back what is not used. Past the end of
+      the stream all ones are returned.
+    */
+    private int bsGetByte() {
+        if (bsBufOff == bsBufLen) {
+            bsBufOff = 0;
+            bsBufLen = 0;
             try {
-                thech = (char) bsStream.read();
+                if (bsBuf.length > 1) {
+                    bsStream.mark(bsBuf.length);
+                }
+                int len = bsStream.read(bsBuf, 0, bsBuf.length);
+                if (len > 0) {
+                    bsBufLen = len;
+                }
             } catch (IOException e) {
                 compressedStreamEOF();
+                return 0;
             }
-            if (thech == -1) {
-                compressedStreamEOF();
+            if (bsBufLen == 0) {
+                return 0xff;
             }
-            zzi = thech;
-            bsBuff = (bsBuff << 8) | (zzi & 0xff);
+        }
+        return bsBuf[bsBufOff++] & 0xff;
+    }
+
+    private int getSymbol(int zt) {
+        while (bsLive < LOOKUP_BITS) {
+            bsBuff = (bsBuff << 8) | bsGetByte();
             bsLive += 8;
         }
 
-        v = (bsBuff >> (bsLive - n)) & ((1 << n) - 1);
-        bsLive -= n;
-        return v;
+        int entry = lookup[zt][(bsBuff >> (bsLive - LOOKUP_BITS))
+                               & ((1 << LOOKUP_BITS) - 1)];
+        if (entry != 0) {
+            bsLive -= entry & 0x1f;
+            return entry >> 5;
+        }
+
+        /* a code longer than LOOKUP_BITS, search the limits. */
+        int zn = Math.max(minLens[zt], LOOKUP_BITS + 1);
+        int zvec = bsR(zn);
+        while (zvec > limit[zt][zn]) {
+            zn++;
+            zvec = (zvec << 1) | bsR(1);
+        }
+        return perm[zt][zvec - base[zt][zn]];
     }
 
     private char bsGetUChar() {
@@ -333,9 +421,39 @@ private int bsGetInt32() {
         return (int) bsGetint();
     }
 
-    private void hbCreateDecodeTables(int[] limit, int[] base,
-                                      int[] perm, char[] length,
-                                      int minLen, int maxLen, int alphaSize) {
+    static void hbCreateLookupTable(int[] lookup, char[] length,
+                                    int minLen, int maxLen, int alphaSize) {
+        int i, j, vec, span, start;
+
+        for (i = 0; i < lookup.length; i++) {
+            lookup[i] = 0;
+        }
+
+        /* assign the canonical codes in the same order as hbAssignCodes(). */
+        vec = 0;
+        for (i = minLen; i <= maxLen && i <= LOOKUP_BITS; i++) {
+            span = 1 << (LOOKUP_BITS - i);
+            for (j = 0; j < alphaSize; j++) {
+                if (length[j] == i) {
+                    start = vec * span;
+                    if (i < 1 || start + span > lookup.length) {
+                        /* not a valid code, leave it to the limit search. */
+                        return;
+                    }
+                    int entry = (j << 5) | i;
+                    for (int k = start; k < start + span; k++) {
+                        lookup[k] = entry;
+                    }
+                    vec++;
+                }
+            }
+            vec <<= 1;
+        }
+    }
+
+    static void hbCreateDecodeTables(int[] limit, int[] base,
+                                    int[] perm, char[] length,
+                                    int minLen, int maxLen, int alphaSize) {
         int pp, i, j, vec;
 
         pp = 0;
@@ -466,6 +584,7 @@ private void recvDecodingTables() {
             }
             hbCreateDecodeTables(limit[t], base[t], perm[t], len[t], minLen,
                                  maxLen, alphaSize);
+            hbCreateLookupTable(lookup[t], len[t], minLen, maxLen, alphaSize);
             minLens[t] = minLen;
         }
     }
@@ -500,41 +619,12 @@ private void getAndMoveToFrontDecode() {
         last = -1;
 
         {
-            int zt, zn, zvec, zj;
             if (groupPos == 0) {
                 groupNo++;
                 groupPos = G_SIZE;
             }
             groupPos--;
-            zt = selector[groupNo];
-            zn = minLens[zt];
-            zvec = bsR(zn);
-            while (zvec > limit[zt][zn]) {
-                zn++;
-                {
-                    {
-                        while (bsLive < 1) {
-                            int zzi;
-                            char thech = 0;
-                            try {
-                                thech = (char) bsStream.read();
-                            } catch (IOException e) {
-                                compressedStreamEOF();
-                            }
-                            if (thech == -1) {
-                                compressedStreamEOF();
-                            }
-                            zzi = thech;
-                            bsBuff = (bsBuff << 8) | (zzi & 0xff);
-                            bsLive += 8;
-                        }
-                    }
-                    zj = (bsBuff >> (bsLive - 1)) & 1;
-                    bsLive--;
-                }
-                zvec = (zvec << 1) | zj;
-            }
-            nextSym = perm[zt][zvec - base[zt][zn]];
+            nextSym = getSymbol(selector[groupNo]);
         }
 
         while (true) {
@@ -555,41 +645,12 @@ private void getAndMoveToFrontDecode() {
                            }
                     N = N * 2;
                     {
-                        int zt, zn, zvec, zj;
                         if (groupPos == 0) {
                             groupNo++;
                             groupPos = G_SIZE;
                         }
                         groupPos--;
-                        zt = selector[groupNo];
-                        zn = minLens[zt];
-                        zvec = bsR(zn);
-                        while (zvec > limit[zt][zn]) {
-                            zn++;
-                            {
-                                {
-                                    while (bsLive < 1) {
-                                        int zzi;
-                                        char thech = 0;
-                                        try {
-                                            thech = (char) bsStream.read();
-                                        } catch (IOException e) {
-                                            compressedStreamEOF();
-                                        }
-                                        if (thech == -1) {
-                                            compressedStreamEOF();
-                                        }
-                                        zzi = thech;
-                                        bsBuff = (bsBuff << 8) | (zzi & 0xff);
-                                        bsLive += 8;
-                                    }
-                                }
-                                zj = (bsBuff >> (bsLive - 1)) & 1;
-                                bsLive--;
-                            }
-                            zvec = (zvec << 1) | zj;
-                        }
-                        nextSym = perm[zt][zvec - base[zt][zn]];
+                        nextSym = getSymbol(selector[groupNo]);
                     }
                 } while (nextSym == RUNA || nextSym == RUNB);
 
@@ -638,38 +699,12 @@ private void getAndMoveToFrontDecode() {
 
                 yy[0] = tmp;
                 {
-                    int zt, zn, zvec, zj;
                     if (groupPos == 0) {
                         groupNo++;
                         groupPos = G_SIZE;
                     }
                     groupPos--;
-                    zt = selector[groupNo];
-                    zn = minLens[zt];
-                    zvec = bsR(zn);
-                    while (zvec > limit[zt][zn]) {
-                        zn++;
-                        {
-                            {
-                                while (bsLive < 1) {
-                                    int zzi;
-                                    char thech = 0;
-                                    try {
-                                        thech = (char) bsStream.read();
-                                    } catch (IOException e) {
-                                        compressedStreamEOF();
-                                    }
-                                    zzi = thech;
-                                    bsBuff = (bsBuff << 8) | (zzi & 0xff);
-                                    bsLive += 8;
-                                }
-                            }
-                            zj = (bsBuff >> (bsLive - 1)) & 1;
-                            bsLive--;
-                        }
-                        zvec = (zvec << 1) | zj;
-                    }
-                    nextSym = perm[zt][zvec - base[zt][zn]];
+                    nextSym = getSymbol(selector[groupNo]);
                 }
                 continue;
             }
@@ -688,14 +723,22 @@ private void setupBlock() {
             cftab[i] += cftab[i - 1];
         }
 
+        /*
+          each tt entry holds the next position in its top 24 bits and
+          the character at the entry's own position in the bottom 8, so
+          following the chain takes one array access per character.
+        */
+        for (i = 0; i <= last; i++) {
+            tt[i] = ll8[i];
+        }
         for (i = 0; i <= last; i++) {
-            ch = (char) ll8[i];
-            tt[cftab[ch]] = i;
+            ch = (char) (tt[i] & 0xff);
+            tt[cftab[ch]] |= (i << 8);
             cftab[ch]++;
         }
         cftab = null;
 
-        tPos = tt[origPtr];
+        tPos = tt[origPtr] >>> 8;
 
         count = 0;
         i2 = 0;
@@ -713,8 +756,9 @@ private void setupBlock() {
     private void setupRandPartA() {
         if (i2 <= last) {
             chPrev = ch2;
-            ch2 = ll8[tPos];
             tPos = tt[tPos];
+            ch2 = tPos & 0xff;
+            tPos >>>= 8;
             if (rNToGo == 0) {
                 rNToGo = rNums[rTPos];
                 rTPos++;
@@ -739,8 +783,9 @@ private void setupRandPartA() {
     private void setupNoRandPartA() {
         if (i2 <= last) {
             chPrev = ch2;
-            ch2 = ll8[tPos];
             tPos = tt[tPos];
+            ch2 = tPos & 0xff;
+            tPos >>>= 8;
             i2++;
 
             currentChar = ch2;
@@ -761,8 +806,9 @@ private void setupRandPartB() {
         } else {
             count++;
             if (count >= 4) {
-                z = ll8[tPos];
                 tPos = tt[tPos];
+                z = (char) (tPos & 0xff);
+                tPos >>>= 8;
                 if (rNToGo == 0) {
                     rNToGo = rNums[rTPos];
                     rTPos++;
@@ -803,8 +849,9 @@ private void setupNoRandPartB() {
         } else {
             count++;
             if (count >= 4) {
-                z = ll8[tPos];
                 tPos = tt[tPos];
+                z = (char) (tPos & 0xff);
+                tPos >>>= 8;
                 currentState = NO_RAND_PART_C_STATE;
                 j2 = 0;
                 setupNoRandPartC();
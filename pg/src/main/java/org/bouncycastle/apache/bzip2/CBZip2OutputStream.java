@@ -277,19 +277,37 @@ protected static void hbMakeCodeLengths(char[] len, int[] freq,
     private int currentChar = -1;
     private int runLength = 0;
 
+    private boolean headerless;
+    private int nBlocks;
+
     public CBZip2OutputStream(OutputStream inStream) throws IOException {
         this(inStream, 9);
     }
 
     public CBZip2OutputStream(OutputStream inStream, int inBlockSize)
+        throws IOException {
+        this(inStream, inBlockSize, false);
+    }
+
+    /**
+     * Package level constructor - if headerless is true no stream header is
+     * written and the stream is completed with finishBlocks(), leaving just the
+     * compressed blocks for inclusion in a stream written by
+     * CBZip2ParallelOutputStream.
+     */
+    CBZip2OutputStream(OutputStream inStream, int inBlockSize, boolean headerless)
         throws IOException {
         block = null;
         quadrant = null;
         zptr = null;
         ftab = null;
 
-        inStream.write('B');
-        inStream.write('Z');
+        this.headerless = headerless;
+
+        if (!headerless) {
+            inStream.write('B');
+            inStream.write('Z');
+        }
 
         bsSetStream(inStream);
 
@@ -417,6 +435,40 @@ public void flush() throws IOException {
         bsStream.flush();
     }
 
+    /**
+     * Complete the last block without writing the end of stream marker. Only
+     * whole bytes are written out, the final bits of the last block are left
+     * in bsBuff, and the number of them in bsLive.
+     */
+    void finishBlocks() throws IOException {
+        if (finished) {
+            return;
+        }
+
+        if (runLength > 0) {
+            writeRun();
+        }
+        currentChar = -1;
+        if (last >= 0) {
+            endBlock();
+        }
+        while (bsLive >= 8) {
+            bsStream.write(bsBuff >> 24);
+            bsBuff <<= 8;
+            bsLive -= 8;
+            bytesOut++;
+        }
+        finished = true;
+    }
+
+    int getBlockCount() {
+        return nBlocks;
+    }
+
+    int getCombinedCRC() {
+        return combinedCRC;
+    }
+
     private int blockCRC, combinedCRC;
 
     private void initialize() throws IOException {
@@ -426,8 +478,10 @@ private void initialize() throws IOException {
         /* Write `magic' bytes h indicating file-format == huffmanised,
            followed by a digit indicating blockSize100k.
         */
-        bsPutUChar('h');
-        bsPutUChar('0' + blockSize100k);
+        if (!headerless) {
+            bsPutUChar('h');
+            bsPutUChar('0' + blockSize100k);
+        }
 
         combinedCRC = 0;
     }
@@ -450,6 +504,7 @@ private void initBlock() {
 
     private void endBlock() throws IOException {
         blockCRC = mCrc.getFinalCRC();
+        nBlocks++;
         combinedCRC = (combinedCRC << 1) | (combinedCRC >>> 31);
         combinedCRC ^= blockCRC;
 
@@ -0,0 +1,418 @@
+package org.bouncycastle.apache.bzip2;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * An input stream that decompresses from the BZip2 format, including the leading BZ read by
+ * {@link CBZip2InputStream}, decoding blocks concurrently on a supplied executor.
+ * <p>
+ * The compressed data ahead of the block currently being read is scanned for the 48 bit block
+ * header magic number, and a decoding task is started for each position where it is found, up to
+ * maxPendingBlocks at a time. Blocks are still consumed strictly in order: the start of each block
+ * is known from the end of the one before it, and only the task started at that position is used,
+ * any task started at a chance occurrence of the magic number inside a block is discarded. A
+ * task which has not been started by the time its block is needed is run by the reading thread,
+ * as is the decoding of any block not found by the scan.
+ * </p><p>
+ * Block and stream CRCs are always checked, a failure results in an IOException. Memory use is
+ * bounded by around 6 megabytes for each pending block, plus the compressed data read ahead.
+ * </p><p>
+ * Unlike CBZip2InputStream, which gives back any input it reads past the end of the BZip2 data
+ * when the stream supports mark and reset, this stream reads well ahead of the block being decoded
+ * and keeps what it reads, so the input must end with the BZip2 data.
+ * </p><p>
+ * As with CBZip2InputStream, the stream can be used on the data stream of a PGPCompressedData
+ * object using BZIP2 compression, via PGPCompressedData.getInputStream().
+ * </p>
+ */
+public class CBZip2ParallelInputStream
+    extends InputStream
+    implements BZip2Constants
+{
+    private final InputStream in;
+    private final Executor executor;
+    private final int maxPendingBlocks;
+    private final int blockSize100k;
+    private final int readAhead;
+
+    private final SortedMap pending = new TreeMap();
+
+    // compressed data, window[0] is at byte offset windowStart in the stream
+    private byte[] window;
+    private int windowLen;
+    private long windowStart;
+    private boolean inputEnd;
+
+    // bit offset in the stream of the next block header, and byte offset of the next byte to scan
+    private long blockBit;
+    private long scanByte;
+
+    private int combinedCRC;
+    private boolean streamEnd;
+
+    // the current block, still run length encoded
+    private byte[] block;
+    private int blockLen;
+    private int blockOff;
+    private int runChar = -1;
+    private int runCount;
+    private int runRemaining;
+
+    /**
+     * Construct a stream decoding blocks on the passed in executor.
+     *
+     * @param in the stream to read the compressed data from.
+     * @param executor the executor to decode blocks on.
+     * @param maxPendingBlocks the maximum number of blocks to decode ahead of the reader.
+     * @throws IOException if the stream header cannot be read or is invalid.
+     */
+    public CBZip2ParallelInputStream(InputStream in, Executor executor, int maxPendingBlocks)
+        throws IOException
+    {
+        if (executor == null)
+        {
+            throw new IllegalArgumentException("executor must be provided");
+        }
+        if (maxPendingBlocks < 1)
+        {
+            throw new IllegalArgumentException("maxPendingBlocks must be at least 1");
+        }
+
+        this.in = in;
+        this.executor = executor;
+        this.maxPendingBlocks = maxPendingBlocks;
+
+        if (in.read() != 'B' || in.read() != 'Z' || in.read() != 'h')
+        {
+            throw new IOException("Not a BZIP2 marked stream");
+        }
+
+        int blockSize = in.read();
+        if (blockSize < '1' || blockSize > '9')
+        {
+            throw new IOException("Invalid BZIP2 block size");
+        }
+
+        this.blockSize100k = blockSize - '0';
+
+        // enough for the pending blocks at the block size, plus a worst case block
+        int blockBytes = baseBlockSize * blockSize100k;
+        this.readAhead = (maxPendingBlocks + 3) * blockBytes;
+
+        this.window = new byte[2 * readAhead];
+        this.windowStart = 4;
+        this.blockBit = windowStart * 8;
+        this.scanByte = windowStart;
+    }
+
+    public int read()
+        throws IOException
+    {
+        if (runRemaining == 0 && blockOff == blockLen)
+        {
+            if (!nextBlock())
+            {
+                return -1;
+            }
+        }
+
+        if (runRemaining > 0)
+        {
+            runRemaining--;
+            return runChar;
+        }
+
+        return nextChar();
+    }
+
+    public int read(byte[] b, int off, int len)
+        throws IOException
+    {
+        if (len == 0)
+        {
+            return 0;
+        }
+
+        int count = 0;
+        while (count < len)
+        {
+            if (runRemaining > 0)
+            {
+                int n = Math.min(runRemaining, len - count);
+                byte ch = (byte)runChar;
+                for (int i = 0; i != n; i++)
+                {
+                    b[off + count + i] = ch;
+                }
+                count += n;
+                runRemaining -= n;
+            }
+            else if (blockOff < blockLen)
+            {
+                b[off + count++] = (byte)nextChar();
+            }
+            else if (!nextBlock())
+            {
+                break;
+            }
+        }
+
+        return (count == 0) ? -1 : count;
+    }
+
+    public void close()
+        throws IOException
+    {
+        cancelPending(Long.MAX_VALUE);
+        streamEnd = true;
+        block = null;
+        window = null;
+        in.close();
+    }
+
+    /**
+     * Return the next character of the current block, undoing the initial run length encoding -
+     * after four equal characters the next byte is a count of further repeats.
+     */
+    private int nextChar()
+    {
+        int ch = block[blockOff++] & 0xff;
+
+        if (ch != runChar)
+        {
+            runChar = ch;
+            runCount = 1;
+        }
+        else if (++runCount == 4)
+        {
+            if (blockOff < blockLen)
+            {
+                runRemaining = block[blockOff++] & 0xff;
+            }
+            runCount = 0;
+        }
+
+        return ch;
+    }
+
+    private boolean nextBlock()
+        throws IOException
+    {
+        if (streamEnd)
+        {
+            return false;
+        }
+
+        fillWindow(readAhead);
+
+        long magic = CBZip2BlockDecoder.peek48(window, windowLen, blockBit - windowStart * 8);
+        if (magic == CBZip2BlockDecoder.END_OF_STREAM_MAGIC)
+        {
+            readEnd();
+            return false;
+        }
+        if (magic != CBZip2BlockDecoder.BLOCK_MAGIC)
+        {
+            if (magic < 0)
+            {
+                throw new EOFException("unexpected end of BZIP2 stream");
+            }
+            throw new IOException("bad BZIP2 block header");
+        }
+
+        scheduleDecodes();
+
+        CBZip2BlockDecoder.Block decoded = null;
+        FutureTask task = (FutureTask)pending.remove(Long.valueOf(blockBit));
+        if (task != null)
+        {
+            decoded = getResult(task);
+        }
+
+        while (decoded == null)
+        {
+            // not found by the scan, or the data it was given ran out - decode it here.
+            decoded = new CBZip2BlockDecoder(window, windowLen, windowStart * 8, blockSize100k).decode(blockBit);
+            if (decoded == null)
+            {
+                if (inputEnd)
+                {
+                    throw new EOFException("unexpected end of BZIP2 stream");
+                }
+                fillWindow(2 * (windowLen - (int)(blockBit / 8 - windowStart)));
+            }
+        }
+
+        blockBit = decoded.endBit;
+
+        // anything started before the new position was a false match
+        cancelPending(blockBit);
+        scanByte = Math.max(scanByte, blockBit / 8);
+
+        combinedCRC = ((combinedCRC << 1) | (combinedCRC >>> 31)) ^ decoded.blockCRC;
+
+        block = decoded.data;
+        blockLen = decoded.length;
+        blockOff = 0;
+        runChar = -1;
+        runCount = 0;
+
+        return true;
+    }
+
+    private void readEnd()
+        throws IOException
+    {
+        long storedCRC = CBZip2BlockDecoder.peekBits(window, windowLen, blockBit - windowStart * 8 + 48, 32);
+
+        if (storedCRC < 0)
+        {
+            throw new EOFException("unexpected end of BZIP2 stream");
+        }
+
+        streamEnd = true;
+        block = null;
+
+        if ((int)storedCRC != combinedCRC)
+        {
+            throw new IOException("BZIP2 stream CRC failure");
+        }
+    }
+
+    /**
+     * Scan the data read ahead for block headers, starting a decoding task for each one found
+     * which has enough data after it for a complete block, up to the pending task limit.
+     */
+    private void scheduleDecodes()
+    {
+        final byte[] data = window;
+        final int dataLen = windowLen;
+        final long dataStartBit = windowStart * 8;
+
+        // a worst case block needs 20 bits per symbol
+        long completeLimit = inputEnd ? Long.MAX_VALUE : (windowStart + windowLen) * 8 - 20L * baseBlockSize * blockSize100k;
+
+        int byteOff = (int)(scanByte - windowStart);
+        long reg = 0;
+
+        // prime the register with the bytes before the first bit to be scanned
+        for (int i = Math.max(0, byteOff - 6); i < byteOff; i++)
+        {
+            reg = (reg << 8) | (data[i] & 0xff);
+        }
+
+        for (; byteOff < dataLen && pending.size() < maxPendingBlocks; byteOff++)
+        {
+            reg = (reg << 8) | (data[byteOff] & 0xff);
+
+            // check each of the 8 possible alignments of a header ending in this byte
+            for (int shift = 7; shift >= 0; shift--)
+            {
+                if (((reg >>> shift) & 0xffffffffffffL) == CBZip2BlockDecoder.BLOCK_MAGIC)
+                {
+                    final long candidate = dataStartBit + (byteOff + 1) * 8L - shift - 48;
+
+                    if (candidate < blockBit || pending.containsKey(Long.valueOf(candidate)))
+                    {
+                        continue;
+                    }
+                    if (candidate > completeLimit || pending.size() >= maxPendingBlocks)
+                    {
+                        // look at this byte again next time
+                        scanByte = windowStart + byteOff;
+                        return;
+                    }
+
+                    FutureTask task = new FutureTask(new Callable()
+                    {
+                        public Object call()
+                            throws IOException
+                        {
+                            return new CBZip2BlockDecoder(data, dataLen, dataStartBit, blockSize100k).decode(candidate);
+                        }
+                    });
+
+                    try
+                    {
+                        executor.execute(task);
+                    }
+                    catch (RejectedExecutionException e)
+                    {
+                        // the task will be run by the reading thread if it is needed.
+                    }
+
+                    pending.put(Long.valueOf(candidate), task);
+                }
+            }
+        }
+
+        scanByte = windowStart + byteOff;
+    }
+
+    private CBZip2BlockDecoder.Block getResult(FutureTask task)
+        throws IOException
+    {
+        return (CBZip2BlockDecoder.Block)CBZip2Tasks.getResult(task, "decoding");
+    }
+
+    private void cancelPending(long before)
+    {
+        Map stale = pending.headMap(Long.valueOf(before));
+
+        for (Iterator it = stale.values().iterator(); it.hasNext();)
+        {
+            ((FutureTask)it.next()).cancel(false);
+        }
+        stale.clear();
+    }
+
+    /**
+     * Make sure at least minAvailable bytes from the start of the current block are in the
+     * window, unless the input ends first. Data already in the window is never overwritten, as
+     * decoding tasks may still be reading it - a new window is allocated instead.
+     */
+    private void fillWindow(int minAvailable)
+        throws IOException
+    {
+        int blockByte = (int)(blockBit / 8 - windowStart);
+
+        if (inputEnd || windowLen - blockByte >= minAvailable)
+        {
+            return;
+        }
+
+        if (blockByte + minAvailable > window.length)
+        {
+            byte[] newWindow = new byte[Math.max(window.length, 2 * minAvailable)];
+
+            System.arraycopy(window, blockByte, newWindow, 0, windowLen - blockByte);
+
+            window = newWindow;
+            windowLen -= blockByte;
+            windowStart += blockByte;
+            blockByte = 0;
+        }
+
+        while (windowLen - blockByte < minAvailable)
+        {
+            int len = in.read(window, windowLen, window.length - windowLen);
+
+            if (len < 0)
+            {
+                inputEnd = true;
+                break;
+            }
+            windowLen += len;
+        }
+    }
+}
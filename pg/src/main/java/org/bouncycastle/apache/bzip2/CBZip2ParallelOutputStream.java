@@ -0,0 +1,347 @@
+package org.bouncycastle.apache.bzip2;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * An output stream that compresses into the BZip2 format, including the leading BZ written by
+ * {@link CBZip2OutputStream}, compressing blocks concurrently on a supplied executor.
+ * <p>
+ * Input is divided into chunks of one block's worth of data and each chunk is compressed as a
+ * separate task. The compressed blocks are written to the underlying stream in order, with the
+ * stream CRC calculated from the block CRCs, so the result is a single standard BZip2 stream.
+ * At most maxPendingBlocks chunks are held at once, each of which takes around 10 megabytes of
+ * working memory while it is being compressed. A task the executor has not started by the time
+ * its output is needed is run by the writing thread, so a busy or bounded executor cannot stall
+ * the stream.
+ * </p>
+ */
+public class CBZip2ParallelOutputStream
+    extends OutputStream
+    implements BZip2Constants
+{
+    private final OutputStream out;
+    private final int blockSize100k;
+    private final Executor executor;
+    private final int maxPendingBlocks;
+    private final int chunkSize;
+    private final LinkedList pending = new LinkedList();
+
+    private byte[] chunk;
+    private int chunkOff;
+
+    private int bsBuff;
+    private int bsLive;
+    private int combinedCRC;
+
+    private boolean finished;
+    private boolean closed;
+
+    /**
+     * Construct a stream using the maximum block size of 900k.
+     *
+     * @param out the stream to write the compressed data to.
+     * @param executor the executor to compress blocks on.
+     * @param maxPendingBlocks the maximum number of blocks held in memory at once.
+     */
+    public CBZip2ParallelOutputStream(OutputStream out, Executor executor, int maxPendingBlocks)
+        throws IOException
+    {
+        this(out, 9, executor, maxPendingBlocks);
+    }
+
+    /**
+     * Base constructor.
+     *
+     * @param out the stream to write the compressed data to.
+     * @param blockSize the block size to use, in units of 100k, from 1 to 9.
+     * @param executor the executor to compress blocks on.
+     * @param maxPendingBlocks the maximum number of blocks held in memory at once.
+     */
+    public CBZip2ParallelOutputStream(OutputStream out, int blockSize, Executor executor, int maxPendingBlocks)
+        throws IOException
+    {
+        if (executor == null)
+        {
+            throw new IllegalArgumentException("executor must be provided");
+        }
+        if (maxPendingBlocks < 1)
+        {
+            throw new IllegalArgumentException("maxPendingBlocks must be at least 1");
+        }
+
+        this.out = out;
+        this.blockSize100k = Math.max(1, Math.min(9, blockSize));
+        this.executor = executor;
+        this.maxPendingBlocks = maxPendingBlocks;
+
+        // the same allowance CBZip2OutputStream makes, so a chunk normally fits one block
+        this.chunkSize = baseBlockSize * blockSize100k - 20;
+        this.chunk = new byte[chunkSize];
+
+        out.write('B');
+        out.write('Z');
+        out.write('h');
+        out.write('0' + blockSize100k);
+    }
+
+    public void write(int b)
+        throws IOException
+    {
+        chunk[chunkOff++] = (byte)b;
+
+        if (chunkOff == chunkSize)
+        {
+            submitChunk();
+        }
+    }
+
+    public void write(byte[] b, int off, int len)
+        throws IOException
+    {
+        while (len > 0)
+        {
+            int toCopy = Math.min(len, chunkSize - chunkOff);
+
+            System.arraycopy(b, off, chunk, chunkOff, toCopy);
+            chunkOff += toCopy;
+            off += toCopy;
+            len -= toCopy;
+
+            if (chunkOff == chunkSize)
+            {
+                submitChunk();
+            }
+        }
+    }
+
+    /**
+     * Compress any remaining data and write the end of stream marker, without closing the
+     * underlying stream.
+     *
+     * @throws IOException if a block cannot be compressed or written.
+     */
+    public void finish()
+        throws IOException
+    {
+        if (finished)
+        {
+            return;
+        }
+
+        if (chunkOff > 0)
+        {
+            submitChunk();
+        }
+
+        while (!pending.isEmpty())
+        {
+            writeNextBlocks();
+        }
+
+        bsPutUChar(0x17);
+        bsPutUChar(0x72);
+        bsPutUChar(0x45);
+        bsPutUChar(0x38);
+        bsPutUChar(0x50);
+        bsPutUChar(0x90);
+
+        bsPutUChar(combinedCRC >>> 24);
+        bsPutUChar(combinedCRC >>> 16);
+        bsPutUChar(combinedCRC >>> 8);
+        bsPutUChar(combinedCRC);
+
+        if (bsLive > 0)
+        {
+            out.write(bsBuff >>> 24);
+        }
+
+        finished = true;
+        chunk = null;
+
+        out.flush();
+    }
+
+    public void flush()
+        throws IOException
+    {
+        out.flush();
+    }
+
+    public void close()
+        throws IOException
+    {
+        if (closed)
+        {
+            return;
+        }
+
+        finish();
+
+        closed = true;
+        out.close();
+    }
+
+    private void submitChunk()
+        throws IOException
+    {
+        while (pending.size() >= maxPendingBlocks)
+        {
+            writeNextBlocks();
+        }
+
+        final byte[] data = chunk;
+        final int dataLen = chunkOff;
+
+        FutureTask task = new FutureTask(new Callable()
+        {
+            public Object call()
+                throws IOException
+            {
+                return compress(data, dataLen);
+            }
+        });
+
+        try
+        {
+            executor.execute(task);
+        }
+        catch (RejectedExecutionException e)
+        {
+            // the task will be run by this thread when its output is needed.
+        }
+
+        pending.addLast(task);
+
+        chunk = new byte[chunkSize];
+        chunkOff = 0;
+    }
+
+    private CompressedBlocks compress(byte[] data, int dataLen)
+        throws IOException
+    {
+        ByteArrayOutputStream bOut = new ByteArrayOutputStream(dataLen / 4);
+        CBZip2OutputStream bzOut = new CBZip2OutputStream(bOut, blockSize100k, true);
+
+        for (int i = 0; i != dataLen; i++)
+        {
+            bzOut.write(data[i]);
+        }
+
+        bzOut.finishBlocks();
+
+        return new CompressedBlocks(bOut.toByteArray(), bzOut.bsBuff, bzOut.bsLive,
+            bzOut.getBlockCount(), bzOut.getCombinedCRC());
+    }
+
+    private void writeNextBlocks()
+        throws IOException
+    {
+        FutureTask task = (FutureTask)pending.removeFirst();
+        CompressedBlocks blocks = null;
+
+        try
+        {
+            blocks = (CompressedBlocks)CBZip2Tasks.getResult(task, "compression");
+        }
+        finally
+        {
+            if (blocks == null)
+            {
+                cancelPending();
+            }
+        }
+
+        bsPutBytes(blocks.data);
+        if (blocks.trailingBitCount > 0)
+        {
+            bsW(blocks.trailingBitCount, blocks.trailingBits >>> (32 - blocks.trailingBitCount));
+        }
+
+        // each block rotates the combined CRC by one bit before its own CRC is added in
+        combinedCRC = ((combinedCRC << blocks.blockCount) | (combinedCRC >>> (32 - blocks.blockCount)))
+            ^ blocks.combinedCRC;
+    }
+
+    private void cancelPending()
+    {
+        for (Iterator it = pending.iterator(); it.hasNext();)
+        {
+            ((FutureTask)it.next()).cancel(false);
+        }
+        pending.clear();
+    }
+
+    /*
+     * The bit stream writer - bsLive is always less than 8 between calls.
+     */
+    private void bsW(int n, int v)
+        throws IOException
+    {
+        bsBuff |= (v << (32 - bsLive - n));
+        bsLive += n;
+
+        while (bsLive >= 8)
+        {
+            out.write(bsBuff >>> 24);
+            bsBuff <<= 8;
+            bsLive -= 8;
+        }
+    }
+
+    private void bsPutUChar(int c)
+        throws IOException
+    {
+        bsW(8, c & 0xff);
+    }
+
+    private void bsPutBytes(byte[] data)
+        throws IOException
+    {
+        if (bsLive == 0)
+        {
+            out.write(data);
+            return;
+        }
+
+        byte[] shifted = new byte[data.length];
+        int carry = bsBuff >>> 24;
+
+        for (int i = 0; i != data.length; i++)
+        {
+            int b = data[i] & 0xff;
+
+            shifted[i] = (byte)(carry | (b >>> bsLive));
+            carry = (b << (8 - bsLive)) & 0xff;
+        }
+
+        out.write(shifted);
+
+        bsBuff = carry << 24;
+    }
+
+    private static class CompressedBlocks
+    {
+        final byte[] data;
+        final int trailingBits;
+        final int trailingBitCount;
+        final int blockCount;
+        final int combinedCRC;
+
+        CompressedBlocks(byte[] data, int trailingBits, int trailingBitCount, int blockCount, int combinedCRC)
+        {
+            this.data = data;
+            this.trailingBits = trailingBits;
+            this.trailingBitCount = trailingBitCount;
+            this.blockCount = blockCount;
+            this.combinedCRC = combinedCRC;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.bouncycastle.apache.bzip2;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.bouncycastle.util.FutureTasks;
+
+/**
+ * Collects the result of a block task for {@link CBZip2ParallelInputStream} and
+ * {@link CBZip2ParallelOutputStream}, reporting failures as the stream methods would.
+ */
+class CBZip2Tasks
+{
+    static Object getResult(FutureTask task, String operation)
+        throws IOException
+    {
+        try
+        {
+            return FutureTasks.runAndGet(task);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+
+            throw new InterruptedIOException("interrupted waiting for block " + operation);
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+
+            if (cause instanceof IOException)
+            {
+                throw (IOException)cause;
+            }
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException)cause;
+            }
+            if (cause instanceof Error)
+            {
+                throw (Error)cause;
+            }
+            throw new IOException("exception in block " + operation + ": " + cause);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package org.bouncycastle.openpgp;
 
+import java.io.BufferedInputStream;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
@@ -140,7 +141,8 @@ protected void fill() throws IOException
       {
           try
           {
-              return new CBZip2InputStream(this.getInputStream());
+              // the packet body bounds the read ahead, so the input can be buffered.
+              return new CBZip2InputStream(new BufferedInputStream(this.getInputStream()));
           }
           catch (IOException e)
           {
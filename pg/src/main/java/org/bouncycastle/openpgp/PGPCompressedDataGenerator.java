@@ -175,7 +175,7 @@ private void doOpen() throws IOException
                 dOut = new SafeDeflaterOutputStream(pkOut, compression, false);
                 break;
             case CompressionAlgorithmTags.BZIP2:
-                dOut = new SafeCBZip2OutputStream(pkOut);
+                dOut = createBZip2Stream(pkOut);
                 break;
             default:
                 // Constructor should guard against this possibility
@@ -183,6 +183,20 @@ private void doOpen() throws IOException
         }
     }
 
+    /**
+     * Create the stream BZIP2 compressed data is written to - closing the stream returned must
+     * complete the compressed data without closing out.
+     *
+     * @param out the stream to write the compressed data to.
+     * @return the compressing stream.
+     * @throws IOException if the stream header cannot be written.
+     */
+    OutputStream createBZip2Stream(OutputStream out)
+        throws IOException
+    {
+        return new SafeCBZip2OutputStream(out);
+    }
+
     /**
      * Close the compressed object - this is equivalent to calling close on the stream
      * returned by the open() method.
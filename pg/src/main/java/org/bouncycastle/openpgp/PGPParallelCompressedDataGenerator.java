@@ -0,0 +1,94 @@
+package org.bouncycastle.openpgp;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.Executor;
+import java.util.zip.Deflater;
+
+import org.bouncycastle.apache.bzip2.CBZip2ParallelOutputStream;
+import org.bouncycastle.bcpg.CompressionAlgorithmTags;
+
+/**
+ * Generator for producing compressed data packets, where BZIP2 compression is spread across
+ * multiple threads.
+ * <p>
+ * For {@link CompressionAlgorithmTags#BZIP2} the data written is divided into blocks which are
+ * compressed concurrently on the passed in executor, see {@link CBZip2ParallelOutputStream}. The
+ * packet produced is a standard OpenPGP compressed data packet holding a single BZIP2 stream. Other
+ * algorithms are processed by the calling thread, exactly as for {@link PGPCompressedDataGenerator}.
+ * </p>
+ */
+public class PGPParallelCompressedDataGenerator
+    extends PGPCompressedDataGenerator
+{
+    private final Executor executor;
+    private final int maxPendingBlocks;
+
+    /**
+     * Construct a new compressed data generator.
+     *
+     * @param algorithm the identifier of the {@link CompressionAlgorithmTags compression algorithm}
+     *            to use.
+     * @param executor the executor to compress BZIP2 blocks on.
+     * @param maxPendingBlocks the maximum number of BZIP2 blocks held in memory at once.
+     */
+    public PGPParallelCompressedDataGenerator(
+        int                    algorithm,
+        Executor               executor,
+        int                    maxPendingBlocks)
+    {
+        this(algorithm, Deflater.DEFAULT_COMPRESSION, executor, maxPendingBlocks);
+    }
+
+    /**
+     * Construct a new compressed data generator.
+     *
+     * @param algorithm the identifier of the {@link CompressionAlgorithmTags compression algorithm}
+     *            to use.
+     * @param compression the {@link Deflater} compression level to use.
+     * @param executor the executor to compress BZIP2 blocks on.
+     * @param maxPendingBlocks the maximum number of BZIP2 blocks held in memory at once.
+     */
+    public PGPParallelCompressedDataGenerator(
+        int                    algorithm,
+        int                    compression,
+        Executor               executor,
+        int                    maxPendingBlocks)
+    {
+        super(algorithm, compression);
+
+        if (executor == null)
+        {
+            throw new IllegalArgumentException("executor must be provided");
+        }
+        if (maxPendingBlocks < 1)
+        {
+            throw new IllegalArgumentException("maxPendingBlocks must be at least 1");
+        }
+
+        this.executor = executor;
+        this.maxPendingBlocks = maxPendingBlocks;
+    }
+
+    OutputStream createBZip2Stream(OutputStream out)
+        throws IOException
+    {
+        return new SafeCBZip2ParallelOutputStream(out, executor, maxPendingBlocks);
+    }
+
+    private static class SafeCBZip2ParallelOutputStream
+        extends CBZip2ParallelOutputStream
+    {
+        public SafeCBZip2ParallelOutputStream(OutputStream output, Executor executor, int maxPendingBlocks)
+            throws IOException
+        {
+            super(output, executor, maxPendingBlocks);
+        }
+
+        public void close()
+            throws IOException
+        {
+            finish();
+        }
+    }
+}
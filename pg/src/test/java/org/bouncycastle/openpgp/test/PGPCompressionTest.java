@@ -1,11 +1,16 @@
 package org.bouncycastle.openpgp.test;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.security.Security;
 
+import org.bouncycastle.apache.bzip2.CBZip2InputStream;
+import org.bouncycastle.apache.bzip2.CBZip2OutputStream;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.bouncycastle.openpgp.PGPCompressedData;
 import org.bouncycastle.openpgp.PGPCompressedDataGenerator;
@@ -25,6 +30,15 @@ public void performTest()
         testCompression(PGPCompressedData.ZLIB);
         testCompression(PGPCompressedData.BZIP2);
 
+        testBZip2TrailingData("hello world!".getBytes());
+
+        byte[] data = new byte[100000];
+        for (int i = 0; i != data.length; i++)
+        {
+            data[i] = (byte)((i * i) >>> 7);
+        }
+        testBZip2TrailingData(data);
+
         //
         // new style - using stream close
         //
@@ -128,6 +142,82 @@ private void testCompression(
         }
     }
 
+    private void testBZip2TrailingData(byte[] data)
+        throws IOException
+    {
+        ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+        OutputStream out = new CBZip2OutputStream(bOut);
+
+        out.write(data);
+        out.close();
+
+        byte[] trailer = "trailing data".getBytes();
+
+        bOut.write(trailer);
+
+        // the data following the BZip2 stream must be left for the caller, whether or not the
+        // decoder can read ahead and give back what it does not use.
+        for (int markable = 0; markable != 2; markable++)
+        {
+            InputStream in = new UncloseableInputStream(
+                new BufferedInputStream(new ByteArrayInputStream(bOut.toByteArray())), markable != 0);
+
+            InputStream bzIn = new CBZip2InputStream(in);
+
+            ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+
+            int ch;
+            while ((ch = bzIn.read()) >= 0)
+            {
+                decoded.write(ch);
+            }
+
+            if (!areEqual(data, decoded.toByteArray()))
+            {
+                fail("bzip2 data mismatch, markable = " + markable);
+            }
+
+            byte[] rest = new byte[trailer.length + 1];
+            int len = in.read(rest);
+
+            if (len != trailer.length || !areEqual(trailer, copy(rest, len)))
+            {
+                fail("bzip2 trailing data not left in stream, markable = " + markable);
+            }
+        }
+    }
+
+    private static byte[] copy(byte[] buf, int len)
+    {
+        byte[] tmp = new byte[len];
+
+        System.arraycopy(buf, 0, tmp, 0, len);
+
+        return tmp;
+    }
+
+    private static class UncloseableInputStream
+        extends FilterInputStream
+    {
+        private final boolean markable;
+
+        UncloseableInputStream(InputStream in, boolean markable)
+        {
+            super(in);
+            this.markable = markable;
+        }
+
+        public boolean markSupported()
+        {
+            return markable && super.markSupported();
+        }
+
+        public void close()
+        {
+            // leave the stream open so the data following the BZip2 stream can be read
+        }
+    }
+
     public String getName()
     {
         return "PGPCompressionTest";
@@ -0,0 +1,119 @@
+package org.bouncycastle.openpgp.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.SecureRandom;
+import java.security.Security;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.bouncycastle.apache.bzip2.CBZip2ParallelInputStream;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.openpgp.PGPCompressedData;
+import org.bouncycastle.openpgp.PGPCompressedDataGenerator;
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPParallelCompressedDataGenerator;
+import org.bouncycastle.openpgp.jcajce.JcaPGPObjectFactory;
+import org.bouncycastle.util.test.SimpleTest;
+import org.bouncycastle.util.test.UncloseableOutputStream;
+
+public class PGPParallelCompressionTest
+    extends SimpleTest
+{
+    public void performTest()
+        throws Exception
+    {
+        // compressible, but with enough variety to take several blocks at the 900k block size
+        byte[] data = new byte[3 * 900 * 1000 + 12345];
+        SecureRandom random = new SecureRandom();
+        for (int i = 0; i < data.length; i += 1000)
+        {
+            byte[] run = new byte[random.nextInt(64) + 1];
+            random.nextBytes(run);
+            for (int j = i; j < Math.min(i + 1000, data.length); j++)
+            {
+                data[j] = run[j % run.length];
+            }
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+
+        try
+        {
+            checkParallelCompression(executor, 4, data);
+            checkParallelCompression(executor, 1, data);
+            checkParallelCompression(executor, 2, new byte[0]);
+            checkParallelCompression(executor, 2, "hello world!".getBytes());
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    private void checkParallelCompression(ExecutorService executor, int maxPendingBlocks, byte[] data)
+        throws IOException, PGPException
+    {
+        ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+        PGPCompressedDataGenerator cPacket = new PGPParallelCompressedDataGenerator(
+                PGPCompressedData.BZIP2, executor, maxPendingBlocks);
+
+        OutputStream out = cPacket.open(new UncloseableOutputStream(bOut), new byte[1 << 16]);
+
+        out.write(data, 0, data.length / 2);
+        for (int i = data.length / 2; i != data.length; i++)
+        {
+            out.write(data[i]);
+        }
+
+        out.close();
+
+        byte[] encoded = bOut.toByteArray();
+
+        JcaPGPObjectFactory pgpFact = new JcaPGPObjectFactory(encoded);
+        PGPCompressedData c1 = (PGPCompressedData)pgpFact.nextObject();
+
+        if (!areEqual(readAll(c1.getDataStream()), data))
+        {
+            fail("parallel compression test failed");
+        }
+
+        pgpFact = new JcaPGPObjectFactory(encoded);
+        c1 = (PGPCompressedData)pgpFact.nextObject();
+
+        if (!areEqual(readAll(new CBZip2ParallelInputStream(c1.getInputStream(), executor, maxPendingBlocks)), data))
+        {
+            fail("parallel decompression test failed");
+        }
+    }
+
+    private byte[] readAll(InputStream in)
+        throws IOException
+    {
+        ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+
+        byte[] buf = new byte[4096];
+        int len;
+        while ((len = in.read(buf)) >= 0)
+        {
+            bOut.write(buf, 0, len);
+        }
+
+        return bOut.toByteArray();
+    }
+
+    public String getName()
+    {
+        return "PGPParallelCompressionTest";
+    }
+
+    public static void main(
+        String[]    args)
+    {
+        Security.addProvider(new BouncyCastleProvider());
+
+        runTest(new PGPParallelCompressionTest());
+    }
+}
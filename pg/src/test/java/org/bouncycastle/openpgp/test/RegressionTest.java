@@ -24,6 +24,7 @@
         new PGPSignatureTest(),
         new PGPClearSignedSignatureTest(),
         new PGPCompressionTest(),
+        new PGPParallelCompressionTest(),
         new PGPNoPrivateKeyTest(),
         new PGPECDSATest(),
         new PGPECDHTest(),
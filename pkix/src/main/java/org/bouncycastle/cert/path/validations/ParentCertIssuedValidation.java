@@ -13,6 +13,7 @@
 import org.bouncycastle.cert.path.CertPathValidation;
 import org.bouncycastle.cert.path.CertPathValidationContext;
 import org.bouncycastle.cert.path.CertPathValidationException;
+import org.bouncycastle.crypto.util.SignatureVerificationCache;
 import org.bouncycastle.operator.OperatorCreationException;
 import org.bouncycastle.util.Memoable;
 
@@ -20,14 +21,28 @@
     implements CertPathValidation
 {
     private X509ContentVerifierProviderBuilder contentVerifierProvider;
+    private SignatureVerificationCache signatureVerificationCache;
 
     private X500Name workingIssuerName;
     private SubjectPublicKeyInfo workingPublicKey;
     private AlgorithmIdentifier workingAlgId;
 
     public ParentCertIssuedValidation(X509ContentVerifierProviderBuilder contentVerifierProvider)
+    {
+        this(contentVerifierProvider, null);
+    }
+
+    /**
+     * Create a validation which skips signature checks already recorded in the passed in cache, and
+     * records successful ones in it.
+     *
+     * @param contentVerifierProvider builder for verifiers for certificate signatures.
+     * @param signatureVerificationCache cache of previously verified signatures, may be null.
+     */
+    public ParentCertIssuedValidation(X509ContentVerifierProviderBuilder contentVerifierProvider, SignatureVerificationCache signatureVerificationCache)
     {
         this.contentVerifierProvider = contentVerifierProvider;
+        this.signatureVerificationCache = signatureVerificationCache;
     }
 
     public void validate(CertPathValidationContext context, X509CertificateHolder certificate)
@@ -56,9 +71,21 @@ public void validate(CertPathValidationContext context, X509CertificateHolder ce
                     validatingKeyInfo = new SubjectPublicKeyInfo(workingAlgId, workingPublicKey.parsePublicKey());
                 }
 
-                if (!certificate.isSignatureValid(contentVerifierProvider.build(validatingKeyInfo)))
+                if (signatureVerificationCache != null)
                 {
-                    throw new CertPathValidationException("Certificate signature not for public key in parent");
+                    byte[] certEncoding = certificate.getEncoded();
+                    byte[] keyEncoding = validatingKeyInfo.getEncoded();
+
+                    if (!signatureVerificationCache.isVerified(certEncoding, keyEncoding))
+                    {
+                        checkSignature(certificate, validatingKeyInfo);
+
+                        signatureVerificationCache.addVerified(certEncoding, keyEncoding);
+                    }
+                }
+                else
+                {
+                    checkSignature(certificate, validatingKeyInfo);
                 }
             }
             catch (OperatorCreationException e)
@@ -99,6 +126,15 @@ public void validate(CertPathValidationContext context, X509CertificateHolder ce
         }
     }
 
+    private void checkSignature(X509CertificateHolder certificate, SubjectPublicKeyInfo validatingKeyInfo)
+        throws CertPathValidationException, OperatorCreationException, CertException
+    {
+        if (!certificate.isSignatureValid(contentVerifierProvider.build(validatingKeyInfo)))
+        {
+            throw new CertPathValidationException("Certificate signature not for public key in parent");
+        }
+    }
+
     private boolean isNull(ASN1Encodable obj)
     {
         return obj == null || obj instanceof ASN1Null;
@@ -106,7 +142,7 @@ private boolean isNull(ASN1Encodable obj)
 
     public Memoable copy()
     {
-        ParentCertIssuedValidation v = new ParentCertIssuedValidation(contentVerifierProvider);
+        ParentCertIssuedValidation v = new ParentCertIssuedValidation(contentVerifierProvider, signatureVerificationCache);
 
         v.workingAlgId = this.workingAlgId;
         v.workingIssuerName = this.workingIssuerName;
@@ -120,6 +156,7 @@ public void reset(Memoable other)
         ParentCertIssuedValidation v = (ParentCertIssuedValidation)other;
 
         this.contentVerifierProvider = v.contentVerifierProvider;
+        this.signatureVerificationCache = v.signatureVerificationCache;
         this.workingAlgId = v.workingAlgId;
         this.workingIssuerName = v.workingIssuerName;
         this.workingPublicKey = v.workingPublicKey;
@@ -7,6 +7,7 @@
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -26,6 +27,8 @@
 import org.bouncycastle.asn1.cms.SignedData;
 import org.bouncycastle.asn1.cms.SignerInfo;
 import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.bouncycastle.operator.DigestCalculator;
+import org.bouncycastle.operator.DigestCalculatorProvider;
 import org.bouncycastle.operator.OperatorCreationException;
 import org.bouncycastle.util.Encodable;
 import org.bouncycastle.util.Store;
@@ -443,6 +446,116 @@ public boolean verifySignatures(SignerInformationVerifierProvider verifierProvid
         return true;
     }
 
+    /**
+     * Verify all the SignerInformation objects and optionally their associated counter signatures attached
+     * to this CMS SignedData object, calculating the content digest for each distinct digest algorithm
+     * only once and sharing the result between all the signers that use it.
+     * <p>
+     * This works for both encapsulated and detached content. If the object was created with precomputed
+     * digests, or has no content, the signers are verified as in {@link #verifySignatures(SignerInformationVerifierProvider, boolean)}.
+     * </p>
+     *
+     * @param verifierProvider  a provider of SignerInformationVerifier objects.
+     * @param digestCalculatorProvider a provider of DigestCalculator objects for calculating the content digests.
+     * @param ignoreCounterSignatures if true don't check counter signatures. If false check counter signatures as well.
+     * @return true if all verify, false otherwise.
+     * @throws CMSException  if an exception occurs during the verification process.
+     */
+    public boolean verifySignatures(SignerInformationVerifierProvider verifierProvider, DigestCalculatorProvider digestCalculatorProvider, boolean ignoreCounterSignatures)
+        throws CMSException
+    {
+        if (hashes != null || signedContent == null)
+        {
+            return verifySignatures(verifierProvider, ignoreCounterSignatures);
+        }
+
+        Collection signers = this.getSignerInfos().getSigners();
+        Map        contentDigests = calculateContentDigests(signers, digestCalculatorProvider);
+
+        for (Iterator it = signers.iterator(); it.hasNext();)
+        {
+            SignerInformation baseSigner = (SignerInformation)it.next();
+            SignerInformation signer = new SignerInformation(baseSigner.toASN1Structure(), baseSigner.getContentType(),
+                signedContent, (byte[])contentDigests.get(baseSigner.getDigestAlgorithmID().getAlgorithm()));
+
+            try
+            {
+                SignerInformationVerifier verifier = verifierProvider.get(signer.getSID());
+
+                if (!signer.verify(verifier))
+                {
+                    return false;
+                }
+
+                if (!ignoreCounterSignatures)
+                {
+                    Collection counterSigners = signer.getCounterSignatures().getSigners();
+
+                    for  (Iterator cIt = counterSigners.iterator(); cIt.hasNext();)
+                    {
+                        if (!verifyCounterSignature((SignerInformation)cIt.next(), verifierProvider))
+                        {
+                            return false;
+                        }
+                    }
+                }
+            }
+            catch (OperatorCreationException e)
+            {
+                throw new CMSException("failure in verifier provider: " + e.getMessage(), e);
+            }
+        }
+
+        return true;
+    }
+
+    private Map calculateContentDigests(Collection signers, DigestCalculatorProvider digestCalculatorProvider)
+        throws CMSException
+    {
+        Map calculators = new HashMap();
+
+        for (Iterator it = signers.iterator(); it.hasNext();)
+        {
+            AlgorithmIdentifier digAlgId = ((SignerInformation)it.next()).getDigestAlgorithmID();
+
+            if (!calculators.containsKey(digAlgId.getAlgorithm()))
+            {
+                try
+                {
+                    calculators.put(digAlgId.getAlgorithm(), digestCalculatorProvider.get(digAlgId));
+                }
+                catch (OperatorCreationException e)
+                {
+                    throw new CMSException("can't create digest calculator: " + e.getMessage(), e);
+                }
+            }
+        }
+
+        try
+        {
+            OutputStream digOut = CMSUtils.attachDigestsToOutputStream(calculators.values(), null);
+
+            signedContent.write(digOut);
+
+            digOut.close();
+        }
+        catch (IOException e)
+        {
+            throw new CMSException("can't process content to calculate digests.", e);
+        }
+
+        Map contentDigests = new HashMap();
+
+        for (Iterator it = calculators.keySet().iterator(); it.hasNext();)
+        {
+            Object digestKey = it.next();
+
+            contentDigests.put(digestKey, ((DigestCalculator)calculators.get(digestKey)).getDigest());
+        }
+
+        return contentDigests;
+    }
+
     private boolean verifyCounterSignature(SignerInformation counterSigner, SignerInformationVerifierProvider verifierProvider)
         throws OperatorCreationException, CMSException
     {
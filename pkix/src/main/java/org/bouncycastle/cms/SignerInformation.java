@@ -398,7 +398,7 @@ else if (signedAttributeSet != null)
             {
                 if (signedAttributeSet == null)
                 {
-                    if (content != null)
+                    if (content != null && !(contentVerifier instanceof RawContentVerifier))
                     {
                         content.write(sigOut);
                     }
@@ -18,6 +18,7 @@
 import org.bouncycastle.cert.path.validations.CRLValidation;
 import org.bouncycastle.cert.path.validations.KeyUsageValidation;
 import org.bouncycastle.cert.path.validations.ParentCertIssuedValidation;
+import org.bouncycastle.crypto.util.BoundedSignatureVerificationCache;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.bouncycastle.util.CollectionStore;
 import org.bouncycastle.util.Store;
@@ -305,6 +306,37 @@ public void performTest()
             fail("incorrect path validated!!");
         }
 
+        //
+        // signature verification cache
+        //
+        BoundedSignatureVerificationCache sigCache = new BoundedSignatureVerificationCache(10);
+
+        path = new CertPath(new X509CertificateHolder[] { finalCert, interCert });
+
+        for (int i = 0; i != 2; i++)
+        {
+            result = path.validate(new CertPathValidation[]{new ParentCertIssuedValidation(verifier, sigCache), new BasicConstraintsValidation(), new KeyUsageValidation()});
+
+            if (!result.isValid())
+            {
+                fail("cached validation (" + i + ") not working");
+            }
+
+            if (sigCache.size() != 1)
+            {
+                fail("signature not cached");
+            }
+        }
+
+        path = new CertPath(new X509CertificateHolder[] { interCert, finalCert });
+
+        result = path.validate(new CertPathValidation[]{new ParentCertIssuedValidation(verifier, sigCache)});
+
+        if (result.isValid())
+        {
+            fail("incorrect path validated with cache");
+        }
+
 
 
 //        List list = new ArrayList();
@@ -62,6 +62,7 @@
 import org.bouncycastle.cms.CMSSignedData;
 import org.bouncycastle.cms.CMSSignedDataGenerator;
 import org.bouncycastle.cms.CMSSignedDataParser;
+import org.bouncycastle.cms.CMSSignerDigestMismatchException;
 import org.bouncycastle.cms.CMSTypedData;
 import org.bouncycastle.cms.DefaultCMSSignatureAlgorithmNameGenerator;
 import org.bouncycastle.cms.DefaultSignedAttributeTableGenerator;
@@ -1645,6 +1646,74 @@ else if (_origCert.getSerialNumber().equals(signerId.getSerialNumber()))
         assertTrue(s.verifySignatures(vProv, false));
     }
 
+    public void testSharedDigestVerification()
+        throws Exception
+    {
+        List                certList = new ArrayList();
+        byte[]              data = "Hello World!".getBytes();
+        CMSTypedData        msg = new CMSProcessableByteArray(data);
+
+        certList.add(_signCert);
+        certList.add(_origCert);
+
+        Store           certStore = new JcaCertStore(certList);
+
+        CMSSignedDataGenerator gen = new CMSSignedDataGenerator();
+
+        DigestCalculatorProvider digCalcProv = new JcaDigestCalculatorProviderBuilder().setProvider(BC).build();
+
+        gen.addSignerInfoGenerator(new JcaSignerInfoGeneratorBuilder(digCalcProv).build(new JcaContentSignerBuilder("SHA1withRSA").setProvider(BC).build(_signKP.getPrivate()), _signCert));
+        gen.addSignerInfoGenerator(new JcaSignerInfoGeneratorBuilder(digCalcProv).build(new JcaContentSignerBuilder("SHA1withRSA").setProvider(BC).build(_origKP.getPrivate()), _origCert));
+        gen.addSignerInfoGenerator(new JcaSignerInfoGeneratorBuilder(digCalcProv).setDirectSignature(true).build(new JcaContentSignerBuilder("SHA256withRSA").setProvider(BC).build(_origKP.getPrivate()), _origCert));
+
+        gen.addCertificates(certStore);
+
+        SignerInformationVerifierProvider vProv = new SignerInformationVerifierProvider()
+        {
+            public SignerInformationVerifier get(SignerId signerId)
+                throws OperatorCreationException
+            {
+                if (_signCert.getSerialNumber().equals(signerId.getSerialNumber()))
+                {
+                    return new JcaSimpleSignerInfoVerifierBuilder().setProvider(BC).build(_signCert);
+                }
+                else if (_origCert.getSerialNumber().equals(signerId.getSerialNumber()))
+                {
+                    return new JcaSimpleSignerInfoVerifierBuilder().setProvider(BC).build(_origCert);
+                }
+                else
+                {
+                    throw new IllegalStateException("no signerID matched");
+                }
+            }
+        };
+
+        CMSSignedData s = gen.generate(msg, true);
+
+        assertTrue(s.verifySignatures(vProv, digCalcProv, false));
+
+        s = new CMSSignedData(s.getEncoded());
+
+        assertTrue(s.verifySignatures(vProv, digCalcProv, false));
+
+        byte[] detached = gen.generate(msg, false).getEncoded();
+
+        s = new CMSSignedData(msg, detached);
+
+        assertTrue(s.verifySignatures(vProv, digCalcProv, false));
+
+        s = new CMSSignedData(new CMSProcessableByteArray("Hello World?".getBytes()), detached);
+
+        try
+        {
+            assertFalse(s.verifySignatures(vProv, digCalcProv, false));
+        }
+        catch (CMSSignerDigestMismatchException e)
+        {
+            // expected
+        }
+    }
+
     private void rsaPSSTest(String signatureAlgorithmName)
         throws Exception
     {
@@ -302,6 +302,11 @@ public byte[] getIssuingDistributionPoint()
         return Arrays.clone(issuingDistributionPoint);
     }
 
+    CRLSelector getBaseSelector()
+    {
+        return baseSelector;
+    }
+
     public X509Certificate getCertificateChecking()
     {
         if (baseSelector instanceof X509CRLSelector)
@@ -0,0 +1,201 @@
+package org.bouncycastle.jcajce;
+
+import java.math.BigInteger;
+import java.security.cert.CertSelector;
+import java.security.cert.X509CertSelector;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import javax.security.auth.x500.X500Principal;
+
+import org.bouncycastle.asn1.ASN1OctetString;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.util.Selector;
+
+/**
+ * A PKIXCertStore holding a fixed collection of X.509 certificates, indexed by subject,
+ * subject key identifier, and issuer and serial number.
+ * <p>
+ * Where a selector is a PKIXCertStoreSelector based on an X509CertSelector with one of those
+ * criteria set, as is the case for the issuer searches done in path building, only the certificates
+ * listed against the matching index entry are checked against the selector, otherwise all
+ * certificates in the store are checked.
+ * </p>
+ */
+public class PKIXIndexedCertStore
+    implements PKIXCertStore<X509Certificate>
+{
+    private final List<X509Certificate> certificates;
+    private final Map<X500Principal, List<X509Certificate>> bySubject = new HashMap<X500Principal, List<X509Certificate>>();
+    private final Map<ASN1OctetString, List<X509Certificate>> bySubjectKeyId = new HashMap<ASN1OctetString, List<X509Certificate>>();
+    private final Map<IssuerAndSerial, List<X509Certificate>> byIssuerAndSerial = new HashMap<IssuerAndSerial, List<X509Certificate>>();
+
+    /**
+     * Base constructor.
+     *
+     * @param certificates the certificates to be held in the store.
+     */
+    public PKIXIndexedCertStore(Collection<X509Certificate> certificates)
+    {
+        this.certificates = Collections.unmodifiableList(new ArrayList<X509Certificate>(certificates));
+
+        for (Iterator<X509Certificate> it = this.certificates.iterator(); it.hasNext();)
+        {
+            X509Certificate cert = it.next();
+
+            addEntry(bySubject, cert.getSubjectX500Principal(), cert);
+            addEntry(byIssuerAndSerial, new IssuerAndSerial(cert.getIssuerX500Principal(), cert.getSerialNumber()), cert);
+
+            byte[] skiExtensionValue = cert.getExtensionValue(Extension.subjectKeyIdentifier.getId());
+            if (skiExtensionValue != null)
+            {
+                try
+                {
+                    // the extension value is itself an OCTET STRING holding the key identifier
+                    addEntry(bySubjectKeyId, ASN1OctetString.getInstance(ASN1OctetString.getInstance(skiExtensionValue).getOctets()), cert);
+                }
+                catch (IllegalArgumentException e)
+                {
+                    // malformed extension - the certificate can still be found by other criteria.
+                }
+            }
+        }
+    }
+
+    private static <K> void addEntry(Map<K, List<X509Certificate>> index, K key, X509Certificate cert)
+    {
+        List<X509Certificate> entries = index.get(key);
+
+        if (entries == null)
+        {
+            entries = new ArrayList<X509Certificate>(1);
+            index.put(key, entries);
+        }
+
+        entries.add(cert);
+    }
+
+    /**
+     * Return the matches associated with the passed in selector, a null selector returns all
+     * certificates in the store.
+     *
+     * @param selector the selector defining the match criteria.
+     * @return a collection of matches with the selector, an empty collection if there are none.
+     */
+    public Collection<X509Certificate> getMatches(Selector<X509Certificate> selector)
+    {
+        if (selector == null)
+        {
+            return new ArrayList<X509Certificate>(certificates);
+        }
+
+        List<X509Certificate> candidates = getCandidates(selector);
+        List<X509Certificate> matches = new ArrayList<X509Certificate>();
+
+        for (Iterator<X509Certificate> it = candidates.iterator(); it.hasNext();)
+        {
+            X509Certificate cert = it.next();
+
+            if (selector.match(cert))
+            {
+                matches.add(cert);
+            }
+        }
+
+        return matches;
+    }
+
+    private List<X509Certificate> getCandidates(Selector selector)
+    {
+        if (!(selector instanceof PKIXCertStoreSelector))
+        {
+            return certificates;
+        }
+
+        CertSelector baseSelector = ((PKIXCertStoreSelector)selector).getBaseSelector();
+        if (!(baseSelector instanceof X509CertSelector))
+        {
+            return certificates;
+        }
+
+        X509CertSelector certSelector = (X509CertSelector)baseSelector;
+
+        if (certSelector.getCertificate() != null)
+        {
+            X509Certificate cert = certSelector.getCertificate();
+
+            return lookup(byIssuerAndSerial, new IssuerAndSerial(cert.getIssuerX500Principal(), cert.getSerialNumber()));
+        }
+
+        if (certSelector.getIssuer() != null && certSelector.getSerialNumber() != null)
+        {
+            return lookup(byIssuerAndSerial, new IssuerAndSerial(certSelector.getIssuer(), certSelector.getSerialNumber()));
+        }
+
+        if (certSelector.getSubjectKeyIdentifier() != null)
+        {
+            try
+            {
+                return lookup(bySubjectKeyId, ASN1OctetString.getInstance(certSelector.getSubjectKeyIdentifier()));
+            }
+            catch (IllegalArgumentException e)
+            {
+                // fall through to the other criteria, the selector itself will reject everything.
+            }
+        }
+
+        if (certSelector.getSubject() != null)
+        {
+            return lookup(bySubject, certSelector.getSubject());
+        }
+
+        return certificates;
+    }
+
+    private static <K> List<X509Certificate> lookup(Map<K, List<X509Certificate>> index, K key)
+    {
+        List<X509Certificate> entries = index.get(key);
+
+        if (entries == null)
+        {
+            return Collections.emptyList();
+        }
+
+        return entries;
+    }
+
+    private static class IssuerAndSerial
+    {
+        private final X500Principal issuer;
+        private final BigInteger serialNumber;
+
+        IssuerAndSerial(X500Principal issuer, BigInteger serialNumber)
+        {
+            this.issuer = issuer;
+            this.serialNumber = serialNumber;
+        }
+
+        public int hashCode()
+        {
+            return issuer.hashCode() ^ serialNumber.hashCode();
+        }
+
+        public boolean equals(Object o)
+        {
+            if (!(o instanceof IssuerAndSerial))
+            {
+                return false;
+            }
+
+            IssuerAndSerial other = (IssuerAndSerial)o;
+
+            return serialNumber.equals(other.serialNumber) && issuer.equals(other.issuer);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package org.bouncycastle.jcajce;
+
+import java.security.cert.TrustAnchor;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A bounded cache of partial certification paths, each running from an intermediate certificate
+ * to a certificate issued by a trust anchor, which have been part of a successfully validated path.
+ * <p>
+ * Cached paths are used by a path builder as the first candidate for completing a path, they are
+ * not a substitute for validation - a path using a cached partial path is still validated in full,
+ * including any revocation checks. An entry is only returned for a validity date at which none of
+ * its certificates have expired, and is discarded after the maximum age given at construction, so
+ * that the cache does not keep returning partial paths which are no longer usable.
+ * </p><p>
+ * Entries are held against the set of trust anchors the path was built for, so a cache shared by
+ * builders with different trust anchors only ever offers a builder partial paths that ended at one
+ * of its own trust anchors.
+ * </p>
+ */
+public class PKIXPartialPathCache
+{
+    private final long maxAge;
+    private final Map<CacheKey, CacheEntry> entries;
+
+    /**
+     * Base constructor.
+     *
+     * @param maxEntries the maximum number of partial paths to hold.
+     * @param maxAge the maximum time, in milliseconds, a partial path will be held for.
+     */
+    public PKIXPartialPathCache(final int maxEntries, long maxAge)
+    {
+        if (maxEntries < 1)
+        {
+            throw new IllegalArgumentException("maxEntries must be at least 1");
+        }
+        if (maxAge < 1)
+        {
+            throw new IllegalArgumentException("maxAge must be positive");
+        }
+
+        this.maxAge = maxAge;
+        this.entries = new LinkedHashMap<CacheKey, CacheEntry>(16, 0.75f, true)
+        {
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, CacheEntry> eldest)
+            {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Return the cached partial path starting with the passed in certificate.
+     *
+     * @param trustAnchors the trust anchors the path is being built for.
+     * @param cert the first certificate of the partial path.
+     * @param validityDate the date the path is to be validated at.
+     * @return an unmodifiable list starting with cert, or null if there is no usable entry for cert.
+     */
+    public List<X509Certificate> getPartialPath(Set<TrustAnchor> trustAnchors, X509Certificate cert, Date validityDate)
+    {
+        CacheKey key = new CacheKey(trustAnchors, cert);
+        long now = System.currentTimeMillis();
+
+        synchronized (entries)
+        {
+            CacheEntry entry = entries.get(key);
+
+            if (entry == null)
+            {
+                return null;
+            }
+
+            if (entry.expiry <= now)
+            {
+                entries.remove(key);
+                return null;
+            }
+
+            if (validityDate.getTime() > entry.notAfter)
+            {
+                return null;
+            }
+
+            return entry.path;
+        }
+    }
+
+    /**
+     * Add a partial path, which must run from its first certificate to one issued by a trust anchor.
+     *
+     * @param trustAnchors the trust anchors the path was built for.
+     * @param path the certificates making up the partial path.
+     */
+    public void addPartialPath(Set<TrustAnchor> trustAnchors, List<X509Certificate> path)
+    {
+        if (path.isEmpty())
+        {
+            throw new IllegalArgumentException("partial path cannot be empty");
+        }
+
+        long notAfter = Long.MAX_VALUE;
+        for (int i = 0; i != path.size(); i++)
+        {
+            notAfter = Math.min(notAfter, path.get(i).getNotAfter().getTime());
+        }
+
+        CacheEntry entry = new CacheEntry(Collections.unmodifiableList(new ArrayList<X509Certificate>(path)),
+            notAfter, System.currentTimeMillis() + maxAge);
+
+        synchronized (entries)
+        {
+            entries.put(new CacheKey(trustAnchors, path.get(0)), entry);
+        }
+    }
+
+    /**
+     * Remove any partial path starting with the passed in certificate.
+     *
+     * @param trustAnchors the trust anchors the path was built for.
+     * @param cert the first certificate of the partial path.
+     */
+    public void removePartialPath(Set<TrustAnchor> trustAnchors, X509Certificate cert)
+    {
+        CacheKey key = new CacheKey(trustAnchors, cert);
+
+        synchronized (entries)
+        {
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * Return the number of partial paths currently held.
+     *
+     * @return the number of entries in the cache.
+     */
+    public int size()
+    {
+        synchronized (entries)
+        {
+            return entries.size();
+        }
+    }
+
+    private static class CacheKey
+    {
+        private final Set<Object> anchors;
+        private final X509Certificate cert;
+        private final int hashCode;
+
+        CacheKey(Set<TrustAnchor> trustAnchors, X509Certificate cert)
+        {
+            // TrustAnchor has no equals(), so compare anchors by what they trust.
+            this.anchors = new HashSet<Object>(trustAnchors.size());
+            for (Iterator<TrustAnchor> it = trustAnchors.iterator(); it.hasNext();)
+            {
+                TrustAnchor anchor = it.next();
+
+                if (anchor.getTrustedCert() != null)
+                {
+                    anchors.add(anchor.getTrustedCert());
+                }
+                else
+                {
+                    List<Object> id = new ArrayList<Object>(2);
+
+                    id.add(anchor.getCA());
+                    id.add(anchor.getCAPublicKey());
+
+                    anchors.add(id);
+                }
+            }
+            this.cert = cert;
+            this.hashCode = anchors.hashCode() * 31 + cert.hashCode();
+        }
+
+        public int hashCode()
+        {
+            return hashCode;
+        }
+
+        public boolean equals(Object o)
+        {
+            if (o == this)
+            {
+                return true;
+            }
+            if (!(o instanceof CacheKey))
+            {
+                return false;
+            }
+
+            CacheKey other = (CacheKey)o;
+
+            return hashCode == other.hashCode && cert.equals(other.cert) && anchors.equals(other.anchors);
+        }
+    }
+
+    private static class CacheEntry
+    {
+        final List<X509Certificate> path;
+        final long notAfter;
+        final long expiry;
+
+        CacheEntry(List<X509Certificate> path, long notAfter, long expiry)
+        {
+            this.path = path;
+            this.notAfter = notAfter;
+            this.expiry = expiry;
+        }
+    }
+}
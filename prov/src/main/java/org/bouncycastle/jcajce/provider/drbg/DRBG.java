@@ -5,7 +5,9 @@
 import java.security.SecureRandomSpi;
 
 import org.bouncycastle.crypto.digests.SHA512Digest;
+import org.bouncycastle.crypto.prng.SP800SecureRandom;
 import org.bouncycastle.crypto.prng.SP800SecureRandomBuilder;
+import org.bouncycastle.crypto.prng.SP800StripedSecureRandom;
 import org.bouncycastle.jcajce.provider.config.ConfigurableProvider;
 import org.bouncycastle.jcajce.provider.util.AsymmetricAlgorithmProvider;
 import org.bouncycastle.util.Arrays;
@@ -16,14 +18,14 @@
 {
     private static final String PREFIX = DRBG.class.getName();
 
+    private static final int MAX_STRIPES = 16;
+
     private static SecureRandom secureRandom = new SecureRandom();
 
     public static class Default
         extends SecureRandomSpi
     {
-        private SecureRandom random = new SP800SecureRandomBuilder(secureRandom, true)
-            .setPersonalizationString(generateDefaultPersonalizationString())
-            .buildHash(new SHA512Digest(), secureRandom.generateSeed(32), true);
+        private SecureRandom random = createStripedRandom(true);
 
         @Override
         protected void engineSetSeed(byte[] bytes)
@@ -47,9 +49,7 @@ protected byte[] engineGenerateSeed(int numBytes)
     public static class NonceAndIV
         extends SecureRandomSpi
     {
-        private SecureRandom random = new SP800SecureRandomBuilder(secureRandom, true)
-            .setPersonalizationString(generateNonceIVPersonalizationString())
-            .buildHash(new SHA512Digest(), secureRandom.generateSeed(32), false);
+        private SecureRandom random = createStripedRandom(false);
 
         @Override
         protected void engineSetSeed(byte[] bytes)
@@ -84,16 +84,38 @@ public void configure(ConfigurableProvider provider)
         }
     }
 
-    private static byte[] generateDefaultPersonalizationString()
+    /**
+     * Create a SecureRandom spreading threads over one independently seeded Hash DRBG per
+     * available processor, so concurrent callers do not all contend for a single DRBG. Each DRBG
+     * is only built, and seeded, when a thread first uses it.
+     *
+     * @param isDefault true for the prediction resistant default generator, false for nonces and IVs.
+     */
+    private static SecureRandom createStripedRandom(final boolean isDefault)
+    {
+        return new SP800StripedSecureRandom(Math.min(Runtime.getRuntime().availableProcessors(), MAX_STRIPES))
+        {
+            protected SP800SecureRandom createStripe(int index)
+            {
+                byte[] personalizationString = isDefault ? generateDefaultPersonalizationString(index) : generateNonceIVPersonalizationString(index);
+
+                return new SP800SecureRandomBuilder(secureRandom, true)
+                    .setPersonalizationString(personalizationString)
+                    .buildHash(new SHA512Digest(), secureRandom.generateSeed(32), isDefault);
+            }
+        };
+    }
+
+    private static byte[] generateDefaultPersonalizationString(int stripe)
     {
-        return Arrays.concatenate(Strings.toByteArray("Default"), Strings.toUTF8ByteArray(getVIMID()),
-            Pack.longToBigEndian(Thread.currentThread().getId()), Pack.longToBigEndian(System.currentTimeMillis()));
+        return Arrays.concatenate(new byte[][] { Strings.toByteArray("Default"), Strings.toUTF8ByteArray(getVIMID()),
+            Pack.longToBigEndian(Thread.currentThread().getId()), Pack.longToBigEndian(System.currentTimeMillis()), Pack.intToBigEndian(stripe) });
     }
 
-    private static byte[] generateNonceIVPersonalizationString()
+    private static byte[] generateNonceIVPersonalizationString(int stripe)
     {
-        return Arrays.concatenate(Strings.toByteArray("Default"), Strings.toUTF8ByteArray(getVIMID()),
-            Pack.longToLittleEndian(Thread.currentThread().getId()), Pack.longToLittleEndian(System.currentTimeMillis()));
+        return Arrays.concatenate(new byte[][] { Strings.toByteArray("Default"), Strings.toUTF8ByteArray(getVIMID()),
+            Pack.longToLittleEndian(Thread.currentThread().getId()), Pack.longToLittleEndian(System.currentTimeMillis()), Pack.intToLittleEndian(stripe) });
     }
 
     private static final Constructor vimIDConstructor;
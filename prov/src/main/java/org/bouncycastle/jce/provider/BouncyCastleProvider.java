@@ -6,8 +6,12 @@
 import java.security.PrivilegedAction;
 import java.security.Provider;
 import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.bouncycastle.asn1.ASN1ObjectIdentifier;
 import org.bouncycastle.asn1.pkcs.PrivateKeyInfo;
@@ -16,6 +20,8 @@
 import org.bouncycastle.jcajce.provider.config.ProviderConfiguration;
 import org.bouncycastle.jcajce.provider.util.AlgorithmProvider;
 import org.bouncycastle.jcajce.provider.util.AsymmetricKeyInfoConverter;
+import org.bouncycastle.util.Properties;
+import org.bouncycastle.util.Strings;
 
 /**
  * To add the provider at runtime use:
@@ -40,6 +46,18 @@
  * most preferred).
  * <p>Note: JCE algorithm names should be upper-case only so the case insensitive
  * test for getInstance works.
+ * <p>
+ * If the system property "org.bouncycastle.jce.provider.lazy_load" is set to true when the provider
+ * is constructed, the classes configuring each group of algorithms are only loaded when one of their
+ * algorithms is first looked up, which saves most of the cost of constructing the provider for
+ * applications which only use a few algorithms. The group is found from the algorithm name, for
+ * lookups which cannot be matched to a group, such as ones by OID, and for operations listing the
+ * provider's contents, all remaining groups are loaded.
+ * <p>
+ * The services found by {@link #getService(String, String)} are cached, along with the constructors for
+ * their implementations, see {@link #warmUpServices(String, String[])}, {@link #getServiceCacheHits()} and
+ * {@link #getServiceCacheMisses()}. The cache is cleared when entries are added to or removed from the
+ * provider through put(), putAll(), remove() or clear().
  */
 public final class BouncyCastleProvider extends Provider
     implements ConfigurableProvider
@@ -120,6 +138,53 @@ public final class BouncyCastleProvider extends Provider
         "DRBG"
     };
 
+    /*
+     * Algorithm name prefixes which do not start with the name of the mappings providing them,
+     * for finding the mappings for a lookup when loading on demand.
+     */
+    private static final String[][] MAPPING_ALIASES =
+    {
+        { "DIFFIEHELLMAN", ASYMMETRIC_PACKAGE + "DH" },
+        { "PSS", ASYMMETRIC_PACKAGE + "RSA" },
+        { "OAEP", ASYMMETRIC_PACKAGE + "RSA" },
+        { "PLAIN", ASYMMETRIC_PACKAGE + "EC" },
+        { "CVC", ASYMMETRIC_PACKAGE + "EC" },
+        { "DETECDSA", ASYMMETRIC_PACKAGE + "EC" },
+        { "DETDSA", ASYMMETRIC_PACKAGE + "DSA" },
+        { "DDSA", ASYMMETRIC_PACKAGE + "DSA" },
+        { "RAWDSA", ASYMMETRIC_PACKAGE + "DSA" },
+        { "GOST34102001", ASYMMETRIC_PACKAGE + "ECGOST" },
+        { "RAWRSA", ASYMMETRIC_PACKAGE + "RSA" },
+        { "IES", ASYMMETRIC_PACKAGE + "DH" },
+        { "RC4", SYMMETRIC_PACKAGE + "ARC4" },
+        { "ARCFOUR", SYMMETRIC_PACKAGE + "ARC4" },
+        { "TDEA", SYMMETRIC_PACKAGE + "DESede" },
+        { "TRIPLEDES", SYMMETRIC_PACKAGE + "DESede" },
+        { "ISO9797", SYMMETRIC_PACKAGE + "DES" },
+        { "GCM", SYMMETRIC_PACKAGE + "AES" },
+        { "CCM", SYMMETRIC_PACKAGE + "AES" },
+        { "TNEPRES", SYMMETRIC_PACKAGE + "Serpent" },
+        { "PBKDFOPENSSL", SYMMETRIC_PACKAGE + "OpenSSLPBKDF" },
+        { "SHA", DIGEST_PACKAGE + "SHA1" },
+        { "GOST", DIGEST_PACKAGE + "GOST3411" },
+        { "BKS", KEYSTORE_PACKAGE + "BC" },
+        { "UBER", KEYSTORE_PACKAGE + "BC" },
+        { "BCPKCS12", KEYSTORE_PACKAGE + "PKCS12" },
+        { "BOUNCYCASTLE", KEYSTORE_PACKAGE + "BC" },
+        { "DEFAULT", SECURE_RANDOM_PACKAGE + "DRBG" },
+        { "NONCEANDIV", SECURE_RANDOM_PACKAGE + "DRBG" }
+    };
+
+    private static final String LAZY_LOAD = "org.bouncycastle.jce.provider.lazy_load";
+
+    // a provider which has not loaded all its mappings, the key info converters are added by them.
+    private static BouncyCastleProvider pendingConverterProvider;
+
+    // the mappings not loaded yet in the order they would have been loaded in, null if there are none.
+    private volatile List pendingMappings;
+
+    private final ServiceCache serviceCache = new ServiceCache(this);
+
     /**
      * Construct a new provider.  This should only be required when
      * using runtime registration of the provider using the
@@ -133,23 +198,30 @@ public BouncyCastleProvider()
         {
             public Object run()
             {
-                setup();
+                setup(Properties.isOverrideSet(LAZY_LOAD));
                 return null;
             }
         });
     }
 
-    private void setup()
+    private void setup(boolean lazy)
     {
+        if (lazy)
+        {
+            pendingMappings = new ArrayList();
+        }
+
         loadAlgorithms(DIGEST_PACKAGE, DIGESTS);
 
-        loadAlgorithms(SYMMETRIC_PACKAGE, SYMMETRIC_GENERIC);
+        // the generic mappings are configured by, or are the targets of aliases from, the
+        // others, so they are always loaded.
+        loadMappings(SYMMETRIC_PACKAGE, SYMMETRIC_GENERIC);
 
         loadAlgorithms(SYMMETRIC_PACKAGE, SYMMETRIC_MACS);
 
         loadAlgorithms(SYMMETRIC_PACKAGE, SYMMETRIC_CIPHERS);
 
-        loadAlgorithms(ASYMMETRIC_PACKAGE, ASYMMETRIC_GENERIC);
+        loadMappings(ASYMMETRIC_PACKAGE, ASYMMETRIC_GENERIC);
 
         loadAlgorithms(ASYMMETRIC_PACKAGE, ASYMMETRIC_CIPHERS);
 
@@ -195,48 +267,454 @@ private void setup()
         put("CertPathBuilder.RFC3280", "org.bouncycastle.jce.provider.PKIXCertPathBuilderSpi");
         put("CertPathValidator.PKIX", "org.bouncycastle.jce.provider.PKIXCertPathValidatorSpi");
         put("CertPathBuilder.PKIX", "org.bouncycastle.jce.provider.PKIXCertPathBuilderSpi");
+        put("CertPathBuilder.PKIX-CACHING", "org.bouncycastle.jce.provider.PKIXCachingCertPathBuilderSpi");
         put("CertStore.Collection", "org.bouncycastle.jce.provider.CertStoreCollectionSpi");
         put("CertStore.LDAP", "org.bouncycastle.jce.provider.X509LDAPCertStoreSpi");
         put("CertStore.Multi", "org.bouncycastle.jce.provider.MultiCertStoreSpi");
         put("Alg.Alias.CertStore.X509LDAP", "LDAP");
+
+        if (lazy)
+        {
+            synchronized (keyInfoConverters)
+            {
+                pendingConverterProvider = this;
+            }
+        }
     }
 
     private void loadAlgorithms(String packageName, String[] names)
     {
         for (int i = 0; i != names.length; i++)
         {
-            Class clazz = null;
+            if (pendingMappings != null)
+            {
+                pendingMappings.add(packageName + names[i]);
+            }
+            else
+            {
+                loadMapping(packageName + names[i]);
+            }
+        }
+    }
+
+    private void loadMappings(String packageName, String[] names)
+    {
+        for (int i = 0; i != names.length; i++)
+        {
+            loadMapping(packageName + names[i]);
+        }
+    }
+
+    private void loadMapping(String name)
+    {
+        Class clazz = null;
+        try
+        {
+            ClassLoader loader = this.getClass().getClassLoader();
+
+            if (loader != null)
+            {
+                clazz = loader.loadClass(name + "$Mappings");
+            }
+            else
+            {
+                clazz = Class.forName(name + "$Mappings");
+            }
+        }
+        catch (ClassNotFoundException e)
+        {
+            // ignore
+        }
+
+        if (clazz != null)
+        {
             try
             {
-                ClassLoader loader = this.getClass().getClassLoader();
+                ((AlgorithmProvider)clazz.newInstance()).configure(this);
+            }
+            catch (Exception e)
+            {   // this should never ever happen!!
+                throw new InternalError("cannot create instance of "
+                    + name + "$Mappings : " + e);
+            }
+        }
+    }
 
-                if (loader != null)
+    /**
+     * Load the pending mappings which should provide the passed in algorithm.
+     *
+     * @return true if any mappings were loaded, false otherwise.
+     */
+    private synchronized boolean loadPendingMapping(String type, String algorithm)
+    {
+        if (pendingMappings == null)
+        {
+            return false;
+        }
+
+        int index = findPendingMapping(type, algorithm);
+        if (index < 0)
+        {
+            return false;
+        }
+
+        loadMapping(takePendingMapping(index));
+
+        return true;
+    }
+
+    private synchronized void loadPendingMappings()
+    {
+        while (pendingMappings != null)
+        {
+            loadMapping(takePendingMapping(0));
+        }
+    }
+
+    private String takePendingMapping(int index)
+    {
+        // removed before loading, as the mappings may look up other algorithms while being configured.
+        String name = (String)pendingMappings.remove(index);
+
+        if (pendingMappings.isEmpty())
+        {
+            pendingMappings = null;
+
+            synchronized (keyInfoConverters)
+            {
+                if (pendingConverterProvider == this)
                 {
-                    clazz = loader.loadClass(packageName + names[i] + "$Mappings");
+                    pendingConverterProvider = null;
                 }
-                else
+            }
+        }
+
+        return name;
+    }
+
+    /**
+     * Return the index of the pending mappings which should provide the passed in algorithm, -1 if
+     * there is no likely candidate.
+     */
+    private int findPendingMapping(String type, String algorithm)
+    {
+        String name = Strings.toUpperCase(algorithm);
+        String packageName = null;
+
+        if (name.indexOf('-') >= 0)
+        {
+            StringBuffer buf = new StringBuffer(name.length());
+            for (int i = 0; i != name.length(); i++)
+            {
+                if (name.charAt(i) != '-')
                 {
-                    clazz = Class.forName(packageName + names[i] + "$Mappings");
+                    buf.append(name.charAt(i));
                 }
             }
-            catch (ClassNotFoundException e)
+            name = buf.toString();
+        }
+
+        if (type.equalsIgnoreCase("MessageDigest"))
+        {
+            packageName = DIGEST_PACKAGE;
+        }
+        else if (type.equalsIgnoreCase("Signature") || type.equalsIgnoreCase("KeyPairGenerator")
+            || type.equalsIgnoreCase("KeyFactory") || type.equalsIgnoreCase("KeyAgreement"))
+        {
+            packageName = ASYMMETRIC_PACKAGE;
+        }
+        else if (type.equalsIgnoreCase("KeyStore"))
+        {
+            packageName = KEYSTORE_PACKAGE;
+        }
+        else if (type.equalsIgnoreCase("SecureRandom"))
+        {
+            packageName = SECURE_RANDOM_PACKAGE;
+        }
+
+        // password based schemes are provided with their cipher, PBMACs and HMACs with their digest.
+        if (name.startsWith("OLDPBEWITH") || name.startsWith("BROKENPBEWITH"))
+        {
+            name = name.substring(name.indexOf("PBEWITH"));
+        }
+
+        if (name.startsWith("PBEWITH"))
+        {
+            name = name.substring(7);
+            if (name.startsWith("HMAC"))
+            {
+                name = name.substring(4);
+            }
+            else if (name.indexOf("AND") >= 0)
             {
-                // ignore
+                name = stripKeySize(name.substring(name.indexOf("AND") + 3));
             }
+        }
+        else if (name.startsWith("HMAC") || name.startsWith("OLDHMAC"))
+        {
+            name = name.substring(name.indexOf("HMAC") + 4);
+            if (name.startsWith("/"))
+            {
+                name = name.substring(1);
+            }
+        }
+        else if (name.startsWith("POLY1305") && name.length() > 8)
+        {
+            name = name.substring(8);
+        }
 
-            if (clazz != null)
+        // signatures, and their parameters, are provided with the public key algorithm.
+        boolean isSignature = type.equalsIgnoreCase("Signature");
+        if (isSignature || type.equalsIgnoreCase("AlgorithmParameters"))
+        {
+            int with = name.lastIndexOf("WITH");
+            if (with >= 0 || (isSignature && name.indexOf('/') >= 0))
             {
-                try
+                int index = findPendingMappingByPrefix(
+                    (with >= 0) ? name.substring(with + 4) : name.substring(name.lastIndexOf('/') + 1), ASYMMETRIC_PACKAGE);
+                if (index >= 0)
                 {
-                    ((AlgorithmProvider)clazz.newInstance()).configure(this);
+                    return index;
                 }
-                catch (Exception e)
-                {   // this should never ever happen!!
-                    throw new InternalError("cannot create instance of "
-                        + packageName + names[i] + "$Mappings : " + e);
+            }
+        }
+
+        // transformations, and digests such as SHA-512/256, are provided with the base algorithm.
+        if (name.indexOf('/') > 0)
+        {
+            name = name.substring(0, name.indexOf('/'));
+        }
+
+        return findPendingMappingByPrefix(name, packageName);
+    }
+
+    /**
+     * Return the index of the pending mappings from the passed in package, or any package if null,
+     * whose name or alias is the longest prefix of name, -1 if there is none.
+     */
+    private int findPendingMappingByPrefix(String name, String packageName)
+    {
+        int index = -1;
+        int length = 0;
+
+        for (int i = 0; i != pendingMappings.size(); i++)
+        {
+            String mapping = (String)pendingMappings.get(i);
+            String prefix = Strings.toUpperCase(mapping.substring(mapping.lastIndexOf('.') + 1));
+
+            if (prefix.length() > length && name.startsWith(prefix)
+                && (packageName == null || mapping.startsWith(packageName)))
+            {
+                index = i;
+                length = prefix.length();
+            }
+        }
+
+        for (int i = 0; i != MAPPING_ALIASES.length; i++)
+        {
+            String prefix = MAPPING_ALIASES[i][0];
+
+            if (prefix.length() > length && name.startsWith(prefix)
+                && (packageName == null || MAPPING_ALIASES[i][1].startsWith(packageName)))
+            {
+                int aliasIndex = pendingMappings.indexOf(MAPPING_ALIASES[i][1]);
+                if (aliasIndex >= 0)
+                {
+                    index = aliasIndex;
+                    length = prefix.length();
                 }
             }
         }
+
+        return index;
+    }
+
+    // remove a leading key size, as in 128BITAES or 2KEYTRIPLEDES.
+    private static String stripKeySize(String name)
+    {
+        int i = 0;
+        while (i < name.length() && Character.isDigit(name.charAt(i)))
+        {
+            i++;
+        }
+
+        if (i > 0 && (name.startsWith("BIT", i) || name.startsWith("KEY", i)))
+        {
+            return name.substring(i + 3);
+        }
+
+        return name;
+    }
+
+    public Provider.Service getService(String type, String algorithm)
+    {
+        ServiceCache cache = serviceCache;
+
+        // the provider is still being constructed.
+        if (cache == null)
+        {
+            return findService(type, algorithm);
+        }
+
+        Object entry = cache.get(type, algorithm);
+        if (entry != null)
+        {
+            return ServiceCache.toService(entry);
+        }
+
+        int generation = cache.getGeneration();
+
+        return cache.put(generation, type, algorithm, findService(type, algorithm));
+    }
+
+    /**
+     * Look up the services for the passed in type and algorithm names, so the class implementing
+     * each is loaded and initialised, and the results are cached, before they are first needed.
+     *
+     * @param type the type of the services, for example "Cipher".
+     * @param algorithms the algorithm names the services will be requested with.
+     * @return true if all the services were found, false otherwise.
+     */
+    public boolean warmUpServices(String type, String[] algorithms)
+    {
+        boolean found = true;
+
+        for (int i = 0; i != algorithms.length; i++)
+        {
+            Provider.Service service = getService(type, algorithms[i]);
+
+            if (service != null)
+            {
+                ServiceCache.warmUp(service);
+            }
+            else
+            {
+                found = false;
+            }
+        }
+
+        return found;
+    }
+
+    /**
+     * Return the number of service lookups answered from the cache.
+     */
+    public long getServiceCacheHits()
+    {
+        return serviceCache.getHits();
+    }
+
+    /**
+     * Return the number of service lookups which had to be resolved by the provider.
+     */
+    public long getServiceCacheMisses()
+    {
+        return serviceCache.getMisses();
+    }
+
+    private Provider.Service findService(String type, String algorithm)
+    {
+        Provider.Service service = super.getService(type, algorithm);
+
+        if (service == null && pendingMappings != null)
+        {
+            if (loadPendingMapping(type, algorithm))
+            {
+                service = super.getService(type, algorithm);
+            }
+
+            // a Cipher is looked up by its full transformation before the algorithm name, only the
+            // algorithm name is certain to be registered, so a miss here is expected.
+            if (service == null && !(type.equalsIgnoreCase("Cipher") && algorithm.indexOf('/') >= 0))
+            {
+                loadPendingMappings();
+                service = super.getService(type, algorithm);
+            }
+        }
+
+        return service;
+    }
+
+    public Object put(Object key, Object value)
+    {
+        Object previous = super.put(key, value);
+
+        invalidateServiceCache();
+
+        return previous;
+    }
+
+    public void putAll(Map t)
+    {
+        super.putAll(t);
+
+        invalidateServiceCache();
+    }
+
+    public Object remove(Object key)
+    {
+        Object previous = super.remove(key);
+
+        invalidateServiceCache();
+
+        return previous;
+    }
+
+    public void clear()
+    {
+        super.clear();
+
+        invalidateServiceCache();
+    }
+
+    private void invalidateServiceCache()
+    {
+        // null while the Provider constructor adds the provider's own properties.
+        if (serviceCache != null)
+        {
+            serviceCache.invalidate();
+        }
+    }
+
+    public Set getServices()
+    {
+        loadPendingMappings();
+
+        return super.getServices();
+    }
+
+    public String getProperty(String key)
+    {
+        String value = super.getProperty(key);
+
+        if (value == null && pendingMappings != null)
+        {
+            loadPendingMappings();
+            value = super.getProperty(key);
+        }
+
+        return value;
+    }
+
+    public Set keySet()
+    {
+        loadPendingMappings();
+
+        return super.keySet();
+    }
+
+    public Set entrySet()
+    {
+        loadPendingMappings();
+
+        return super.entrySet();
+    }
+
+    public Collection values()
+    {
+        loadPendingMappings();
+
+        return super.values();
     }
 
     public void setParameter(String parameterName, Object parameter)
@@ -249,7 +727,13 @@ public void setParameter(String parameterName, Object parameter)
 
     public boolean hasAlgorithm(String type, String name)
     {
-        return containsKey(type + "." + name) || containsKey("Alg.Alias." + type + "." + name);
+        if (containsKey(type + "." + name) || containsKey("Alg.Alias." + type + "." + name))
+        {
+            return true;
+        }
+
+        // only the mappings for the algorithm are loaded, as this is called while configuring others.
+        return loadPendingMapping(type, name) && hasAlgorithm(type, name);
     }
 
     public void addAlgorithm(String key, String value)
@@ -278,6 +762,23 @@ public void addKeyInfoConverter(ASN1ObjectIdentifier oid, AsymmetricKeyInfoConve
 
     private static AsymmetricKeyInfoConverter getAsymmetricKeyInfoConverter(ASN1ObjectIdentifier algorithm)
     {
+        BouncyCastleProvider provider;
+
+        synchronized (keyInfoConverters)
+        {
+            AsymmetricKeyInfoConverter converter = (AsymmetricKeyInfoConverter)keyInfoConverters.get(algorithm);
+
+            if (converter != null || pendingConverterProvider == null)
+            {
+                return converter;
+            }
+
+            provider = pendingConverterProvider;
+        }
+
+        // the provider is not locked while keyInfoConverters is, as loading mappings adds to it.
+        provider.loadPendingMappings();
+
         synchronized (keyInfoConverters)
         {
             return (AsymmetricKeyInfoConverter)keyInfoConverters.get(algorithm);
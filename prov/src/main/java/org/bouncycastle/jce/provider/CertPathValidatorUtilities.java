@@ -64,6 +64,8 @@
 import org.bouncycastle.asn1.x509.GeneralNames;
 import org.bouncycastle.asn1.x509.PolicyInformation;
 import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
+import org.bouncycastle.crypto.util.SignatureVerificationCache;
+import org.bouncycastle.jcajce.PKIXCRLCache;
 import org.bouncycastle.jcajce.PKIXCRLStore;
 import org.bouncycastle.jcajce.PKIXCRLStoreSelector;
 import org.bouncycastle.jcajce.PKIXCertStore;
@@ -157,6 +159,31 @@ protected static TrustAnchor findTrustAnchor(
         Set trustAnchors,
         String sigProvider)
         throws AnnotatedException
+    {
+        return findTrustAnchor(cert, trustAnchors, sigProvider, null);
+    }
+
+    /**
+     * Search the given Set of TrustAnchor's for one that is the
+     * issuer of the given X509 certificate. Uses the specified
+     * provider for signature verification, or the default provider
+     * if null, skipping signature checks already recorded in the cache.
+     *
+     * @param cert         the X509 certificate
+     * @param trustAnchors a Set of TrustAnchor's
+     * @param sigProvider  the provider to use for signature verification
+     * @param sigCache     cache of verified signatures, may be null.
+     * @return the <code>TrustAnchor</code> object if found or
+     *         <code>null</code> if not.
+     * @throws AnnotatedException if a TrustAnchor was found but the signature verification
+     * on the given certificate has thrown an exception.
+     */
+    protected static TrustAnchor findTrustAnchor(
+        X509Certificate cert,
+        Set trustAnchors,
+        String sigProvider,
+        SignatureVerificationCache sigCache)
+        throws AnnotatedException
     {
         TrustAnchor trust = null;
         PublicKey trustPublicKey = null;
@@ -218,7 +245,7 @@ else if (trust.getCAName() != null
             {
                 try
                 {
-                    verifyX509Certificate(cert, trustPublicKey, sigProvider);
+                    verifyX509Certificate(cert, trustPublicKey, sigProvider, sigCache);
                 }
                 catch (Exception ex)
                 {
@@ -867,7 +894,8 @@ protected static void getCertStatus(
         Date validDate,
         X509CRL crl,
         Object cert,
-        CertStatus certStatus)
+        CertStatus certStatus,
+        PKIXCRLCache crlCache)
         throws AnnotatedException
     {
         X509CRLEntry crl_entry = null;
@@ -884,7 +912,7 @@ protected static void getCertStatus(
 
         if (isIndirect)
         {
-            crl_entry = crl.getRevokedCertificate(getSerialNumber(cert));
+            crl_entry = getRevokedCertificate(crl, getSerialNumber(cert), crlCache);
 
             if (crl_entry == null)
             {
@@ -914,7 +942,7 @@ else if (! PrincipalUtils.getEncodedIssuerPrincipal(cert).equals(PrincipalUtils.
         }
         else
         {
-            crl_entry = crl.getRevokedCertificate(getSerialNumber(cert));
+            crl_entry = getRevokedCertificate(crl, getSerialNumber(cert), crlCache);
 
             if (crl_entry == null)
             {
@@ -964,17 +992,29 @@ else if (! PrincipalUtils.getEncodedIssuerPrincipal(cert).equals(PrincipalUtils.
         }
     }
 
+    private static X509CRLEntry getRevokedCertificate(X509CRL crl, BigInteger serialNumber, PKIXCRLCache crlCache)
+    {
+        if (crlCache != null)
+        {
+            return crlCache.getRevokedCertificate(crl, serialNumber);
+        }
+
+        return crl.getRevokedCertificate(serialNumber);
+    }
+
     /**
      * Fetches delta CRLs according to RFC 3280 section 5.2.4.
      *
      * @param validityDate The date for which the delta CRLs must be valid.
      * @param completeCRL The complete CRL the delta CRL is for.
+     * @param crlCache A cache for the CRLs found, may be <code>null</code>.
      * @return A <code>Set</code> of <code>X509CRL</code>s with delta CRLs.
      * @throws AnnotatedException if an exception occurs while picking the delta
      * CRLs.
      */
     protected static Set getDeltaCRLs(Date validityDate,
-                                      X509CRL completeCRL, List<CertStore> certStores, List<PKIXCRLStore> pkixCrlStores)
+                                      X509CRL completeCRL, List<CertStore> certStores, List<PKIXCRLStore> pkixCrlStores,
+                                      PKIXCRLCache crlCache)
         throws AnnotatedException
     {
         X509CRLSelector baseDeltaSelect = new X509CRLSelector();
@@ -1035,7 +1075,7 @@ protected static Set getDeltaCRLs(Date validityDate,
         PKIXCRLStoreSelector deltaSelect = selBuilder.build();
 
         // find delta CRLs
-        Set temp = CRL_UTIL.findCRLs(deltaSelect, validityDate, certStores, pkixCrlStores);
+        Set temp = CRL_UTIL.findCRLs(deltaSelect, validityDate, certStores, pkixCrlStores, crlCache);
 
         Set result = new HashSet();
 
@@ -1111,7 +1151,7 @@ protected static Set getCompleteCRLs(DistributionPoint dp, Object cert,
             validityDate = paramsPKIX.getDate();
         }
 
-        Set crls = CRL_UTIL.findCRLs(crlSelect, validityDate, paramsPKIX.getCertStores(), paramsPKIX.getCRLStores());
+        Set crls = CRL_UTIL.findCRLs(crlSelect, validityDate, paramsPKIX.getCertStores(), paramsPKIX.getCRLStores(), paramsPKIX.getCRLCache());
 
         checkCRLsNotEmpty(crls, cert);
 
@@ -1335,6 +1375,32 @@ protected static void verifyX509Certificate(X509Certificate cert, PublicKey publ
         }
     }
 
+    /**
+     * Verify the signature on cert, skipping the check if the signature is recorded in cache as already
+     * verified with publicKey, and recording it in cache if the check succeeds.
+     */
+    protected static void verifyX509Certificate(X509Certificate cert, PublicKey publicKey,
+                                                String sigProvider, SignatureVerificationCache cache)
+        throws GeneralSecurityException
+    {
+        byte[] keyEncoding = (cache != null) ? publicKey.getEncoded() : null;
+
+        if (keyEncoding == null)
+        {
+            verifyX509Certificate(cert, publicKey, sigProvider);
+            return;
+        }
+
+        byte[] certEncoding = cert.getEncoded();
+
+        if (!cache.isVerified(certEncoding, keyEncoding))
+        {
+            verifyX509Certificate(cert, publicKey, sigProvider);
+
+            cache.addVerified(certEncoding, keyEncoding);
+        }
+    }
+
     static void checkCRLsNotEmpty(Set crls, Object cert)
         throws AnnotatedException
     {
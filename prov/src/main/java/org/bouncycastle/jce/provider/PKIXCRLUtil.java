@@ -4,6 +4,7 @@
 import java.security.cert.CertStoreException;
 import java.security.cert.X509CRL;
 import java.security.cert.X509Certificate;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashSet;
@@ -11,6 +12,7 @@
 import java.util.List;
 import java.util.Set;
 
+import org.bouncycastle.jcajce.PKIXCRLCache;
 import org.bouncycastle.jcajce.PKIXCRLStore;
 import org.bouncycastle.jcajce.PKIXCRLStoreSelector;
 import org.bouncycastle.util.Store;
@@ -18,20 +20,43 @@
 
 class PKIXCRLUtil
 {
-    public Set findCRLs(PKIXCRLStoreSelector crlselect, Date validityDate, List certStores, List pkixCrlStores)
+    public Set findCRLs(PKIXCRLStoreSelector crlselect, Date validityDate, List certStores, List pkixCrlStores, PKIXCRLCache crlCache)
         throws AnnotatedException
     {
         Set initialSet = new HashSet();
 
-        // get complete CRL(s)
-        try
+        List stores = null;
+        Collection cached = null;
+
+        if (crlCache != null)
+        {
+            stores = new ArrayList(pkixCrlStores);
+            stores.addAll(certStores);
+
+            cached = crlCache.getCRLs(crlselect, stores);
+        }
+
+        if (cached != null)
         {
-            initialSet.addAll(findCRLs(crlselect, pkixCrlStores));
-            initialSet.addAll(findCRLs(crlselect, certStores));
+            initialSet.addAll(cached);
         }
-        catch (AnnotatedException e)
+        else
         {
-            throw new AnnotatedException("Exception obtaining complete CRLs.", e);
+            // get complete CRL(s)
+            try
+            {
+                initialSet.addAll(findCRLs(crlselect, pkixCrlStores));
+                initialSet.addAll(findCRLs(crlselect, certStores));
+            }
+            catch (AnnotatedException e)
+            {
+                throw new AnnotatedException("Exception obtaining complete CRLs.", e);
+            }
+
+            if (crlCache != null)
+            {
+                crlCache.addCRLs(crlselect, stores, initialSet);
+            }
         }
 
         Set finalSet = new HashSet();
@@ -0,0 +1,385 @@
+package org.bouncycastle.jce.provider;
+
+import java.security.InvalidAlgorithmParameterException;
+import java.security.cert.CertPath;
+import java.security.cert.CertPathBuilderException;
+import java.security.cert.CertPathBuilderResult;
+import java.security.cert.CertPathBuilderSpi;
+import java.security.cert.CertPathParameters;
+import java.security.cert.PKIXCertPathBuilderResult;
+import java.security.cert.PKIXCertPathValidatorResult;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.bouncycastle.jcajce.PKIXExtendedBuilderParameters;
+import org.bouncycastle.jcajce.PKIXPartialPathCache;
+import org.bouncycastle.jcajce.provider.asymmetric.x509.CertificateFactory;
+import org.bouncycastle.util.FutureTasks;
+
+/**
+ * A PKIX CertPathBuilder which remembers the partial paths, from an intermediate certificate to
+ * a trust anchor, of paths it has successfully built, and which can optionally search alternative
+ * issuers concurrently.
+ * <p>
+ * Where an intermediate certificate has a cached partial path it is tried before any issuer search
+ * is done. Any path constructed is always validated in full against the current parameters, so a
+ * cached partial path is never trusted in its own right - if validation fails the entry is removed
+ * and the builder falls back to searching for issuers as usual.
+ * </p><p>
+ * Where an Executor is provided and a certificate has more than one candidate issuer, each
+ * candidate is explored as a separate task. The building thread runs any task the executor has not
+ * yet started itself, so a bounded or busy executor cannot deadlock a build. The path returned is
+ * the first successful one in candidate order, so results are the same as for a sequential search
+ * over the same candidates.
+ * </p><p>
+ * The provider registers this builder as "PKIX-CACHING". Instances created through the JCA share
+ * a process wide cache, in which partial paths are held against the trust anchors they were built
+ * for, so builders with different trust anchors do not see each other's paths.
+ * </p>
+ */
+public class PKIXCachingCertPathBuilderSpi
+    extends CertPathBuilderSpi
+{
+    private static final PKIXPartialPathCache defaultCache = new PKIXPartialPathCache(1024, 60 * 60 * 1000L);
+
+    private final PKIXPartialPathCache cache;
+    private final Executor executor;
+
+    /**
+     * Default constructor - the process wide cache is used and issuers are searched sequentially.
+     */
+    public PKIXCachingCertPathBuilderSpi()
+    {
+        this(defaultCache, null);
+    }
+
+    /**
+     * Base constructor.
+     *
+     * @param cache the cache of partial paths to use.
+     * @param executor an executor for searching alternative issuers, null if searches should be sequential.
+     */
+    public PKIXCachingCertPathBuilderSpi(PKIXPartialPathCache cache, Executor executor)
+    {
+        if (cache == null)
+        {
+            throw new NullPointerException("cache cannot be null");
+        }
+
+        this.cache = cache;
+        this.executor = executor;
+    }
+
+    public CertPathBuilderResult engineBuild(CertPathParameters params)
+        throws CertPathBuilderException, InvalidAlgorithmParameterException
+    {
+        PKIXExtendedBuilderParameters paramsPKIX = PKIXCertPathBuilderSpi.getBuilderParameters(params);
+
+        Collection targets = PKIXCertPathBuilderSpi.findTargets(paramsPKIX);
+
+        Builder builder = new Builder(paramsPKIX);
+        CertPathBuilderResult result = null;
+
+        // check all potential target certificates
+        Iterator targetIter = targets.iterator();
+        while (targetIter.hasNext() && result == null)
+        {
+            X509Certificate cert = (X509Certificate)targetIter.next();
+            result = builder.build(cert, new ArrayList());
+        }
+
+        Exception certPathException = builder.certPathException;
+
+        if (result == null && certPathException != null)
+        {
+            if (certPathException instanceof AnnotatedException)
+            {
+                throw new CertPathBuilderException(certPathException.getMessage(), certPathException.getCause());
+            }
+            throw new CertPathBuilderException(
+                "Possible certificate chain could not be validated.",
+                certPathException);
+        }
+
+        if (result == null && certPathException == null)
+        {
+            throw new CertPathBuilderException(
+                "Unable to find certificate chain.");
+        }
+
+        return result;
+    }
+
+    private class Builder
+    {
+        private final PKIXExtendedBuilderParameters pkixParams;
+        private final Set trustAnchors;
+
+        private volatile Exception certPathException;
+
+        Builder(PKIXExtendedBuilderParameters pkixParams)
+        {
+            this.pkixParams = pkixParams;
+            this.trustAnchors = pkixParams.getBaseParameters().getTrustAnchors();
+        }
+
+        CertPathBuilderResult build(X509Certificate tbvCert, List tbvPath)
+        {
+            if (!canExtend(tbvPath, tbvCert))
+            {
+                return null;
+            }
+
+            tbvPath.add(tbvCert);
+
+            CertPathBuilderResult builderResult = null;
+
+            try
+            {
+                // check whether the issuer of <tbvCert> is a TrustAnchor
+                if (CertPathValidatorUtilities.findTrustAnchor(tbvCert, trustAnchors,
+                    pkixParams.getBaseParameters().getSigProvider(), pkixParams.getBaseParameters().getSignatureVerificationCache()) != null)
+                {
+                    builderResult = validate(tbvPath);
+
+                    // everything after the target leads to a trust anchor
+                    for (int i = 1; i < tbvPath.size(); i++)
+                    {
+                        cache.addPartialPath(trustAnchors, tbvPath.subList(i, tbvPath.size()));
+                    }
+                }
+                else
+                {
+                    builderResult = buildFromCache(tbvCert, tbvPath);
+
+                    if (builderResult == null)
+                    {
+                        List issuers = new ArrayList(PKIXCertPathBuilderSpi.findIssuers(tbvCert, pkixParams));
+
+                        if (executor != null && issuers.size() > 1)
+                        {
+                            builderResult = buildConcurrently(issuers, tbvPath);
+                        }
+                        else
+                        {
+                            Iterator it = issuers.iterator();
+
+                            while (it.hasNext() && builderResult == null)
+                            {
+                                X509Certificate issuer = (X509Certificate)it.next();
+                                builderResult = build(issuer, tbvPath);
+                            }
+                        }
+                    }
+                }
+            }
+            catch (AnnotatedException e)
+            {
+                certPathException = e;
+            }
+            if (builderResult == null)
+            {
+                tbvPath.remove(tbvPath.size() - 1);
+            }
+            return builderResult;
+        }
+
+        private boolean canExtend(List tbvPath, X509Certificate cert)
+        {
+            // If cert is readily present in tbvPath, it indicates having run
+            // into a cycle in the PKI graph.
+            if (tbvPath.contains(cert))
+            {
+                return false;
+            }
+            // step out, the certificate is not allowed to appear in a certification
+            // chain.
+            if (pkixParams.getExcludedCerts().contains(cert))
+            {
+                return false;
+            }
+            // test if certificate path exceeds maximum length
+            if (pkixParams.getMaxPathLength() != -1)
+            {
+                if (tbvPath.size() - 1 > pkixParams.getMaxPathLength())
+                {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        private CertPathBuilderResult buildFromCache(X509Certificate tbvCert, List tbvPath)
+        {
+            List partialPath = cache.getPartialPath(trustAnchors, tbvCert, CertPathValidatorUtilities.getValidDate(pkixParams.getBaseParameters()));
+
+            if (partialPath == null)
+            {
+                return null;
+            }
+
+            // the partial path starts with tbvCert, which is already in tbvPath
+            List path = new ArrayList(tbvPath);
+            for (int i = 1; i != partialPath.size(); i++)
+            {
+                X509Certificate cert = (X509Certificate)partialPath.get(i);
+
+                if (!canExtend(path, cert))
+                {
+                    return null;
+                }
+
+                path.add(cert);
+            }
+
+            try
+            {
+                CertPathBuilderResult result = validate(path);
+
+                tbvPath.clear();
+                tbvPath.addAll(path);
+
+                return result;
+            }
+            catch (AnnotatedException e)
+            {
+                // no longer usable - forget it and search as usual.
+                cache.removePartialPath(trustAnchors, tbvCert);
+
+                return null;
+            }
+        }
+
+        private CertPathBuilderResult buildConcurrently(List issuers, List tbvPath)
+            throws AnnotatedException
+        {
+            List tasks = new ArrayList(issuers.size());
+
+            for (Iterator it = issuers.iterator(); it.hasNext();)
+            {
+                final X509Certificate issuer = (X509Certificate)it.next();
+                final List branchPath = new ArrayList(tbvPath);
+
+                FutureTask task = new FutureTask(new Callable()
+                {
+                    public Object call()
+                    {
+                        return build(issuer, branchPath);
+                    }
+                });
+
+                try
+                {
+                    executor.execute(task);
+                }
+                catch (RejectedExecutionException e)
+                {
+                    // the task will be run by this thread below.
+                }
+
+                tasks.add(task);
+            }
+
+            CertPathBuilderResult builderResult = null;
+
+            try
+            {
+                for (int i = 0; i != tasks.size() && builderResult == null; i++)
+                {
+                    builderResult = (CertPathBuilderResult)FutureTasks.runAndGet((FutureTask)tasks.get(i));
+                }
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+
+                throw new AnnotatedException("Interrupted while building certification path.", e);
+            }
+            catch (ExecutionException e)
+            {
+                Throwable cause = e.getCause();
+
+                if (cause instanceof RuntimeException)
+                {
+                    throw (RuntimeException)cause;
+                }
+                if (cause instanceof Error)
+                {
+                    throw (Error)cause;
+                }
+                throw new AnnotatedException("Exception building certification path.", cause);
+            }
+            finally
+            {
+                for (int i = 0; i != tasks.size(); i++)
+                {
+                    ((FutureTask)tasks.get(i)).cancel(false);
+                }
+            }
+
+            if (builderResult != null)
+            {
+                tbvPath.clear();
+                tbvPath.addAll(((PKIXCertPathBuilderResult)builderResult).getCertPath().getCertificates());
+            }
+
+            return builderResult;
+        }
+
+        private CertPathBuilderResult validate(List certs)
+            throws AnnotatedException
+        {
+            CertificateFactory cFact;
+            PKIXCertPathValidatorSpi validator;
+
+            try
+            {
+                cFact = new CertificateFactory();
+                validator = new PKIXCertPathValidatorSpi();
+            }
+            catch (Exception e)
+            {
+                // cannot happen
+                throw new RuntimeException("Exception creating support classes.");
+            }
+
+            CertPath certPath;
+            PKIXCertPathValidatorResult result;
+            try
+            {
+                certPath = cFact.engineGenerateCertPath(new ArrayList(certs));
+            }
+            catch (Exception e)
+            {
+                throw new AnnotatedException(
+                    "Certification path could not be constructed from certificate list.",
+                    e);
+            }
+
+            try
+            {
+                result = (PKIXCertPathValidatorResult)validator.engineValidate(
+                    certPath, pkixParams);
+            }
+            catch (Exception e)
+            {
+                throw new AnnotatedException(
+                    "Certification path could not be validated.", e);
+            }
+
+            return new PKIXCertPathBuilderResult(certPath, result
+                .getTrustAnchor(), result.getPolicyTree(), result
+                .getPublicKey());
+        }
+    }
+}
@@ -43,6 +43,47 @@
      */
     public CertPathBuilderResult engineBuild(CertPathParameters params)
         throws CertPathBuilderException, InvalidAlgorithmParameterException
+    {
+        PKIXExtendedBuilderParameters paramsPKIX = getBuilderParameters(params);
+
+        Iterator targetIter;
+        List certPathList = new ArrayList();
+        X509Certificate cert;
+
+        Collection targets = findTargets(paramsPKIX);
+
+        CertPathBuilderResult result = null;
+
+        // check all potential target certificates
+        targetIter = targets.iterator();
+        while (targetIter.hasNext() && result == null)
+        {
+            cert = (X509Certificate) targetIter.next();
+            result = build(cert, paramsPKIX, certPathList);
+        }
+
+        if (result == null && certPathException != null)
+        {
+            if (certPathException instanceof AnnotatedException)
+            {
+                throw new CertPathBuilderException(certPathException.getMessage(), certPathException.getCause());
+            }
+            throw new CertPathBuilderException(
+                "Possible certificate chain could not be validated.",
+                certPathException);
+        }
+
+        if (result == null && certPathException == null)
+        {
+            throw new CertPathBuilderException(
+                "Unable to find certificate chain.");
+        }
+
+        return result;
+    }
+
+    static PKIXExtendedBuilderParameters getBuilderParameters(CertPathParameters params)
+        throws InvalidAlgorithmParameterException
     {
         PKIXExtendedBuilderParameters paramsPKIX;
         if (params instanceof PKIXBuilderParameters)
@@ -83,10 +124,13 @@ else if (params instanceof PKIXExtendedBuilderParameters)
                     + PKIXExtendedBuilderParameters.class.getName() + ".");
         }
 
+        return paramsPKIX;
+    }
+
+    static Collection findTargets(PKIXExtendedBuilderParameters paramsPKIX)
+        throws CertPathBuilderException
+    {
         Collection targets;
-        Iterator targetIter;
-        List certPathList = new ArrayList();
-        X509Certificate cert;
 
         // search target certificates
 
@@ -110,34 +154,7 @@ else if (params instanceof PKIXExtendedBuilderParameters)
                 "No certificate found matching targetContraints.");
         }
 
-        CertPathBuilderResult result = null;
-
-        // check all potential target certificates
-        targetIter = targets.iterator();
-        while (targetIter.hasNext() && result == null)
-        {
-            cert = (X509Certificate) targetIter.next();
-            result = build(cert, paramsPKIX, certPathList);
-        }
-
-        if (result == null && certPathException != null)
-        {
-            if (certPathException instanceof AnnotatedException)
-            {
-                throw new CertPathBuilderException(certPathException.getMessage(), certPathException.getCause());
-            }
-            throw new CertPathBuilderException(
-                "Possible certificate chain could not be validated.",
-                certPathException);
-        }
-
-        if (result == null && certPathException == null)
-        {
-            throw new CertPathBuilderException(
-                "Unable to find certificate chain.");
-        }
-
-        return result;
+        return targets;
     }
 
     private Exception certPathException;
@@ -223,41 +240,8 @@ protected CertPathBuilderResult build(X509Certificate tbvCert,
             }
             else
             {
-                List stores = new ArrayList();
-
-
-                stores.addAll(pkixParams.getBaseParameters().getCertificateStores());
+                Collection issuers = findIssuers(tbvCert, pkixParams);
 
-                // add additional X.509 stores from locations in certificate
-                try
-                {
-                    stores.addAll(CertPathValidatorUtilities.getAdditionalStoresFromAltNames(
-                        tbvCert.getExtensionValue(Extension.issuerAlternativeName.getId()), pkixParams.getBaseParameters().getNamedCertificateStoreMap()));
-                }
-                catch (CertificateParsingException e)
-                {
-                    throw new AnnotatedException(
-                        "No additional X.509 stores can be added from certificate locations.",
-                        e);
-                }
-                Collection issuers = new HashSet();
-                // try to get the issuer certificate from one
-                // of the stores
-                try
-                {
-                    issuers.addAll(CertPathValidatorUtilities.findIssuerCerts(tbvCert, pkixParams.getBaseParameters().getCertStores(), stores));
-                }
-                catch (AnnotatedException e)
-                {
-                    throw new AnnotatedException(
-                        "Cannot find issuer certificate for certificate in certification path.",
-                        e);
-                }
-                if (issuers.isEmpty())
-                {
-                    throw new AnnotatedException(
-                        "No issuer certificate for certificate in certification path found.");
-                }
                 Iterator it = issuers.iterator();
 
                 while (it.hasNext() && builderResult == null)
@@ -278,4 +262,45 @@ protected CertPathBuilderResult build(X509Certificate tbvCert,
         return builderResult;
     }
 
+    static Collection findIssuers(X509Certificate tbvCert, PKIXExtendedBuilderParameters pkixParams)
+        throws AnnotatedException
+    {
+        List stores = new ArrayList();
+
+
+        stores.addAll(pkixParams.getBaseParameters().getCertificateStores());
+
+        // add additional X.509 stores from locations in certificate
+        try
+        {
+            stores.addAll(CertPathValidatorUtilities.getAdditionalStoresFromAltNames(
+                tbvCert.getExtensionValue(Extension.issuerAlternativeName.getId()), pkixParams.getBaseParameters().getNamedCertificateStoreMap()));
+        }
+        catch (CertificateParsingException e)
+        {
+            throw new AnnotatedException(
+                "No additional X.509 stores can be added from certificate locations.",
+                e);
+        }
+        Collection issuers = new HashSet();
+        // try to get the issuer certificate from one
+        // of the stores
+        try
+        {
+            issuers.addAll(CertPathValidatorUtilities.findIssuerCerts(tbvCert, pkixParams.getBaseParameters().getCertStores(), stores));
+        }
+        catch (AnnotatedException e)
+        {
+            throw new AnnotatedException(
+                "Cannot find issuer certificate for certificate in certification path.",
+                e);
+        }
+        if (issuers.isEmpty())
+        {
+            throw new AnnotatedException(
+                "No issuer certificate for certificate in certification path found.");
+        }
+
+        return issuers;
+    }
 }
@@ -115,7 +115,7 @@ else if (params instanceof PKIXExtendedParameters)
         try
         {
             trust = CertPathValidatorUtilities.findTrustAnchor((X509Certificate) certs.get(certs.size() - 1),
-                    paramsPKIX.getTrustAnchors(), paramsPKIX.getSigProvider());
+                    paramsPKIX.getTrustAnchors(), paramsPKIX.getSigProvider(), paramsPKIX.getSignatureVerificationCache());
         }
         catch (AnnotatedException e)
         {
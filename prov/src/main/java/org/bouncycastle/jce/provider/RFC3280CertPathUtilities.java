@@ -53,6 +53,7 @@
 import org.bouncycastle.asn1.x509.IssuingDistributionPoint;
 import org.bouncycastle.asn1.x509.NameConstraints;
 import org.bouncycastle.asn1.x509.PolicyInformation;
+import org.bouncycastle.jcajce.PKIXCRLCache;
 import org.bouncycastle.jcajce.PKIXCRLStore;
 import org.bouncycastle.jcajce.PKIXCRLStoreSelector;
 import org.bouncycastle.jcajce.PKIXCertStoreSelector;
@@ -583,7 +584,8 @@ protected static Set processCRLF(
 
     protected static PublicKey processCRLG(
         X509CRL crl,
-        Set keys)
+        Set keys,
+        PKIXCRLCache crlCache)
         throws AnnotatedException
     {
         Exception lastException = null;
@@ -592,7 +594,7 @@ protected static PublicKey processCRLG(
             PublicKey key = (PublicKey)it.next();
             try
             {
-                crl.verify(key);
+                verifyCRL(crl, key, crlCache);
                 return key;
             }
             catch (Exception e)
@@ -605,7 +607,8 @@ protected static PublicKey processCRLG(
 
     protected static X509CRL processCRLH(
         Set deltacrls,
-        PublicKey key)
+        PublicKey key,
+        PKIXCRLCache crlCache)
         throws AnnotatedException
     {
         Exception lastException = null;
@@ -615,7 +618,7 @@ protected static X509CRL processCRLH(
             X509CRL crl = (X509CRL)it.next();
             try
             {
-                crl.verify(key);
+                verifyCRL(crl, key, crlCache);
                 return crl;
             }
             catch (Exception e)
@@ -631,6 +634,20 @@ protected static X509CRL processCRLH(
         return null;
     }
 
+    private static void verifyCRL(X509CRL crl, PublicKey key, PKIXCRLCache crlCache)
+        throws Exception
+    {
+        if (crlCache == null)
+        {
+            crl.verify(key);
+        }
+        else if (!crlCache.isVerified(crl, key))
+        {
+            crl.verify(key);
+            crlCache.addVerified(crl, key);
+        }
+    }
+
     protected static Set processCRLA1i(
         Date currentDate,
         PKIXExtendedParameters paramsPKIX,
@@ -682,7 +699,7 @@ protected static Set processCRLA1i(
                 // get delta CRL(s)
                 try
                 {
-                    set.addAll(CertPathValidatorUtilities.getDeltaCRLs(currentDate, crl, paramsPKIX.getCertStores(), crlStores));
+                    set.addAll(CertPathValidatorUtilities.getDeltaCRLs(currentDate, crl, paramsPKIX.getCertStores(), crlStores, paramsPKIX.getCRLCache()));
                 }
                 catch (AnnotatedException e)
                 {
@@ -722,14 +739,14 @@ protected static Set[] processCRLA1ii(
             validityDate = paramsPKIX.getDate();
         }
 
-        Set completeSet = CRL_UTIL.findCRLs(extSelect, validityDate, paramsPKIX.getCertStores(), paramsPKIX.getCRLStores());
+        Set completeSet = CRL_UTIL.findCRLs(extSelect, validityDate, paramsPKIX.getCertStores(), paramsPKIX.getCRLStores(), paramsPKIX.getCRLCache());
 
         if (paramsPKIX.isUseDeltasEnabled())
         {
             // get delta CRL(s)
             try
             {
-                deltaSet.addAll(CertPathValidatorUtilities.getDeltaCRLs(validityDate, crl, paramsPKIX.getCertStores(), paramsPKIX.getCRLStores()));
+                deltaSet.addAll(CertPathValidatorUtilities.getDeltaCRLs(validityDate, crl, paramsPKIX.getCertStores(), paramsPKIX.getCRLStores(), paramsPKIX.getCRLCache()));
             }
             catch (AnnotatedException e)
             {
@@ -868,7 +885,7 @@ protected static void processCRLI(
     {
         if (pkixParams.isUseDeltasEnabled() && deltacrl != null)
         {
-            CertPathValidatorUtilities.getCertStatus(validDate, deltacrl, cert, certStatus);
+            CertPathValidatorUtilities.getCertStatus(validDate, deltacrl, cert, certStatus, pkixParams.getCRLCache());
         }
     }
 
@@ -876,12 +893,13 @@ protected static void processCRLJ(
         Date validDate,
         X509CRL completecrl,
         Object cert,
-        CertStatus certStatus)
+        CertStatus certStatus,
+        PKIXCRLCache crlCache)
         throws AnnotatedException
     {
         if (certStatus.getCertStatus() == CertStatus.UNREVOKED)
         {
-            CertPathValidatorUtilities.getCertStatus(validDate, completecrl, cert, certStatus);
+            CertPathValidatorUtilities.getCertStatus(validDate, completecrl, cert, certStatus, crlCache);
         }
     }
 
@@ -1499,7 +1517,7 @@ protected static void processCertA(
                 // (a) (1)
                 //
                 CertPathValidatorUtilities.verifyX509Certificate(cert, workingPublicKey,
-                    paramsPKIX.getSigProvider());
+                    paramsPKIX.getSigProvider(), paramsPKIX.getSignatureVerificationCache());
             }
             catch (GeneralSecurityException e)
             {
@@ -1808,7 +1826,7 @@ private static void checkCRL(
                 Set keys = RFC3280CertPathUtilities.processCRLF(crl, cert, defaultCRLSignCert, defaultCRLSignKey,
                     paramsPKIX, certPathCerts, helper);
                 // (g)
-                PublicKey key = RFC3280CertPathUtilities.processCRLG(crl, keys);
+                PublicKey key = RFC3280CertPathUtilities.processCRLG(crl, keys, paramsPKIX.getCRLCache());
 
                 X509CRL deltaCRL = null;
 
@@ -1822,10 +1840,10 @@ private static void checkCRL(
                 if (paramsPKIX.isUseDeltasEnabled())
                 {
                     // get delta CRLs
-                    Set deltaCRLs = CertPathValidatorUtilities.getDeltaCRLs(validityDate, crl, paramsPKIX.getCertStores(), paramsPKIX.getCRLStores());
+                    Set deltaCRLs = CertPathValidatorUtilities.getDeltaCRLs(validityDate, crl, paramsPKIX.getCertStores(), paramsPKIX.getCRLStores(), paramsPKIX.getCRLCache());
                     // we only want one valid delta CRL
                     // (h)
-                    deltaCRL = RFC3280CertPathUtilities.processCRLH(deltaCRLs, key);
+                    deltaCRL = RFC3280CertPathUtilities.processCRLH(deltaCRLs, key, paramsPKIX.getCRLCache());
                 }
 
                 /*
@@ -1866,7 +1884,7 @@ private static void checkCRL(
                 RFC3280CertPathUtilities.processCRLI(validDate, deltaCRL, cert, certStatus, paramsPKIX);
 
                 // (j)
-                RFC3280CertPathUtilities.processCRLJ(validDate, crl, cert, certStatus);
+                RFC3280CertPathUtilities.processCRLJ(validDate, crl, cert, certStatus, paramsPKIX.getCRLCache());
 
                 // (k)
                 if (certStatus.getCertStatus() == CRLReason.removeFromCRL)
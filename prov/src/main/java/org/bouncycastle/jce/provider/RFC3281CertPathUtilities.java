@@ -639,18 +639,18 @@ private static void checkCRL(DistributionPoint dp,
                 // (f)
                 Set keys = RFC3280CertPathUtilities.processCRLF(crl, attrCert, null, null, paramsPKIX, certPathCerts, helper);
                 // (g)
-                PublicKey key = RFC3280CertPathUtilities.processCRLG(crl, keys);
+                PublicKey key = RFC3280CertPathUtilities.processCRLG(crl, keys, paramsPKIX.getCRLCache());
 
                 X509CRL deltaCRL = null;
 
                 if (paramsPKIX.isUseDeltasEnabled())
                 {
                     // get delta CRLs
-                    Set deltaCRLs = CertPathValidatorUtilities.getDeltaCRLs(currentDate, crl, paramsPKIX.getCertStores(), paramsPKIX.getCRLStores());
+                    Set deltaCRLs = CertPathValidatorUtilities.getDeltaCRLs(currentDate, crl, paramsPKIX.getCertStores(), paramsPKIX.getCRLStores(), paramsPKIX.getCRLCache());
                     // we only want one valid delta CRL
                     // (h)
                     deltaCRL = RFC3280CertPathUtilities.processCRLH(deltaCRLs,
-                        key);
+                        key, paramsPKIX.getCRLCache());
                 }
 
                 /*
@@ -695,7 +695,7 @@ private static void checkCRL(DistributionPoint dp,
 
                 // (j)
                 RFC3280CertPathUtilities.processCRLJ(validDate, crl, attrCert,
-                    certStatus);
+                    certStatus, paramsPKIX.getCRLCache());
 
                 // (k)
                 if (certStatus.getCertStatus() == CRLReason.removeFromCRL)
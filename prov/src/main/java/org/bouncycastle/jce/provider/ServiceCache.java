@@ -0,0 +1,312 @@
+package org.bouncycastle.jce.provider;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.security.NoSuchAlgorithmException;
+import java.security.Provider;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A cache of the services found by a provider, keyed by the type and algorithm name exactly as they
+ * were looked up. The services returned create their implementations through a constructor found
+ * once, rather than on each call, and so do not call back into the provider's own services.
+ * <p>
+ * Lookups which found nothing are only cached for Cipher transformations, which the JCA asks for
+ * before the algorithm name, so failing is the usual outcome. At most MAX_NOT_FOUND of these are
+ * held, the lot being dropped when the limit is reached, so arbitrary names cannot grow the cache.
+ * </p><p>
+ * Hits and misses are counted in stripes chosen by thread, each on its own cache line, so threads
+ * looking up services at the same time do not contend on a single counter.
+ * </p><p>
+ * The cache must be invalidated whenever the provider's entries change.
+ * </p>
+ */
+class ServiceCache
+{
+    private static final Object NOT_FOUND = new Object();
+    private static final int MAX_NOT_FOUND = 256;
+
+    private static final int STRIPES = 16;
+    private static final int STRIPE_SPACING = 8;    // longs per 64 byte cache line
+
+    private final Provider provider;
+    private final ConcurrentHashMap types = new ConcurrentHashMap();
+    private final ConcurrentHashMap notFound = new ConcurrentHashMap();
+    private final AtomicInteger generation = new AtomicInteger();
+    private final AtomicLongArray hits = new AtomicLongArray(STRIPES * STRIPE_SPACING);
+    private final AtomicLongArray misses = new AtomicLongArray(STRIPES * STRIPE_SPACING);
+
+    ServiceCache(Provider provider)
+    {
+        this.provider = provider;
+    }
+
+    /**
+     * Return the cached result of a lookup, null if there is none.
+     */
+    Object get(String type, String algorithm)
+    {
+        ConcurrentHashMap algorithms = (ConcurrentHashMap)types.get(type);
+        Object entry = (algorithms == null) ? null : algorithms.get(algorithm);
+
+        if (entry == null && isTransformation(type, algorithm))
+        {
+            entry = notFound.get(algorithm);
+        }
+
+        int stripe = ((int)Thread.currentThread().getId() & (STRIPES - 1)) * STRIPE_SPACING;
+        if (entry != null)
+        {
+            hits.incrementAndGet(stripe);
+        }
+        else
+        {
+            misses.incrementAndGet(stripe);
+        }
+
+        return entry;
+    }
+
+    int getGeneration()
+    {
+        return generation.get();
+    }
+
+    /**
+     * Cache the result of a lookup started when the cache was at the passed in generation.
+     *
+     * @return the service to return from the lookup.
+     */
+    Provider.Service put(int generation, String type, String algorithm, Provider.Service service)
+    {
+        if (service == null)
+        {
+            if (isTransformation(type, algorithm) && generation == this.generation.get())
+            {
+                if (notFound.size() >= MAX_NOT_FOUND)
+                {
+                    notFound.clear();
+                }
+
+                notFound.put(algorithm, NOT_FOUND);
+
+                // the provider may have changed while the result was being stored.
+                if (generation != this.generation.get())
+                {
+                    notFound.remove(algorithm, NOT_FOUND);
+                }
+            }
+
+            return null;
+        }
+
+        Object entry = new CachedService(provider, service);
+
+        if (generation == this.generation.get())
+        {
+            ConcurrentHashMap algorithms = (ConcurrentHashMap)types.get(type);
+            if (algorithms == null)
+            {
+                ConcurrentHashMap newAlgorithms = new ConcurrentHashMap();
+
+                algorithms = (ConcurrentHashMap)types.putIfAbsent(type, newAlgorithms);
+                if (algorithms == null)
+                {
+                    algorithms = newAlgorithms;
+                }
+            }
+
+            algorithms.put(algorithm, entry);
+
+            // the provider may have changed while the result was being stored.
+            if (generation != this.generation.get())
+            {
+                algorithms.remove(algorithm, entry);
+            }
+        }
+
+        return (Provider.Service)entry;
+    }
+
+    void invalidate()
+    {
+        generation.incrementAndGet();
+        types.clear();
+        notFound.clear();
+    }
+
+    static Provider.Service toService(Object entry)
+    {
+        return (entry == NOT_FOUND) ? null : (Provider.Service)entry;
+    }
+
+    long getHits()
+    {
+        return sum(hits);
+    }
+
+    long getMisses()
+    {
+        return sum(misses);
+    }
+
+    /**
+     * Load and initialise the class of a service returned by the cache, and find its constructor.
+     */
+    static void warmUp(Provider.Service service)
+    {
+        if (service instanceof CachedService)
+        {
+            try
+            {
+                ((CachedService)service).getConstructor();
+            }
+            catch (NoSuchAlgorithmException e)
+            {
+                // the error will be reported when an instance is requested.
+            }
+        }
+    }
+
+    private static long sum(AtomicLongArray counts)
+    {
+        long total = 0;
+
+        for (int i = 0; i < counts.length(); i += STRIPE_SPACING)
+        {
+            total += counts.get(i);
+        }
+
+        return total;
+    }
+
+    private static boolean isTransformation(String type, String algorithm)
+    {
+        return type.equalsIgnoreCase("Cipher") && algorithm.indexOf('/') >= 0;
+    }
+
+    private static class CachedService
+        extends Provider.Service
+    {
+        private final Provider.Service service;
+
+        private volatile Class implClass;
+        private volatile Constructor constructor;
+
+        CachedService(Provider provider, Provider.Service service)
+        {
+            super(provider, service.getType(), service.getAlgorithm(), service.getClassName(), null, null);
+
+            this.service = service;
+        }
+
+        public Object newInstance(Object constructorParameter)
+            throws NoSuchAlgorithmException
+        {
+            try
+            {
+                if (constructorParameter == null)
+                {
+                    return getConstructor().newInstance(new Object[0]);
+                }
+
+                // only a few types, such as CertStore, take a parameter - so the constructor is not cached.
+                Constructor[] cons = getImplClass().getConstructors();
+                for (int i = 0; i != cons.length; i++)
+                {
+                    Class[] paramTypes = cons[i].getParameterTypes();
+
+                    if (paramTypes.length == 1 && paramTypes[0].isInstance(constructorParameter))
+                    {
+                        return cons[i].newInstance(new Object[] { constructorParameter });
+                    }
+                }
+
+                throw new NoSuchAlgorithmException("No public constructor matching "
+                    + constructorParameter.getClass().getName() + " found in class " + getClassName());
+            }
+            catch (NoSuchAlgorithmException e)
+            {
+                throw e;
+            }
+            catch (InvocationTargetException e)
+            {
+                throw constructionException(e.getCause());
+            }
+            catch (Exception e)
+            {
+                throw constructionException(e);
+            }
+        }
+
+        public boolean supportsParameter(Object parameter)
+        {
+            return service.supportsParameter(parameter);
+        }
+
+        Constructor getConstructor()
+            throws NoSuchAlgorithmException
+        {
+            Constructor c = constructor;
+
+            if (c == null)
+            {
+                try
+                {
+                    c = getImplClass().getConstructor(new Class[0]);
+                }
+                catch (NoSuchMethodException e)
+                {
+                    throw constructionException(e);
+                }
+                constructor = c;
+            }
+
+            return c;
+        }
+
+        private Class getImplClass()
+            throws NoSuchAlgorithmException
+        {
+            Class clazz = implClass;
+
+            if (clazz == null)
+            {
+                try
+                {
+                    ClassLoader loader = getProvider().getClass().getClassLoader();
+
+                    if (loader != null)
+                    {
+                        clazz = Class.forName(getClassName(), true, loader);
+                    }
+                    else
+                    {
+                        clazz = Class.forName(getClassName());
+                    }
+                }
+                catch (ClassNotFoundException e)
+                {
+                    NoSuchAlgorithmException ex = new NoSuchAlgorithmException("class configured for " + getType()
+                        + " (provider: " + getProvider().getName() + ") cannot be found.");
+                    ex.initCause(e);
+                    throw ex;
+                }
+                implClass = clazz;
+            }
+
+            return clazz;
+        }
+
+        private NoSuchAlgorithmException constructionException(Throwable cause)
+        {
+            NoSuchAlgorithmException ex = new NoSuchAlgorithmException("Error constructing implementation (algorithm: "
+                + getAlgorithm() + ", provider: " + getProvider().getName() + ", class: " + getClassName() + ")");
+            ex.initCause(cause);
+
+            return ex;
+        }
+    }
+}
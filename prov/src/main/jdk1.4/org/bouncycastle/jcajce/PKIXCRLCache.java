@@ -0,0 +1,388 @@
+package org.bouncycastle.jcajce;
+
+import java.math.BigInteger;
+import java.security.PublicKey;
+import java.security.cert.CRLSelector;
+import java.security.cert.X509CRL;
+import java.security.cert.X509CRLEntry;
+import java.security.cert.X509CRLSelector;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.bouncycastle.asn1.ASN1OctetString;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.IssuingDistributionPoint;
+import org.bouncycastle.util.Arrays;
+
+/**
+ * A cache for CRLs used in revocation checking, intended to be shared across validations, and
+ * threads, where the same issuers and CRL distribution points keep coming up.
+ * <p>
+ * Three things are remembered:
+ * <ul>
+ * <li>the CRLs found in a given list of stores for a given CRL search, covering the issuer names,
+ * issuing distribution point and base CRL number criteria used for complete and delta CRLs. An
+ * entry lapses at the earliest nextUpdate of the CRLs it holds, or after the maximum age given at
+ * construction, whichever comes first, at which point the stores are searched again.</li>
+ * <li>the public keys a CRL's signature has been verified with, so each CRL is only verified once.</li>
+ * <li>an index of a CRL's revoked certificates by serial number, so checking a certificate against
+ * a CRL does not involve a scan of the CRL's entries.</li>
+ * </ul>
+ * CRLs found are still subject to the usual checks for each validation, only the store searches,
+ * signature verifications and entry scans are saved.
+ * </p>
+ */
+public class PKIXCRLCache
+{
+    private final long maxAge;
+    private final Map searches;
+    private final Map details = new WeakHashMap();
+
+    /**
+     * Base constructor.
+     *
+     * @param maxEntries the maximum number of CRL search results to hold.
+     * @param maxAge the maximum time, in milliseconds, a search result will be held for.
+     */
+    public PKIXCRLCache(final int maxEntries, long maxAge)
+    {
+        if (maxEntries < 1)
+        {
+            throw new IllegalArgumentException("maxEntries must be at least 1");
+        }
+        if (maxAge < 1)
+        {
+            throw new IllegalArgumentException("maxAge must be positive");
+        }
+
+        this.maxAge = maxAge;
+        this.searches = new LinkedHashMap(16, 0.75f, true)
+        {
+            protected boolean removeEldestEntry(Map.Entry eldest)
+            {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Return the CRLs previously found in the passed in stores for the search described by selector.
+     *
+     * @param selector the selector describing the CRL search.
+     * @param stores the stores searched.
+     * @return the CRLs found, null if the search is not cached or the cached result has lapsed.
+     */
+    public Collection getCRLs(PKIXCRLStoreSelector selector, List stores)
+    {
+        SearchKey key = SearchKey.create(selector, stores);
+
+        if (key == null)
+        {
+            return null;
+        }
+
+        long now = System.currentTimeMillis();
+
+        synchronized (searches)
+        {
+            SearchResult result = (SearchResult)searches.get(key);
+
+            if (result == null)
+            {
+                return null;
+            }
+
+            if (result.expiry <= now)
+            {
+                searches.remove(key);
+                return null;
+            }
+
+            return result.crls;
+        }
+    }
+
+    /**
+     * Record the CRLs found in the passed in stores for the search described by selector. Empty
+     * results are not recorded.
+     *
+     * @param selector the selector describing the CRL search.
+     * @param stores the stores searched.
+     * @param crls the CRLs found.
+     */
+    public void addCRLs(PKIXCRLStoreSelector selector, List stores, Collection crls)
+    {
+        SearchKey key = SearchKey.create(selector, stores);
+
+        if (key == null || crls.isEmpty())
+        {
+            return;
+        }
+
+        long expiry = System.currentTimeMillis() + maxAge;
+        for (Iterator it = crls.iterator(); it.hasNext();)
+        {
+            Date nextUpdate = ((X509CRL)it.next()).getNextUpdate();
+
+            if (nextUpdate != null)
+            {
+                expiry = Math.min(expiry, nextUpdate.getTime());
+            }
+        }
+
+        SearchResult result = new SearchResult(Collections.unmodifiableSet(new HashSet(crls)), expiry);
+
+        synchronized (searches)
+        {
+            searches.put(key, result);
+        }
+    }
+
+    /**
+     * Return true if the signature on crl has been recorded as verified by key.
+     *
+     * @param crl the CRL of interest.
+     * @param key the public key the CRL is being verified with.
+     * @return true if the CRL's signature is known to be valid for key, false otherwise.
+     */
+    public boolean isVerified(X509CRL crl, PublicKey key)
+    {
+        synchronized (details)
+        {
+            CRLDetails crlDetails = (CRLDetails)details.get(crl);
+
+            return crlDetails != null && crlDetails.verifiedKeys.contains(key);
+        }
+    }
+
+    /**
+     * Record that the signature on crl has been verified by key.
+     *
+     * @param crl the CRL which has been verified.
+     * @param key the public key the CRL was verified with.
+     */
+    public void addVerified(X509CRL crl, PublicKey key)
+    {
+        synchronized (details)
+        {
+            getDetails(crl).verifiedKeys.add(key);
+        }
+    }
+
+    /**
+     * Return the entry for serialNumber in crl, using an index of the CRL's entries built on first use.
+     * Indirect CRLs, where the same serial number may appear for different certificate issuers, are
+     * not indexed and are simply searched.
+     *
+     * @param crl the CRL to look in.
+     * @param serialNumber the serial number of the certificate of interest.
+     * @return the CRL entry for serialNumber, null if there isn't one.
+     */
+    public X509CRLEntry getRevokedCertificate(X509CRL crl, BigInteger serialNumber)
+    {
+        Map index;
+
+        synchronized (details)
+        {
+            index = getDetails(crl).revokedCertificates;
+        }
+
+        if (index == null)
+        {
+            if (isIndirect(crl))
+            {
+                return crl.getRevokedCertificate(serialNumber);
+            }
+
+            // build outside the lock, a concurrent duplicate build does no harm.
+            index = new HashMap();
+
+            Set entries = crl.getRevokedCertificates();
+            if (entries != null)
+            {
+                for (Iterator it = entries.iterator(); it.hasNext();)
+                {
+                    X509CRLEntry entry = (X509CRLEntry)it.next();
+
+                    if (!index.containsKey(entry.getSerialNumber()))
+                    {
+                        index.put(entry.getSerialNumber(), entry);
+                    }
+                }
+            }
+
+            synchronized (details)
+            {
+                getDetails(crl).revokedCertificates = index;
+            }
+        }
+
+        return (X509CRLEntry)index.get(serialNumber);
+    }
+
+    /**
+     * Return the number of CRL search results currently held.
+     *
+     * @return the number of cached searches.
+     */
+    public int size()
+    {
+        synchronized (searches)
+        {
+            return searches.size();
+        }
+    }
+
+    /**
+     * Remove everything from the cache.
+     */
+    public void clear()
+    {
+        synchronized (searches)
+        {
+            searches.clear();
+        }
+        synchronized (details)
+        {
+            details.clear();
+        }
+    }
+
+    private CRLDetails getDetails(X509CRL crl)
+    {
+        CRLDetails crlDetails = (CRLDetails)details.get(crl);
+
+        if (crlDetails == null)
+        {
+            crlDetails = new CRLDetails();
+            details.put(crl, crlDetails);
+        }
+
+        return crlDetails;
+    }
+
+    private static boolean isIndirect(X509CRL crl)
+    {
+        byte[] idp = crl.getExtensionValue(Extension.issuingDistributionPoint.getId());
+
+        if (idp == null)
+        {
+            return false;
+        }
+
+        try
+        {
+            return IssuingDistributionPoint.getInstance(ASN1OctetString.getInstance(idp).getOctets()).isIndirectCRL();
+        }
+        catch (Exception e)
+        {
+            // leave anything we cannot parse to the CRL itself.
+            return true;
+        }
+    }
+
+    private static class CRLDetails
+    {
+        final Set verifiedKeys = new HashSet();
+        Map revokedCertificates;
+    }
+
+    private static class SearchResult
+    {
+        final Collection crls;
+        final long expiry;
+
+        SearchResult(Collection crls, long expiry)
+        {
+            this.crls = crls;
+            this.expiry = expiry;
+        }
+    }
+
+    private static class SearchKey
+    {
+        private final List stores;
+        private final Collection issuers;
+        private final BigInteger minCRL;
+        private final BigInteger maxCRL;
+        private final Date dateAndTime;
+        private final boolean deltaCRLIndicator;
+        private final boolean completeCRLEnabled;
+        private final BigInteger maxBaseCRLNumber;
+        private final byte[] issuingDistributionPoint;
+        private final boolean issuingDistributionPointEnabled;
+        private final int hashCode;
+
+        static SearchKey create(PKIXCRLStoreSelector selector, List stores)
+        {
+            CRLSelector baseSelector = selector.getBaseSelector();
+
+            // only the criteria of a plain X509CRLSelector are known to be captured by the key.
+            if (baseSelector == null || baseSelector.getClass() != X509CRLSelector.class)
+            {
+                return null;
+            }
+
+            return new SearchKey(selector, (X509CRLSelector)baseSelector, stores);
+        }
+
+        private SearchKey(PKIXCRLStoreSelector selector, X509CRLSelector baseSelector, List stores)
+        {
+            this.stores = new ArrayList(stores);
+            this.issuers = baseSelector.getIssuers() == null ? null : new HashSet(baseSelector.getIssuers());
+            this.minCRL = baseSelector.getMinCRL();
+            this.maxCRL = baseSelector.getMaxCRL();
+            this.dateAndTime = baseSelector.getDateAndTime();
+            this.deltaCRLIndicator = selector.isDeltaCRLIndicatorEnabled();
+            this.completeCRLEnabled = selector.isCompleteCRLEnabled();
+            this.maxBaseCRLNumber = selector.getMaxBaseCRLNumber();
+            this.issuingDistributionPoint = selector.getIssuingDistributionPoint();
+            this.issuingDistributionPointEnabled = selector.isIssuingDistributionPointEnabled();
+
+            this.hashCode = this.stores.hashCode() ^ (issuers == null ? 0 : issuers.hashCode())
+                ^ (minCRL == null ? 0 : minCRL.hashCode()) ^ (maxBaseCRLNumber == null ? 0 : maxBaseCRLNumber.hashCode())
+                ^ Arrays.hashCode(issuingDistributionPoint);
+        }
+
+        public int hashCode()
+        {
+            return hashCode;
+        }
+
+        public boolean equals(Object o)
+        {
+            if (!(o instanceof SearchKey))
+            {
+                return false;
+            }
+
+            SearchKey other = (SearchKey)o;
+
+            return deltaCRLIndicator == other.deltaCRLIndicator
+                && completeCRLEnabled == other.completeCRLEnabled
+                && issuingDistributionPointEnabled == other.issuingDistributionPointEnabled
+                && isEqual(minCRL, other.minCRL)
+                && isEqual(maxCRL, other.maxCRL)
+                && isEqual(maxBaseCRLNumber, other.maxBaseCRLNumber)
+                && isEqual(dateAndTime, other.dateAndTime)
+                && Arrays.areEqual(issuingDistributionPoint, other.issuingDistributionPoint)
+                && isEqual(issuers, other.issuers)
+                && stores.equals(other.stores);
+        }
+
+        private static boolean isEqual(Object a, Object b)
+        {
+            return (a == null) ? b == null : a.equals(b);
+        }
+    }
+}
@@ -289,6 +289,11 @@ public byte[] getIssuingDistributionPoint()
         return Arrays.clone(issuingDistributionPoint);
     }
 
+    CRLSelector getBaseSelector()
+    {
+        return baseSelector;
+    }
+
     public X509Certificate getCertificateChecking()
     {
         return ((X509CRLSelector)baseSelector).getCertificateChecking();
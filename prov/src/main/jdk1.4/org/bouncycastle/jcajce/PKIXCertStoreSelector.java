@@ -43,6 +43,11 @@ public boolean match(Object cert)
         return baseSelector.match((Certificate)cert);
     }
 
+    CertSelector getBaseSelector()
+    {
+        return baseSelector;
+    }
+
     public Object clone()
     {
         return new PKIXCertStoreSelector(baseSelector);
@@ -15,6 +15,7 @@
 import java.util.Set;
 
 import org.bouncycastle.asn1.x509.GeneralName;
+import org.bouncycastle.crypto.util.SignatureVerificationCache;
 
 /**
  * This class extends the PKIXParameters with a validity model parameter.
@@ -64,6 +65,8 @@
         private int validityModel = PKIX_VALIDITY_MODEL;
         private boolean useDeltas = false;
         private Set<TrustAnchor> trustAnchors;
+        private SignatureVerificationCache signatureVerificationCache;
+        private PKIXCRLCache crlCache;
 
         public Builder(PKIXParameters baseParameters)
         {
@@ -92,6 +95,8 @@ public Builder(PKIXExtendedParameters baseParameters)
             this.validityModel = baseParameters.validityModel;
             this.revocationEnabled = baseParameters.isRevocationEnabled();
             this.trustAnchors = baseParameters.getTrustAnchors();
+            this.signatureVerificationCache = baseParameters.signatureVerificationCache;
+            this.crlCache = baseParameters.crlCache;
         }
 
         public Builder addCertificateStore(PKIXCertStore store)
@@ -189,6 +194,34 @@ public Builder setTrustAnchors(Set<TrustAnchor> trustAnchors)
             return this;
         }
 
+        /**
+         * Set a cache of certificate signatures already verified against their issuer's public key,
+         * allowing repeat signature checks to be skipped. Successful checks are added to the cache.
+         *
+         * @param signatureVerificationCache the cache to use, null if all signatures should be verified.
+         * @return the current builder.
+         */
+        public Builder setSignatureVerificationCache(SignatureVerificationCache signatureVerificationCache)
+        {
+            this.signatureVerificationCache = signatureVerificationCache;
+
+            return this;
+        }
+
+        /**
+         * Set a cache for the CRLs found, and verified, during revocation checking, allowing repeat
+         * store searches and CRL signature checks to be skipped.
+         *
+         * @param crlCache the cache to use, null if CRLs should be looked up for every check.
+         * @return the current builder.
+         */
+        public Builder setCRLCache(PKIXCRLCache crlCache)
+        {
+            this.crlCache = crlCache;
+
+            return this;
+        }
+
         public PKIXExtendedParameters build()
         {
             return new PKIXExtendedParameters(this);
@@ -206,6 +239,8 @@ public PKIXExtendedParameters build()
     private final boolean useDeltas;
     private final int validityModel;
     private final Set trustAnchors;
+    private final SignatureVerificationCache signatureVerificationCache;
+    private final PKIXCRLCache crlCache;
 
     private PKIXExtendedParameters(Builder builder)
     {
@@ -220,6 +255,8 @@ private PKIXExtendedParameters(Builder builder)
         this.useDeltas = builder.useDeltas;
         this.validityModel = builder.validityModel;
         this.trustAnchors = Collections.unmodifiableSet(builder.trustAnchors);
+        this.signatureVerificationCache = builder.signatureVerificationCache;
+        this.crlCache = builder.crlCache;
     }
 
     public List getCertificateStores()
@@ -273,6 +310,26 @@ public int getValidityModel()
         return validityModel;
     }
 
+    /**
+     * Return the cache of verified certificate signatures, if one has been set.
+     *
+     * @return the signature verification cache, null if there isn't one.
+     */
+    public SignatureVerificationCache getSignatureVerificationCache()
+    {
+        return signatureVerificationCache;
+    }
+
+    /**
+     * Return the cache for CRLs used in revocation checking, if one has been set.
+     *
+     * @return the CRL cache, null if there isn't one.
+     */
+    public PKIXCRLCache getCRLCache()
+    {
+        return crlCache;
+    }
+
     public Object clone()
     {
         return this;
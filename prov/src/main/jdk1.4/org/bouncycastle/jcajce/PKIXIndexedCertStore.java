@@ -0,0 +1,209 @@
+package org.bouncycastle.jcajce;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.cert.CertSelector;
+import java.security.cert.X509CertSelector;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import javax.security.auth.x500.X500Principal;
+
+import org.bouncycastle.asn1.ASN1OctetString;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.util.Selector;
+
+/**
+ * A PKIXCertStore holding a fixed collection of X.509 certificates, indexed by subject,
+ * subject key identifier, and issuer and serial number.
+ * <p>
+ * Where a selector is a PKIXCertStoreSelector based on an X509CertSelector with one of those
+ * criteria set, as is the case for the issuer searches done in path building, only the certificates
+ * listed against the matching index entry are checked against the selector, otherwise all
+ * certificates in the store are checked.
+ * </p>
+ */
+public class PKIXIndexedCertStore
+    implements PKIXCertStore
+{
+    private final List certificates;
+    private final Map bySubject = new HashMap();
+    private final Map bySubjectKeyId = new HashMap();
+    private final Map byIssuerAndSerial = new HashMap();
+
+    /**
+     * Base constructor.
+     *
+     * @param certificates the certificates to be held in the store.
+     */
+    public PKIXIndexedCertStore(Collection certificates)
+    {
+        this.certificates = Collections.unmodifiableList(new ArrayList(certificates));
+
+        for (Iterator it = this.certificates.iterator(); it.hasNext();)
+        {
+            X509Certificate cert = (X509Certificate)it.next();
+
+            addEntry(bySubject, cert.getSubjectX500Principal(), cert);
+            addEntry(byIssuerAndSerial, new IssuerAndSerial(cert.getIssuerX500Principal(), cert.getSerialNumber()), cert);
+
+            byte[] skiExtensionValue = cert.getExtensionValue(Extension.subjectKeyIdentifier.getId());
+            if (skiExtensionValue != null)
+            {
+                try
+                {
+                    // the extension value is itself an OCTET STRING holding the key identifier
+                    addEntry(bySubjectKeyId, ASN1OctetString.getInstance(ASN1OctetString.getInstance(skiExtensionValue).getOctets()), cert);
+                }
+                catch (IllegalArgumentException e)
+                {
+                    // malformed extension - the certificate can still be found by other criteria.
+                }
+            }
+        }
+    }
+
+    private static void addEntry(Map index, Object key, X509Certificate cert)
+    {
+        List entries = (List)index.get(key);
+
+        if (entries == null)
+        {
+            entries = new ArrayList(1);
+            index.put(key, entries);
+        }
+
+        entries.add(cert);
+    }
+
+    /**
+     * Return the matches associated with the passed in selector, a null selector returns all
+     * certificates in the store.
+     *
+     * @param selector the selector defining the match criteria.
+     * @return a collection of matches with the selector, an empty collection if there are none.
+     */
+    public Collection getMatches(Selector selector)
+    {
+        if (selector == null)
+        {
+            return new ArrayList(certificates);
+        }
+
+        List candidates = getCandidates(selector);
+        List matches = new ArrayList();
+
+        for (Iterator it = candidates.iterator(); it.hasNext();)
+        {
+            X509Certificate cert = (X509Certificate)it.next();
+
+            if (selector.match(cert))
+            {
+                matches.add(cert);
+            }
+        }
+
+        return matches;
+    }
+
+    private List getCandidates(Selector selector)
+    {
+        if (!(selector instanceof PKIXCertStoreSelector))
+        {
+            return certificates;
+        }
+
+        CertSelector baseSelector = ((PKIXCertStoreSelector)selector).getBaseSelector();
+        if (!(baseSelector instanceof X509CertSelector))
+        {
+            return certificates;
+        }
+
+        X509CertSelector certSelector = (X509CertSelector)baseSelector;
+
+        try
+        {
+            if (certSelector.getCertificate() != null)
+            {
+                X509Certificate cert = certSelector.getCertificate();
+
+                return lookup(byIssuerAndSerial, new IssuerAndSerial(cert.getIssuerX500Principal(), cert.getSerialNumber()));
+            }
+
+            if (certSelector.getIssuerAsBytes() != null && certSelector.getSerialNumber() != null)
+            {
+                return lookup(byIssuerAndSerial, new IssuerAndSerial(new X500Principal(certSelector.getIssuerAsBytes()), certSelector.getSerialNumber()));
+            }
+
+            if (certSelector.getSubjectKeyIdentifier() != null)
+            {
+                try
+                {
+                    return lookup(bySubjectKeyId, ASN1OctetString.getInstance(certSelector.getSubjectKeyIdentifier()));
+                }
+                catch (IllegalArgumentException e)
+                {
+                    // fall through to the other criteria, the selector itself will reject everything.
+                }
+            }
+
+            if (certSelector.getSubjectAsBytes() != null)
+            {
+                return lookup(bySubject, new X500Principal(certSelector.getSubjectAsBytes()));
+            }
+        }
+        catch (IOException e)
+        {
+            // the selector's names could not be encoded, leave it to the selector to decide.
+        }
+
+        return certificates;
+    }
+
+    private static List lookup(Map index, Object key)
+    {
+        List entries = (List)index.get(key);
+
+        if (entries == null)
+        {
+            return Collections.EMPTY_LIST;
+        }
+
+        return entries;
+    }
+
+    private static class IssuerAndSerial
+    {
+        private final X500Principal issuer;
+        private final BigInteger serialNumber;
+
+        IssuerAndSerial(X500Principal issuer, BigInteger serialNumber)
+        {
+            this.issuer = issuer;
+            this.serialNumber = serialNumber;
+        }
+
+        public int hashCode()
+        {
+            return issuer.hashCode() ^ serialNumber.hashCode();
+        }
+
+        public boolean equals(Object o)
+        {
+            if (!(o instanceof IssuerAndSerial))
+            {
+                return false;
+            }
+
+            IssuerAndSerial other = (IssuerAndSerial)o;
+
+            return serialNumber.equals(other.serialNumber) && issuer.equals(other.issuer);
+        }
+    }
+}
@@ -67,6 +67,7 @@
 import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
 import org.bouncycastle.asn1.x509.X509Extension;
 import org.bouncycastle.asn1.x509.X509Extensions;
+import org.bouncycastle.crypto.util.SignatureVerificationCache;
 import org.bouncycastle.jcajce.*;
 import org.bouncycastle.jcajce.util.JcaJceHelper;
 import org.bouncycastle.jce.X509LDAPCertStoreParameters;
@@ -209,6 +210,31 @@ protected static TrustAnchor findTrustAnchor(
         Set trustAnchors,
         String sigProvider)
         throws AnnotatedException
+    {
+        return findTrustAnchor(cert, trustAnchors, sigProvider, null);
+    }
+
+    /**
+     * Search the given Set of TrustAnchor's for one that is the
+     * issuer of the given X509 certificate. Uses the specified
+     * provider for signature verification, or the default provider
+     * if null, skipping signature checks already recorded in the cache.
+     *
+     * @param cert         the X509 certificate
+     * @param trustAnchors a Set of TrustAnchor's
+     * @param sigProvider  the provider to use for signature verification
+     * @param sigCache     cache of verified signatures, may be null.
+     * @return the <code>TrustAnchor</code> object if found or
+     *         <code>null</code> if not.
+     * @throws AnnotatedException if a TrustAnchor was found but the signature verification
+     * on the given certificate has thrown an exception.
+     */
+    protected static TrustAnchor findTrustAnchor(
+        X509Certificate cert,
+        Set trustAnchors,
+        String sigProvider,
+        SignatureVerificationCache sigCache)
+        throws AnnotatedException
     {
         TrustAnchor trust = null;
         PublicKey trustPublicKey = null;
@@ -270,7 +296,7 @@ else if (trust.getCAName() != null
             {
                 try
                 {
-                    verifyX509Certificate(cert, trustPublicKey, sigProvider);
+                    verifyX509Certificate(cert, trustPublicKey, sigProvider, sigCache);
                 }
                 catch (Exception ex)
                 {
@@ -1108,7 +1134,8 @@ protected static void getCertStatus(
         Date validDate,
         X509CRL crl,
         Object cert,
-        CertStatus certStatus)
+        CertStatus certStatus,
+        PKIXCRLCache crlCache)
         throws AnnotatedException
     {
         X509CRLEntry crl_entry = null;
@@ -1137,7 +1164,7 @@ protected static void getCertStatus(
                 }
             }
 
-            crl_entry = crl.getRevokedCertificate(getSerialNumber(cert));
+            crl_entry = getRevokedCertificate(crl, getSerialNumber(cert), crlCache);
 
             if (crl_entry == null)
             {
@@ -1162,7 +1189,7 @@ else if (!getEncodedIssuerPrincipal(cert).equals(getIssuerPrincipal(crl)))
         }
         else
         {
-            crl_entry = crl.getRevokedCertificate(getSerialNumber(cert));
+            crl_entry = getRevokedCertificate(crl, getSerialNumber(cert), crlCache);
 
             if (crl_entry == null)
             {
@@ -1212,6 +1239,16 @@ else if (!getEncodedIssuerPrincipal(cert).equals(getIssuerPrincipal(crl)))
         }
     }
 
+    private static X509CRLEntry getRevokedCertificate(X509CRL crl, BigInteger serialNumber, PKIXCRLCache crlCache)
+    {
+        if (crlCache != null)
+        {
+            return crlCache.getRevokedCertificate(crl, serialNumber);
+        }
+
+        return crl.getRevokedCertificate(serialNumber);
+    }
+
     static List getAdditionalStoresFromCRLDistributionPoint(CRLDistPoint crldp, Map namedCRLStoreMap)
         throws AnnotatedException
     {
@@ -1782,6 +1819,32 @@ protected static void verifyX509Certificate(X509Certificate cert, PublicKey publ
         }
     }
 
+    /**
+     * Verify the signature on cert, skipping the check if the signature is recorded in cache as already
+     * verified with publicKey, and recording it in cache if the check succeeds.
+     */
+    protected static void verifyX509Certificate(X509Certificate cert, PublicKey publicKey,
+                                                String sigProvider, SignatureVerificationCache cache)
+        throws GeneralSecurityException
+    {
+        byte[] keyEncoding = (cache != null) ? publicKey.getEncoded() : null;
+
+        if (keyEncoding == null)
+        {
+            verifyX509Certificate(cert, publicKey, sigProvider);
+            return;
+        }
+
+        byte[] certEncoding = cert.getEncoded();
+
+        if (!cache.isVerified(certEncoding, keyEncoding))
+        {
+            verifyX509Certificate(cert, publicKey, sigProvider);
+
+            cache.addVerified(certEncoding, keyEncoding);
+        }
+    }
+
     protected static Date getValidCertDateFromValidityModel(
         PKIXExtendedParameters paramsPKIX, CertPath certPath, int index)
         throws AnnotatedException
@@ -1847,7 +1910,8 @@ protected static Date getValidCertDateFromValidityModel(
     }
 
     protected static Set getDeltaCRLs(Date validityDate,
-                                      X509CRL completeCRL, List<CertStore> certStores, List<PKIXCRLStore> pkixCrlStores)
+                                      X509CRL completeCRL, List<CertStore> certStores, List<PKIXCRLStore> pkixCrlStores,
+                                      PKIXCRLCache crlCache)
         throws AnnotatedException
     {
         X509CRLSelector baseDeltaSelect = new X509CRLSelector();
@@ -1909,7 +1973,7 @@ protected static Set getDeltaCRLs(Date validityDate,
         PKIXCRLStoreSelector deltaSelect = selBuilder.build();
 
         // find delta CRLs
-        Set temp = CRL_UTIL.findCRLs(deltaSelect, validityDate, certStores, pkixCrlStores);
+        Set temp = CRL_UTIL.findCRLs(deltaSelect, validityDate, certStores, pkixCrlStores, crlCache);
 
         Set result = new HashSet();
 
@@ -1959,7 +2023,7 @@ protected static Set getCompleteCRLs(DistributionPoint dp, Object cert,
             validityDate = paramsPKIX.getDate();
         }
 
-        Set crls = CRL_UTIL.findCRLs(crlSelect, validityDate, paramsPKIX.getCertStores(), paramsPKIX.getCRLStores());
+        Set crls = CRL_UTIL.findCRLs(crlSelect, validityDate, paramsPKIX.getCertStores(), paramsPKIX.getCRLStores(), paramsPKIX.getCRLCache());
 
         if (crls.isEmpty())
         {
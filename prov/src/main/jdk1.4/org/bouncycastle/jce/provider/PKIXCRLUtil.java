@@ -5,6 +5,7 @@
 import java.security.cert.PKIXParameters;
 import java.security.cert.X509CRL;
 import java.security.cert.X509Certificate;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashSet;
@@ -21,20 +22,43 @@
 
 class PKIXCRLUtil
 {
-    public Set findCRLs(PKIXCRLStoreSelector crlselect, Date validityDate, List certStores, List pkixCrlStores)
+    public Set findCRLs(PKIXCRLStoreSelector crlselect, Date validityDate, List certStores, List pkixCrlStores, PKIXCRLCache crlCache)
         throws AnnotatedException
     {
         Set initialSet = new HashSet();
 
-        // get complete CRL(s)
-        try
+        List stores = null;
+        Collection cached = null;
+
+        if (crlCache != null)
         {
-            initialSet.addAll(findCRLs(crlselect, pkixCrlStores));
-            initialSet.addAll(findCRLs(crlselect, certStores));
+            stores = new ArrayList(pkixCrlStores);
+            stores.addAll(certStores);
+
+            cached = crlCache.getCRLs(crlselect, stores);
         }
-        catch (AnnotatedException e)
+
+        if (cached != null)
         {
-            throw new AnnotatedException("Exception obtaining complete CRLs.", e);
+            initialSet.addAll(cached);
+        }
+        else
+        {
+            // get complete CRL(s)
+            try
+            {
+                initialSet.addAll(findCRLs(crlselect, pkixCrlStores));
+                initialSet.addAll(findCRLs(crlselect, certStores));
+            }
+            catch (AnnotatedException e)
+            {
+                throw new AnnotatedException("Exception obtaining complete CRLs.", e);
+            }
+
+            if (crlCache != null)
+            {
+                crlCache.addCRLs(crlselect, stores, initialSet);
+            }
         }
 
         Set finalSet = new HashSet();
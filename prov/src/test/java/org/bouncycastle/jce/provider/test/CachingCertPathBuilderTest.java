@@ -0,0 +1,211 @@
+package org.bouncycastle.jce.provider.test;
+
+import java.security.KeyPair;
+import java.security.Security;
+import java.security.cert.CertPathBuilder;
+import java.security.cert.CertPathBuilderException;
+import java.security.cert.CertStore;
+import java.security.cert.CollectionCertStoreParameters;
+import java.security.cert.PKIXBuilderParameters;
+import java.security.cert.PKIXCertPathBuilderResult;
+import java.security.cert.TrustAnchor;
+import java.security.cert.X509CertSelector;
+import java.security.cert.X509Certificate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.BasicConstraints;
+import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.Extensions;
+import org.bouncycastle.asn1.x509.ExtensionsGenerator;
+import org.bouncycastle.asn1.x509.KeyUsage;
+import org.bouncycastle.jcajce.PKIXPartialPathCache;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.jce.provider.PKIXCachingCertPathBuilderSpi;
+import org.bouncycastle.util.test.SimpleTest;
+
+public class CachingCertPathBuilderTest
+    extends SimpleTest
+{
+    private void builderTest()
+        throws Exception
+    {
+        KeyPair rootPair = TestUtils.generateRSAKeyPair();
+        KeyPair inter1Pair = TestUtils.generateRSAKeyPair();
+        KeyPair inter2Pair = TestUtils.generateRSAKeyPair();
+        KeyPair decoyPair = TestUtils.generateRSAKeyPair();
+        KeyPair endPair = TestUtils.generateRSAKeyPair();
+
+        ExtensionsGenerator extGen = new ExtensionsGenerator();
+        extGen.addExtension(Extension.basicConstraints, true, new BasicConstraints(true));
+        extGen.addExtension(Extension.keyUsage, true, new KeyUsage(KeyUsage.keyCertSign | KeyUsage.cRLSign));
+        Extensions caExtensions = extGen.generate();
+
+        X500Name rootName = new X500Name("CN=Test CA Certificate");
+        X500Name inter1Name = new X500Name("CN=Test Intermediate 1");
+        X500Name inter2Name = new X500Name("CN=Test Intermediate 2");
+
+        X509Certificate rootCert = TestUtils.generateRootCert(rootPair, rootName);
+        X509Certificate inter1Cert = TestUtils.createCert(rootName, rootPair.getPrivate(), inter1Name, "SHA256withRSA", caExtensions, inter1Pair.getPublic());
+        X509Certificate inter2Cert = TestUtils.createCert(inter1Name, inter1Pair.getPrivate(), inter2Name, "SHA256withRSA", caExtensions, inter2Pair.getPublic());
+        // same subject as inter2Cert, but not the key the end entity certificate was signed with.
+        X509Certificate decoyCert = TestUtils.createCert(inter1Name, inter1Pair.getPrivate(), inter2Name, "SHA256withRSA", caExtensions, decoyPair.getPublic());
+        X509Certificate endCert = TestUtils.createCert(inter2Name, inter2Pair.getPrivate(), "CN=Test End Certificate", "SHA256withRSA", null, endPair.getPublic());
+
+        List list = new ArrayList();
+        list.add(rootCert);
+        list.add(inter1Cert);
+        list.add(inter2Cert);
+        list.add(decoyCert);
+        list.add(endCert);
+
+        CertStore store = CertStore.getInstance("Collection", new CollectionCertStoreParameters(list), "BC");
+
+        X509CertSelector targetConstraints = new X509CertSelector();
+        targetConstraints.setSubject(endCert.getSubjectX500Principal().getEncoded());
+        PKIXBuilderParameters params = new PKIXBuilderParameters(Collections.singleton(new TrustAnchor(rootCert, null)), targetConstraints);
+        params.addCertStore(store);
+        params.setRevocationEnabled(false);
+
+        PKIXPartialPathCache cache = new PKIXPartialPathCache(16, 60 * 1000);
+        ExecutorService executor = Executors.newFixedThreadPool(1);
+
+        try
+        {
+            PKIXCachingCertPathBuilderSpi builder = new PKIXCachingCertPathBuilderSpi(cache, executor);
+
+            List expected = new ArrayList();
+            expected.add(endCert);
+            expected.add(inter2Cert);
+            expected.add(inter1Cert);
+
+            for (int i = 0; i != 2; i++)
+            {
+                PKIXCertPathBuilderResult result = (PKIXCertPathBuilderResult)builder.engineBuild(params);
+
+                if (!expected.equals(result.getCertPath().getCertificates()))
+                {
+                    fail("wrong path from caching builder on pass " + i);
+                }
+                if (!rootCert.equals(result.getTrustAnchor().getTrustedCert()))
+                {
+                    fail("wrong trust anchor from caching builder on pass " + i);
+                }
+                if (cache.size() != 2)
+                {
+                    fail("partial paths not cached on pass " + i);
+                }
+            }
+
+            List partial = cache.getPartialPath(params.getTrustAnchors(), inter2Cert, new Date());
+            if (partial == null || partial.size() != 2 || !inter1Cert.equals(partial.get(1)))
+            {
+                fail("wrong partial path cached");
+            }
+            if (cache.getPartialPath(params.getTrustAnchors(), inter2Cert, new Date(inter2Cert.getNotAfter().getTime() + 1)) != null)
+            {
+                fail("partial path returned after certificate expiry");
+            }
+
+            // an equivalent trust anchor from a different parameter set should find the entry.
+            if (cache.getPartialPath(Collections.singleton(new TrustAnchor(rootCert, null)), inter2Cert, new Date()) == null)
+            {
+                fail("partial path not found for equivalent trust anchor");
+            }
+            // but a builder trusting something else should not.
+            if (cache.getPartialPath(Collections.singleton(new TrustAnchor(inter1Cert, null)), inter2Cert, new Date()) != null)
+            {
+                fail("partial path returned for different trust anchor");
+            }
+
+            // sequential search should give the same answer
+            PKIXCertPathBuilderResult result = (PKIXCertPathBuilderResult)new PKIXCachingCertPathBuilderSpi(new PKIXPartialPathCache(16, 60 * 1000), null).engineBuild(params);
+            if (!expected.equals(result.getCertPath().getCertificates()))
+            {
+                fail("wrong path from sequential caching builder");
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    private void providerTest()
+        throws Exception
+    {
+        KeyPair rootPair = TestUtils.generateRSAKeyPair();
+        KeyPair interPair = TestUtils.generateRSAKeyPair();
+        KeyPair endPair = TestUtils.generateRSAKeyPair();
+
+        X509Certificate rootCert = TestUtils.generateRootCert(rootPair);
+        X509Certificate interCert = TestUtils.generateIntermediateCert(interPair.getPublic(), rootPair.getPrivate(), rootCert);
+        X509Certificate endCert = TestUtils.generateEndEntityCert(endPair.getPublic(), interPair.getPrivate(), interCert);
+
+        List list = new ArrayList();
+        list.add(interCert);
+        list.add(endCert);
+
+        CertStore store = CertStore.getInstance("Collection", new CollectionCertStoreParameters(list), "BC");
+
+        X509CertSelector targetConstraints = new X509CertSelector();
+        targetConstraints.setSubject(endCert.getSubjectX500Principal().getEncoded());
+
+        CertPathBuilder cpb = CertPathBuilder.getInstance("PKIX-CACHING", "BC");
+
+        for (int i = 0; i != 2; i++)
+        {
+            PKIXBuilderParameters params = new PKIXBuilderParameters(Collections.singleton(new TrustAnchor(rootCert, null)), targetConstraints);
+            params.addCertStore(store);
+            params.setRevocationEnabled(false);
+
+            PKIXCertPathBuilderResult result = (PKIXCertPathBuilderResult)cpb.build(params);
+
+            if (result.getCertPath().getCertificates().size() != 2)
+            {
+                fail("wrong number of certs in provider path on pass " + i);
+            }
+        }
+
+        // a root not behind the path must not be satisfied from the cache.
+        PKIXBuilderParameters params = new PKIXBuilderParameters(Collections.singleton(new TrustAnchor(TestUtils.generateRootCert(TestUtils.generateRSAKeyPair()), null)), targetConstraints);
+        params.addCertStore(store);
+        params.setRevocationEnabled(false);
+
+        try
+        {
+            cpb.build(params);
+            fail("path built to wrong trust anchor");
+        }
+        catch (CertPathBuilderException e)
+        {
+            // expected
+        }
+    }
+
+
+    public void performTest()
+        throws Exception
+    {
+        builderTest();
+        providerTest();
+    }
+
+    public String getName()
+    {
+        return "CachingCertPathBuilder";
+    }
+
+    public static void main(
+        String[] args)
+    {
+        Security.addProvider(new BouncyCastleProvider());
+
+        runTest(new CachingCertPathBuilderTest());
+    }
+}
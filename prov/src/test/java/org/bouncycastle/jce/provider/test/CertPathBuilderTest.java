@@ -16,13 +16,20 @@
 import java.security.cert.X509CertSelector;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import org.bouncycastle.asn1.ASN1OctetString;
+import org.bouncycastle.jcajce.PKIXCertStoreSelector;
+import org.bouncycastle.jcajce.PKIXExtendedBuilderParameters;
+import org.bouncycastle.jcajce.PKIXExtendedParameters;
+import org.bouncycastle.jcajce.PKIXIndexedCertStore;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.util.Selector;
 import org.bouncycastle.util.test.SimpleTest;
 
 public class CertPathBuilderTest
@@ -117,11 +124,95 @@ private void v0Test()
         }
     }
 
+    private void indexedStoreTest()
+        throws Exception
+    {
+        CertificateFactory cf = CertificateFactory.getInstance("X.509", "BC");
+
+        X509Certificate rootCert = (X509Certificate)cf.generateCertificate(new ByteArrayInputStream(CertPathTest.rootCertBin));
+        X509Certificate interCert = (X509Certificate)cf.generateCertificate(new ByteArrayInputStream(CertPathTest.interCertBin));
+        X509Certificate finalCert = (X509Certificate)cf.generateCertificate(new ByteArrayInputStream(CertPathTest.finalCertBin));
+        X509CRL rootCrl = (X509CRL)cf.generateCRL(new ByteArrayInputStream(CertPathTest.rootCrlBin));
+
+        List<X509Certificate> list = new ArrayList<X509Certificate>();
+        list.add(rootCert);
+        list.add(interCert);
+        list.add(finalCert);
+
+        PKIXIndexedCertStore store = new PKIXIndexedCertStore(list);
+
+        // direct index lookups
+        X509CertSelector selector = new X509CertSelector();
+        selector.setSubject(interCert.getSubjectX500Principal());
+        checkMatches("subject", store, selector, interCert);
+
+        selector = new X509CertSelector();
+        selector.setIssuer(finalCert.getIssuerX500Principal());
+        selector.setSerialNumber(finalCert.getSerialNumber());
+        checkMatches("issuer and serial", store, selector, finalCert);
+
+        selector = new X509CertSelector();
+        selector.setCertificate(rootCert);
+        checkMatches("certificate", store, selector, rootCert);
+
+        byte[] ski = interCert.getExtensionValue("2.5.29.14");
+        if (ski != null)
+        {
+            selector = new X509CertSelector();
+            selector.setSubjectKeyIdentifier(ASN1OctetString.getInstance(ski).getOctets());
+            checkMatches("subject key identifier", store, selector, interCert);
+        }
+
+        selector = new X509CertSelector();
+        selector.setSubject(interCert.getSubjectX500Principal());
+        selector.setSerialNumber(finalCert.getSerialNumber().add(BigInteger.valueOf(1000)));
+        if (!store.getMatches((Selector)new PKIXCertStoreSelector.Builder(selector).build()).isEmpty())
+        {
+            fail("indexed store returned non-matching certificate");
+        }
+
+        if (store.getMatches(null).size() != 3)
+        {
+            fail("indexed store did not return all certificates");
+        }
+
+        // path building using the store
+        Set trust = new HashSet();
+        trust.add(new TrustAnchor(rootCert, null));
+
+        X509CertSelector targetConstraints = new X509CertSelector();
+        targetConstraints.setSubject(finalCert.getSubjectX500Principal().getEncoded());
+        PKIXBuilderParameters params = new PKIXBuilderParameters(trust, targetConstraints);
+        params.setDate(new Date(rootCrl.getThisUpdate().getTime() + 60 * 60 * 1000));
+        params.setRevocationEnabled(false);
+
+        PKIXExtendedParameters extParams = new PKIXExtendedParameters.Builder(params).addCertificateStore(store).build();
+
+        CertPathBuilder cpb = CertPathBuilder.getInstance("PKIX","BC");
+        PKIXCertPathBuilderResult result = (PKIXCertPathBuilderResult)cpb.build(new PKIXExtendedBuilderParameters.Builder(extParams).build());
+
+        if (result.getCertPath().getCertificates().size() != 2)
+        {
+            fail("wrong number of certs in indexedStoreTest path");
+        }
+    }
+
+    private void checkMatches(String label, PKIXIndexedCertStore store, X509CertSelector selector, X509Certificate expected)
+    {
+        Collection matches = store.getMatches((Selector)new PKIXCertStoreSelector.Builder(selector).build());
+
+        if (matches.size() != 1 || !matches.contains(expected))
+        {
+            fail("indexed store " + label + " lookup failed");
+        }
+    }
+
     public void performTest()
         throws Exception
     {
         baseTest();
         v0Test();
+        indexedStoreTest();
     }
     
     public String getName()
@@ -1,6 +1,8 @@
 package org.bouncycastle.jce.provider.test;
 
 import java.io.ByteArrayInputStream;
+import java.math.BigInteger;
+import java.security.KeyPair;
 import java.security.PublicKey;
 import java.security.Security;
 import java.security.cert.CertPath;
@@ -27,6 +29,9 @@
 import java.util.List;
 import java.util.Set;
 
+import org.bouncycastle.crypto.util.BoundedSignatureVerificationCache;
+import org.bouncycastle.jcajce.PKIXCRLCache;
+import org.bouncycastle.jcajce.PKIXExtendedParameters;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.bouncycastle.util.encoders.Base64;
 import org.bouncycastle.util.test.SimpleTest;
@@ -409,6 +414,8 @@ public void performTest()
         checkCircProcessing();
         checkPolicyProcessingAtDomainMatch();
         validateWithExtendedKeyUsage();
+        validateWithSignatureCache();
+        validateWithCRLCache();
         testEmptyPath();
     }
 
@@ -451,6 +458,147 @@ private void validateWithExtendedKeyUsage()
         PKIXCertPathValidatorResult result = (PKIXCertPathValidatorResult) cpv.validate(cp, param);
     }
 
+    private void validateWithCRLCache()
+        throws Exception
+    {
+        KeyPair rootPair = TestUtils.generateRSAKeyPair();
+        KeyPair interPair = TestUtils.generateRSAKeyPair();
+        KeyPair endPair = TestUtils.generateRSAKeyPair();
+
+        X509Certificate rootCert = TestUtils.generateRootCert(rootPair);
+        X509Certificate interCert = TestUtils.generateIntermediateCert(interPair.getPublic(), rootPair.getPrivate(), rootCert);
+        X509Certificate endCert = TestUtils.generateEndEntityCert(endPair.getPublic(), interPair.getPrivate(), interCert);
+
+        X509CRL rootCRL = TestUtils.createCRL(rootCert, rootPair.getPrivate(), interCert.getSerialNumber().add(BigInteger.ONE));
+        X509CRL interCRL = TestUtils.createCRL(interCert, interPair.getPrivate(), endCert.getSerialNumber().add(BigInteger.ONE));
+
+        List certchain = new ArrayList();
+        certchain.add(endCert);
+        certchain.add(interCert);
+        CertPath cp = CertificateFactory.getInstance("X.509","BC").generateCertPath(certchain);
+
+        List list = new ArrayList();
+        list.add(rootCRL);
+        list.add(interCRL);
+        CertStore store = CertStore.getInstance("Collection", new CollectionCertStoreParameters(list), "BC");
+
+        Set trust = new HashSet();
+        trust.add(new TrustAnchor(rootCert, null));
+
+        PKIXParameters param = new PKIXParameters(trust);
+        param.addCertStore(store);
+        param.setDate(new Date());
+
+        PKIXCRLCache crlCache = new PKIXCRLCache(10, 60 * 1000);
+        PKIXExtendedParameters extParam = new PKIXExtendedParameters.Builder(param)
+            .setCRLCache(crlCache).build();
+
+        CertPathValidator cpv = CertPathValidator.getInstance("PKIX", "BC");
+
+        for (int i = 0; i != 2; i++)
+        {
+            cpv.validate(cp, extParam);
+
+            if (crlCache.size() != 2)
+            {
+                fail("CRL searches not cached");
+            }
+            if (!crlCache.isVerified(interCRL, interCert.getPublicKey()) || !crlCache.isVerified(rootCRL, rootCert.getPublicKey()))
+            {
+                fail("CRL signatures not cached");
+            }
+        }
+
+        if (crlCache.getRevokedCertificate(interCRL, endCert.getSerialNumber().add(BigInteger.ONE)) == null
+            || crlCache.getRevokedCertificate(interCRL, endCert.getSerialNumber()) != null)
+        {
+            fail("CRL index lookup failed");
+        }
+
+        // revocation must still be picked up with a shared cache
+        X509CRL revokingCRL = TestUtils.createCRL(interCert, interPair.getPrivate(), endCert.getSerialNumber());
+
+        list = new ArrayList();
+        list.add(rootCRL);
+        list.add(revokingCRL);
+        param.setCertStores(null);
+        param.addCertStore(CertStore.getInstance("Collection", new CollectionCertStoreParameters(list), "BC"));
+
+        try
+        {
+            cpv.validate(cp, new PKIXExtendedParameters.Builder(param).setCRLCache(crlCache).build());
+
+            fail("revoked certificate validated");
+        }
+        catch (CertPathValidatorException e)
+        {
+            if (e.getMessage() == null || e.getMessage().indexOf("revocation") < 0)
+            {
+                fail("wrong exception on revoked certificate: " + e.getMessage());
+            }
+        }
+    }
+
+    private void validateWithSignatureCache()
+        throws Exception
+    {
+        CertificateFactory cf = CertificateFactory.getInstance("X.509", "BC");
+
+        X509Certificate rootCert = (X509Certificate)cf.generateCertificate(new ByteArrayInputStream(extTrust));
+        X509Certificate interCert = (X509Certificate)cf.generateCertificate(new ByteArrayInputStream(extCA));
+        X509Certificate finalCert = (X509Certificate)cf.generateCertificate(new ByteArrayInputStream(extEE));
+
+        List certchain = new ArrayList();
+        certchain.add(finalCert);
+        certchain.add(interCert);
+        CertPath cp = CertificateFactory.getInstance("X.509","BC").generateCertPath(certchain);
+        Set trust = new HashSet();
+        trust.add(new TrustAnchor(rootCert, null));
+
+        PKIXParameters param = new PKIXParameters(trust);
+        param.setDate(new Date(rootCert.getNotBefore().getTime() + 60 * 60 * 1000));
+        param.setRevocationEnabled(false);
+
+        BoundedSignatureVerificationCache sigCache = new BoundedSignatureVerificationCache(10);
+        PKIXExtendedParameters extParam = new PKIXExtendedParameters.Builder(param)
+            .setSignatureVerificationCache(sigCache).build();
+
+        CertPathValidator cpv = CertPathValidator.getInstance("PKIX", "BC");
+
+        for (int i = 0; i != 2; i++)
+        {
+            cpv.validate(cp, extParam);
+
+            if (sigCache.size() != 2)
+            {
+                fail("certificate signatures not cached");
+            }
+        }
+
+        // a cached signature check must not be used for a different issuer key.
+        trust = new HashSet();
+        trust.add(new TrustAnchor(finalCert, null));
+
+        param = new PKIXParameters(trust);
+        param.setDate(new Date(rootCert.getNotBefore().getTime() + 60 * 60 * 1000));
+        param.setRevocationEnabled(false);
+
+        certchain = new ArrayList();
+        certchain.add(interCert);
+        cp = CertificateFactory.getInstance("X.509","BC").generateCertPath(certchain);
+
+        try
+        {
+            cpv.validate(cp, new PKIXExtendedParameters.Builder(param).setSignatureVerificationCache(sigCache).build());
+
+            fail("path validated with wrong issuer key");
+        }
+        catch (CertPathValidatorException e)
+        {
+            // expected
+        }
+    }
+
     public String getName()
     {
         return "CertPathValidator";
@@ -0,0 +1,151 @@
+package org.bouncycastle.jce.provider.test;
+
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.Provider;
+import java.security.Signature;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.util.test.SimpleTest;
+
+/**
+ * Check a provider loading its algorithms on demand provides the same services as one loading
+ * them all at construction.
+ */
+public class LazyLoadTest
+    extends SimpleTest
+{
+    private static final String LAZY_LOAD = "org.bouncycastle.jce.provider.lazy_load";
+
+    private static final String[][] LOOKUPS =
+    {
+        { "MessageDigest", "SHA-256" },
+        { "MessageDigest", "SHA3-512" },
+        { "Cipher", "AES/GCM/NoPadding" },
+        { "Cipher", "AES" },
+        { "Cipher", "RSA" },
+        { "Cipher", "PBEWITHSHAAND3-KEYTRIPLEDES-CBC" },
+        { "Mac", "HmacSHA256" },
+        { "Mac", "HMAC/SHA512" },
+        { "Signature", "SHA256withRSA" },
+        { "Signature", "SHA256withECDSA" },
+        { "Signature", "SHA256withPLAIN-ECDSA" },
+        { "Signature", "DSAWITHSHA1" },
+        { "KeyPairGenerator", "EC" },
+        { "KeyFactory", "DiffieHellman" },
+        { "SecretKeyFactory", "PBKDF2WithHmacSHA256" },
+        { "AlgorithmParameters", "PBEWITHSHAANDIDEA-CBC" },
+        { "KeyStore", "BKS" },
+        { "KeyStore", "PKCS12" },
+        { "SecureRandom", "DEFAULT" },
+        { "Signature", "1.2.840.113549.1.1.11" },
+        { "Cipher", "UNKNOWN" }
+    };
+
+    public String getName()
+    {
+        return "LazyLoad";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        Provider eager = new BouncyCastleProvider();
+
+        for (int i = 0; i != LOOKUPS.length; i++)
+        {
+            compareLookup(eager, createLazyProvider(), LOOKUPS[i][0], LOOKUPS[i][1]);
+        }
+
+        // the same lookups again, on a provider with the mappings loaded by the earlier ones
+        Provider lazy = createLazyProvider();
+        for (int i = 0; i != LOOKUPS.length; i++)
+        {
+            compareLookup(eager, lazy, LOOKUPS[i][0], LOOKUPS[i][1]);
+        }
+
+        lazy = createLazyProvider();
+
+        MessageDigest.getInstance("SHA-1", lazy);
+        Cipher.getInstance("AES/CBC/PKCS5Padding", lazy);
+        Mac.getInstance("HmacSHA1", lazy);
+        KeyPairGenerator.getInstance("RSA", lazy);
+        Signature.getInstance("SHA1withRSA", lazy);
+
+        // listing the services loads everything
+        if (!serviceNames(eager).equals(serviceNames(lazy)))
+        {
+            fail("services do not match after lookups");
+        }
+        if (!eager.keySet().equals(createLazyProvider().keySet()))
+        {
+            fail("properties do not match");
+        }
+    }
+
+    private void compareLookup(Provider eager, Provider lazy, String type, String algorithm)
+    {
+        Provider.Service expected = eager.getService(type, algorithm);
+        Provider.Service service = lazy.getService(type, algorithm);
+
+        if (expected == null)
+        {
+            if (service != null)
+            {
+                fail("unexpected service found for " + type + "." + algorithm);
+            }
+        }
+        else if (service == null || !expected.getClassName().equals(service.getClassName()))
+        {
+            fail("service mismatch for " + type + "." + algorithm);
+        }
+    }
+
+    private static Set serviceNames(Provider provider)
+    {
+        Set names = new HashSet();
+
+        for (Iterator it = provider.getServices().iterator(); it.hasNext();)
+        {
+            Provider.Service service = (Provider.Service)it.next();
+
+            names.add(service.getType() + "." + service.getAlgorithm() + "=" + service.getClassName());
+        }
+
+        return names;
+    }
+
+    private static Provider createLazyProvider()
+    {
+        String previous = System.getProperty(LAZY_LOAD);
+
+        System.setProperty(LAZY_LOAD, "true");
+        try
+        {
+            return new BouncyCastleProvider();
+        }
+        finally
+        {
+            if (previous == null)
+            {
+                System.getProperties().remove(LAZY_LOAD);
+            }
+            else
+            {
+                System.setProperty(LAZY_LOAD, previous);
+            }
+        }
+    }
+
+    public static void main(
+        String[]    args)
+    {
+        runTest(new LazyLoadTest());
+    }
+}
@@ -55,6 +55,7 @@
         new CertStoreTest(),
         new CertPathValidatorTest(),
         new CertPathBuilderTest(),
+        new CachingCertPathBuilderTest(),
         new ECEncodingTest(),
         new AlgorithmParametersTest(),
         new NISTCertPathTest(),
@@ -79,7 +80,9 @@
         new DetDSATest(),
         new ThreefishTest(),
         new SM4Test(),
-        new TLSKDFTest()
+        new TLSKDFTest(),
+        new LazyLoadTest(),
+        new ServiceCacheTest()
     };
 
     public static void main(
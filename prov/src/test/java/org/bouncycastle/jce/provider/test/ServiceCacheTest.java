@@ -0,0 +1,125 @@
+package org.bouncycastle.jce.provider.test;
+
+import java.security.MessageDigest;
+import java.security.Provider;
+
+import javax.crypto.Cipher;
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.bouncycastle.util.encoders.Hex;
+import org.bouncycastle.util.test.SimpleTest;
+
+/**
+ * Check the provider's cache of services.
+ */
+public class ServiceCacheTest
+    extends SimpleTest
+{
+    public String getName()
+    {
+        return "ServiceCache";
+    }
+
+    public void performTest()
+        throws Exception
+    {
+        BouncyCastleProvider provider = new BouncyCastleProvider();
+
+        long hits = provider.getServiceCacheHits();
+        long misses = provider.getServiceCacheMisses();
+
+        Provider.Service service = provider.getService("MessageDigest", "SHA-256");
+        if (service == null || !service.getClassName().endsWith("SHA256$Digest"))
+        {
+            fail("SHA-256 not found");
+        }
+        if (provider.getService("MessageDigest", "SHA-256") != service)
+        {
+            fail("service not cached");
+        }
+        if (provider.getServiceCacheMisses() != misses + 1 || provider.getServiceCacheHits() != hits + 1)
+        {
+            fail("statistics incorrect");
+        }
+
+        // transformations which are not registered are also cached, but only up to a limit
+        if (provider.getService("Cipher", "AES/GCM/NoPadding") != null
+            || provider.getService("Cipher", "AES/GCM/NoPadding") != null)
+        {
+            fail("transformation found");
+        }
+        if (provider.getServiceCacheMisses() != misses + 2 || provider.getServiceCacheHits() != hits + 2)
+        {
+            fail("missing transformation not cached");
+        }
+
+        // other lookups which find nothing are not.
+        if (provider.getService("MessageDigest", "NOTADIGEST") != null
+            || provider.getService("MessageDigest", "NOTADIGEST") != null)
+        {
+            fail("unknown digest found");
+        }
+        if (provider.getServiceCacheMisses() != misses + 4 || provider.getServiceCacheHits() != hits + 2)
+        {
+            fail("missing digest cached");
+        }
+        for (int i = 0; i != 1000; i++)
+        {
+            if (provider.getService("Cipher", "AES/MODE" + i + "/NoPadding") != null)
+            {
+                fail("unknown transformation found");
+            }
+        }
+        if (provider.getService("Cipher", "AES/GCM/NoPadding") != null)
+        {
+            fail("transformation found after limit");
+        }
+        if (provider.getService("Cipher", "AES") == null)
+        {
+            fail("AES not found");
+        }
+
+        // implementations created through the cache
+        for (int i = 0; i != 3; i++)
+        {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256", provider);
+            if (!areEqual(digest.digest(new byte[1]), Hex.decode("6e340b9cffb37a989ca544e6bb780a2c78901d3fb33738768511a30617afa01d")))
+            {
+                fail("digest mismatch");
+            }
+            Cipher.getInstance("AES/GCM/NoPadding", provider);
+        }
+
+        if (!provider.warmUpServices("Signature", new String[] { "SHA256withRSA", "SHA256withECDSA" }))
+        {
+            fail("warm up failed");
+        }
+        if (provider.warmUpServices("Signature", new String[] { "SHA256withRSA", "NOTASIGNATURE" }))
+        {
+            fail("warm up succeeded for unknown algorithm");
+        }
+
+        // adding to the provider clears the cache
+        if (provider.getService("MessageDigest", "TESTDIGEST") != null)
+        {
+            fail("test digest found");
+        }
+        provider.addAlgorithm("Alg.Alias.MessageDigest.TESTDIGEST", "SHA-256");
+        service = provider.getService("MessageDigest", "TESTDIGEST");
+        if (service == null || !service.getClassName().endsWith("SHA256$Digest"))
+        {
+            fail("added alias not found");
+        }
+        provider.remove("Alg.Alias.MessageDigest.TESTDIGEST");
+        if (provider.getService("MessageDigest", "TESTDIGEST") != null)
+        {
+            fail("removed alias found");
+        }
+    }
+
+    public static void main(
+        String[]    args)
+    {
+        runTest(new ServiceCacheTest());
+    }
+}